@@ -43,4 +43,6 @@ public interface HttpHeaders {
     String X_HERODOTUS_FROM_IN = "X-Herodotus-From-In";
     String X_HERODOTUS_TENANT_ID = "X-Herodotus-Tenant-Id";
     String X_HERODOTUS_OPEN_ID = "X-Herodotus-Open-Id";
+    String X_HERODOTUS_IDEMPOTENT_REPLAYED = "X-Herodotus-Idempotent-Replayed";
+    String IDEMPOTENCY_KEY = "Idempotency-Key";
 }
@@ -26,6 +26,7 @@
 package cn.herodotus.engine.assistant.core.utils;
 
 import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.text.StringEscapeUtils;
 import org.owasp.validator.html.*;
 import org.slf4j.Logger;
@@ -33,9 +34,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * <p>Description: Antisamy 单例 工具类 </p>
+ * <p>
+ * 绝大多数请求参数都是普通文本，经过 Antisamy 清洗后内容不会发生变化。因此清洗之前先逐字符扫描一次，
+ * 不包含 HTML 标记字符，也不包含会被 Antisamy 改写的空白字符时，直接返回原值，不再进行 DOM 解析。
  *
  * @author : gengwei.zheng
  * @date : 2021/8/29 16:15
@@ -44,16 +50,18 @@ public class XssUtils {
 
     private static final Logger log = LoggerFactory.getLogger(XssUtils.class);
 
+    private static final Pattern NEW_LINE = Pattern.compile("\n");
+
     private static volatile XssUtils INSTANCE;
     private final AntiSamy antiSamy;
-    private final String nbsp;
-    private final String quot;
+    private final Pattern nbsp;
+    private final Pattern quot;
 
     private XssUtils() {
         Policy policy = createPolicy();
         this.antiSamy = ObjectUtils.isNotEmpty(policy) ? new AntiSamy(policy) : new AntiSamy();
-        this.nbsp = cleanHtml("&nbsp;");
-        this.quot = cleanHtml("\"");
+        this.nbsp = Pattern.compile(Pattern.quote(cleanHtml("&nbsp;")));
+        this.quot = Pattern.compile(Pattern.quote(cleanHtml("\"")));
     }
 
     private static XssUtils getInstance() {
@@ -97,13 +105,40 @@ public class XssUtils {
         }
     }
 
+    /**
+     * 判断是否为不需要清洗的普通文本。
+     * <p>
+     * 单次遍历，不产生新对象。以下情况需要交给 Antisamy 处理：
+     * 1. 包含 HTML 标记或实体相关的字符："<"、">"、"&"；
+     * 2. 包含除空格以外的控制字符、空白字符或者"&nbsp;"对应的字符，Antisamy 会对其进行改写；
+     * 3. 以空白字符结尾，Antisamy 会去掉结尾的空白。
+     *
+     * @param value 需要判断的值
+     * @return true 普通文本，清洗结果与原值一致
+     */
+    public static boolean isPlainText(CharSequence value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c == '<' || c == '>' || c == '&' || c == '\u00a0' || c < ' ' || c == '\u007f') {
+                return false;
+            }
+        }
+        return length == 0 || !Character.isWhitespace(value.charAt(length - 1));
+    }
+
     public static String cleaning(String taintedHTML) {
+        if (StringUtils.isEmpty(taintedHTML) || isPlainText(taintedHTML)) {
+            return taintedHTML;
+        }
+
+        XssUtils instance = getInstance();
         // 对转义的HTML特殊字符（<、>、"等）进行反转义，因为AntiSamy调用scan方法时会将特殊字符转义
-        String cleanHtml = StringEscapeUtils.unescapeHtml4(getInstance().cleanHtml(taintedHTML));
+        String cleanHtml = StringEscapeUtils.unescapeHtml4(instance.cleanHtml(taintedHTML));
         //AntiSamy会把“&nbsp;”转换成乱码，把双引号转换成"&quot;" 先将&nbsp;的乱码替换为空，双引号的乱码替换为双引号
-        String temp = cleanHtml.replaceAll(getInstance().nbsp, "");
-        temp = temp.replaceAll(getInstance().quot, "\"");
-        String result = temp.replaceAll("\n", "");
+        String temp = instance.nbsp.matcher(cleanHtml).replaceAll("");
+        temp = instance.quot.matcher(temp).replaceAll(Matcher.quoteReplacement("\""));
+        String result = NEW_LINE.matcher(temp).replaceAll("");
         log.trace("[Herodotus] |- After  Antisamy Well Formed, value is: [{}]", result);
         return result;
     }
@@ -41,9 +41,21 @@ public interface CacheConstants extends BaseConstants {
      */
     String PROPERTY_PREFIX_CACHE = PROPERTY_PREFIX_HERODOTUS + ".cache";
 
+    String ITEM_CACHE_INVALIDATION_ENABLED = PROPERTY_PREFIX_CACHE + ".invalidation" + PROPERTY_ENABLED;
+
     /* ---------- Spring 相关基础配置属性（第一层） ---------- */
 
     String PROPERTY_REDIS_REDISSON = PROPERTY_SPRING_REDIS + ".redisson";
 
     String ITEM_REDISSON_ENABLED = PROPERTY_REDIS_REDISSON + PROPERTY_ENABLED;
+
+    /* ---------- 缓存命名空间 ---------- */
+
+    String CACHE_NAMESPACE_PREFIX = CACHE_PREFIX + "namespace:";
+
+    String CACHE_NAMESPACE_GENERATION = CACHE_NAMESPACE_PREFIX + "generation:";
+
+    String CACHE_NAMESPACE_CHANNEL = CACHE_NAMESPACE_PREFIX + "channel";
+
+    String CACHE_INVALIDATION_CHANNEL = CACHE_PREFIX + "invalidation:channel";
 }
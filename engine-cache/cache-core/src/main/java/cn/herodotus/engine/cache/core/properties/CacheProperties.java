@@ -29,6 +29,7 @@ import cn.herodotus.engine.cache.core.constants.CacheConstants;
 import com.google.common.base.MoreObjects;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -59,6 +60,11 @@ public class CacheProperties extends Expire {
      */
     private Map<String, Expire> expires = new HashMap<>();
 
+    /**
+     * 本地缓存跨节点失效通知配置
+     */
+    private Invalidation invalidation = new Invalidation();
+
     public Boolean getAllowNullValues() {
         return allowNullValues;
     }
@@ -83,6 +89,14 @@ public class CacheProperties extends Expire {
         this.separator = separator;
     }
 
+    public Invalidation getInvalidation() {
+        return invalidation;
+    }
+
+    public void setInvalidation(Invalidation invalidation) {
+        this.invalidation = invalidation;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -90,4 +104,55 @@ public class CacheProperties extends Expire {
                 .add("separator", separator)
                 .toString();
     }
+
+    public static class Invalidation {
+
+        /**
+         * 是否开启本地缓存跨节点失效通知，默认开启
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 失效通知合并发送的时间间隔，默认 20 毫秒
+         */
+        private Duration interval = Duration.ofMillis(20);
+
+        /**
+         * 单个批次最多包含的 Key 数量，待发送的 Key 达到该数量时立即发送，默认 500
+         */
+        private Integer batchSize = 500;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("enabled", enabled)
+                    .add("interval", interval)
+                    .add("batchSize", batchSize)
+                    .toString();
+        }
+    }
 }
@@ -27,22 +27,33 @@ package cn.herodotus.engine.cache.jetcache.configuration;
 
 import cn.herodotus.engine.cache.caffeine.configuration.CaffeineConfiguration;
 import cn.herodotus.engine.cache.core.properties.CacheProperties;
+import cn.herodotus.engine.cache.core.constants.CacheConstants;
+import cn.herodotus.engine.cache.jetcache.enhance.CacheNamespaceManager;
 import cn.herodotus.engine.cache.jetcache.enhance.HerodotusCacheManager;
 import cn.herodotus.engine.cache.jetcache.enhance.JetCacheCreateCacheFactory;
+import cn.herodotus.engine.cache.jetcache.invalidation.CacheInvalidationBus;
+import cn.herodotus.engine.cache.jetcache.invalidation.InvalidationBroadcaster;
+import cn.herodotus.engine.cache.jetcache.invalidation.RedisInvalidationBroadcaster;
+import cn.herodotus.engine.cache.jetcache.stamp.RedisStampCounter;
 import cn.herodotus.engine.cache.jetcache.utils.JetCacheUtils;
 import cn.herodotus.engine.cache.redis.configuration.CacheRedisConfiguration;
 import com.alicp.jetcache.CacheManager;
 import com.alicp.jetcache.autoconfigure.JetCacheAutoConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 
 import javax.annotation.PostConstruct;
 
@@ -67,22 +78,59 @@ public class JetCacheConfiguration {
         log.debug("[Herodotus] |- SDK [Cache JetCache] Auto Configure.");
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = CacheConstants.ITEM_CACHE_INVALIDATION_ENABLED, havingValue = "true", matchIfMissing = true)
+    public InvalidationBroadcaster invalidationBroadcaster(StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer redisMessageListenerContainer) {
+        RedisInvalidationBroadcaster redisInvalidationBroadcaster = new RedisInvalidationBroadcaster(stringRedisTemplate, CacheConstants.CACHE_INVALIDATION_CHANNEL);
+        redisMessageListenerContainer.addMessageListener(redisInvalidationBroadcaster, new ChannelTopic(CacheConstants.CACHE_INVALIDATION_CHANNEL));
+        log.trace("[Herodotus] |- Bean [Redis Invalidation Broadcaster] Auto Configure.");
+        return redisInvalidationBroadcaster;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(name = CacheConstants.ITEM_CACHE_INVALIDATION_ENABLED, havingValue = "true", matchIfMissing = true)
+    public CacheInvalidationBus cacheInvalidationBus(InvalidationBroadcaster invalidationBroadcaster, CacheProperties cacheProperties) {
+        CacheInvalidationBus cacheInvalidationBus = new CacheInvalidationBus(invalidationBroadcaster, cacheProperties.getInvalidation());
+        log.trace("[Herodotus] |- Bean [Cache Invalidation Bus] Auto Configure.");
+        return cacheInvalidationBus;
+    }
+
     @Bean
     @ConditionalOnClass(CacheManager.class)
-    public JetCacheCreateCacheFactory jetCacheCreateCacheFactory(CacheManager jcCacheManager) {
+    public JetCacheCreateCacheFactory jetCacheCreateCacheFactory(CacheManager jcCacheManager, ObjectProvider<CacheInvalidationBus> cacheInvalidationBus) {
         JetCacheCreateCacheFactory factory = new JetCacheCreateCacheFactory(jcCacheManager);
+        cacheInvalidationBus.ifAvailable(factory::setCacheInvalidationBus);
         JetCacheUtils.setJetCacheCreateCacheFactory(factory);
         log.trace("[Herodotus] |- Bean [Jet Cache Create Cache Factory] Auto Configure.");
         return factory;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    public CacheNamespaceManager cacheNamespaceManager(StringRedisTemplate stringRedisTemplate, RedisMessageListenerContainer redisMessageListenerContainer) {
+        CacheNamespaceManager cacheNamespaceManager = new CacheNamespaceManager(stringRedisTemplate);
+        redisMessageListenerContainer.addMessageListener(cacheNamespaceManager, new ChannelTopic(CacheConstants.CACHE_NAMESPACE_CHANNEL));
+        log.trace("[Herodotus] |- Bean [Cache Namespace Manager] Auto Configure.");
+        return cacheNamespaceManager;
+    }
+
     @Bean
     @Primary
     @ConditionalOnMissingBean
-    public HerodotusCacheManager herodotusCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheProperties cacheProperties) {
-        HerodotusCacheManager herodotusCacheManager = new HerodotusCacheManager(jetCacheCreateCacheFactory, cacheProperties);
+    public HerodotusCacheManager herodotusCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheProperties cacheProperties, CacheNamespaceManager cacheNamespaceManager) {
+        HerodotusCacheManager herodotusCacheManager = new HerodotusCacheManager(jetCacheCreateCacheFactory, cacheNamespaceManager, cacheProperties);
         herodotusCacheManager.setAllowNullValues(cacheProperties.getAllowNullValues());
         log.trace("[Herodotus] |- Bean [Jet Cache Herodotus Cache Manager] Auto Configure.");
         return herodotusCacheManager;
     }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisStampCounter redisStampCounter(StringRedisTemplate stringRedisTemplate) {
+        RedisStampCounter redisStampCounter = new RedisStampCounter(stringRedisTemplate);
+        log.trace("[Herodotus] |- Bean [Redis Stamp Counter] Auto Configure.");
+        return redisStampCounter;
+    }
 }
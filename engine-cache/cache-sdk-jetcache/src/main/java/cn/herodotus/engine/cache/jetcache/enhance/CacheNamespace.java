@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.enhance;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Description: 缓存命名空间 </p>
+ * <p>
+ * 每个缓存对应一个命名空间，命名空间代数混入所有的缓存 Key 中。清空缓存时只需要将代数加一，
+ * 本地缓存和远程缓存中旧代数的数据即全部失效，清空操作的代价与缓存中的数据量无关。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/17 10:20
+ */
+public class CacheNamespace {
+
+    /**
+     * 从 Redis 同步代数失败后，再次尝试的最小间隔
+     */
+    private static final long RESYNC_INTERVAL_MILLIS = 1000L;
+
+    private final String name;
+    private final CacheNamespaceManager cacheNamespaceManager;
+    private final AtomicLong generation;
+    /**
+     * 当前代数下写入的数据条数估算值，代数变化时归零
+     */
+    private final LongAdder size = new LongAdder();
+    /**
+     * 下一次从 Redis 同步代数的时间，小于 0 表示不需要同步
+     */
+    private final AtomicLong resyncAfter = new AtomicLong(-1L);
+
+    CacheNamespace(String name, long generation, CacheNamespaceManager cacheNamespaceManager) {
+        this.name = name;
+        this.generation = new AtomicLong(generation);
+        this.cacheNamespaceManager = cacheNamespaceManager;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * 将业务 Key 转换为带有当前代数的缓存 Key
+     *
+     * @param key 业务 Key
+     * @return {@link NamespaceKey}
+     */
+    public NamespaceKey wrap(Object key) {
+        long after = resyncAfter.get();
+        if (after >= 0) {
+            resync(after);
+        }
+        return new NamespaceKey(generation.get(), key);
+    }
+
+    private void resync(long after) {
+        long now = System.currentTimeMillis();
+        long next = now + RESYNC_INTERVAL_MILLIS;
+        // 同一时刻只有一个线程同步，失败后间隔一段时间再试，避免 Redis 不可用时每次读取都访问 Redis
+        if (now >= after && resyncAfter.compareAndSet(after, next)) {
+            if (cacheNamespaceManager.resync(this)) {
+                resyncAfter.compareAndSet(next, -1L);
+            }
+        }
+    }
+
+    /**
+     * 标记本地代数可能落后于 Redis，下次读取时重新同步
+     */
+    void markStale() {
+        resyncAfter.set(0L);
+    }
+
+    /**
+     * 清空当前命名空间，并通知其它节点
+     */
+    public void clear() {
+        cacheNamespaceManager.clear(this);
+    }
+
+    /**
+     * 将代数推进到指定值。只会前进不会后退，重复或者乱序到达的通知不会产生影响
+     *
+     * @param target 目标代数
+     * @return 代数是否发生变化
+     */
+    boolean advance(long target) {
+        long current;
+        do {
+            current = generation.get();
+            if (target <= current) {
+                return false;
+            }
+        } while (!generation.compareAndSet(current, target));
+
+        size.reset();
+        return true;
+    }
+
+    /**
+     * 本地推进一个代数，用于没有远程存储的情况
+     *
+     * @return 新的代数
+     */
+    long next() {
+        long result = generation.incrementAndGet();
+        size.reset();
+        return result;
+    }
+
+    public void increment() {
+        size.increment();
+    }
+
+    public void decrement() {
+        size.decrement();
+    }
+
+    /**
+     * 当前代数下的数据条数估算值
+     *
+     * @return 数据条数
+     */
+    public long getSize() {
+        return Math.max(size.sum(), 0L);
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.enhance;
+
+import cn.herodotus.engine.assistant.core.definition.constants.SymbolConstants;
+import cn.herodotus.engine.cache.core.constants.CacheConstants;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Description: 缓存命名空间管理器 </p>
+ * <p>
+ * 命名空间代数以 Redis 中的计数为准，各节点在本地保存一份副本：
+ * 1. 创建命名空间时读取 Redis 中的代数。
+ * 2. 清空缓存时使用 INCR 推进代数，并通过 Redis 发布订阅通知其它节点。
+ * 3. 收到通知的节点将本地代数推进到通知中的值，旧代数的数据在所有节点同时失效。
+ * <p>
+ * 读取或者推进 Redis 中的代数失败时，不在本地自行推进代数，否则本地代数会超过 Redis 中的代数，在 Redis 追上之前会忽略其它节点的清空通知。
+ * 此时保持当前代数不变，在之后读取缓存时重新从 Redis 同步代数。
+ * <p>
+ * 没有 Redis 时只在本地推进代数。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/17 10:35
+ */
+public class CacheNamespaceManager implements MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheNamespaceManager.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Map<String, CacheNamespace> namespaces = new ConcurrentHashMap<>();
+
+    public CacheNamespaceManager() {
+        this(null);
+    }
+
+    public CacheNamespaceManager(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    /**
+     * 获取缓存对应的命名空间，不存在则创建
+     *
+     * @param name 缓存名称
+     * @return {@link CacheNamespace}
+     */
+    public CacheNamespace getNamespace(String name) {
+        return namespaces.computeIfAbsent(name, this::createNamespace);
+    }
+
+    private CacheNamespace createNamespace(String name) {
+        Long generation = loadGeneration(name);
+        CacheNamespace namespace = new CacheNamespace(name, ObjectUtils.isNotEmpty(generation) ? generation : 0L, this);
+        if (ObjectUtils.isEmpty(generation)) {
+            namespace.markStale();
+        }
+        return namespace;
+    }
+
+    private String getGenerationKey(String name) {
+        return CacheConstants.CACHE_NAMESPACE_GENERATION + name;
+    }
+
+    /**
+     * 读取 Redis 中的代数
+     *
+     * @param name 缓存名称
+     * @return 代数，读取失败时返回 null
+     */
+    private Long loadGeneration(String name) {
+        if (ObjectUtils.isEmpty(stringRedisTemplate)) {
+            return 0L;
+        }
+
+        try {
+            String value = stringRedisTemplate.opsForValue().get(getGenerationKey(name));
+            return NumberUtils.toLong(value, 0L);
+        } catch (Exception e) {
+            log.warn("[Herodotus] |- CACHE - Load generation of cache [{}] failed, will resync later.", name, e);
+            return null;
+        }
+    }
+
+    /**
+     * 从 Redis 重新同步代数
+     *
+     * @param namespace {@link CacheNamespace}
+     * @return 是否同步成功
+     */
+    boolean resync(CacheNamespace namespace) {
+        Long generation = loadGeneration(namespace.getName());
+        if (ObjectUtils.isEmpty(generation)) {
+            return false;
+        }
+
+        if (namespace.advance(generation)) {
+            log.debug("[Herodotus] |- CACHE - Cache [{}] is resynced, generation is [{}].", namespace.getName(), generation);
+        }
+        return true;
+    }
+
+    void clear(CacheNamespace namespace) {
+        String name = namespace.getName();
+
+        if (ObjectUtils.isEmpty(stringRedisTemplate)) {
+            long generation = namespace.next();
+            log.debug("[Herodotus] |- CACHE - Cache [{}] is cleared locally, generation is [{}].", name, generation);
+            return;
+        }
+
+        Long generation;
+        try {
+            generation = stringRedisTemplate.opsForValue().increment(getGenerationKey(name));
+        } catch (Exception e) {
+            log.error("[Herodotus] |- CACHE - Increase generation of cache [{}] failed, will resync later.", name, e);
+            namespace.markStale();
+            return;
+        }
+
+        if (ObjectUtils.isEmpty(generation)) {
+            namespace.markStale();
+            return;
+        }
+
+        namespace.advance(generation);
+        try {
+            stringRedisTemplate.convertAndSend(CacheConstants.CACHE_NAMESPACE_CHANNEL, generation + SymbolConstants.COLON + name);
+        } catch (Exception e) {
+            log.error("[Herodotus] |- CACHE - Publish generation of cache [{}] failed.", name, e);
+        }
+        log.debug("[Herodotus] |- CACHE - Cache [{}] is cleared, generation is [{}].", name, generation);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String body = new String(message.getBody(), StandardCharsets.UTF_8);
+        String generation = StringUtils.substringBefore(body, SymbolConstants.COLON);
+        String name = StringUtils.substringAfter(body, SymbolConstants.COLON);
+
+        CacheNamespace namespace = namespaces.get(name);
+        if (ObjectUtils.isNotEmpty(namespace) && NumberUtils.isDigits(generation)) {
+            if (namespace.advance(Long.parseLong(generation))) {
+                log.debug("[Herodotus] |- CACHE - Cache [{}] is cleared by remote, generation is [{}].", name, generation);
+            }
+        }
+    }
+}
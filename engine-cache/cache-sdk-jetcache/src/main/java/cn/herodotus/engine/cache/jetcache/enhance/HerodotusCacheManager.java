@@ -54,6 +54,12 @@ public class HerodotusCacheManager extends JetCacheSpringCacheManager {
         this.setAllowNullValues(cacheProperties.getAllowNullValues());
     }
 
+    public HerodotusCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheNamespaceManager cacheNamespaceManager, CacheProperties cacheProperties) {
+        super(jetCacheCreateCacheFactory, cacheNamespaceManager);
+        this.cacheProperties = cacheProperties;
+        this.setAllowNullValues(cacheProperties.getAllowNullValues());
+    }
+
     public HerodotusCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheProperties cacheProperties, String... cacheNames) {
         super(jetCacheCreateCacheFactory, cacheNames);
         this.cacheProperties = cacheProperties;
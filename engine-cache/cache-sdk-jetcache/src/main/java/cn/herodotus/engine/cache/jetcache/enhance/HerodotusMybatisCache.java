@@ -30,10 +30,10 @@ import org.apache.ibatis.cache.Cache;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.atomic.AtomicInteger;
-
 /**
  * <p>Description: 扩展的Mybatis二级缓存 </p>
+ * <p>
+ * 所有的 Key 都会混入 {@link CacheNamespace} 的代数，{@link #clear()} 通过推进代数使全部数据失效。
  *
  * @author : gengwei.zheng
  * @date : 2021/10/26 17:02
@@ -44,12 +44,14 @@ public class HerodotusMybatisCache implements Cache {
 
     private final String id;
     private final com.alicp.jetcache.Cache<Object, Object> cache;
-    private final AtomicInteger counter = new AtomicInteger(0);
+    private final CacheNamespace cacheNamespace;
 
     public HerodotusMybatisCache(String id) {
         this.id = id;
         JetCacheCreateCacheFactory jetCacheCreateCacheFactory = SpringUtil.getBean("jetCacheCreateCacheFactory");
         this.cache = jetCacheCreateCacheFactory.create(this.id);
+        CacheNamespaceManager cacheNamespaceManager = SpringUtil.getBean("cacheNamespaceManager");
+        this.cacheNamespace = cacheNamespaceManager.getNamespace(this.id);
     }
 
     @Override
@@ -59,34 +61,37 @@ public class HerodotusMybatisCache implements Cache {
 
     @Override
     public void putObject(Object key, Object value) {
-        cache.put(key, value);
-        counter.incrementAndGet();
+        cache.put(cacheNamespace.wrap(key), value);
+        cacheNamespace.increment();
         log.debug("[Herodotus] |- CACHE - Put data into Mybatis Cache, with key: [{}]", key);
     }
 
     @Override
     public Object getObject(Object key) {
-        Object obj = cache.get(key);
+        Object obj = cache.get(cacheNamespace.wrap(key));
         log.debug("[Herodotus] |- CACHE - Get data from Mybatis Cache, with key: [{}]", key);
         return obj;
     }
 
     @Override
     public Object removeObject(Object key) {
-        Object obj = cache.remove(key);
-        counter.decrementAndGet();
+        NamespaceKey namespaceKey = cacheNamespace.wrap(key);
+        Object obj = cache.get(namespaceKey);
+        if (cache.remove(namespaceKey)) {
+            cacheNamespace.decrement();
+        }
         log.debug("[Herodotus] |- CACHE - Remove data from Mybatis Cache, with key: [{}]", key);
         return obj;
     }
 
     @Override
     public void clear() {
-        cache.close();
+        cacheNamespace.clear();
         log.debug("[Herodotus] |- CACHE - Clear Mybatis Cache.");
     }
 
     @Override
     public int getSize() {
-        return counter.get();
+        return (int) Math.min(cacheNamespace.getSize(), Integer.MAX_VALUE);
     }
 }
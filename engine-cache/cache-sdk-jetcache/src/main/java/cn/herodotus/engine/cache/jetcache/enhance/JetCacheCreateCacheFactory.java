@@ -25,9 +25,12 @@
 
 package cn.herodotus.engine.cache.jetcache.enhance;
 
+import cn.herodotus.engine.cache.jetcache.invalidation.CacheInvalidationBus;
 import com.alicp.jetcache.Cache;
 import com.alicp.jetcache.CacheManager;
+import com.alicp.jetcache.SimpleCacheManager;
 import com.alicp.jetcache.anno.CacheType;
+import com.alicp.jetcache.template.CacheBuilderTemplate;
 import com.alicp.jetcache.template.QuickConfig;
 import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.ObjectUtils;
@@ -37,6 +40,11 @@ import java.time.Duration;
 
 /**
  * <p>Description: JetCache 手动创建Cache 工厂 </p>
+ * <p>
+ * 设置 {@link CacheInvalidationBus} 后，开启 syncLocal 的两级缓存在创建过程中注册到总线，
+ * 写入和删除数据时通知其它节点删除本地缓存中的旧数据。
+ * 未指定 syncLocal 的两级缓存默认开启，Spring Cache、Hibernate 二级缓存和 Mybatis 缓存都通过这些方法创建，需要在多节点之间保持一致。
+ * 不需要跨节点失效的缓存，显式传入 syncLocal 为 false。
  *
  * @author : gengwei.zheng
  * @date : 2022/7/23 10:49
@@ -45,10 +53,22 @@ public class JetCacheCreateCacheFactory {
 
     private final CacheManager cacheManager;
 
+    private CacheInvalidationBus cacheInvalidationBus;
+
     public JetCacheCreateCacheFactory(CacheManager cacheManager) {
         this.cacheManager = cacheManager;
     }
 
+    public void setCacheInvalidationBus(CacheInvalidationBus cacheInvalidationBus) {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        if (cacheManager instanceof SimpleCacheManager) {
+            CacheBuilderTemplate template = ((SimpleCacheManager) cacheManager).getCacheBuilderTemplate();
+            if (ObjectUtils.isNotEmpty(template) && !template.getCacheMonitorInstallers().contains(cacheInvalidationBus)) {
+                template.getCacheMonitorInstallers().add(cacheInvalidationBus);
+            }
+        }
+    }
+
     public <K, V> Cache<K, V> create(String name) {
         return create(name, Duration.ofHours(2L));
     }
@@ -58,7 +78,7 @@ public class JetCacheCreateCacheFactory {
     }
 
     public <K, V> Cache<K, V> create(String name, Duration expire, Boolean cacheNullValue) {
-        return create(name, expire, cacheNullValue, null);
+        return create(name, expire, cacheNullValue, true);
     }
 
     public <K, V> Cache<K, V> create(String name, Duration expire, Boolean cacheNullValue, Boolean syncLocal) {
@@ -74,7 +94,7 @@ public class JetCacheCreateCacheFactory {
     }
 
     public <K, V> Cache<K, V> create(String name, CacheType cacheType, Duration expire, Boolean cacheNullValue) {
-        return create(name, cacheType, expire, cacheNullValue, null);
+        return create(name, cacheType, expire, cacheNullValue, true);
     }
 
     public <K, V> Cache<K, V> create(String name, CacheType cacheType, Duration expire, Boolean cacheNullValue, Boolean syncLocal) {
@@ -26,6 +26,7 @@
 package cn.herodotus.engine.cache.jetcache.enhance;
 
 import cn.herodotus.engine.assistant.core.json.jackson2.utils.JacksonUtils;
+import cn.hutool.extra.spring.SpringUtil;
 import com.alicp.jetcache.Cache;
 import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
@@ -37,6 +38,9 @@ import java.util.concurrent.Callable;
 
 /**
  * <p>Description: 基于 JetCache 的 Spring Cache 扩展 </p>
+ * <p>
+ * 所有的 Key 都会混入 {@link CacheNamespace} 的代数，{@link #clear()} 通过推进代数使全部数据失效。
+ * 命名空间必须来自共享的 {@link CacheNamespaceManager}，代数保存在 Redis 中并通知其它节点，否则 {@link #clear()} 只对当前节点生效。
  *
  * @author : gengwei.zheng
  * @date : 2022/7/23 11:11
@@ -47,11 +51,17 @@ public class JetCacheSpringCache extends AbstractValueAdaptingCache {
 
     private final String cacheName;
     private final Cache<Object, Object> cache;
+    private final CacheNamespace cacheNamespace;
 
     public JetCacheSpringCache(String cacheName, Cache<Object, Object> cache, boolean allowNullValues) {
+        this(cacheName, cache, allowNullValues, SpringUtil.getBean(CacheNamespaceManager.class).getNamespace(cacheName));
+    }
+
+    public JetCacheSpringCache(String cacheName, Cache<Object, Object> cache, boolean allowNullValues, CacheNamespace cacheNamespace) {
         super(allowNullValues);
         this.cacheName = cacheName;
         this.cache = cache;
+        this.cacheNamespace = cacheNamespace;
     }
 
     @Override
@@ -67,7 +77,7 @@ public class JetCacheSpringCache extends AbstractValueAdaptingCache {
     @Override
     @Nullable
     protected Object lookup(Object key) {
-        Object value = cache.get(key);
+        Object value = cache.get(cacheNamespace.wrap(key));
         if (ObjectUtils.isNotEmpty(value)) {
             log.trace("[Herodotus] |- CACHE - Lookup data in herodotus cache, value is : [{}]", JacksonUtils.toJson(value));
             return value;
@@ -83,9 +93,11 @@ public class JetCacheSpringCache extends AbstractValueAdaptingCache {
 
         log.trace("[Herodotus] |- CACHE - Get data in herodotus cache, key: {}", key);
 
-        return (T) fromStoreValue(cache.computeIfAbsent(key, k -> {
+        return (T) fromStoreValue(cache.computeIfAbsent(cacheNamespace.wrap(key), k -> {
             try {
-                return toStoreValue(valueLoader.call());
+                Object value = toStoreValue(valueLoader.call());
+                cacheNamespace.increment();
+                return value;
             }
             catch (Throwable ex) {
                 throw new ValueRetrievalException(key, valueLoader, ex);
@@ -97,7 +109,8 @@ public class JetCacheSpringCache extends AbstractValueAdaptingCache {
     @Nullable
     public void put(Object key, @Nullable Object value) {
         log.trace("[Herodotus] |- CACHE - Put data in herodotus cache, key: {}", key);
-        cache.put(key, this.toStoreValue(value));
+        cache.put(cacheNamespace.wrap(key), this.toStoreValue(value));
+        cacheNamespace.increment();
     }
 
 
@@ -105,25 +118,42 @@ public class JetCacheSpringCache extends AbstractValueAdaptingCache {
     @Nullable
     public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
         log.trace("[Herodotus] |- CACHE - PutIfPresent data in herodotus cache, key: {}", key);
-        Object existing = cache.putIfAbsent(key, toStoreValue(value));
-        return toValueWrapper(existing);
+        NamespaceKey namespaceKey = cacheNamespace.wrap(key);
+        if (cache.putIfAbsent(namespaceKey, toStoreValue(value))) {
+            cacheNamespace.increment();
+            return null;
+        }
+        return toValueWrapper(cache.get(namespaceKey));
     }
 
     @Override
     public void evict(Object key) {
         log.trace("[Herodotus] |- CACHE - Evict data in herodotus cache, key: {}", key);
-        cache.remove(key);
+        evictIfPresent(key);
     }
 
     @Override
     public boolean evictIfPresent(Object key) {
         log.trace("[Herodotus] |- CACHE - EvictIfPresent data in herodotus cache, key: {}", key);
-        return cache.remove(key);
+        boolean result = cache.remove(cacheNamespace.wrap(key));
+        if (result) {
+            cacheNamespace.decrement();
+        }
+        return result;
     }
 
     @Override
     public void clear() {
         log.trace("[Herodotus] |- CACHE - Clear data in herodotus cache.");
-        cache.close();
+        cacheNamespace.clear();
+    }
+
+    /**
+     * 当前缓存数据条数的估算值
+     *
+     * @return 数据条数
+     */
+    public long estimatedSize() {
+        return cacheNamespace.getSize();
     }
 }
@@ -26,6 +26,7 @@
 package cn.herodotus.engine.cache.jetcache.enhance;
 
 import cn.herodotus.engine.assistant.core.definition.constants.SymbolConstants;
+import cn.hutool.extra.spring.SpringUtil;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -57,12 +58,24 @@ public class JetCacheSpringCacheManager implements CacheManager {
 
     private final JetCacheCreateCacheFactory jetCacheCreateCacheFactory;
 
+    private CacheNamespaceManager cacheNamespaceManager;
+
     public JetCacheSpringCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory) {
+        this(jetCacheCreateCacheFactory, SpringUtil.getBean(CacheNamespaceManager.class));
+    }
+
+    public JetCacheSpringCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheNamespaceManager cacheNamespaceManager) {
         this.jetCacheCreateCacheFactory = jetCacheCreateCacheFactory;
+        this.cacheNamespaceManager = cacheNamespaceManager;
     }
 
     public JetCacheSpringCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, String... cacheNames) {
+        this(jetCacheCreateCacheFactory, SpringUtil.getBean(CacheNamespaceManager.class), cacheNames);
+    }
+
+    public JetCacheSpringCacheManager(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheNamespaceManager cacheNamespaceManager, String... cacheNames) {
         this.jetCacheCreateCacheFactory = jetCacheCreateCacheFactory;
+        this.cacheNamespaceManager = cacheNamespaceManager;
         setCacheNames(Arrays.asList(cacheNames));
     }
 
@@ -74,6 +87,14 @@ public class JetCacheSpringCacheManager implements CacheManager {
         return allowNullValues;
     }
 
+    public void setCacheNamespaceManager(CacheNamespaceManager cacheNamespaceManager) {
+        this.cacheNamespaceManager = cacheNamespaceManager;
+    }
+
+    public CacheNamespaceManager getCacheNamespaceManager() {
+        return cacheNamespaceManager;
+    }
+
     private void setCacheNames(@Nullable Collection<String> cacheNames) {
         if (cacheNames != null) {
             for (String name : cacheNames) {
@@ -88,13 +109,13 @@ public class JetCacheSpringCacheManager implements CacheManager {
     protected Cache createJetCache(String name) {
         com.alicp.jetcache.Cache<Object, Object> cache = jetCacheCreateCacheFactory.create(name);
         log.debug("[Herodotus] |- CACHE - Herodotus cache [{}] is CREATED.", name);
-        return new JetCacheSpringCache(name, cache, allowNullValues);
+        return new JetCacheSpringCache(name, cache, allowNullValues, cacheNamespaceManager.getNamespace(name));
     }
 
     protected Cache createJetCache(String name, Duration expire) {
         com.alicp.jetcache.Cache<Object, Object> cache = jetCacheCreateCacheFactory.create(name, expire, allowNullValues, true);
         log.debug("[Herodotus] |- CACHE - Herodotus cache [{}] with expire is CREATED.", name);
-        return new JetCacheSpringCache(name, cache, allowNullValues);
+        return new JetCacheSpringCache(name, cache, allowNullValues, cacheNamespaceManager.getNamespace(name));
     }
 
     private String availableCacheName(String name) {
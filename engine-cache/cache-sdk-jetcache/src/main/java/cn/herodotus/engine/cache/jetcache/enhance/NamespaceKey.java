@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.enhance;
+
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+
+import java.io.Serializable;
+
+/**
+ * <p>Description: 带有命名空间代数的缓存 Key </p>
+ * <p>
+ * 实际写入 JetCache 本地和远程缓存的 Key。命名空间代数变化后，旧代数的 Key 不再被访问，由缓存过期策略自然淘汰。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/17 10:12
+ */
+public final class NamespaceKey implements Serializable {
+
+    private long generation;
+
+    private Object key;
+
+    public NamespaceKey() {
+    }
+
+    public NamespaceKey(long generation, Object key) {
+        this.generation = generation;
+        this.key = key;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public void setGeneration(long generation) {
+        this.generation = generation;
+    }
+
+    public Object getKey() {
+        return key;
+    }
+
+    public void setKey(Object key) {
+        this.key = key;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        NamespaceKey that = (NamespaceKey) o;
+        return generation == that.generation && Objects.equal(key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(generation, key);
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("generation", generation)
+                .add("key", key)
+                .toString();
+    }
+}
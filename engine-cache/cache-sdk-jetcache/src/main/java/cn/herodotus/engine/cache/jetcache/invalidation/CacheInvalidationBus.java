@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.invalidation;
+
+import cn.herodotus.engine.assistant.core.definition.constants.SymbolConstants;
+import cn.herodotus.engine.cache.core.properties.CacheProperties;
+import cn.hutool.core.util.IdUtil;
+import com.alicp.jetcache.AbstractCache;
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.CacheManager;
+import com.alicp.jetcache.CacheMonitor;
+import com.alicp.jetcache.CacheUtil;
+import com.alicp.jetcache.MultiLevelCache;
+import com.alicp.jetcache.anno.CacheConsts;
+import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.support.CacheNotifyMonitor;
+import com.alicp.jetcache.template.CacheMonitorInstaller;
+import com.alicp.jetcache.template.QuickConfig;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Description: 本地缓存跨节点失效总线 </p>
+ * <p>
+ * 两级缓存（{@link com.alicp.jetcache.anno.CacheType#BOTH}）写入或者删除数据后，其它节点的本地缓存中仍然是旧数据。
+ * 总线负责将失效的 Key 通知到其它节点，使本地缓存可以放心地使用较长的过期时间：
+ * 1. 合并：同一个缓存同一个 Key 在发送之前多次失效，只发送一次。
+ * 2. 批量：按照固定的时间间隔发送，待发送的 Key 达到批次大小时立即发送，每个批次只有一次网络往返。
+ * 3. 去重：每个节点有唯一的标识，收到自己发出的通知直接忽略。
+ * 4. 延迟：记录每个缓存从失效发生到其它节点完成本地删除的时间。
+ * <p>
+ * 总线以 {@link CacheMonitorInstaller} 的方式安装到 JetCache，失效监听在缓存创建过程中完成添加。
+ * 只传输 String 类型的 Key（JetCache 默认的 KeyConvertor 会将 Key 转换为 String），其它类型的 Key 不做通知。
+ * 传输通道通过 {@link InvalidationBroadcaster} 扩展。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/18 10:40
+ */
+public class CacheInvalidationBus implements CacheMonitorInstaller, InitializingBean, DisposableBean, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidationBus.class);
+
+    private static final String METRIC_PREFIX = "herodotus.cache.invalidation";
+
+    private final InvalidationBroadcaster invalidationBroadcaster;
+    private final CacheProperties.Invalidation invalidation;
+    private final String sourceId = IdUtil.fastSimpleUUID();
+
+    /**
+     * 本节点已经注册的本地缓存
+     */
+    private final Map<String, AbstractEmbeddedCache<Object, Object>> localCaches = new ConcurrentHashMap<>();
+
+    /**
+     * 待发送的失效 Key，由 pendingLock 保护
+     */
+    private final Object pendingLock = new Object();
+    private Map<String, Pending> pending = new HashMap<>();
+    private volatile int pendingSize;
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+
+    private final LongAdder publishedBatches = new LongAdder();
+    private final LongAdder publishedKeys = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder coalescedKeys = new LongAdder();
+    private final LongAdder receivedKeys = new LongAdder();
+    private final Map<String, AtomicLong> lastLags = new ConcurrentHashMap<>();
+    private final Map<String, Timer> lagTimers = new ConcurrentHashMap<>();
+    private volatile MeterRegistry meterRegistry;
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    public CacheInvalidationBus(InvalidationBroadcaster invalidationBroadcaster, CacheProperties.Invalidation invalidation) {
+        this.invalidationBroadcaster = invalidationBroadcaster;
+        this.invalidation = invalidation;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.invalidationBroadcaster.subscribe(this::receive);
+
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setPoolSize(1);
+        this.taskScheduler.setThreadNamePrefix("herodotus-cache-invalidation-");
+        this.taskScheduler.setDaemon(true);
+        this.taskScheduler.initialize();
+        this.taskScheduler.scheduleWithFixedDelay(this::flush, invalidation.getInterval());
+        log.debug("[Herodotus] |- CACHE - Cache invalidation bus [{}] started, interval is [{}].", sourceId, invalidation.getInterval());
+    }
+
+    @Override
+    public void destroy() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+        flush();
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    /**
+     * 在 JetCache 创建缓存的过程中为两级缓存安装失效监听，此时缓存尚未发布给其它线程使用。
+     * 只对开启 syncLocal 且本地缓存为内存缓存的 {@link MultiLevelCache} 有效。
+     * <p>
+     * 如果已经配置了 JetCache 自带的 broadcastChannel，则保留 JetCache 自带的通知机制，不再重复安装。
+     *
+     * @param cacheManager {@link CacheManager}
+     * @param cache        正在创建的缓存
+     * @param quickConfig  {@link QuickConfig}
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public void addMonitors(CacheManager cacheManager, Cache cache, QuickConfig quickConfig) {
+        if (!BooleanUtils.isTrue(quickConfig.getSyncLocal())) {
+            return;
+        }
+
+        AbstractCache<?, ?> abstractCache = CacheUtil.getAbstractCache(cache);
+        if (!(abstractCache instanceof MultiLevelCache)) {
+            return;
+        }
+
+        Cache<?, ?>[] caches = ((MultiLevelCache<?, ?>) abstractCache).caches();
+        AbstractCache<?, ?> local = CacheUtil.getAbstractCache(caches[0]);
+        if (!(local instanceof AbstractEmbeddedCache)) {
+            return;
+        }
+
+        String identity = toIdentity(quickConfig.getArea(), quickConfig.getName());
+        List<CacheMonitor> monitors = cache.config().getMonitors();
+        if (monitors.stream().anyMatch(monitor -> monitor instanceof CacheNotifyMonitor)) {
+            log.debug("[Herodotus] |- CACHE - Cache [{}] already use JetCache broadcast channel, skip.", identity);
+            return;
+        }
+
+        AbstractEmbeddedCache<Object, Object> localCache = (AbstractEmbeddedCache<Object, Object>) local;
+        monitors.add(new InvalidationMonitor(identity, localCache, this));
+        localCaches.put(identity, localCache);
+        log.debug("[Herodotus] |- CACHE - Cache [{}] is registered to invalidation bus.", identity);
+    }
+
+    private String toIdentity(String area, String name) {
+        String usedArea = StringUtils.isNotBlank(area) ? area : CacheConsts.DEFAULT_AREA;
+        return usedArea + SymbolConstants.FORWARD_SLASH + name;
+    }
+
+    /**
+     * 登记需要通知其它节点的失效 Key，等待合并发送
+     *
+     * @param cache 缓存标识
+     * @param keys  经过本地缓存 KeyConvertor 转换后的 Key
+     */
+    void invalidate(String cache, Set<String> keys) {
+        boolean full;
+        synchronized (pendingLock) {
+            Pending current = pending.computeIfAbsent(cache, key -> new Pending());
+            int added = 0;
+            for (String key : keys) {
+                if (current.keys.add(key)) {
+                    added++;
+                } else {
+                    coalescedKeys.increment();
+                }
+            }
+            pendingSize += added;
+            full = pendingSize >= invalidation.getBatchSize();
+        }
+
+        if (full && ObjectUtils.isNotEmpty(taskScheduler) && flushRequested.compareAndSet(false, true)) {
+            taskScheduler.execute(this::flush);
+        }
+    }
+
+    /**
+     * 发送全部待发送的失效 Key，超过批次大小时拆分为多个批次
+     */
+    void flush() {
+        flushRequested.set(false);
+
+        Map<String, Pending> current;
+        synchronized (pendingLock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            current = pending;
+            pending = new HashMap<>();
+            pendingSize = 0;
+        }
+
+        int batchSize = invalidation.getBatchSize();
+        InvalidationBatch batch = new InvalidationBatch(sourceId);
+        int size = 0;
+        for (Map.Entry<String, Pending> entry : current.entrySet()) {
+            Set<String> chunk = new HashSet<>();
+            for (String key : entry.getValue().keys) {
+                chunk.add(key);
+                size++;
+                if (size >= batchSize) {
+                    batch.addEntry(new InvalidationBatch.Entry(entry.getKey(), chunk, entry.getValue().timestamp));
+                    publish(batch, size);
+                    batch = new InvalidationBatch(sourceId);
+                    chunk = new HashSet<>();
+                    size = 0;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                batch.addEntry(new InvalidationBatch.Entry(entry.getKey(), chunk, entry.getValue().timestamp));
+            }
+        }
+
+        if (!batch.isEmpty()) {
+            publish(batch, size);
+        }
+    }
+
+    private void publish(InvalidationBatch batch, int size) {
+        try {
+            invalidationBroadcaster.publish(batch);
+            publishedBatches.increment();
+            publishedKeys.add(size);
+        } catch (Exception e) {
+            failedBatches.increment();
+            log.error("[Herodotus] |- CACHE - Publish cache invalidation batch failed, [{}] keys may stay stale in other nodes until expired.", size, e);
+        }
+    }
+
+    /**
+     * 处理其它节点发出的失效通知，删除本地缓存中对应的数据
+     *
+     * @param batch {@link InvalidationBatch}
+     */
+    void receive(InvalidationBatch batch) {
+        if (StringUtils.equals(sourceId, batch.getSourceId())) {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        for (InvalidationBatch.Entry entry : batch.getEntries()) {
+            AbstractEmbeddedCache<Object, Object> localCache = localCaches.get(entry.getCache());
+            if (ObjectUtils.isNotEmpty(localCache)) {
+                localCache.__removeAll(entry.getKeys());
+                receivedKeys.add(entry.getKeys().size());
+                recordLag(entry.getCache(), Math.max(now - entry.getTimestamp(), 0L));
+            }
+        }
+    }
+
+    private void recordLag(String cache, long lag) {
+        lastLags.computeIfAbsent(cache, key -> new AtomicLong()).set(lag);
+
+        MeterRegistry registry = this.meterRegistry;
+        if (ObjectUtils.isNotEmpty(registry)) {
+            lagTimers.computeIfAbsent(cache, key -> Timer.builder(METRIC_PREFIX + ".lag")
+                    .description("Time from a cache write to the removal of the stale local copy in this node")
+                    .tag("cache", key)
+                    .register(registry)).record(lag, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 获取指定缓存最近一次失效通知的延迟
+     *
+     * @param area 缓存区域
+     * @param name 缓存名称
+     * @return 延迟毫秒数，没有收到过通知返回 -1
+     */
+    public long getLastLag(String area, String name) {
+        AtomicLong lag = lastLags.get(toIdentity(area, name));
+        return ObjectUtils.isNotEmpty(lag) ? lag.get() : -1L;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        FunctionCounter.builder(METRIC_PREFIX + ".published.batches", publishedBatches, LongAdder::sum)
+                .description("Count of published cache invalidation batches")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".published.keys", publishedKeys, LongAdder::sum)
+                .description("Count of published cache invalidation keys")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".failed.batches", failedBatches, LongAdder::sum)
+                .description("Count of cache invalidation batches failed to publish")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".coalesced.keys", coalescedKeys, LongAdder::sum)
+                .description("Count of cache invalidation keys merged before publishing")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".received.keys", receivedKeys, LongAdder::sum)
+                .description("Count of local cache keys removed by other nodes")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".pending", this, bus -> bus.pendingSize)
+                .description("Count of cache invalidation keys waiting to be published")
+                .register(registry);
+    }
+
+    private static final class Pending {
+
+        private final Set<String> keys = new HashSet<>();
+        private final long timestamp = System.currentTimeMillis();
+    }
+}
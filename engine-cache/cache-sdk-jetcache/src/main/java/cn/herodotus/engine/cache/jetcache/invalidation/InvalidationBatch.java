@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.invalidation;
+
+import com.google.common.base.MoreObjects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * <p>Description: 本地缓存失效通知批次 </p>
+ * <p>
+ * 一个批次中包含多个缓存的失效 Key，同一个缓存同一个 Key 在一个批次中只会出现一次。
+ * 批次以 JSON 格式传输，Key 均为 String，不使用 Java 序列化。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/18 9:40
+ */
+public class InvalidationBatch {
+
+    /**
+     * 发送节点标识，用于忽略自己发出的通知
+     */
+    private String sourceId;
+
+    private List<Entry> entries = new ArrayList<>();
+
+    public InvalidationBatch() {
+    }
+
+    public InvalidationBatch(String sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public String getSourceId() {
+        return sourceId;
+    }
+
+    public void setSourceId(String sourceId) {
+        this.sourceId = sourceId;
+    }
+
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<Entry> entries) {
+        this.entries = entries;
+    }
+
+    public void addEntry(Entry entry) {
+        this.entries.add(entry);
+    }
+
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("sourceId", sourceId)
+                .add("entries", entries.size())
+                .toString();
+    }
+
+    public static class Entry {
+
+        /**
+         * 缓存标识，由 area 和缓存名称组成
+         */
+        private String cache;
+
+        /**
+         * 经过本地缓存 KeyConvertor 转换后的 Key
+         */
+        private Set<String> keys;
+
+        /**
+         * 本批次中该缓存最早一次失效发生的时间，用于计算失效延迟
+         */
+        private long timestamp;
+
+        public Entry() {
+        }
+
+        public Entry(String cache, Set<String> keys, long timestamp) {
+            this.cache = cache;
+            this.keys = keys;
+            this.timestamp = timestamp;
+        }
+
+        public String getCache() {
+            return cache;
+        }
+
+        public void setCache(String cache) {
+            this.cache = cache;
+        }
+
+        public Set<String> getKeys() {
+            return keys;
+        }
+
+        public void setKeys(Set<String> keys) {
+            this.keys = keys;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        public void setTimestamp(long timestamp) {
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("cache", cache)
+                    .add("keys", keys.size())
+                    .add("timestamp", timestamp)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.invalidation;
+
+import java.util.function.Consumer;
+
+/**
+ * <p>Description: 本地缓存失效通知传输通道 </p>
+ * <p>
+ * 负责在节点之间传递 {@link InvalidationBatch}，合并、去重和延迟统计由 {@link CacheInvalidationBus} 完成。
+ * 默认提供基于 Redis 发布订阅的实现 {@link RedisInvalidationBroadcaster}，可以替换为其它消息中间件。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/18 9:52
+ */
+public interface InvalidationBroadcaster {
+
+    /**
+     * 发送失效通知
+     *
+     * @param batch {@link InvalidationBatch}
+     */
+    void publish(InvalidationBatch batch);
+
+    /**
+     * 订阅失效通知
+     *
+     * @param consumer 收到通知后的处理逻辑
+     */
+    void subscribe(Consumer<InvalidationBatch> consumer);
+}
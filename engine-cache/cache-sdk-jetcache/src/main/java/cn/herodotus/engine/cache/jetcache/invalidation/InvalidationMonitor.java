@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.invalidation;
+
+import com.alicp.jetcache.CacheMonitor;
+import com.alicp.jetcache.embedded.AbstractEmbeddedCache;
+import com.alicp.jetcache.event.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>Description: 本地缓存失效监听 </p>
+ * <p>
+ * 安装在两级缓存上，写入和删除操作完成后将 Key 转换为本地缓存中使用的 Key，交给 {@link CacheInvalidationBus} 合并发送。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/18 10:20
+ */
+public class InvalidationMonitor implements CacheMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(InvalidationMonitor.class);
+
+    private final String cache;
+    private final AbstractEmbeddedCache<Object, Object> localCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    InvalidationMonitor(String cache, AbstractEmbeddedCache<Object, Object> localCache, CacheInvalidationBus cacheInvalidationBus) {
+        this.cache = cache;
+        this.localCache = localCache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
+    @Override
+    public void afterOperation(CacheEvent event) {
+        if (event instanceof CachePutEvent) {
+            invalidate(Collections.singleton(((CachePutEvent) event).getKey()));
+        } else if (event instanceof CacheRemoveEvent) {
+            invalidate(Collections.singleton(((CacheRemoveEvent) event).getKey()));
+        } else if (event instanceof CachePutAllEvent) {
+            invalidate(((CachePutAllEvent) event).getMap().keySet());
+        } else if (event instanceof CacheRemoveAllEvent) {
+            invalidate(((CacheRemoveAllEvent) event).getKeys());
+        }
+    }
+
+    private void invalidate(Collection<?> keys) {
+        Set<String> converted = new HashSet<>();
+        for (Object key : keys) {
+            Object value = localCache.buildKey(key);
+            if (value instanceof String) {
+                converted.add((String) value);
+            } else {
+                log.debug("[Herodotus] |- CACHE - Key [{}] of cache [{}] is not converted to string, skip invalidation.", value, cache);
+            }
+        }
+
+        if (!converted.isEmpty()) {
+            cacheInvalidationBus.invalidate(cache, converted);
+        }
+    }
+}
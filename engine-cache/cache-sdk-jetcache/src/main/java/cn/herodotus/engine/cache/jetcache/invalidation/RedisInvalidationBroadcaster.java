@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.invalidation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.lang3.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * <p>Description: 基于 Redis 发布订阅的失效通知传输通道 </p>
+ * <p>
+ * 消息使用独立的 {@link ObjectMapper} 按照 JSON 格式编解码，不开启多态类型，只能还原为 {@link InvalidationBatch}。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/18 10:05
+ */
+public class RedisInvalidationBroadcaster implements InvalidationBroadcaster, MessageListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RedisInvalidationBroadcaster.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final byte[] channel;
+    private final ObjectMapper objectMapper = new ObjectMapper().configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private volatile Consumer<InvalidationBatch> consumer;
+
+    public RedisInvalidationBroadcaster(StringRedisTemplate stringRedisTemplate, String channel) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void publish(InvalidationBatch batch) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(batch);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Can not serialize invalidation message", e);
+        }
+        stringRedisTemplate.execute((RedisCallback<Long>) connection -> connection.publish(channel, body));
+    }
+
+    @Override
+    public void subscribe(Consumer<InvalidationBatch> consumer) {
+        this.consumer = consumer;
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        if (ObjectUtils.isEmpty(consumer)) {
+            return;
+        }
+
+        InvalidationBatch batch;
+        try {
+            batch = objectMapper.readValue(message.getBody(), InvalidationBatch.class);
+        } catch (Exception e) {
+            log.warn("[Herodotus] |- CACHE - Can not deserialize invalidation message.", e);
+            return;
+        }
+
+        if (ObjectUtils.isNotEmpty(batch) && ObjectUtils.isNotEmpty(batch.getEntries())) {
+            consumer.accept(batch);
+        }
+    }
+}
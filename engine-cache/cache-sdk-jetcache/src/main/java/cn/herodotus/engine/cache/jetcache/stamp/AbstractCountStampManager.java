@@ -31,6 +31,7 @@ import com.alicp.jetcache.anno.CacheType;
 import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.util.Assert;
 
 import java.time.Duration;
@@ -39,6 +40,10 @@ import java.time.Duration;
  * <p>Description: 计数类型的缓存 </p>
  * <p>
  * 这里的泛型使用了 Long 主要是为了兼顾存储 System.currentTimeMillis()。否则类型不一致，还要建两个 Stamp
+ * <p>
+ * 计数通过 {@link StampCounter} 原子完成，不再使用"读取-加一-写回"的方式。本地缓存类型使用 {@link LocalStampCounter}，
+ * 其它类型在存在 {@link RedisStampCounter} 时使用 Redis 计数，保证多实例之间计数一致。
+ * 计数值保存在 {@link StampCounter} 中，{@link #get(String)} 和 {@link #delete(String)} 操作的也是计数值。
  *
  * @author : gengwei.zheng
  * @date : 2022/7/6 22:59
@@ -47,6 +52,12 @@ public abstract class AbstractCountStampManager extends AbstractStampManager<Str
 
     private static final Logger log = LoggerFactory.getLogger(AbstractCountStampManager.class);
 
+    private static final String COUNTER_SUFFIX = "counter:";
+
+    private StampCounter stampCounter = new LocalStampCounter();
+
+    private CountingWindow countingWindow = CountingWindow.FIXED;
+
     public AbstractCountStampManager(String cacheName) {
         super(cacheName);
     }
@@ -59,6 +70,42 @@ public abstract class AbstractCountStampManager extends AbstractStampManager<Str
         super(cacheName, cacheType, expire);
     }
 
+    @Autowired(required = false)
+    public void setRedisStampCounter(RedisStampCounter redisStampCounter) {
+        if (getCacheType() != CacheType.LOCAL) {
+            this.stampCounter = redisStampCounter;
+        }
+    }
+
+    public CountingWindow getCountingWindow() {
+        return countingWindow;
+    }
+
+    public void setCountingWindow(CountingWindow countingWindow) {
+        this.countingWindow = countingWindow;
+    }
+
+    private String toCounterKey(String key) {
+        return getCacheName() + COUNTER_SUFFIX + key;
+    }
+
+    /**
+     * 获取当前窗口内的计数，窗口时间使用 StampManager 自身配置的过期时间
+     *
+     * @param key 缓存 Key
+     * @return 当前计数，不存在时返回 null
+     */
+    @Override
+    public Long get(String key) {
+        long count = stampCounter.get(toCounterKey(key), getExpire(), countingWindow);
+        return count == 0 ? null : count;
+    }
+
+    @Override
+    public void delete(String key) {
+        stampCounter.reset(toCounterKey(key));
+    }
+
     /**
      * 在缓存有效期内进行计数
      *
@@ -127,67 +174,16 @@ public abstract class AbstractCountStampManager extends AbstractStampManager<Str
         Assert.notNull(identity, "identity cannot be null");
 
         String key = useMd5 ? SecureUtil.md5(identity) : identity;
-        String expireKey = key + "_expire";
-
-        Long index = get(key);
-
-        if (ObjectUtils.isEmpty(index)) {
-            index = 0L;
-        }
-
-        if (index == 0) {
-            // 第一次读取剩余次数，因为缓存中还没有值，所以先创建缓存，同时缓存中计数为1。
-            if (ObjectUtils.isNotEmpty(expire) && !expire.isZero()) {
-                // 如果传入的 expire 不为零，那么就用 expire 参数值
-                create(key, expire);
-                put(expireKey, System.currentTimeMillis(), expire);
-            } else {
-                // 如果没有传入 expire 值，那么就默认使用 StampManager 自身配置的过期时间
-                create(key);
-                put(expireKey, System.currentTimeMillis());
-            }
-        } else {
-            // 不管是注解上配置Duration值还是StampProperties中配置的Duration值，是不会变的
-            // 所以第一次存入expireKey对应的System.currentTimeMillis()时间后，这个值也不应该变化。
-            // 因此，这里只更新访问次数的标记值
-            Duration newDuration = calculateRemainingTime(expire, expireKey, function);
-            put(key, index + 1L, newDuration);
-
-            // times 计数相当于数组的索引是 从0~n，所以需要
-            if (index == maxTimes - 1) {
-                throw new MaximumLimitExceededException("Requests are too frequent. Please try again later!");
-            }
-        }
 
-        int times = new Long(index + 1L).intValue();
+        // 如果传入的 expire 不为零，那么就用 expire 参数值；否则使用 StampManager 自身配置的过期时间
+        Duration window = ObjectUtils.isNotEmpty(expire) && !expire.isZero() ? expire : getExpire();
+        long times = stampCounter.increment(toCounterKey(key), window, countingWindow);
         log.debug("[Herodotus] |- {} has been recorded [{}] times.", function, times);
-        return times;
-    }
 
-    /**
-     * 计算剩余过期时间
-     * <p>
-     * 每次create或者put，缓存的过期时间都会被覆盖。（注意：Jetcache put 方法的参数名：expireAfterWrite）。
-     * 因为Jetcache没有Redis的incr之类的方法，那么每次放入Times值，都会更新过期时间，实际操作下来是变相的延长了过期时间。
-     *
-     * @param configuredDuration 注解上配置的、且可以正常解析的Duration值
-     * @param expireKey          时间标记存储Key值。
-     * @return 还剩余的过期时间 {@link Duration}
-     */
-    private Duration calculateRemainingTime(Duration configuredDuration, String expireKey, String function) {
-        Long begin = get(expireKey);
-        Long current = System.currentTimeMillis();
-        long interval = current - begin;
-
-        log.debug("[Herodotus] |- {} operation interval [{}] millis.", function, interval);
-
-        Duration duration;
-        if (!configuredDuration.isZero()) {
-            duration = configuredDuration.minusMillis(interval);
-        } else {
-            duration = getExpire().minusMillis(interval);
+        if (times >= maxTimes) {
+            throw new MaximumLimitExceededException("Requests are too frequent. Please try again later!");
         }
 
-        return duration;
+        return (int) times;
     }
 }
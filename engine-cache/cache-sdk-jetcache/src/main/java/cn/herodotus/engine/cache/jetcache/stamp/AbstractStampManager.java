@@ -79,6 +79,14 @@ public abstract class AbstractStampManager<K, V> implements StampManager<K, V> {
         return this.cache;
     }
 
+    protected String getCacheName() {
+        return this.cacheName;
+    }
+
+    protected CacheType getCacheType() {
+        return this.cacheType;
+    }
+
     @Override
     public Duration getExpire() {
         return this.expire;
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.stamp;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Description: 本地原子计数器 </p>
+ * <p>
+ * 1. 固定窗口：每个 Key 对应一个带有过期时间的 {@link AtomicLong}，计数通过 CAS 完成，只有创建新窗口时才需要加锁。
+ * 2. 滑动窗口：每个 Key 保存窗口内每次计数的时间，计数时清除已经滑出窗口的记录。
+ * <p>
+ * 只在当前 JVM 内有效，适用于本地缓存类型的 Stamp。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/16 10:02
+ */
+public class LocalStampCounter implements StampCounter {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 100000L;
+
+    private final Cache<String, Window> windows;
+
+    public LocalStampCounter() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public LocalStampCounter(long maximumSize) {
+        this.windows = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new WindowExpiry())
+                .build();
+    }
+
+    @Override
+    public long increment(String key, Duration window, CountingWindow countingWindow) {
+        long now = System.nanoTime();
+        long windowNanos = window.toNanos();
+        ConcurrentMap<String, Window> map = windows.asMap();
+
+        if (countingWindow == CountingWindow.SLIDING) {
+            long[] count = new long[1];
+            map.compute(key, (k, value) -> {
+                Window current = value == null ? new Window(now + windowNanos) : value;
+                count[0] = current.slide(now, windowNanos);
+                return current;
+            });
+            return count[0];
+        }
+
+        Window current = map.get(key);
+        if (current == null || current.isExpired(now)) {
+            current = map.compute(key, (k, value) -> value == null || value.isExpired(now) ? new Window(now + windowNanos) : value);
+        }
+        return current.counter.incrementAndGet();
+    }
+
+    @Override
+    public long get(String key, Duration window, CountingWindow countingWindow) {
+        Window current = windows.getIfPresent(key);
+        if (current == null) {
+            return 0L;
+        }
+
+        long now = System.nanoTime();
+        if (countingWindow == CountingWindow.SLIDING) {
+            return current.count(now, window.toNanos());
+        }
+        return current.isExpired(now) ? 0L : current.counter.get();
+    }
+
+    @Override
+    public void reset(String key) {
+        windows.invalidate(key);
+    }
+
+    private static final class Window {
+
+        private final AtomicLong counter = new AtomicLong();
+        private ArrayDeque<Long> timestamps;
+        private volatile long expiresAt;
+
+        private Window(long expiresAt) {
+            this.expiresAt = expiresAt;
+        }
+
+        private boolean isExpired(long now) {
+            return now - expiresAt >= 0;
+        }
+
+        private synchronized long slide(long now, long windowNanos) {
+            if (timestamps == null) {
+                timestamps = new ArrayDeque<>();
+            }
+            evict(now, windowNanos);
+            timestamps.addLast(now);
+            expiresAt = now + windowNanos;
+            return timestamps.size();
+        }
+
+        private synchronized long count(long now, long windowNanos) {
+            if (timestamps == null) {
+                return 0L;
+            }
+            evict(now, windowNanos);
+            return timestamps.size();
+        }
+
+        private synchronized void evict(long now, long windowNanos) {
+            while (!timestamps.isEmpty() && now - timestamps.peekFirst() >= windowNanos) {
+                timestamps.pollFirst();
+            }
+        }
+    }
+
+    private static final class WindowExpiry implements Expiry<String, Window> {
+
+        @Override
+        public long expireAfterCreate(String key, Window value, long currentTime) {
+            return Math.max(0L, value.expiresAt - System.nanoTime());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Window value, long currentTime, long currentDuration) {
+            return Math.max(0L, value.expiresAt - System.nanoTime());
+        }
+
+        @Override
+        public long expireAfterRead(String key, Window value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.stamp;
+
+import cn.hutool.core.util.IdUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * <p>Description: 基于 Redis 的原子计数器 </p>
+ * <p>
+ * 计数与过期时间设置通过 Lua 脚本一次完成，只需要一次网络往返，多实例之间计数准确。
+ * 1. 固定窗口：INCR，并且只在窗口第一次计数时设置 PEXPIRE，后续计数不会延长过期时间。
+ * 2. 滑动窗口：使用 ZSET 记录每次计数的时间，先清除滑出窗口的记录再计数。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/16 10:30
+ */
+public class RedisStampCounter implements StampCounter {
+
+    private static final RedisScript<Long> FIXED_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1]) " +
+                    "if count == 1 or redis.call('PTTL', KEYS[1]) < 0 then " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+                    "end " +
+                    "return count", Long.class);
+
+    private static final RedisScript<Long> SLIDING_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local now = tonumber(ARGV[2]) " +
+                    "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - tonumber(ARGV[1])) " +
+                    "redis.call('ZADD', KEYS[1], now, ARGV[3]) " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+                    "return redis.call('ZCARD', KEYS[1])", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisStampCounter(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public long increment(String key, Duration window, CountingWindow countingWindow) {
+        List<String> keys = Collections.singletonList(key);
+        String windowMillis = String.valueOf(window.toMillis());
+
+        Long count;
+        if (countingWindow == CountingWindow.SLIDING) {
+            long now = System.currentTimeMillis();
+            count = stringRedisTemplate.execute(SLIDING_WINDOW_SCRIPT, keys, windowMillis, String.valueOf(now), now + ":" + IdUtil.fastSimpleUUID());
+        } else {
+            count = stringRedisTemplate.execute(FIXED_WINDOW_SCRIPT, keys, windowMillis);
+        }
+        return count == null ? 0L : count;
+    }
+
+    @Override
+    public long get(String key, Duration window, CountingWindow countingWindow) {
+        if (countingWindow == CountingWindow.SLIDING) {
+            long now = System.currentTimeMillis();
+            Long count = stringRedisTemplate.opsForZSet().count(key, now - window.toMillis() + 1, Double.POSITIVE_INFINITY);
+            return count == null ? 0L : count;
+        }
+
+        String value = stringRedisTemplate.opsForValue().get(key);
+        return StringUtils.isNotBlank(value) ? Long.parseLong(value) : 0L;
+    }
+
+    @Override
+    public void reset(String key) {
+        stringRedisTemplate.delete(key);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.cache.jetcache.stamp;
+
+import java.time.Duration;
+
+/**
+ * <p>Description: 原子计数器 </p>
+ * <p>
+ * JetCache 没有提供 incr 之类的原子操作，"读取-加一-写回"的方式在并发时会丢失计数，并且每次计数需要多次访问远程缓存。
+ * 计数类型的 Stamp 统一通过该接口完成计数，计数和过期时间的设置在一次原子操作中完成。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/16 9:45
+ */
+public interface StampCounter {
+
+    /**
+     * 计数加一
+     *
+     * @param key            计数 Key
+     * @param window         窗口时间
+     * @param countingWindow 窗口类型
+     * @return 加一之后，当前窗口内的计数
+     */
+    long increment(String key, Duration window, CountingWindow countingWindow);
+
+    /**
+     * 获取当前窗口内的计数
+     *
+     * @param key            计数 Key
+     * @param window         窗口时间
+     * @param countingWindow 窗口类型
+     * @return 当前窗口内的计数，不存在返回 0
+     */
+    long get(String key, Duration window, CountingWindow countingWindow);
+
+    /**
+     * 清除计数
+     *
+     * @param key 计数 Key
+     */
+    void reset(String key);
+}
@@ -75,7 +75,7 @@ public class JetCacheUtils {
     }
 
     public static <K, V> Cache<K, V> create(String name, Duration expire, Boolean cacheNullValue) {
-        return create(name, expire, cacheNullValue, null);
+        return create(name, expire, cacheNullValue, true);
     }
 
     public static <K, V> Cache<K, V> create(String name, Duration expire, Boolean cacheNullValue, Boolean syncLocal) {
@@ -91,7 +91,7 @@ public class JetCacheUtils {
     }
 
     public static <K, V> Cache<K, V> create(String name, CacheType cacheType, Duration expire, Boolean cacheNullValue) {
-        return create(name, cacheType, expire, cacheNullValue, null);
+        return create(name, cacheType, expire, cacheNullValue, true);
     }
 
     public static <K, V> Cache<K, V> create(String name, CacheType cacheType, Duration expire, Boolean cacheNullValue, Boolean syncLocal) {
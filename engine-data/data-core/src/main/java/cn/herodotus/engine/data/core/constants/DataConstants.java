@@ -38,6 +38,13 @@ public interface DataConstants extends BaseConstants {
     String PROPERTY_PREFIX_MULTI_TENANCY = PROPERTY_PREFIX_HERODOTUS + ".multi-tenancy";
 
     String ITEM_MULTI_TENANCY_ENABLED = PROPERTY_PREFIX_MULTI_TENANCY + PROPERTY_ENABLED;
+    String ITEM_MULTI_TENANCY_TENANCY_STRATEGY = PROPERTY_PREFIX_MULTI_TENANCY + ".tenancy-strategy";
+
+    String TENANT_FILTER_NAME = "herodotusTenantFilter";
+    String TENANT_FILTER_PARAMETER = "tenantId";
+    String TENANT_COLUMN = "tenant_id";
+
+    String PROPERTY_PREFIX_IDENTIFIER = PROPERTY_PREFIX_HERODOTUS + ".identifier";
     String AREA_PREFIX = "data:core:";
     String REGION_MULTI_TENANCY = AREA_PREFIX + "tenancy";
 
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.core.entity;
+
+import cn.herodotus.engine.assistant.core.context.TenantContextHolder;
+import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
+import cn.herodotus.engine.data.core.constants.DataConstants;
+import com.google.common.base.MoreObjects;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.annotations.Filter;
+import org.hibernate.annotations.FilterDef;
+import org.hibernate.annotations.ParamDef;
+
+import javax.persistence.*;
+
+/**
+ * <p>Description: 共享表多租户实体通用基础类 </p>
+ * <p>
+ * 用于 DISCRIMINATOR 多租户模式，所有租户的数据保存在同一张表中，通过 tenant_id 列区分。
+ * 查询时由 Hibernate Filter 自动追加租户条件，新增时自动从 TenantContextHolder 中填充租户ID。
+ * <p>
+ * Hibernate Filter 不作用于按主键加载（find、findById、getReference）和按主键删除，因此实体加载、更新、删除时会再校验一次租户，
+ * 与当前租户不一致时抛出 {@link EntityNotFoundException}，对调用者而言与数据不存在相同。
+ * 原生 SQL 查询和批量 HQL（update、delete 语句）既不经过 Filter，也不触发实体回调，使用时必须自行添加租户条件。
+ * <p>
+ * 注意：Hibernate Filter 只能定义在实体继承体系的根上，所以使用该类的实体不能再继承其它实体。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/21 9:40
+ */
+@MappedSuperclass
+@FilterDef(name = DataConstants.TENANT_FILTER_NAME, parameters = @ParamDef(name = DataConstants.TENANT_FILTER_PARAMETER, type = "string"))
+@Filter(name = DataConstants.TENANT_FILTER_NAME, condition = DataConstants.TENANT_COLUMN + " = :" + DataConstants.TENANT_FILTER_PARAMETER)
+public abstract class BaseTenantEntity extends BaseEntity {
+
+    @Schema(title = "租户ID")
+    @Column(name = DataConstants.TENANT_COLUMN, length = 64, updatable = false)
+    private String tenantId;
+
+    @PrePersist
+    protected void fillTenantId() {
+        if (StringUtils.isBlank(tenantId)) {
+            tenantId = getCurrentTenantId();
+        }
+    }
+
+    @PostLoad
+    @PreUpdate
+    @PreRemove
+    protected void checkTenantId() {
+        String currentTenantId = getCurrentTenantId();
+        if (!StringUtils.equals(tenantId, currentTenantId)) {
+            throw new EntityNotFoundException("Entity of tenant [" + tenantId + "] is not accessible for tenant [" + currentTenantId + "]");
+        }
+    }
+
+    private String getCurrentTenantId() {
+        String currentTenantId = TenantContextHolder.getTenantId();
+        return StringUtils.isNotBlank(currentTenantId) ? currentTenantId : BaseConstants.DEFAULT_TENANT_ID;
+    }
+
+    public String getTenantId() {
+        return tenantId;
+    }
+
+    public void setTenantId(String tenantId) {
+        this.tenantId = tenantId;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("tenantId", tenantId)
+                .toString();
+    }
+}
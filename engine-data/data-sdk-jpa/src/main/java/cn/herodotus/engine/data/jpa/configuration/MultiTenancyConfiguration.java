@@ -25,16 +25,23 @@
 
 package cn.herodotus.engine.data.jpa.configuration;
 
+import cn.herodotus.engine.data.core.constants.DataConstants;
 import cn.herodotus.engine.data.jpa.annotation.ConditionalOnMultiTenancyEnabled;
 import cn.herodotus.engine.data.jpa.properties.MultiTenancyProperties;
 import cn.herodotus.engine.data.jpa.tenancy.MultiTenancyConnectionProvider;
 import cn.herodotus.engine.data.jpa.tenancy.MultiTenancyDataSourceLookup;
+import cn.herodotus.engine.data.jpa.tenancy.MultiTenancyFilterInitializer;
 import cn.herodotus.engine.data.jpa.tenancy.MultiTenancyIdentifierResolver;
+import cn.herodotus.engine.data.jpa.tenancy.SchemaMultiTenancyConnectionProvider;
+import cn.herodotus.engine.data.jpa.tenancy.TenantDataSourceManager;
+import org.hibernate.MultiTenancyStrategy;
 import org.hibernate.cfg.Environment;
 import org.hibernate.context.spi.CurrentTenantIdentifierResolver;
 import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateProperties;
 import org.springframework.boot.autoconfigure.orm.jpa.HibernateSettings;
 import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
@@ -75,19 +82,37 @@ public class MultiTenancyConfiguration {
     }
 
     @Bean
-    public DataSourceLookup dataSourceLookup(DataSource dataSource, MultiTenancyProperties multiTenancyProperties) {
-        MultiTenancyDataSourceLookup multiTenancyDataSourceLookup = new MultiTenancyDataSourceLookup(dataSource, multiTenancyProperties);
+    @ConditionalOnProperty(name = DataConstants.ITEM_MULTI_TENANCY_TENANCY_STRATEGY, havingValue = "DATABASE", matchIfMissing = true)
+    public TenantDataSourceManager tenantDataSourceManager(DataSource dataSource, MultiTenancyProperties multiTenancyProperties) {
+        TenantDataSourceManager tenantDataSourceManager = new TenantDataSourceManager(dataSource, multiTenancyProperties);
+        log.debug("[Herodotus] |- Bean [Tenant DataSource Manager] Auto Configure.");
+        return tenantDataSourceManager;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = DataConstants.ITEM_MULTI_TENANCY_TENANCY_STRATEGY, havingValue = "DATABASE", matchIfMissing = true)
+    public DataSourceLookup dataSourceLookup(TenantDataSourceManager tenantDataSourceManager) {
+        MultiTenancyDataSourceLookup multiTenancyDataSourceLookup = new MultiTenancyDataSourceLookup(tenantDataSourceManager);
         log.debug("[Herodotus] |- Bean [Multi Tenancy DataSource Lookup] Auto Configure.");
         return multiTenancyDataSourceLookup;
     }
 
     @Bean
-    public MultiTenantConnectionProvider multiTenantConnectionProvider(DataSource dataSource, DataSourceLookup dataSourceLookup) {
-        MultiTenancyConnectionProvider multiTenancyConnectionProvider = new MultiTenancyConnectionProvider(dataSource, dataSourceLookup);
+    @ConditionalOnProperty(name = DataConstants.ITEM_MULTI_TENANCY_TENANCY_STRATEGY, havingValue = "DATABASE", matchIfMissing = true)
+    public MultiTenantConnectionProvider multiTenantConnectionProvider(DataSource dataSource, TenantDataSourceManager tenantDataSourceManager) {
+        MultiTenancyConnectionProvider multiTenancyConnectionProvider = new MultiTenancyConnectionProvider(dataSource, tenantDataSourceManager);
         log.debug("[Herodotus] |- Bean [Multi Tenancy Connection Provider] Auto Configure.");
         return multiTenancyConnectionProvider;
     }
 
+    @Bean
+    @ConditionalOnProperty(name = DataConstants.ITEM_MULTI_TENANCY_TENANCY_STRATEGY, havingValue = "SCHEMA")
+    public MultiTenantConnectionProvider schemaMultiTenantConnectionProvider(DataSource dataSource, MultiTenancyProperties multiTenancyProperties) {
+        SchemaMultiTenancyConnectionProvider schemaMultiTenancyConnectionProvider = new SchemaMultiTenancyConnectionProvider(dataSource, multiTenancyProperties.getSchemas());
+        log.debug("[Herodotus] |- Bean [Schema Multi Tenancy Connection Provider] Auto Configure.");
+        return schemaMultiTenancyConnectionProvider;
+    }
+
     @Bean
     public CurrentTenantIdentifierResolver currentTenantIdentifierResolver() {
         MultiTenancyIdentifierResolver multiTenancyIdentifierResolver = new MultiTenancyIdentifierResolver();
@@ -96,15 +121,23 @@ public class MultiTenancyConfiguration {
     }
 
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, HibernateProperties hibernateProperties, JpaVendorAdapter jpaVendorAdapter, JpaProperties jpaProperties, MultiTenancyProperties multiTenancyProperties, MultiTenantConnectionProvider multiTenantConnectionProvider, CurrentTenantIdentifierResolver currentTenantIdentifierResolver) {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, HibernateProperties hibernateProperties, JpaVendorAdapter jpaVendorAdapter, JpaProperties jpaProperties, MultiTenancyProperties multiTenancyProperties, ObjectProvider<MultiTenantConnectionProvider> multiTenantConnectionProvider, CurrentTenantIdentifierResolver currentTenantIdentifierResolver) {
 
         Supplier<String> defaultDdlMode = hibernateProperties::getDdlAuto;
         Map<String, Object> properties = hibernateProperties.determineHibernateProperties(jpaProperties.getProperties(), new HibernateSettings().ddlAuto(defaultDdlMode));
 
-        properties.put(Environment.MULTI_TENANT, multiTenancyProperties.getTenancyStrategy());
-        properties.put(Environment.MULTI_TENANT_CONNECTION_PROVIDER, multiTenantConnectionProvider);
-        properties.put(Environment.MULTI_TENANT_IDENTIFIER_RESOLVER, currentTenantIdentifierResolver);
         LocalContainerEntityManagerFactoryBean emf = new LocalContainerEntityManagerFactoryBean();
+
+        MultiTenancyStrategy tenancyStrategy = multiTenancyProperties.getTenancyStrategy();
+        if (tenancyStrategy == MultiTenancyStrategy.DISCRIMINATOR) {
+            // Hibernate 5 并未实现 DISCRIMINATOR，这里不开启 Hibernate 多租户，改为通过 Filter 按租户过滤共享表数据
+            emf.setEntityManagerInitializer(new MultiTenancyFilterInitializer());
+        } else {
+            properties.put(Environment.MULTI_TENANT, tenancyStrategy);
+            multiTenantConnectionProvider.ifAvailable(provider -> properties.put(Environment.MULTI_TENANT_CONNECTION_PROVIDER, provider));
+            properties.put(Environment.MULTI_TENANT_IDENTIFIER_RESOLVER, currentTenantIdentifierResolver);
+        }
+
         emf.setDataSource(dataSource);
         //此处不能省略，哪怕你使用了 @EntityScan，实际上 @EntityScan 会失效
         emf.setPackagesToScan(multiTenancyProperties.getPackageToScan());
@@ -28,17 +28,26 @@ package cn.herodotus.engine.data.jpa.hibernate.cache.spi;
 import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
 import cn.herodotus.engine.assistant.core.definition.constants.SymbolConstants;
 import cn.herodotus.engine.assistant.core.context.TenantContextHolder;
-import cn.hutool.crypto.SecureUtil;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
+import org.hibernate.cache.spi.QueryKey;
 import org.hibernate.cache.spi.support.DomainDataStorageAccess;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.cache.Cache;
 
+import java.nio.charset.StandardCharsets;
+
 /**
  * <p>Description: 自定义Hibernate二级缓存DomainDataStorageAccess </p>
+ * <p>
+ * 缓存 Key 的格式为 "租户ID:业务Key"，每次二级缓存读写都会构造一次，因此尽量减少构造过程中的开销：
+ * 1. 查询缓存 Key 使用 Murmur3 128 位哈希代替 MD5，不需要加密强度，只需要足够低的碰撞概率。
+ * 2. 实体和集合的 Key 直接使用 Hibernate 生成的 "实体名#ID"。
+ * 租户ID来自客户端请求头，取值不可控，因此租户前缀每次直接拼接，不做缓存。
  *
  * @author : gengwei.zheng
  * @date : 2021/7/12 22:06
@@ -47,6 +56,8 @@ public class HerodotusDomainDataStorageAccess implements DomainDataStorageAccess
 
     private static final Logger log = LoggerFactory.getLogger(HerodotusDomainDataStorageAccess.class);
 
+    private static final HashFunction QUERY_KEY_HASH = Hashing.murmur3_128();
+
     private Cache cache;
 
     public HerodotusDomainDataStorageAccess() {
@@ -57,27 +68,26 @@ public class HerodotusDomainDataStorageAccess implements DomainDataStorageAccess
     }
 
     private String secure(Object key) {
-        String original = String.valueOf(key);
-        if (StringUtils.isNotBlank(original) && StringUtils.startsWith(original, "sql:")) {
-            String recent = SecureUtil.md5(original);
+        // 查询缓存 Key 包含完整的 SQL 和参数，长度不可控，转换为固定长度的哈希值
+        if (key instanceof QueryKey) {
+            String original = key.toString();
+            String recent = QUERY_KEY_HASH.hashString(original, StandardCharsets.UTF_8).toString();
             log.trace("[Herodotus] |- SPI - Secure the sql type key [{}] to [{}]", original, recent);
             return recent;
         }
-        return original;
+        // 实体和集合 Key 的 toString 即为 "实体名#ID"，时间戳 Region 的 Key 为表名
+        return String.valueOf(key);
     }
 
-    private String getTenantId() {
+    private String getTenantPrefix() {
         String tenantId = TenantContextHolder.getTenantId();
         String result = StringUtils.isNotBlank(tenantId) ? tenantId : BaseConstants.DEFAULT_TENANT_ID;
         log.trace("[Herodotus] |- SPI - Tenant identifier for jpa second level cache is : [{}]", result);
-        return StringUtils.toRootLowerCase(result);
+        return StringUtils.toRootLowerCase(result) + SymbolConstants.COLON;
     }
 
     private String wrapper(Object key) {
-        String original = secure(key);
-        String tenantId = getTenantId();
-
-        String result = tenantId + SymbolConstants.COLON + original;
+        String result = getTenantPrefix().concat(secure(key));
         log.trace("[Herodotus] |- SPI - Current cache key is : [{}]", result);
         return result;
     }
@@ -133,15 +143,24 @@ public class HerodotusDomainDataStorageAccess implements DomainDataStorageAccess
         this.evictData();
     }
 
+    /**
+     * 清空当前 Region 的全部数据。
+     * <p>
+     * 底层缓存通过推进命名空间代数实现清空，代价与数据量无关，并且会通知其它节点。
+     */
     @Override
     public void evictData() {
         log.trace("[Herodotus] |- SPI - clear all cache data.");
         cache.clear();
     }
 
+    /**
+     * 缓存由 Spring CacheManager 统一管理，SessionFactory 关闭时不需要释放。
+     * <p>
+     * 注意：这里不能调用 {@link Cache#invalidate()}，否则每个节点停机都会清空整个集群的 Region 数据。
+     */
     @Override
     public void release() {
         log.trace("[Herodotus] |- SPI - cache release.");
-        cache.invalidate();
     }
 }
@@ -31,6 +31,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import org.hibernate.MultiTenancyStrategy;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.Map;
 
 /**
@@ -53,7 +54,7 @@ public class MultiTenancyProperties {
     private DataResource resource = DataResource.DATABASE;
 
     /**
-     * 多租户数据隔离策略
+     * 多租户数据隔离策略。DATABASE：每个租户独立数据库和连接池；SCHEMA：共享连接池，按租户切换 Schema；DISCRIMINATOR：共享表，通过 tenant_id 列区分
      */
     private MultiTenancyStrategy tenancyStrategy = MultiTenancyStrategy.DATABASE;
 
@@ -64,6 +65,16 @@ public class MultiTenancyProperties {
      */
     private Map<String, MultiTenancyDataSource> dataSources;
 
+    /**
+     * SCHEMA 模式下租户与 Schema 的对应关系，未配置的租户使用租户ID作为 Schema 名称
+     */
+    private Map<String, String> schemas;
+
+    /**
+     * 租户数据源连接池配置
+     */
+    private Pool pool = new Pool();
+
     public Boolean getEnabled() {
         return enabled;
     }
@@ -88,6 +99,14 @@ public class MultiTenancyProperties {
         this.dataSources = dataSources;
     }
 
+    public Map<String, String> getSchemas() {
+        return schemas;
+    }
+
+    public void setSchemas(Map<String, String> schemas) {
+        this.schemas = schemas;
+    }
+
     public MultiTenancyStrategy getTenancyStrategy() {
         return tenancyStrategy;
     }
@@ -108,4 +127,93 @@ public class MultiTenancyProperties {
     public void setPackageToScan(String[] packageToScan) {
         this.packageToScan = packageToScan;
     }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public static class Pool {
+
+        /**
+         * 每个租户连接池的最大连接数
+         */
+        private Integer maximumPoolSize = 10;
+
+        /**
+         * 每个租户连接池的最小空闲连接数
+         */
+        private Integer minimumIdle = 1;
+
+        /**
+         * 所有租户连接池共享的连接数预算，即全部租户连接池最大连接数之和的上限。超出时淘汰最久未使用的空闲连接池
+         */
+        private Integer connectionBudget = 200;
+
+        /**
+         * 租户连接池闲置超过该时间后关闭，下次使用时重新创建
+         */
+        private Duration idleTimeout = Duration.ofMinutes(10);
+
+        /**
+         * 检查闲置连接池的时间间隔
+         */
+        private Duration evictionInterval = Duration.ofMinutes(1);
+
+        /**
+         * 预算不足淘汰连接池时，最近在该时间内被使用过的连接池不会被淘汰，避免关闭刚刚获取、尚未借出连接的连接池
+         */
+        private Duration evictionGrace = Duration.ofSeconds(10);
+
+        public Integer getMaximumPoolSize() {
+            return maximumPoolSize;
+        }
+
+        public void setMaximumPoolSize(Integer maximumPoolSize) {
+            this.maximumPoolSize = maximumPoolSize;
+        }
+
+        public Integer getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(Integer minimumIdle) {
+            this.minimumIdle = minimumIdle;
+        }
+
+        public Integer getConnectionBudget() {
+            return connectionBudget;
+        }
+
+        public void setConnectionBudget(Integer connectionBudget) {
+            this.connectionBudget = connectionBudget;
+        }
+
+        public Duration getIdleTimeout() {
+            return idleTimeout;
+        }
+
+        public void setIdleTimeout(Duration idleTimeout) {
+            this.idleTimeout = idleTimeout;
+        }
+
+        public Duration getEvictionInterval() {
+            return evictionInterval;
+        }
+
+        public void setEvictionInterval(Duration evictionInterval) {
+            this.evictionInterval = evictionInterval;
+        }
+
+        public Duration getEvictionGrace() {
+            return evictionGrace;
+        }
+
+        public void setEvictionGrace(Duration evictionGrace) {
+            this.evictionGrace = evictionGrace;
+        }
+    }
 }
@@ -28,8 +28,6 @@ package cn.herodotus.engine.data.jpa.tenancy;
 import org.hibernate.engine.jdbc.connections.spi.AbstractDataSourceBasedMultiTenantConnectionProviderImpl;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.jdbc.datasource.lookup.DataSourceLookup;
-
 import javax.sql.DataSource;
 
 /**
@@ -45,11 +43,11 @@ public class MultiTenancyConnectionProvider extends AbstractDataSourceBasedMulti
     private static final Logger log = LoggerFactory.getLogger(MultiTenancyConnectionProvider.class);
 
     private final DataSource defaultDataSource;
-    private final DataSourceLookup dataSourceLookup;
+    private final TenantDataSourceManager tenantDataSourceManager;
 
-    public MultiTenancyConnectionProvider(DataSource dataSource, DataSourceLookup dataSourceLookup) {
+    public MultiTenancyConnectionProvider(DataSource dataSource, TenantDataSourceManager tenantDataSourceManager) {
         this.defaultDataSource = dataSource;
-        this.dataSourceLookup = dataSourceLookup;
+        this.tenantDataSourceManager = tenantDataSourceManager;
     }
 
     /**
@@ -65,7 +63,7 @@ public class MultiTenancyConnectionProvider extends AbstractDataSourceBasedMulti
 
     @Override
     protected DataSource selectDataSource(String tenantIdentifier) {
-        DataSource dataSource = dataSourceLookup.getDataSource(tenantIdentifier);
+        DataSource dataSource = tenantDataSourceManager.getDataSource(tenantIdentifier);
         log.debug("[Herodotus] |- Select dataSource from [{}] : [{}]", tenantIdentifier, dataSource);
         return dataSource;
     }
@@ -16,7 +16,7 @@
  * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
  *
  * 1.请不要删除和修改根目录下的LICENSE文件。
- * 2.请不要删除和修改 Dante Engine 源码头部的版权声明。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
  * 3.请保留源码和相关描述文件的项目出处，作者声明等。
  * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
  * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
@@ -25,72 +25,29 @@
 
 package cn.herodotus.engine.data.jpa.tenancy;
 
-import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
-import cn.herodotus.engine.data.jpa.properties.MultiTenancyDataSource;
-import cn.herodotus.engine.data.jpa.properties.MultiTenancyProperties;
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
-import org.apache.commons.collections4.MapUtils;
-import org.apache.commons.lang3.ObjectUtils;
-import org.springframework.boot.jdbc.DataSourceBuilder;
-import org.springframework.jdbc.datasource.lookup.MapDataSourceLookup;
+import org.springframework.jdbc.datasource.lookup.DataSourceLookup;
+import org.springframework.jdbc.datasource.lookup.DataSourceLookupFailureException;
 
 import javax.sql.DataSource;
-import java.util.Map;
-import java.util.Properties;
 
 /**
  * <p>Description: DataSource 查询 </p>
+ * <p>
+ * 租户连接池的创建、回收和运行时注册统一由 {@link TenantDataSourceManager} 负责，这里只做查询
  *
  * @author : gengwei.zheng
  * @date : 2022/9/8 18:55
  */
-public class MultiTenancyDataSourceLookup extends MapDataSourceLookup {
+public class MultiTenancyDataSourceLookup implements DataSourceLookup {
 
-    private final MultiTenancyProperties multiTenancyProperties;
+    private final TenantDataSourceManager tenantDataSourceManager;
 
-    public MultiTenancyDataSourceLookup(DataSource defaultDataSource, MultiTenancyProperties multiTenancyProperties) {
-        this.multiTenancyProperties = multiTenancyProperties;
-        initDefaultDataSource(defaultDataSource);
-        initDataSource(defaultDataSource);
+    public MultiTenancyDataSourceLookup(TenantDataSourceManager tenantDataSourceManager) {
+        this.tenantDataSourceManager = tenantDataSourceManager;
     }
 
-    private void initDefaultDataSource(DataSource defaultDataSource) {
-        addDataSource(BaseConstants.DEFAULT_TENANT_ID, defaultDataSource);
-    }
-
-    private void initDataSource(DataSource defaultDataSource) {
-        Map<String, MultiTenancyDataSource> dataSources = multiTenancyProperties.getDataSources();
-        if (MapUtils.isNotEmpty(dataSources)) {
-            dataSources.forEach((tenantIdentifier, multiTenancyDataSource)-> {
-                addDataSource(tenantIdentifier, createDataSource(defaultDataSource, multiTenancyDataSource));
-            });
-        }
-    }
-
-    private DataSource createDataSource(DataSource defaultDataSource, MultiTenancyDataSource multiTenancyDataSource) {
-        if (defaultDataSource instanceof HikariDataSource) {
-            HikariDataSource defaultHikariDataSource = (HikariDataSource) defaultDataSource;
-            Properties defaultDataSourceProperties = defaultHikariDataSource.getDataSourceProperties();
-            HikariConfig hikariConfig = new HikariConfig();
-            hikariConfig.setDriverClassName(multiTenancyDataSource.getDriverClassName());
-            hikariConfig.setJdbcUrl(multiTenancyDataSource.getUrl());
-            hikariConfig.setUsername(multiTenancyDataSource.getUsername());
-            hikariConfig.setPassword(multiTenancyDataSource.getPassword());
-
-            if (ObjectUtils.isNotEmpty(defaultDataSource)) {
-                defaultDataSourceProperties.forEach((key, value) -> hikariConfig.addDataSourceProperty(String.valueOf(key), value));
-            }
-
-            return new HikariDataSource(hikariConfig);
-        } else {
-            return DataSourceBuilder.create()
-                    .type(HikariDataSource.class)
-                    .url(multiTenancyDataSource.getUrl())
-                    .driverClassName(multiTenancyDataSource.getDriverClassName())
-                    .username(multiTenancyDataSource.getUsername())
-                    .password(multiTenancyDataSource.getPassword())
-                    .build();
-        }
+    @Override
+    public DataSource getDataSource(String dataSourceName) throws DataSourceLookupFailureException {
+        return tenantDataSourceManager.getDataSource(dataSourceName);
     }
 }
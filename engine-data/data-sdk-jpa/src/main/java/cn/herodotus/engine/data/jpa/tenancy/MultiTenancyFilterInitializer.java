@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.jpa.tenancy;
+
+import cn.herodotus.engine.assistant.core.context.TenantContextHolder;
+import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
+import cn.herodotus.engine.data.core.constants.DataConstants;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import java.util.function.Consumer;
+
+/**
+ * <p>Description: 共享表多租户过滤器初始化 </p>
+ * <p>
+ * 用于 DISCRIMINATOR 多租户模式。每创建一个 EntityManager，就按照 TenantContextHolder 中的当前租户开启
+ * {@link cn.herodotus.engine.data.core.entity.BaseTenantEntity} 上定义的 Hibernate Filter，业务代码不需要手动添加租户条件。
+ * <p>
+ * 租户在 EntityManager 创建时确定，因此 TenantContextHolder 需要在事务开启或者 OpenEntityManagerInView 之前设置，
+ * MultiTenantFilter 和 MultiTenantInterceptor 均满足这个要求。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/21 10:40
+ */
+public class MultiTenancyFilterInitializer implements Consumer<EntityManager> {
+
+    private static final Logger log = LoggerFactory.getLogger(MultiTenancyFilterInitializer.class);
+
+    @Override
+    public void accept(EntityManager entityManager) {
+        Session session = entityManager.unwrap(Session.class);
+        // 没有任何实体继承 BaseTenantEntity 时，Filter 不会被定义
+        if (!session.getSessionFactory().getDefinedFilterNames().contains(DataConstants.TENANT_FILTER_NAME)) {
+            return;
+        }
+
+        String currentTenantId = TenantContextHolder.getTenantId();
+        String tenantId = StringUtils.isNotBlank(currentTenantId) ? currentTenantId : BaseConstants.DEFAULT_TENANT_ID;
+        session.enableFilter(DataConstants.TENANT_FILTER_NAME).setParameter(DataConstants.TENANT_FILTER_PARAMETER, tenantId);
+        log.trace("[Herodotus] |- Enable tenant filter for tenant [{}]", tenantId);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.jpa.tenancy;
+
+import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
+import org.apache.commons.lang3.StringUtils;
+import org.hibernate.engine.jdbc.connections.spi.MultiTenantConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Description: 共享连接池的 Schema 多租户数据库连接提供者 </p>
+ * <p>
+ * 所有租户共用默认数据源的连接池，从连接池中获取连接时切换到租户对应的 Schema，归还连接前再切换回默认 Schema，
+ * 避免连接被下一个使用者复用时仍然指向上一个租户。
+ * <p>
+ * 只有配置或者注册过的租户才能获取连接，其它租户一律拒绝。租户ID来自请求头，不能直接作为 Schema 名称使用。
+ * <p>
+ * PostgreSQL 等数据库通过 {@link Connection#setSchema(String)}（即 search_path）切换；MySQL 和 MariaDB 的 Schema 即 Catalog，通过 {@link Connection#setCatalog(String)} 切换。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/21 10:05
+ */
+public class SchemaMultiTenancyConnectionProvider implements MultiTenantConnectionProvider {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMultiTenancyConnectionProvider.class);
+
+    private final DataSource dataSource;
+    private final Map<String, String> schemas;
+
+    private volatile Boolean useCatalog;
+    private volatile String defaultSchema;
+
+    public SchemaMultiTenancyConnectionProvider(DataSource dataSource, Map<String, String> schemas) {
+        this.dataSource = dataSource;
+        this.schemas = new ConcurrentHashMap<>();
+        if (schemas != null) {
+            this.schemas.putAll(schemas);
+        }
+    }
+
+    /**
+     * 运行时注册租户对应的 Schema
+     *
+     * @param tenantIdentifier 租户ID
+     * @param schema           Schema 名称
+     */
+    public void register(String tenantIdentifier, String schema) {
+        schemas.put(tenantIdentifier, schema);
+        log.debug("[Herodotus] |- Register schema [{}] for tenant [{}].", schema, tenantIdentifier);
+    }
+
+    /**
+     * 运行时移除租户
+     *
+     * @param tenantIdentifier 租户ID
+     */
+    public void remove(String tenantIdentifier) {
+        schemas.remove(tenantIdentifier);
+        log.debug("[Herodotus] |- Remove schema of tenant [{}].", tenantIdentifier);
+    }
+
+    @Override
+    public Connection getAnyConnection() throws SQLException {
+        return dataSource.getConnection();
+    }
+
+    @Override
+    public void releaseAnyConnection(Connection connection) throws SQLException {
+        connection.close();
+    }
+
+    @Override
+    public Connection getConnection(String tenantIdentifier) throws SQLException {
+        Connection connection = getAnyConnection();
+        try {
+            initialize(connection);
+            String schema = getSchema(tenantIdentifier);
+            switchSchema(connection, schema);
+            log.trace("[Herodotus] |- Switch connection of tenant [{}] to schema [{}]", tenantIdentifier, schema);
+            return connection;
+        } catch (SQLException e) {
+            releaseAnyConnection(connection);
+            throw e;
+        }
+    }
+
+    @Override
+    public void releaseConnection(String tenantIdentifier, Connection connection) throws SQLException {
+        try {
+            if (StringUtils.isNotBlank(defaultSchema)) {
+                switchSchema(connection, defaultSchema);
+            }
+        } finally {
+            releaseAnyConnection(connection);
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class unwrapType) {
+        return MultiTenantConnectionProvider.class.equals(unwrapType) || SchemaMultiTenancyConnectionProvider.class.isAssignableFrom(unwrapType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (isUnwrappableAs(unwrapType)) {
+            return (T) this;
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+
+    /**
+     * 租户对应的 Schema，未配置时默认租户使用默认 Schema
+     *
+     * @param tenantIdentifier 租户ID
+     * @return Schema 名称
+     * @throws SQLException 租户没有配置或者注册
+     */
+    private String getSchema(String tenantIdentifier) throws SQLException {
+        String schema = schemas.get(tenantIdentifier);
+        if (StringUtils.isNotBlank(schema)) {
+            return schema;
+        }
+        if (StringUtils.equals(tenantIdentifier, BaseConstants.DEFAULT_TENANT_ID)) {
+            return defaultSchema;
+        }
+        throw new SQLException("No schema for tenant '" + tenantIdentifier + "' registered");
+    }
+
+    /**
+     * 首次获取连接时，识别数据库的 Schema 切换方式并记录默认 Schema。此时连接还没有被切换过，取到的就是数据源配置的默认值
+     *
+     * @param connection {@link Connection}
+     * @throws SQLException 数据库访问错误
+     */
+    private void initialize(Connection connection) throws SQLException {
+        if (useCatalog == null) {
+            String productName = connection.getMetaData().getDatabaseProductName();
+            boolean catalog = StringUtils.containsAnyIgnoreCase(productName, "MySQL", "MariaDB");
+            defaultSchema = catalog ? connection.getCatalog() : connection.getSchema();
+            useCatalog = catalog;
+            log.debug("[Herodotus] |- Schema multi tenancy on [{}], default schema is [{}].", productName, defaultSchema);
+        }
+    }
+
+    private void switchSchema(Connection connection, String schema) throws SQLException {
+        if (StringUtils.isBlank(schema)) {
+            return;
+        }
+        if (Boolean.TRUE.equals(useCatalog)) {
+            connection.setCatalog(schema);
+        } else {
+            connection.setSchema(schema);
+        }
+    }
+}
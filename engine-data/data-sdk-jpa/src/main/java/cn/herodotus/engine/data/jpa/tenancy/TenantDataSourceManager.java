@@ -0,0 +1,419 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.jpa.tenancy;
+
+import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
+import cn.herodotus.engine.data.jpa.properties.MultiTenancyDataSource;
+import cn.herodotus.engine.data.jpa.properties.MultiTenancyProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.lookup.DataSourceLookupFailureException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * <p>Description: 租户数据源管理器 </p>
+ * <p>
+ * 负责租户连接池的整个生命周期，租户标识依然由 {@link MultiTenancyIdentifierResolver} 从 TenantContextHolder 中获取。
+ * 1. 延迟创建：租户连接池在该租户第一次获取连接时才创建，而不是启动时为全部租户创建。
+ * 2. 连接预算：全部租户连接池最大连接数之和不超过 connectionBudget，超出时先淘汰最久未使用的空闲连接池（最近 evictionGrace 内使用过的除外），仍然不足则拒绝创建。
+ * 3. 闲置回收：后台定时关闭闲置超过 idleTimeout 的连接池，下次使用时重新创建。
+ * 4. 运行时注册：通过 {@link #register(String, MultiTenancyDataSource)} 和 {@link #remove(String)} 在不重启的情况下增加、修改和删除租户。
+ * <p>
+ * 每个租户对外提供的是一个固定的 {@link DataSource} 门面，获取连接时才解析到当前的连接池，因此连接池被回收或重建对调用方透明。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 10:15
+ */
+public class TenantDataSourceManager implements InitializingBean, DisposableBean, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(TenantDataSourceManager.class);
+
+    private static final String METRIC_PREFIX = "herodotus.data.tenancy";
+    private static final String POOL_NAME_PREFIX = "herodotus-tenant-";
+
+    private final DataSource defaultDataSource;
+    private final MultiTenancyProperties.Pool pool;
+
+    /**
+     * 租户数据源定义
+     */
+    private final ConcurrentMap<String, MultiTenancyDataSource> definitions = new ConcurrentHashMap<>();
+    /**
+     * 已经创建的租户连接池
+     */
+    private final ConcurrentMap<String, TenantPool> pools = new ConcurrentHashMap<>();
+    /**
+     * 对外提供的租户数据源门面
+     */
+    private final ConcurrentMap<String, DataSource> facades = new ConcurrentHashMap<>();
+
+    /**
+     * 创建锁，用于串行化连接池的创建和关闭，保证连接预算的计算不会被并发修改。获取已经存在的连接池不需要加锁
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLong createdCount = new AtomicLong();
+    private final AtomicLong evictedCount = new AtomicLong();
+
+    private volatile MeterRegistry meterRegistry;
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    public TenantDataSourceManager(DataSource defaultDataSource, MultiTenancyProperties multiTenancyProperties) {
+        this.defaultDataSource = defaultDataSource;
+        this.pool = multiTenancyProperties.getPool();
+
+        Map<String, MultiTenancyDataSource> dataSources = multiTenancyProperties.getDataSources();
+        if (MapUtils.isNotEmpty(dataSources)) {
+            this.definitions.putAll(dataSources);
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setPoolSize(1);
+        this.taskScheduler.setThreadNamePrefix("herodotus-tenant-pool-evictor-");
+        this.taskScheduler.setDaemon(true);
+        this.taskScheduler.initialize();
+        this.taskScheduler.scheduleWithFixedDelay(this::evictIdle, pool.getEvictionInterval());
+        log.debug("[Herodotus] |- Tenant dataSource manager started with [{}] tenants, connection budget is [{}].", definitions.size(), pool.getConnectionBudget());
+    }
+
+    @Override
+    public void destroy() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+
+        lock.lock();
+        try {
+            pools.keySet().forEach(this::close);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 获取租户数据源。
+     * <p>
+     * 返回的是租户数据源门面，此时并不会创建连接池。未配置数据源的默认租户使用系统默认数据源。
+     *
+     * @param tenantId 租户ID
+     * @return {@link DataSource}
+     * @throws DataSourceLookupFailureException 租户不存在
+     */
+    public DataSource getDataSource(String tenantId) throws DataSourceLookupFailureException {
+        if (!definitions.containsKey(tenantId)) {
+            if (StringUtils.equals(tenantId, BaseConstants.DEFAULT_TENANT_ID)) {
+                return defaultDataSource;
+            }
+            throw new DataSourceLookupFailureException("No DataSource with name '" + tenantId + "' registered");
+        }
+        return facades.computeIfAbsent(tenantId, TenantDataSource::new);
+    }
+
+    /**
+     * 注册或者更新租户数据源。如果该租户的连接池已经存在，会被关闭，下次使用时按照新的配置重新创建。
+     *
+     * @param tenantId               租户ID
+     * @param multiTenancyDataSource 租户数据源配置
+     */
+    public void register(String tenantId, MultiTenancyDataSource multiTenancyDataSource) {
+        lock.lock();
+        try {
+            definitions.put(tenantId, multiTenancyDataSource);
+            close(tenantId);
+            log.debug("[Herodotus] |- Tenant [{}] dataSource registered.", tenantId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 删除租户数据源，并关闭该租户的连接池
+     *
+     * @param tenantId 租户ID
+     */
+    public void remove(String tenantId) {
+        lock.lock();
+        try {
+            definitions.remove(tenantId);
+            facades.remove(tenantId);
+            close(tenantId);
+            log.debug("[Herodotus] |- Tenant [{}] dataSource removed.", tenantId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 当前已经打开的租户连接池数量
+     *
+     * @return 连接池数量
+     */
+    public int getOpenPoolCount() {
+        return pools.size();
+    }
+
+    /**
+     * 当前已经打开的租户连接池占用的连接预算
+     *
+     * @return 全部已打开连接池的最大连接数之和
+     */
+    public int getBudgetUsed() {
+        return pools.values().stream().mapToInt(TenantPool::getMaximumPoolSize).sum();
+    }
+
+    private TenantPool acquire(String tenantId) {
+        TenantPool tenantPool = pools.get(tenantId);
+        if (ObjectUtils.isNotEmpty(tenantPool) && !tenantPool.isClosed()) {
+            tenantPool.touch();
+            return tenantPool;
+        }
+
+        lock.lock();
+        try {
+            tenantPool = pools.get(tenantId);
+            if (ObjectUtils.isNotEmpty(tenantPool) && !tenantPool.isClosed()) {
+                tenantPool.touch();
+                return tenantPool;
+            }
+
+            MultiTenancyDataSource multiTenancyDataSource = definitions.get(tenantId);
+            if (ObjectUtils.isEmpty(multiTenancyDataSource)) {
+                throw new DataSourceLookupFailureException("No DataSource with name '" + tenantId + "' registered");
+            }
+
+            int maximumPoolSize = Math.min(pool.getMaximumPoolSize(), pool.getConnectionBudget());
+            reserve(tenantId, maximumPoolSize);
+
+            tenantPool = new TenantPool(createDataSource(tenantId, multiTenancyDataSource, maximumPoolSize));
+            pools.put(tenantId, tenantPool);
+            createdCount.incrementAndGet();
+            log.debug("[Herodotus] |- Tenant [{}] connection pool created, budget used [{}/{}].", tenantId, getBudgetUsed(), pool.getConnectionBudget());
+            return tenantPool;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 为新的连接池预留连接预算，预算不足时按最近使用时间由远到近淘汰空闲连接池。必须在创建锁内调用。
+     * <p>
+     * 与闲置回收一致，除了没有活动连接，还要求最近使用时间早于 evictionGrace，避免关闭刚刚获取、尚未借出连接的连接池。
+     *
+     * @param tenantId        需要创建连接池的租户ID
+     * @param maximumPoolSize 需要预留的连接数
+     */
+    private void reserve(String tenantId, int maximumPoolSize) {
+        while (getBudgetUsed() + maximumPoolSize > pool.getConnectionBudget()) {
+            long deadline = System.currentTimeMillis() - pool.getEvictionGrace().toMillis();
+            String candidate = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<String, TenantPool> entry : pools.entrySet()) {
+                TenantPool item = entry.getValue();
+                if (item.getLastAccess() < deadline && item.isIdle() && item.getLastAccess() < oldest) {
+                    oldest = item.getLastAccess();
+                    candidate = entry.getKey();
+                }
+            }
+
+            if (ObjectUtils.isEmpty(candidate)) {
+                throw new DataSourceLookupFailureException("Connection budget [" + pool.getConnectionBudget() + "] is exhausted, can not create connection pool for tenant '" + tenantId + "'");
+            }
+
+            close(candidate);
+            evictedCount.incrementAndGet();
+            log.debug("[Herodotus] |- Tenant [{}] connection pool evicted to make room for tenant [{}].", candidate, tenantId);
+        }
+    }
+
+    private void evictIdle() {
+        long deadline = System.currentTimeMillis() - pool.getIdleTimeout().toMillis();
+        pools.forEach((tenantId, tenantPool) -> {
+            if (tenantPool.getLastAccess() < deadline && tenantPool.isIdle()) {
+                lock.lock();
+                try {
+                    // 加锁后再次检查，避免关闭刚刚被使用的连接池
+                    if (pools.get(tenantId) == tenantPool && tenantPool.getLastAccess() < deadline && tenantPool.isIdle()) {
+                        close(tenantId);
+                        evictedCount.incrementAndGet();
+                        log.debug("[Herodotus] |- Tenant [{}] connection pool is idle, evicted.", tenantId);
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+    }
+
+    private void close(String tenantId) {
+        TenantPool tenantPool = pools.remove(tenantId);
+        if (ObjectUtils.isNotEmpty(tenantPool)) {
+            tenantPool.close();
+        }
+    }
+
+    private HikariDataSource createDataSource(String tenantId, MultiTenancyDataSource multiTenancyDataSource, int maximumPoolSize) {
+        HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setPoolName(POOL_NAME_PREFIX + tenantId);
+        if (StringUtils.isNotBlank(multiTenancyDataSource.getDriverClassName())) {
+            hikariConfig.setDriverClassName(multiTenancyDataSource.getDriverClassName());
+        }
+        hikariConfig.setJdbcUrl(multiTenancyDataSource.getUrl());
+        hikariConfig.setUsername(multiTenancyDataSource.getUsername());
+        hikariConfig.setPassword(multiTenancyDataSource.getPassword());
+        hikariConfig.setMaximumPoolSize(maximumPoolSize);
+        hikariConfig.setMinimumIdle(Math.min(pool.getMinimumIdle(), maximumPoolSize));
+
+        if (defaultDataSource instanceof HikariDataSource) {
+            HikariDataSource defaultHikariDataSource = (HikariDataSource) defaultDataSource;
+            defaultHikariDataSource.getDataSourceProperties().forEach((key, value) -> hikariConfig.addDataSourceProperty(String.valueOf(key), value));
+        }
+
+        MeterRegistry registry = this.meterRegistry;
+        if (ObjectUtils.isNotEmpty(registry)) {
+            hikariConfig.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+        }
+
+        return new HikariDataSource(hikariConfig);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.meterRegistry = registry;
+        Gauge.builder(METRIC_PREFIX + ".pools.open", this, TenantDataSourceManager::getOpenPoolCount)
+                .description("Count of open tenant connection pools")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".budget.used", this, TenantDataSourceManager::getBudgetUsed)
+                .description("Maximum connections reserved by open tenant connection pools")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".budget.limit", pool, value -> value.getConnectionBudget())
+                .description("Maximum connections shared by all tenant connection pools")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".pools.created", createdCount, AtomicLong::get)
+                .description("Count of tenant connection pools created")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".pools.evicted", evictedCount, AtomicLong::get)
+                .description("Count of tenant connection pools closed by idle or budget eviction")
+                .register(registry);
+    }
+
+    private static class TenantPool {
+
+        private final HikariDataSource dataSource;
+        private volatile long lastAccess;
+
+        private TenantPool(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        private void touch() {
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        private long getLastAccess() {
+            return lastAccess;
+        }
+
+        private int getMaximumPoolSize() {
+            return dataSource.getMaximumPoolSize();
+        }
+
+        private boolean isClosed() {
+            return dataSource.isClosed();
+        }
+
+        private boolean isIdle() {
+            HikariPoolMXBean poolMXBean = dataSource.getHikariPoolMXBean();
+            return ObjectUtils.isEmpty(poolMXBean) || poolMXBean.getActiveConnections() == 0;
+        }
+
+        private void close() {
+            dataSource.close();
+        }
+    }
+
+    /**
+     * 租户数据源门面。获取连接时才解析租户连接池，如果连接池恰好被回收，重新创建后再获取一次。
+     */
+    private class TenantDataSource extends AbstractDataSource {
+
+        private final String tenantId;
+
+        private TenantDataSource(String tenantId) {
+            this.tenantId = tenantId;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            TenantPool tenantPool = acquire(tenantId);
+            try {
+                return tenantPool.dataSource.getConnection();
+            } catch (SQLException e) {
+                if (tenantPool.isClosed()) {
+                    return acquire(tenantId).dataSource.getConnection();
+                }
+                throw e;
+            }
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new SQLFeatureNotSupportedException("Tenant dataSource does not support custom username and password");
+        }
+
+        @Override
+        public String toString() {
+            return POOL_NAME_PREFIX + tenantId;
+        }
+    }
+}
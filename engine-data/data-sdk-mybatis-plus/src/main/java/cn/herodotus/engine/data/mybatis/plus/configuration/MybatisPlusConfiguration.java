@@ -27,6 +27,11 @@ package cn.herodotus.engine.data.mybatis.plus.configuration;
 
 import cn.herodotus.engine.data.core.constants.DataConstants;
 import cn.herodotus.engine.data.mybatis.plus.enhance.HerodotusIdentifierGenerator;
+import cn.herodotus.engine.data.mybatis.plus.identifier.InMemoryWorkerIdRegistry;
+import cn.herodotus.engine.data.mybatis.plus.identifier.JdbcWorkerIdRegistry;
+import cn.herodotus.engine.data.mybatis.plus.identifier.SnowflakeIdAllocator;
+import cn.herodotus.engine.data.mybatis.plus.identifier.WorkerIdRegistry;
+import cn.herodotus.engine.data.mybatis.plus.properties.IdentifierProperties;
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.core.incrementer.IdentifierGenerator;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
@@ -36,9 +41,14 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.apache.commons.lang3.BooleanUtils;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import javax.annotation.PostConstruct;
 
@@ -49,6 +59,7 @@ import javax.annotation.PostConstruct;
  * @date : 2021/8/28 11:48
  */
 @Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(IdentifierProperties.class)
 public class MybatisPlusConfiguration {
 
     private static final Logger log = LoggerFactory.getLogger(MybatisPlusConfiguration.class);
@@ -92,8 +103,42 @@ public class MybatisPlusConfiguration {
     }
 
     @Bean
-    public IdentifierGenerator identifierGenerator() {
-        HerodotusIdentifierGenerator herodotusIdentifierGenerator = new HerodotusIdentifierGenerator();
+    @ConditionalOnMissingBean
+    public WorkerIdRegistry workerIdRegistry(IdentifierProperties identifierProperties, ObjectProvider<JdbcTemplate> jdbcTemplate) {
+        if (identifierProperties.getRegistry() == IdentifierProperties.Registry.JDBC) {
+            JdbcWorkerIdRegistry jdbcWorkerIdRegistry = new JdbcWorkerIdRegistry(jdbcTemplate.getObject(), identifierProperties.getTableName(), identifierProperties.getLeaseTimeout().toMillis(), identifierProperties.getEpoch());
+            if (BooleanUtils.isTrue(identifierProperties.getInitializeSchema())) {
+                jdbcWorkerIdRegistry.initializeSchema();
+            }
+            log.trace("[Herodotus] |- Bean [Jdbc Worker Id Registry] Auto Configure.");
+            return jdbcWorkerIdRegistry;
+        }
+
+        log.warn("[Herodotus] |- Identifier worker id registry is MEMORY, it is only safe for single instance deployment.");
+        InMemoryWorkerIdRegistry inMemoryWorkerIdRegistry = new InMemoryWorkerIdRegistry();
+        log.trace("[Herodotus] |- Bean [In Memory Worker Id Registry] Auto Configure.");
+        return inMemoryWorkerIdRegistry;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public SnowflakeIdAllocator snowflakeIdAllocator(WorkerIdRegistry workerIdRegistry, IdentifierProperties identifierProperties) {
+        if (identifierProperties.getEpoch() != IdentifierProperties.DEFAULT_EPOCH) {
+            log.warn("[Herodotus] |- Identifier epoch is changed to [{}], it is only safe on a fresh database.", identifierProperties.getEpoch());
+        }
+        SnowflakeIdAllocator snowflakeIdAllocator = new SnowflakeIdAllocator(workerIdRegistry,
+                identifierProperties.getDatacenterId(),
+                identifierProperties.getEpoch(),
+                identifierProperties.getMaxBorrow(),
+                identifierProperties.getLeaseTimeout());
+        log.trace("[Herodotus] |- Bean [Snowflake Id Allocator] Auto Configure.");
+        return snowflakeIdAllocator;
+    }
+
+    @Bean
+    public IdentifierGenerator identifierGenerator(SnowflakeIdAllocator snowflakeIdAllocator, IdentifierProperties identifierProperties) {
+        int segmentSize = identifierProperties.getMode() == IdentifierProperties.Mode.SEGMENT ? identifierProperties.getSegmentSize() : 0;
+        HerodotusIdentifierGenerator herodotusIdentifierGenerator = new HerodotusIdentifierGenerator(snowflakeIdAllocator, segmentSize);
         log.trace("[Herodotus] |- Bean [Herodotus Identifier Generator] Auto Configure.");
         return herodotusIdentifierGenerator;
     }
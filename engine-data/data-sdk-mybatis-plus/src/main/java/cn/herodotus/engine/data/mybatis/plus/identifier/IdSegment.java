@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.mybatis.plus.identifier;
+
+import java.util.NoSuchElementException;
+
+/**
+ * <p>Description: 预分配的一段 ID </p>
+ * <p>
+ * 一段 ID 通过一次 CAS 操作从 {@link SnowflakeIdAllocator} 中分配，之后从本地依次取出，不再产生竞争。
+ * 分配器重新租用 WorkerId 后，原有的 WorkerId 可能已经被其它实例占用，此时该段剩余的 ID 全部作废。
+ * 该对象不是线程安全的，应由单个线程使用。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/15 11:05
+ */
+public class IdSegment {
+
+    private final SnowflakeIdAllocator allocator;
+    private final long generation;
+    private final long end;
+    private final long nodeBits;
+    private long cursor;
+
+    IdSegment(SnowflakeIdAllocator allocator, long generation, long start, long end, long nodeBits) {
+        this.allocator = allocator;
+        this.generation = generation;
+        this.cursor = start;
+        this.end = end;
+        this.nodeBits = nodeBits;
+    }
+
+    /**
+     * 是否还有可用的 ID。WorkerId 租约发生变化后返回 false
+     *
+     * @return 是否还有可用的 ID
+     */
+    public boolean hasNext() {
+        return cursor < end && isValid();
+    }
+
+    public long next() {
+        if (!isValid()) {
+            throw new IllegalStateException("Worker lease changed, id segment is discarded");
+        }
+        if (cursor >= end) {
+            throw new NoSuchElementException("Id segment is exhausted");
+        }
+        return SnowflakeIdAllocator.toId(cursor++, nodeBits);
+    }
+
+    private boolean isValid() {
+        return allocator.getGeneration() == generation;
+    }
+
+    public int remaining() {
+        return (int) (end - cursor);
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.mybatis.plus.identifier;
+
+import cn.hutool.core.util.IdUtil;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>Description: 基于内存的 WorkerId 注册中心 </p>
+ * <p>
+ * 只在当前 JVM 内保证 WorkerId 不重复，适用于单实例部署。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/15 10:31
+ */
+public class InMemoryWorkerIdRegistry implements WorkerIdRegistry {
+
+    private final Map<Integer, BitSet> leased = new HashMap<>();
+    private final Map<Long, Long> lastTimestamps = new HashMap<>();
+
+    @Override
+    public synchronized WorkerLease lease(int datacenterId) {
+        BitSet workers = leased.computeIfAbsent(datacenterId, key -> new BitSet(SnowflakeIdAllocator.MAX_WORKER_ID + 1));
+        int workerId = workers.nextClearBit(0);
+        if (workerId > SnowflakeIdAllocator.MAX_WORKER_ID) {
+            throw new IllegalStateException("No free worker id in datacenter [" + datacenterId + "]");
+        }
+        workers.set(workerId);
+        long lastTimestamp = lastTimestamps.getOrDefault(toKey(datacenterId, workerId), 0L);
+        return new WorkerLease(datacenterId, workerId, IdUtil.fastSimpleUUID(), lastTimestamp);
+    }
+
+    @Override
+    public synchronized boolean renew(WorkerLease lease, long lastTimestamp) {
+        BitSet workers = leased.get(lease.getDatacenterId());
+        return workers != null && workers.get(lease.getWorkerId());
+    }
+
+    @Override
+    public synchronized void release(WorkerLease lease, long lastTimestamp) {
+        BitSet workers = leased.get(lease.getDatacenterId());
+        if (workers != null) {
+            workers.clear(lease.getWorkerId());
+        }
+        lastTimestamps.put(toKey(lease.getDatacenterId(), lease.getWorkerId()), lastTimestamp);
+    }
+
+    private long toKey(int datacenterId, int workerId) {
+        return ((long) datacenterId << 32) | workerId;
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.mybatis.plus.identifier;
+
+import cn.hutool.core.util.IdUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Description: 基于数据库表的 WorkerId 注册中心 </p>
+ * <p>
+ * 每个 WorkerId 在表中对应一行记录，以 (datacenter_id, worker_id) 为主键：
+ * 1. 租用：优先插入一个不存在的 WorkerId；全部存在时，抢占心跳已经超时的 WorkerId。插入依赖主键唯一，抢占依赖带条件的 update，均不需要加锁。
+ * 2. 续约：更新心跳时间和已经使用的最大时间戳，只有 instance_id 一致时才能成功。
+ * 3. 释放：只将心跳时间置为 0，保留最大时间戳，供下一个使用者判断时钟是否回拨。
+ * 4. 每条记录同时保存生成 ID 使用的起始时间戳，与当前配置不一致时拒绝租用，防止修改起始时间戳后生成重复的 ID。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/15 10:40
+ */
+public class JdbcWorkerIdRegistry implements WorkerIdRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcWorkerIdRegistry.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String tableName;
+    private final long leaseTimeout;
+    private final long epoch;
+
+    public JdbcWorkerIdRegistry(JdbcTemplate jdbcTemplate, String tableName, long leaseTimeout, long epoch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tableName = tableName;
+        this.leaseTimeout = leaseTimeout;
+        this.epoch = epoch;
+    }
+
+    /**
+     * 创建 WorkerId 租用记录表
+     */
+    public void initializeSchema() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + tableName + " ("
+                + "datacenter_id INT NOT NULL, "
+                + "worker_id INT NOT NULL, "
+                + "instance_id VARCHAR(64) NOT NULL, "
+                + "last_timestamp BIGINT NOT NULL, "
+                + "heartbeat_at BIGINT NOT NULL, "
+                + "epoch BIGINT NOT NULL, "
+                + "PRIMARY KEY (datacenter_id, worker_id))");
+        log.debug("[Herodotus] |- Identifier worker table [{}] initialized.", tableName);
+    }
+
+    @Override
+    public WorkerLease lease(int datacenterId) {
+        checkEpoch();
+
+        String instanceId = IdUtil.fastSimpleUUID();
+        long now = System.currentTimeMillis();
+
+        Map<Integer, Long> heartbeats = new HashMap<>();
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList("SELECT worker_id, heartbeat_at FROM " + tableName + " WHERE datacenter_id = ?", datacenterId);
+        for (Map<String, Object> row : rows) {
+            heartbeats.put(((Number) row.get("worker_id")).intValue(), ((Number) row.get("heartbeat_at")).longValue());
+        }
+
+        for (int workerId = 0; workerId <= SnowflakeIdAllocator.MAX_WORKER_ID; workerId++) {
+            if (!heartbeats.containsKey(workerId)) {
+                try {
+                    jdbcTemplate.update("INSERT INTO " + tableName + " (datacenter_id, worker_id, instance_id, last_timestamp, heartbeat_at, epoch) VALUES (?, ?, ?, ?, ?, ?)",
+                            datacenterId, workerId, instanceId, 0L, now, epoch);
+                    return leased(datacenterId, workerId, instanceId, 0L);
+                } catch (DuplicateKeyException e) {
+                    // 已经被其它实例插入，继续尝试下一个
+                    continue;
+                }
+            }
+
+            if (heartbeats.get(workerId) < now - leaseTimeout) {
+                int updated = jdbcTemplate.update("UPDATE " + tableName + " SET instance_id = ?, heartbeat_at = ? WHERE datacenter_id = ? AND worker_id = ? AND heartbeat_at = ?",
+                        instanceId, now, datacenterId, workerId, heartbeats.get(workerId));
+                if (updated == 1) {
+                    Long lastTimestamp = jdbcTemplate.queryForObject("SELECT last_timestamp FROM " + tableName + " WHERE datacenter_id = ? AND worker_id = ?",
+                            Long.class, datacenterId, workerId);
+                    return leased(datacenterId, workerId, instanceId, lastTimestamp == null ? 0L : lastTimestamp);
+                }
+            }
+        }
+
+        throw new IllegalStateException("No free worker id in datacenter [" + datacenterId + "]");
+    }
+
+    private void checkEpoch() {
+        List<Long> epochs = jdbcTemplate.queryForList("SELECT DISTINCT epoch FROM " + tableName + " WHERE epoch <> ?", Long.class, epoch);
+        if (!epochs.isEmpty()) {
+            throw new IllegalStateException("Identifier epoch [" + epoch + "] differs from epoch " + epochs + " recorded in [" + tableName + "], epoch can only be changed on a fresh database");
+        }
+    }
+
+    private WorkerLease leased(int datacenterId, int workerId, String instanceId, long lastTimestamp) {
+        WorkerLease lease = new WorkerLease(datacenterId, workerId, instanceId, lastTimestamp);
+        log.info("[Herodotus] |- Identifier worker id leased [{}].", lease);
+        return lease;
+    }
+
+    @Override
+    public boolean renew(WorkerLease lease, long lastTimestamp) {
+        int updated = jdbcTemplate.update("UPDATE " + tableName + " SET heartbeat_at = ?, last_timestamp = ? WHERE datacenter_id = ? AND worker_id = ? AND instance_id = ?",
+                System.currentTimeMillis(), lastTimestamp, lease.getDatacenterId(), lease.getWorkerId(), lease.getInstanceId());
+        return updated == 1;
+    }
+
+    @Override
+    public void release(WorkerLease lease, long lastTimestamp) {
+        jdbcTemplate.update("UPDATE " + tableName + " SET heartbeat_at = 0, last_timestamp = ? WHERE datacenter_id = ? AND worker_id = ? AND instance_id = ?",
+                lastTimestamp, lease.getDatacenterId(), lease.getWorkerId(), lease.getInstanceId());
+        log.debug("[Herodotus] |- Identifier worker id released [{}].", lease);
+    }
+}
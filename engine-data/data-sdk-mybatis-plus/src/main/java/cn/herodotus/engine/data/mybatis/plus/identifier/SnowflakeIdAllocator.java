@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.mybatis.plus.identifier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Description: 雪花算法 ID 分配器 </p>
+ * <p>
+ * ID 结构与标准雪花算法一致：41 位时间戳、5 位数据中心ID、5 位 WorkerId、12 位序列号。
+ * 1. WorkerId 通过 {@link WorkerIdRegistry} 租用，不再随机选取，多实例之间不会重复。
+ * 2. 时间戳与序列号合并为一个 long 保存在 {@link AtomicLong} 中，通过 CAS 分配，无锁。
+ * 3. 序列号用尽或者时钟回拨时，不等待也不报错，而是在上一次分配的基础上继续递增，即借用未来的时间戳。
+ * 借用的范围由 maxBorrow 限制，超过后拒绝生成 ID。实际时钟追上后自动恢复。
+ * 4. 使用者定期将已经使用的最大时间戳写入注册中心，重启后从该时间戳之后开始分配，避免重启期间时钟回拨导致 ID 重复。
+ * <p>
+ * 该类不依赖 Mybatis Plus，JPA 等其它场景可以直接使用 {@link #nextId()}。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/15 11:12
+ */
+public class SnowflakeIdAllocator implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SnowflakeIdAllocator.class);
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final int WORKER_ID_BITS = 5;
+    private static final int DATACENTER_ID_BITS = 5;
+
+    public static final int MAX_WORKER_ID = ~(-1 << WORKER_ID_BITS);
+    public static final int MAX_DATACENTER_ID = ~(-1 << DATACENTER_ID_BITS);
+
+    private static final long SEQUENCE_MASK = ~(-1L << SEQUENCE_BITS);
+    private static final int WORKER_ID_SHIFT = SEQUENCE_BITS;
+    private static final int DATACENTER_ID_SHIFT = SEQUENCE_BITS + WORKER_ID_BITS;
+    private static final int TIMESTAMP_SHIFT = DATACENTER_ID_SHIFT + DATACENTER_ID_BITS;
+
+    private final WorkerIdRegistry workerIdRegistry;
+    private final int datacenterId;
+    private final long epoch;
+    private final long maxBorrow;
+    private final Duration heartbeatInterval;
+
+    /**
+     * 已经分配的最大值，高位为相对 epoch 的时间戳，低 12 位为序列号
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    private volatile WorkerLease lease;
+    private volatile long nodeBits;
+
+    /**
+     * 租约代数，每次租用 WorkerId 后递增，用于作废之前分配的 {@link IdSegment}
+     */
+    private volatile long generation;
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    public SnowflakeIdAllocator(WorkerIdRegistry workerIdRegistry, int datacenterId, long epoch, Duration maxBorrow, Duration leaseTimeout) {
+        Assert.isTrue(datacenterId >= 0 && datacenterId <= MAX_DATACENTER_ID, "Datacenter id must be between 0 and " + MAX_DATACENTER_ID);
+        Assert.isTrue(epoch <= System.currentTimeMillis(), "Epoch cannot be in the future");
+        this.workerIdRegistry = workerIdRegistry;
+        this.datacenterId = datacenterId;
+        this.epoch = epoch;
+        this.maxBorrow = maxBorrow.toMillis();
+        this.heartbeatInterval = leaseTimeout.dividedBy(3);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        acquire();
+
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setPoolSize(1);
+        this.taskScheduler.setThreadNamePrefix("herodotus-identifier-heartbeat-");
+        this.taskScheduler.setDaemon(true);
+        this.taskScheduler.initialize();
+        this.taskScheduler.scheduleAtFixedRate(this::heartbeat, heartbeatInterval);
+    }
+
+    @Override
+    public void destroy() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+        if (this.lease != null) {
+            workerIdRegistry.release(this.lease, getLastTimestamp());
+        }
+    }
+
+    private void acquire() {
+        WorkerLease current = workerIdRegistry.lease(datacenterId);
+        long floor = (current.getLastTimestamp() - epoch + 1) << SEQUENCE_BITS;
+        state.accumulateAndGet(floor, Math::max);
+        if (current.getLastTimestamp() > System.currentTimeMillis()) {
+            log.warn("[Herodotus] |- Last timestamp of worker [{}] is ahead of current clock, id generation will borrow time.", current.getWorkerId());
+        }
+
+        this.nodeBits = ((long) current.getDatacenterId() << DATACENTER_ID_SHIFT) | ((long) current.getWorkerId() << WORKER_ID_SHIFT);
+        this.lease = current;
+        this.generation++;
+        log.debug("[Herodotus] |- Identifier allocator use datacenter [{}] worker [{}].", current.getDatacenterId(), current.getWorkerId());
+    }
+
+    private void heartbeat() {
+        try {
+            if (!workerIdRegistry.renew(this.lease, getLastTimestamp())) {
+                log.error("[Herodotus] |- Identifier worker lease [{}] is lost, lease a new one.", this.lease);
+                acquire();
+            }
+        } catch (Exception e) {
+            log.warn("[Herodotus] |- Renew identifier worker lease failed, retry next time.", e);
+        }
+    }
+
+    /**
+     * 生成一个 ID
+     *
+     * @return ID
+     */
+    public long nextId() {
+        return toId(advance(1), this.nodeBits);
+    }
+
+    /**
+     * 预分配一段连续的 ID，适用于批量插入
+     *
+     * @param size 数量
+     * @return {@link IdSegment}
+     */
+    public IdSegment nextSegment(int size) {
+        Assert.isTrue(size > 0, "Segment size must be greater than 0");
+        long current = this.generation;
+        long bits = this.nodeBits;
+        long end = advance(size);
+        return new IdSegment(this, current, end - size + 1, end + 1, bits);
+    }
+
+    long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * 已经分配的最大时间戳
+     *
+     * @return 时间戳
+     */
+    public long getLastTimestamp() {
+        return (state.get() >>> SEQUENCE_BITS) + epoch;
+    }
+
+    private long advance(int count) {
+        for (; ; ) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - epoch;
+            long start = Math.max(current + 1, now << SEQUENCE_BITS);
+            long end = start + count - 1;
+
+            long borrowed = (end >>> SEQUENCE_BITS) - now;
+            if (borrowed > maxBorrow) {
+                throw new IllegalStateException("Clock moved backwards or id exhausted, refusing to borrow " + borrowed + " ms");
+            }
+
+            if (state.compareAndSet(current, end)) {
+                return end;
+            }
+        }
+    }
+
+    static long toId(long value, long nodeBits) {
+        return ((value >>> SEQUENCE_BITS) << TIMESTAMP_SHIFT) | nodeBits | (value & SEQUENCE_MASK);
+    }
+}
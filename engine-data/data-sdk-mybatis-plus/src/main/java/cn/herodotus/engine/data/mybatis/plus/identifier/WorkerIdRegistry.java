@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.mybatis.plus.identifier;
+
+/**
+ * <p>Description: WorkerId 注册中心 </p>
+ * <p>
+ * 负责在多个实例之间分配互不重复的 WorkerId。实例通过定期续约保持对 WorkerId 的占用，停止续约后 WorkerId 可以被其它实例重新使用。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/15 10:25
+ */
+public interface WorkerIdRegistry {
+
+    /**
+     * 租用一个空闲的 WorkerId
+     *
+     * @param datacenterId 数据中心ID
+     * @return {@link WorkerLease}
+     * @throws IllegalStateException 没有空闲的 WorkerId
+     */
+    WorkerLease lease(int datacenterId);
+
+    /**
+     * 续约
+     *
+     * @param lease         {@link WorkerLease}
+     * @param lastTimestamp 当前已经使用的最大时间戳
+     * @return 续约成功返回 true；租约已经失效返回 false
+     */
+    boolean renew(WorkerLease lease, long lastTimestamp);
+
+    /**
+     * 释放租约
+     *
+     * @param lease         {@link WorkerLease}
+     * @param lastTimestamp 当前已经使用的最大时间戳
+     */
+    void release(WorkerLease lease, long lastTimestamp);
+}
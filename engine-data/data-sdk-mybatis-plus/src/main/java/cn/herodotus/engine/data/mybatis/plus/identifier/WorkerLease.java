@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.mybatis.plus.identifier;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * <p>Description: WorkerId 租约 </p>
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/15 10:20
+ */
+public class WorkerLease {
+
+    private final int datacenterId;
+    private final int workerId;
+    private final String instanceId;
+    /**
+     * 该 WorkerId 上一次使用者最后记录的时间戳，用于防止重启后时钟回拨导致 ID 重复
+     */
+    private final long lastTimestamp;
+
+    public WorkerLease(int datacenterId, int workerId, String instanceId, long lastTimestamp) {
+        this.datacenterId = datacenterId;
+        this.workerId = workerId;
+        this.instanceId = instanceId;
+        this.lastTimestamp = lastTimestamp;
+    }
+
+    public int getDatacenterId() {
+        return datacenterId;
+    }
+
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    public String getInstanceId() {
+        return instanceId;
+    }
+
+    public long getLastTimestamp() {
+        return lastTimestamp;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("datacenterId", datacenterId)
+                .add("workerId", workerId)
+                .add("instanceId", instanceId)
+                .add("lastTimestamp", lastTimestamp)
+                .toString();
+    }
+}
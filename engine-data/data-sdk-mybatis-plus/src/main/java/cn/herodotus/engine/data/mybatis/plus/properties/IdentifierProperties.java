@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.data.mybatis.plus.properties;
+
+import cn.herodotus.engine.data.core.constants.DataConstants;
+import com.google.common.base.MoreObjects;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * <p>Description: 分布式 ID 生成配置 </p>
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/15 10:12
+ */
+@ConfigurationProperties(prefix = DataConstants.PROPERTY_PREFIX_IDENTIFIER)
+public class IdentifierProperties {
+
+    /**
+     * 与 Hutool Snowflake 默认值一致的起始时间戳，保证新生成的 ID 大于此前已经保存的 ID
+     */
+    public static final long DEFAULT_EPOCH = 1288834974657L;
+
+    public enum Registry {
+        /**
+         * 本地内存分配 WorkerId，只适用于单实例部署
+         */
+        MEMORY,
+        /**
+         * 通过数据库表租用 WorkerId，适用于多实例部署
+         */
+        JDBC
+    }
+
+    public enum Mode {
+        /**
+         * 每次生成一个 ID
+         */
+        SNOWFLAKE,
+        /**
+         * 每个线程一次预分配一段 ID，适用于批量插入
+         */
+        SEGMENT
+    }
+
+    /**
+     * WorkerId 注册方式，默认 JDBC。MEMORY 只能在单实例部署时使用，多实例使用会产生重复的 ID
+     */
+    private Registry registry = Registry.JDBC;
+
+    /**
+     * ID 生成模式，默认 SNOWFLAKE
+     */
+    private Mode mode = Mode.SNOWFLAKE;
+
+    /**
+     * 数据中心ID，取值范围 0~31
+     */
+    private Integer datacenterId = 0;
+
+    /**
+     * SEGMENT 模式下，每次预分配的 ID 数量
+     */
+    private Integer segmentSize = 100;
+
+    /**
+     * 起始时间戳，默认与 Hutool Snowflake 一致。只能在全新的数据库上修改，一旦投入使用不能再修改。
+     * JDBC 模式下会将该值记录在 WorkerId 租用记录表中，与已记录的值不一致时拒绝启动
+     */
+    private Long epoch = DEFAULT_EPOCH;
+
+    /**
+     * 时钟回拨时，允许借用未来时间的最大范围。超过该范围将拒绝生成 ID
+     */
+    private Duration maxBorrow = Duration.ofSeconds(5);
+
+    /**
+     * JDBC 模式下 WorkerId 的租期，超过租期未续约的 WorkerId 可以被其它实例占用
+     */
+    private Duration leaseTimeout = Duration.ofMinutes(1);
+
+    /**
+     * JDBC 模式下 WorkerId 租用记录表名
+     */
+    private String tableName = "sys_identifier_worker";
+
+    /**
+     * JDBC 模式下是否自动创建 WorkerId 租用记录表
+     */
+    private Boolean initializeSchema = true;
+
+    public Registry getRegistry() {
+        return registry;
+    }
+
+    public void setRegistry(Registry registry) {
+        this.registry = registry;
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public void setMode(Mode mode) {
+        this.mode = mode;
+    }
+
+    public Integer getDatacenterId() {
+        return datacenterId;
+    }
+
+    public void setDatacenterId(Integer datacenterId) {
+        this.datacenterId = datacenterId;
+    }
+
+    public Integer getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(Integer segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public Long getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(Long epoch) {
+        this.epoch = epoch;
+    }
+
+    public Duration getMaxBorrow() {
+        return maxBorrow;
+    }
+
+    public void setMaxBorrow(Duration maxBorrow) {
+        this.maxBorrow = maxBorrow;
+    }
+
+    public Duration getLeaseTimeout() {
+        return leaseTimeout;
+    }
+
+    public void setLeaseTimeout(Duration leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+    }
+
+    public String getTableName() {
+        return tableName;
+    }
+
+    public void setTableName(String tableName) {
+        this.tableName = tableName;
+    }
+
+    public Boolean getInitializeSchema() {
+        return initializeSchema;
+    }
+
+    public void setInitializeSchema(Boolean initializeSchema) {
+        this.initializeSchema = initializeSchema;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("registry", registry)
+                .add("mode", mode)
+                .add("datacenterId", datacenterId)
+                .add("segmentSize", segmentSize)
+                .add("epoch", epoch)
+                .add("maxBorrow", maxBorrow)
+                .add("leaseTimeout", leaseTimeout)
+                .add("tableName", tableName)
+                .add("initializeSchema", initializeSchema)
+                .toString();
+    }
+}
@@ -38,6 +38,13 @@ public interface MessageConstants extends BaseConstants {
     String MSG_AREA_PREFIX = AREA_PREFIX + "msg:";
 
     String REDIS_CURRENT_ONLINE_USER = MSG_AREA_PREFIX + "online:user";
+    /**
+     * 在线状态的 Key 会在同一个 Lua 脚本中一起操作，使用相同的 Hash Tag 保证在 Redis Cluster 中位于同一个 Slot
+     */
+    String REDIS_ONLINE_HASH_TAG = MSG_AREA_PREFIX + "{online}:";
+    String REDIS_ONLINE_USER_SESSIONS = REDIS_ONLINE_HASH_TAG + "sessions";
+    String REDIS_ONLINE_NODES = REDIS_ONLINE_HASH_TAG + "nodes";
+    String REDIS_ONLINE_NODE_PREFIX = REDIS_ONLINE_HASH_TAG + "node:";
     String REGION_MESSAGE_ANNOUNCEMENT = MSG_AREA_PREFIX + "system_announcement";
     String REGION_MESSAGE_DIALOGUE_CONTACT = MSG_AREA_PREFIX + "personal:contact";
     String REGION_MESSAGE_DIALOGUE = MSG_AREA_PREFIX + "personal:dialogue";
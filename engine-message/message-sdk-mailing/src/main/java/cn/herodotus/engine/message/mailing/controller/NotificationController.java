@@ -28,6 +28,7 @@ package cn.herodotus.engine.message.mailing.controller;
 import cn.herodotus.engine.assistant.core.domain.Result;
 import cn.herodotus.engine.data.core.service.WriteableService;
 import cn.herodotus.engine.message.core.enums.NotificationCategory;
+import cn.herodotus.engine.message.mailing.domain.InboxItem;
 import cn.herodotus.engine.message.mailing.entity.Notification;
 import cn.herodotus.engine.message.mailing.service.NotificationService;
 import cn.herodotus.engine.rest.core.controller.BaseWriteableRestController;
@@ -39,11 +40,11 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import io.swagger.v3.oas.annotations.tags.Tags;
-import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.data.domain.Page;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.constraints.NotNull;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -71,7 +72,7 @@ public class NotificationController extends BaseWriteableRestController<Notifica
         return notificationService;
     }
 
-    @Operation(summary = "条件查询通知信息分页数据", description = "根据输入的字段条件查询通知信息",
+    @Operation(summary = "条件查询通知信息分页数据", description = "根据输入的字段条件查询通知信息，公告从公告表中读取，通知ID即为公告ID",
             responses = {@ApiResponse(description = "详情列表", content = @Content(mediaType = "application/json", schema = @Schema(implementation = Map.class)))})
     @Parameters({
             @Parameter(name = "pageNumber", required = true, description = "当前页码", schema = @Schema(type = "integer")),
@@ -87,16 +88,27 @@ public class NotificationController extends BaseWriteableRestController<Notifica
                                                        @RequestParam(value = "category", required = false) Integer category,
                                                        @RequestParam(value = "read", required = false) Boolean read) {
         NotificationCategory notificationCategory = NotificationCategory.get(category);
-        if (ObjectUtils.isNotEmpty(notificationCategory)) {
-            if (notificationCategory == NotificationCategory.ANNOUNCEMENT) {
-                notificationService.pullAnnouncements(userId);
-            }
-        }
-
         Page<Notification> pages = notificationService.findByCondition(pageNumber, pageSize, userId, notificationCategory, read);
         return result(pages);
     }
 
+    @Operation(summary = "查询收件箱", description = "合并个人通知和系统公告，按创建时间倒序排列。查询下一页时传入本页最后一条数据的 timestamp 和 id",
+            responses = {@ApiResponse(description = "收件箱条目列表", content = @Content(mediaType = "application/json", schema = @Schema(implementation = InboxItem.class)))})
+    @Parameters({
+            @Parameter(name = "userId", required = true, description = "用户ID"),
+            @Parameter(name = "pageSize", required = true, description = "每页显示数量", schema = @Schema(type = "integer")),
+            @Parameter(name = "timestamp", description = "游标，上一页最后一条数据的创建时间戳", schema = @Schema(type = "integer", format = "int64")),
+            @Parameter(name = "id", description = "游标，上一页最后一条数据的ID"),
+    })
+    @GetMapping("/inbox")
+    public Result<List<InboxItem>> findInbox(@NotNull @RequestParam(value = "userId") String userId,
+                                             @NotNull @RequestParam(value = "pageSize") Integer pageSize,
+                                             @RequestParam(value = "timestamp", required = false) Long timestamp,
+                                             @RequestParam(value = "id", required = false) String id) {
+        List<InboxItem> items = notificationService.findInbox(userId, timestamp, id, pageSize);
+        return Result.success("查询成功", items);
+    }
+
     @Operation(summary = "全部通知已读", description = "根据用户ID设置该用户的全部通知为已读",
             responses = {@ApiResponse(description = "影响数据条目数", content = @Content(mediaType = "application/json"))})
     @Parameters({
@@ -107,4 +119,16 @@ public class NotificationController extends BaseWriteableRestController<Notifica
         Integer result = notificationService.setAllRead(userId);
         return Result.success("操作成功", result);
     }
+
+    @Operation(summary = "公告已读", description = "根据用户ID和公告ID设置该用户的一条公告为已读",
+            responses = {@ApiResponse(description = "公告是否存在", content = @Content(mediaType = "application/json"))})
+    @Parameters({
+            @Parameter(name = "userId", required = true, description = "用户ID"),
+            @Parameter(name = "announcementId", required = true, description = "公告ID")
+    })
+    @PutMapping("/announcement-read")
+    public Result<Boolean> setAnnouncementRead(@RequestParam("userId") String userId, @RequestParam("announcementId") String announcementId) {
+        boolean result = notificationService.setAnnouncementRead(userId, announcementId);
+        return Result.success("操作成功", result);
+    }
 }
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.message.mailing.domain;
+
+import cn.herodotus.engine.message.core.enums.NotificationCategory;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.google.common.base.MoreObjects;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * <p>Description: 收件箱条目 </p>
+ * <p>
+ * 统一表示个人通知和系统公告。查询下一页时，将本页最后一条数据的 timestamp 和 id 作为游标传入。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/23 15:20
+ */
+@Schema(name = "收件箱条目")
+public class InboxItem implements Serializable {
+
+    @Schema(name = "ID", title = "个人通知为队列ID，系统公告为公告ID")
+    private String id;
+
+    @Schema(name = "通知类别")
+    private NotificationCategory category;
+
+    @Schema(name = "公告标题", title = "个人通知没有标题")
+    private String title;
+
+    @Schema(name = "内容")
+    private String content;
+
+    @Schema(name = "发送人ID")
+    private String senderId;
+
+    @Schema(name = "发送人名称")
+    private String senderName;
+
+    @Schema(name = "发送人头像")
+    private String senderAvatar;
+
+    @Schema(name = "是否已经读取")
+    private Boolean read;
+
+    @Schema(name = "创建时间")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date createTime;
+
+    @Schema(name = "创建时间戳", title = "毫秒，用作分页游标")
+    private Long timestamp;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public NotificationCategory getCategory() {
+        return category;
+    }
+
+    public void setCategory(NotificationCategory category) {
+        this.category = category;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public String getContent() {
+        return content;
+    }
+
+    public void setContent(String content) {
+        this.content = content;
+    }
+
+    public String getSenderId() {
+        return senderId;
+    }
+
+    public void setSenderId(String senderId) {
+        this.senderId = senderId;
+    }
+
+    public String getSenderName() {
+        return senderName;
+    }
+
+    public void setSenderName(String senderName) {
+        this.senderName = senderName;
+    }
+
+    public String getSenderAvatar() {
+        return senderAvatar;
+    }
+
+    public void setSenderAvatar(String senderAvatar) {
+        this.senderAvatar = senderAvatar;
+    }
+
+    public Boolean getRead() {
+        return read;
+    }
+
+    public void setRead(Boolean read) {
+        this.read = read;
+    }
+
+    public Date getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(Date createTime) {
+        this.createTime = createTime;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("id", id)
+                .add("category", category)
+                .add("title", title)
+                .add("read", read)
+                .add("createTime", createTime)
+                .toString();
+    }
+}
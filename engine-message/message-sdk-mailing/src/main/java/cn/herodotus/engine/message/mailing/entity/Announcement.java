@@ -42,7 +42,10 @@ import javax.persistence.*;
  */
 @Schema(name = "系统公告")
 @Entity
-@Table(name = "msg_announcement", indexes = {@Index(name = "msg_announcement_id_idx", columnList = "announcement_id")})
+@Table(name = "msg_announcement", indexes = {
+        @Index(name = "msg_announcement_id_idx", columnList = "announcement_id"),
+        @Index(name = "msg_announcement_ct_idx", columnList = "create_time, announcement_id")
+})
 @Cacheable
 @org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = MessageConstants.REGION_MESSAGE_ANNOUNCEMENT)
 public class Announcement extends BaseSenderEntity {
@@ -46,7 +46,8 @@ import javax.persistence.*;
 @Entity
 @Table(name = "msg_notification", indexes = {
         @Index(name = "msg_notification_id_idx", columnList = "queue_id"),
-        @Index(name = "msg_notification_sid_idx", columnList = "user_id")
+        @Index(name = "msg_notification_sid_idx", columnList = "user_id"),
+        @Index(name = "msg_notification_sct_idx", columnList = "user_id, create_time, queue_id")
 })
 @Cacheable
 @org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = MessageConstants.REGION_MESSAGE_NOTIFICATION)
@@ -71,10 +72,14 @@ public class Notification extends BaseSenderEntity {
     @Column(name = "content", columnDefinition = "TEXT")
     private String content;
 
+    /**
+     * 系统公告不再复制为通知，ANNOUNCEMENT 类别只用于旧版本复制的公告，收件箱查询时会排除，迁移时会删除。
+     * 因此不设置默认值，未指定类别的通知作为个人通知处理。
+     */
     @Schema(name = "通知类别", title = "1. 公告，2.私信")
     @Column(name = "category")
     @Enumerated(EnumType.ORDINAL)
-    private NotificationCategory category = NotificationCategory.ANNOUNCEMENT;
+    private NotificationCategory category;
 
     public String getQueueId() {
         return queueId;
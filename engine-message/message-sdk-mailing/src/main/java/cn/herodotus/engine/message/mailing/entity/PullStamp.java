@@ -35,16 +35,25 @@ import org.hibernate.annotations.GenericGenerator;
 
 import javax.persistence.*;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
 
 /**
  * <p>Description: 信息拉取标记 </p>
+ * <p>
+ * 系统公告只保存一份，不再复制到每个用户的通知中。用户对公告的已读状态用 announcementReadTime 游标表示，
+ * 创建时间不晚于该时间的公告均为已读。游标之后单独设置为已读的公告记录在 readAnnouncementIds 中，游标前移时清空。
+ * <p>
+ * 每个用户只有一条拉取标记，user_id 有唯一约束。升级前如果已经存在重复数据，需要先清理，否则无法创建约束。
  *
  * @author : gengwei.zheng
  * @date : 2022/12/6 21:34
  */
 @Schema(name = "拉取标记")
 @Entity
-@Table(name = "msg_pull_stamp", indexes = {
+@Table(name = "msg_pull_stamp", uniqueConstraints = {
+        @UniqueConstraint(name = "msg_pull_stamp_uid_uk", columnNames = "user_id")
+}, indexes = {
         @Index(name = "msg_pull_stamp_id_idx", columnList = "stamp_id"),
         @Index(name = "msg_pull_stamp_sid_idx", columnList = "user_id")
 })
@@ -71,6 +80,17 @@ public class PullStamp extends AbstractEntity {
     @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
     private Date latestPullTime = new Date();
 
+    @Schema(name = "公告已读游标", title = "创建时间不晚于该时间的公告均为已读，为空表示全部未读")
+    @Column(name = "announcement_read_time")
+    @JsonFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+    private Date announcementReadTime;
+
+    @Schema(name = "单独已读的公告", title = "创建时间晚于公告已读游标，并且已经单独设置为已读的公告ID")
+    @ElementCollection(fetch = FetchType.EAGER)
+    @CollectionTable(name = "msg_pull_stamp_read", joinColumns = @JoinColumn(name = "stamp_id"))
+    @Column(name = "announcement_id", length = 64)
+    private Set<String> readAnnouncementIds = new HashSet<>();
+
     public String getStampId() {
         return stampId;
     }
@@ -103,6 +123,33 @@ public class PullStamp extends AbstractEntity {
         this.latestPullTime = latestPullTime;
     }
 
+    public Date getAnnouncementReadTime() {
+        return announcementReadTime;
+    }
+
+    public void setAnnouncementReadTime(Date announcementReadTime) {
+        this.announcementReadTime = announcementReadTime;
+    }
+
+    public Set<String> getReadAnnouncementIds() {
+        return readAnnouncementIds;
+    }
+
+    public void setReadAnnouncementIds(Set<String> readAnnouncementIds) {
+        this.readAnnouncementIds = readAnnouncementIds;
+    }
+
+    /**
+     * 判断公告对该用户是否已读
+     *
+     * @param announcementId 公告ID
+     * @param createTime     公告创建时间
+     * @return 是否已读
+     */
+    public boolean isAnnouncementRead(String announcementId, Date createTime) {
+        return (announcementReadTime != null && !createTime.after(announcementReadTime)) || readAnnouncementIds.contains(announcementId);
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
@@ -110,6 +157,7 @@ public class PullStamp extends AbstractEntity {
                 .add("userId", userId)
                 .add("source", source)
                 .add("latestPullTime", latestPullTime)
+                .add("announcementReadTime", announcementReadTime)
                 .toString();
     }
 }
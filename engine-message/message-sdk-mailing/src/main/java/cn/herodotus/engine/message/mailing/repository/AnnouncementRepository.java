@@ -27,7 +27,10 @@ package cn.herodotus.engine.message.mailing.repository;
 
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.message.mailing.entity.Announcement;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import javax.persistence.QueryHint;
 import java.util.Date;
@@ -43,4 +46,26 @@ public interface AnnouncementRepository extends BaseRepository<Announcement, Str
 
     @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     List<Announcement> findAllByCreateTimeAfter(Date stamp);
+
+    /**
+     * 收件箱第一页公告。公告是全部用户共享的数据，查询结果可以缓存
+     *
+     * @param pageable 只使用其中的数量限制
+     * @return 按创建时间倒序排列的公告
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    @Query("select a from Announcement a order by a.createTime desc, a.announcementId desc")
+    List<Announcement> findInbox(Pageable pageable);
+
+    /**
+     * 基于游标（上一页最后一条数据的创建时间和ID）查询收件箱后续的公告
+     *
+     * @param createTime 游标创建时间
+     * @param id         游标ID
+     * @param pageable   只使用其中的数量限制
+     * @return 按创建时间倒序排列的公告
+     */
+    @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
+    @Query("select a from Announcement a where a.createTime < :createTime or (a.createTime = :createTime and a.announcementId < :id) order by a.createTime desc, a.announcementId desc")
+    List<Announcement> findInbox(@Param("createTime") Date createTime, @Param("id") String id, Pageable pageable);
 }
@@ -27,12 +27,17 @@ package cn.herodotus.engine.message.mailing.repository;
 
 import cn.herodotus.engine.assistant.core.exception.transaction.TransactionalRollbackException;
 import cn.herodotus.engine.data.core.repository.BaseRepository;
+import cn.herodotus.engine.message.core.enums.NotificationCategory;
 import cn.herodotus.engine.message.mailing.entity.Notification;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Date;
+import java.util.List;
+
 /**
  * <p>Description: NotificationQueueRepository </p>
  *
@@ -45,4 +50,54 @@ public interface NotificationRepository extends BaseRepository<Notification, Str
     @Modifying
     @Query("update Notification n set n.read = true where n.userId = :userId")
     int updateAllRead(@Param("userId") String userId);
+
+    /**
+     * 收件箱第一页个人通知，不包含旧版本复制的公告数据。未指定类别的通知作为个人通知
+     *
+     * @param userId   用户ID
+     * @param excluded 排除的通知类别
+     * @param pageable 只使用其中的数量限制
+     * @return 按创建时间倒序排列的通知
+     */
+    @Query("select n from Notification n where n.userId = :userId and (n.category is null or n.category <> :excluded) order by n.createTime desc, n.queueId desc")
+    List<Notification> findInbox(@Param("userId") String userId, @Param("excluded") NotificationCategory excluded, Pageable pageable);
+
+    /**
+     * 基于游标（上一页最后一条数据的创建时间和ID）查询收件箱后续的个人通知
+     *
+     * @param userId     用户ID
+     * @param excluded   排除的通知类别
+     * @param createTime 游标创建时间
+     * @param id         游标ID
+     * @param pageable   只使用其中的数量限制
+     * @return 按创建时间倒序排列的通知
+     */
+    @Query("select n from Notification n where n.userId = :userId and (n.category is null or n.category <> :excluded) and (n.createTime < :createTime or (n.createTime = :createTime and n.queueId < :id)) order by n.createTime desc, n.queueId desc")
+    List<Notification> findInbox(@Param("userId") String userId, @Param("excluded") NotificationCategory excluded, @Param("createTime") Date createTime, @Param("id") String id, Pageable pageable);
+
+    /**
+     * 按照ID顺序查询指定类别的一批通知ID，用于分批删除
+     *
+     * @param category 通知类别
+     * @param queueId  上一批最后一条数据的ID，第一批传入空字符串
+     * @param pageable 只使用其中的数量限制
+     * @return 按ID顺序排列的通知ID
+     */
+    @Query("select n.queueId from Notification n where n.category = :category and n.queueId > :queueId order by n.queueId")
+    List<String> findIdsByCategory(@Param("category") NotificationCategory category, @Param("queueId") String queueId, Pageable pageable);
+
+    /**
+     * 查询一批用户指定类别通知的最晚创建时间
+     *
+     * @param category 通知类别
+     * @param userIds  用户ID
+     * @return 每个元素为 [用户ID, 最晚创建时间]，没有该类别通知的用户不包含在结果中
+     */
+    @Query("select n.userId, max(n.createTime) from Notification n where n.category = :category and n.userId in :userIds group by n.userId")
+    List<Object[]> findLatestCreateTime(@Param("category") NotificationCategory category, @Param("userIds") List<String> userIds);
+
+    @Transactional(rollbackFor = TransactionalRollbackException.class)
+    @Modifying
+    @Query("delete from Notification n where n.queueId in :queueIds")
+    int deleteAllByQueueIdIn(@Param("queueIds") List<String> queueIds);
 }
@@ -25,11 +25,21 @@
 
 package cn.herodotus.engine.message.mailing.repository;
 
+import cn.herodotus.engine.assistant.core.exception.transaction.TransactionalRollbackException;
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.message.mailing.entity.PullStamp;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
+import java.util.Date;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -42,4 +52,36 @@ public interface PullStampRepository extends BaseRepository<PullStamp, String> {
 
     @QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
     Optional<PullStamp> findByUserId(String userId);
+
+    /**
+     * 查询并锁定用户的拉取标记，用于在事务中修改公告已读状态，避免并发修改时丢失更新
+     *
+     * @param userId 用户ID
+     * @return {@link PullStamp}
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select p from PullStamp p where p.userId = :userId")
+    Optional<PullStamp> findByUserIdForUpdate(@Param("userId") String userId);
+
+    /**
+     * 按照ID顺序查询一批尚未设置公告已读游标的拉取标记，用于分批迁移
+     *
+     * @param stampId  上一批最后一条数据的ID，第一批传入空字符串
+     * @param pageable 只使用其中的数量限制
+     * @return 按ID顺序排列的拉取标记
+     */
+    @Query("select p from PullStamp p where p.announcementReadTime is null and p.stampId > :stampId order by p.stampId")
+    List<PullStamp> findUninitialized(@Param("stampId") String stampId, Pageable pageable);
+
+    /**
+     * 初始化尚未设置的公告已读游标，用于从复制公告的旧版本迁移
+     *
+     * @param stampId  拉取标记ID
+     * @param readTime 公告已读游标
+     * @return 影响数据条目数
+     */
+    @Transactional(rollbackFor = TransactionalRollbackException.class)
+    @Modifying
+    @Query("update PullStamp p set p.announcementReadTime = :readTime where p.announcementReadTime is null and p.stampId = :stampId")
+    int initializeAnnouncementReadTime(@Param("stampId") String stampId, @Param("readTime") Date readTime);
 }
@@ -29,12 +29,21 @@ import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.data.core.service.BaseLayeredService;
 import cn.herodotus.engine.message.mailing.entity.Announcement;
 import cn.herodotus.engine.message.mailing.repository.AnnouncementRepository;
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 /**
  * <p>Description: SystemAnnouncementService </p>
@@ -63,4 +72,56 @@ public class AnnouncementService extends BaseLayeredService<Announcement, String
         log.debug("[Herodotus] |- Announcement Service pullAnnouncements.");
         return announcements;
     }
+
+    /**
+     * 收件箱公告查询
+     *
+     * @param createTime 游标创建时间，为空时查询第一页
+     * @param id         游标ID
+     * @param size       查询数量
+     * @return 按创建时间倒序排列的公告
+     */
+    public List<Announcement> findInbox(Date createTime, String id, int size) {
+        Pageable pageable = PageRequest.of(0, size);
+        if (ObjectUtils.isEmpty(createTime)) {
+            return announcementRepository.findInbox(pageable);
+        } else {
+            return announcementRepository.findInbox(createTime, id, pageable);
+        }
+    }
+
+    /**
+     * 兼容旧版本条件查询的公告分页数据。已读状态由用户的公告已读游标和单独已读的公告共同决定
+     *
+     * @param pageable 分页参数
+     * @param readTime 公告已读游标，为空表示游标之前没有已读公告
+     * @param readIds  单独已读的公告ID
+     * @param read     是否已读，为空时不限制
+     * @return 按创建时间倒序排列的公告分页数据
+     */
+    public Page<Announcement> findByCondition(Pageable pageable, Date readTime, Set<String> readIds, Boolean read) {
+        Specification<Announcement> specification = (root, criteriaQuery, criteriaBuilder) -> {
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (ObjectUtils.isNotEmpty(read)) {
+                List<Predicate> readPredicates = new ArrayList<>();
+                if (ObjectUtils.isNotEmpty(readTime)) {
+                    readPredicates.add(criteriaBuilder.lessThanOrEqualTo(root.get("createTime"), readTime));
+                }
+                if (CollectionUtils.isNotEmpty(readIds)) {
+                    readPredicates.add(root.get("announcementId").in(readIds));
+                }
+
+                Predicate isRead = readPredicates.isEmpty() ? criteriaBuilder.disjunction() : criteriaBuilder.or(readPredicates.toArray(new Predicate[0]));
+                predicates.add(read ? isRead : criteriaBuilder.not(isRead));
+            }
+
+            criteriaQuery.where(criteriaBuilder.and(predicates.toArray(new Predicate[0])));
+            criteriaQuery.orderBy(criteriaBuilder.desc(root.get("createTime")), criteriaBuilder.desc(root.get("announcementId")));
+            return criteriaQuery.getRestriction();
+        };
+
+        log.debug("[Herodotus] |- Announcement Service findByCondition.");
+        return this.findByPage(specification, pageable);
+    }
 }
@@ -28,6 +28,7 @@ package cn.herodotus.engine.message.mailing.service;
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.data.core.service.BaseLayeredService;
 import cn.herodotus.engine.message.core.enums.NotificationCategory;
+import cn.herodotus.engine.message.mailing.domain.InboxItem;
 import cn.herodotus.engine.message.mailing.entity.Announcement;
 import cn.herodotus.engine.message.mailing.entity.Notification;
 import cn.herodotus.engine.message.mailing.entity.PullStamp;
@@ -37,18 +38,32 @@ import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.criteria.Predicate;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
  * <p>Description: NotificationQueueService </p>
+ * <p>
+ * 系统公告采用读扩散的方式：公告只保存一份，查询时再与用户的个人通知合并。用户对公告的已读状态用 {@link PullStamp} 中的游标表示，
+ * 游标之后单独设置为已读的公告记录在 {@link PullStamp#getReadAnnouncementIds()} 中。
+ * 条件查询接口继续返回公告，公告从公告表中读取并转换为通知，客户端迁移到收件箱接口之前保持兼容。
+ * 从复制公告的旧版本迁移时，调用 {@link #migrateAnnouncementCopies()}，详见该方法说明。
  *
  * @author : gengwei.zheng
  * @date : 2022/12/7 22:08
@@ -58,6 +73,10 @@ public class NotificationService extends BaseLayeredService<Notification, String
 
     private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
 
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+
+    private static final Comparator<InboxItem> INBOX_ORDER = Comparator.comparing(InboxItem::getTimestamp).thenComparing(InboxItem::getId).reversed();
+
     private final NotificationRepository notificationRepository;
     private final PullStampService pullStampService;
     private final AnnouncementService announcementService;
@@ -73,6 +92,13 @@ public class NotificationService extends BaseLayeredService<Notification, String
         return notificationRepository;
     }
 
+    /**
+     * 将用户上次拉取之后的公告复制为该用户的通知
+     *
+     * @param userId 用户ID
+     * @deprecated 每条公告都要为每个用户复制一份，用户数量较多时写入量过大。使用 {@link #findInbox(String, Long, String, int)} 代替
+     */
+    @Deprecated
     public void pullAnnouncements(String userId) {
         PullStamp pullStamp = pullStampService.getPullStamp(userId);
         List<Announcement> systemAnnouncements = announcementService.pullAnnouncements(pullStamp.getLatestPullTime());
@@ -82,10 +108,31 @@ public class NotificationService extends BaseLayeredService<Notification, String
         }
     }
 
+    /**
+     * 条件查询通知分页数据
+     * <p>
+     * 1. 类别为公告时，从公告表中查询，转换为通知返回。
+     * 2. 类别为空时，合并个人通知和公告。合并需要两类数据各自查询到当前页为止的全部数据，翻页越深代价越大，新的客户端应使用收件箱接口。
+     * 3. 旧版本复制的公告数据不再返回。
+     *
+     * @param pageNumber 当前页码
+     * @param pageSize   每页显示数量
+     * @param userId     用户ID
+     * @param category   通知类别
+     * @param read       是否已读
+     * @return 按创建时间倒序排列的通知分页数据
+     */
     public Page<Notification> findByCondition(int pageNumber, int pageSize, String userId, NotificationCategory category, Boolean read) {
 
         Pageable pageable = PageRequest.of(pageNumber, pageSize);
 
+        if (category == NotificationCategory.ANNOUNCEMENT) {
+            PullStamp stamp = pullStampService.findByUserId(userId);
+            Page<Announcement> announcements = announcementService.findByCondition(pageable, getAnnouncementReadTime(stamp), getReadAnnouncementIds(stamp), read);
+            log.debug("[Herodotus] |- Notification Service findByCondition.");
+            return announcements.map(announcement -> convertAnnouncementToNotification(userId, announcement, stamp));
+        }
+
         Specification<Notification> specification = (root, criteriaQuery, criteriaBuilder) -> {
 
             List<Predicate> predicates = new ArrayList<>();
@@ -94,6 +141,8 @@ public class NotificationService extends BaseLayeredService<Notification, String
 
             if (ObjectUtils.isNotEmpty(category)) {
                 predicates.add(criteriaBuilder.equal(root.get("category"), category));
+            } else {
+                predicates.add(criteriaBuilder.or(criteriaBuilder.isNull(root.get("category")), criteriaBuilder.notEqual(root.get("category"), NotificationCategory.ANNOUNCEMENT)));
             }
 
             if (ObjectUtils.isNotEmpty(read)) {
@@ -107,7 +156,114 @@ public class NotificationService extends BaseLayeredService<Notification, String
         };
 
         log.debug("[Herodotus] |- Notification Service findByCondition.");
-        return this.findByPage(specification, pageable);
+        if (ObjectUtils.isNotEmpty(category)) {
+            return this.findByPage(specification, pageable);
+        }
+
+        Pageable merging = PageRequest.of(0, (pageNumber + 1) * pageSize);
+        Page<Notification> notifications = this.findByPage(specification, merging);
+        PullStamp stamp = pullStampService.findByUserId(userId);
+        Page<Announcement> announcements = announcementService.findByCondition(merging, getAnnouncementReadTime(stamp), getReadAnnouncementIds(stamp), read);
+
+        List<Notification> merged = new ArrayList<>(notifications.getContent());
+        announcements.forEach(announcement -> merged.add(convertAnnouncementToNotification(userId, announcement, stamp)));
+        merged.sort(Comparator.comparing(Notification::getCreateTime).reversed());
+
+        int from = Math.min(pageNumber * pageSize, merged.size());
+        int to = Math.min(from + pageSize, merged.size());
+        return new PageImpl<>(new ArrayList<>(merged.subList(from, to)), pageable, notifications.getTotalElements() + announcements.getTotalElements());
+    }
+
+    /**
+     * 查询收件箱，合并个人通知和系统公告，使用游标分页
+     * <p>
+     * 两类数据都按照（创建时间，ID）倒序排列，各自查询游标之后的 size 条数据，合并后取前 size 条，
+     * 查询代价与翻页深度和公告数量无关。
+     *
+     * @param userId    用户ID
+     * @param timestamp 游标，上一页最后一条数据的创建时间戳，为空时查询第一页
+     * @param id        游标，上一页最后一条数据的ID
+     * @param size      每页显示数量
+     * @return 按创建时间倒序排列的收件箱条目
+     */
+    public List<InboxItem> findInbox(String userId, Long timestamp, String id, int size) {
+        Date createTime = ObjectUtils.isNotEmpty(timestamp) ? new Date(timestamp) : null;
+        Pageable pageable = PageRequest.of(0, size);
+
+        List<Notification> notifications;
+        if (ObjectUtils.isEmpty(createTime)) {
+            notifications = notificationRepository.findInbox(userId, NotificationCategory.ANNOUNCEMENT, pageable);
+        } else {
+            notifications = notificationRepository.findInbox(userId, NotificationCategory.ANNOUNCEMENT, createTime, id, pageable);
+        }
+        List<Announcement> announcements = announcementService.findInbox(createTime, id, size);
+        PullStamp stamp = pullStampService.findByUserId(userId);
+
+        List<InboxItem> items = new ArrayList<>(notifications.size() + announcements.size());
+        notifications.forEach(notification -> items.add(convertNotificationToInboxItem(notification)));
+        announcements.forEach(announcement -> items.add(convertAnnouncementToInboxItem(announcement, stamp)));
+        items.sort(INBOX_ORDER);
+
+        log.debug("[Herodotus] |- Notification Service findInbox.");
+        return items.size() > size ? new ArrayList<>(items.subList(0, size)) : items;
+    }
+
+    private InboxItem convertNotificationToInboxItem(Notification notification) {
+        InboxItem item = new InboxItem();
+        item.setId(notification.getQueueId());
+        item.setCategory(notification.getCategory());
+        item.setContent(notification.getContent());
+        item.setSenderId(notification.getSenderId());
+        item.setSenderName(notification.getSenderName());
+        item.setSenderAvatar(notification.getSenderAvatar());
+        item.setRead(notification.getRead());
+        item.setCreateTime(notification.getCreateTime());
+        item.setTimestamp(notification.getCreateTime().getTime());
+        return item;
+    }
+
+    private InboxItem convertAnnouncementToInboxItem(Announcement announcement, PullStamp stamp) {
+        InboxItem item = new InboxItem();
+        item.setId(announcement.getAnnouncementId());
+        item.setCategory(NotificationCategory.ANNOUNCEMENT);
+        item.setTitle(announcement.getTitle());
+        item.setContent(announcement.getContent());
+        item.setSenderId(announcement.getSenderId());
+        item.setSenderName(announcement.getSenderName());
+        item.setSenderAvatar(announcement.getSenderAvatar());
+        item.setRead(isAnnouncementRead(announcement, stamp));
+        item.setCreateTime(announcement.getCreateTime());
+        item.setTimestamp(announcement.getCreateTime().getTime());
+        return item;
+    }
+
+    private boolean isAnnouncementRead(Announcement announcement, PullStamp stamp) {
+        return ObjectUtils.isNotEmpty(stamp) && stamp.isAnnouncementRead(announcement.getAnnouncementId(), announcement.getCreateTime());
+    }
+
+    private Date getAnnouncementReadTime(PullStamp stamp) {
+        return ObjectUtils.isNotEmpty(stamp) ? stamp.getAnnouncementReadTime() : null;
+    }
+
+    private Set<String> getReadAnnouncementIds(PullStamp stamp) {
+        return ObjectUtils.isNotEmpty(stamp) ? stamp.getReadAnnouncementIds() : Collections.emptySet();
+    }
+
+    /**
+     * 将公告转换为不保存的通知，用于兼容条件查询。通知ID为公告ID
+     *
+     * @param userId       用户ID
+     * @param announcement {@link Announcement}
+     * @param stamp        用户的拉取标记，可以为空
+     * @return {@link Notification}
+     */
+    private Notification convertAnnouncementToNotification(String userId, Announcement announcement, PullStamp stamp) {
+        Notification notification = convertAnnouncementToNotification(userId, announcement);
+        notification.setQueueId(announcement.getAnnouncementId());
+        notification.setRead(isAnnouncementRead(announcement, stamp));
+        notification.setCreateTime(announcement.getCreateTime());
+        notification.setUpdateTime(announcement.getUpdateTime());
+        return notification;
     }
 
     private List<Notification> convertAnnouncementsToNotifications(String userId, List<Announcement> announcements) {
@@ -125,9 +281,104 @@ public class NotificationService extends BaseLayeredService<Notification, String
         return notification;
     }
 
+    @Transactional
     public int setAllRead(String userId) {
         int result = notificationRepository.updateAllRead(userId);
+        pullStampService.markAnnouncementsRead(userId, new Date());
         log.debug("[Herodotus] |- Notification Service setAllRead.");
         return result;
     }
+
+    /**
+     * 将一条公告设置为已读
+     *
+     * @param userId         用户ID
+     * @param announcementId 公告ID
+     * @return 公告是否存在
+     */
+    public boolean setAnnouncementRead(String userId, String announcementId) {
+        Announcement announcement = announcementService.findById(announcementId);
+        if (ObjectUtils.isEmpty(announcement)) {
+            return false;
+        }
+
+        pullStampService.markAnnouncementRead(userId, announcementId, announcement.getCreateTime());
+        log.debug("[Herodotus] |- Notification Service setAnnouncementRead.");
+        return true;
+    }
+
+    /**
+     * 从复制公告的旧版本迁移，每批数量为 {@link #MIGRATION_BATCH_SIZE}
+     *
+     * @return 删除的通知条目数
+     * @see #migrateAnnouncementCopies(int)
+     */
+    public int migrateAnnouncementCopies() {
+        return migrateAnnouncementCopies(MIGRATION_BATCH_SIZE);
+    }
+
+    /**
+     * 从复制公告的旧版本迁移
+     * <p>
+     * 1. 根据旧版本复制的公告通知初始化用户的公告已读游标：游标设置为该用户最晚一条公告通知的创建时间。
+     * 复制发生在公告发布之后，因此已经复制给该用户的公告都不晚于游标。没有公告通知的用户，使用拉取标记中的首次拉取时间。
+     * 2. 全部游标初始化完成后，再按照ID顺序分批删除已经复制到每个用户的公告通知。
+     * <p>
+     * 每批在独立的事务中执行，中断后重新执行即可继续。迁移会带来以下变化：
+     * 1. 旧版本中已经复制但是未读的公告，迁移后变为已读，因为游标只能表示游标之前的公告全部已读，而复制的通知中没有公告ID。
+     * 2. 没有拉取标记的用户没有公告已读游标，迁移后全部历史公告显示为未读。
+     * 3. 类别为公告的通知全部删除，包括旧版本中未指定类别、通过通知接口直接保存的通知（旧版本的默认类别为公告）。
+     *
+     * @param batchSize 每批数量
+     * @return 删除的通知条目数
+     */
+    public int migrateAnnouncementCopies(int batchSize) {
+        int stamps = initializeAnnouncementReadTime(batchSize);
+
+        int result = 0;
+        String last = "";
+        List<String> ids;
+        do {
+            ids = notificationRepository.findIdsByCategory(NotificationCategory.ANNOUNCEMENT, last, PageRequest.of(0, batchSize));
+            if (CollectionUtils.isNotEmpty(ids)) {
+                result += notificationRepository.deleteAllByQueueIdIn(ids);
+                last = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == batchSize);
+
+        log.info("[Herodotus] |- Migrate announcement copies, initialize [{}] read cursors and delete [{}] notifications.", stamps, result);
+        return result;
+    }
+
+    /**
+     * 分批初始化尚未设置的公告已读游标，必须在删除旧版本复制的公告通知之前执行
+     *
+     * @param batchSize 每批数量
+     * @return 初始化的拉取标记数量
+     */
+    private int initializeAnnouncementReadTime(int batchSize) {
+        int result = 0;
+        String last = "";
+        List<PullStamp> stamps;
+        do {
+            stamps = pullStampService.findUninitialized(last, batchSize);
+            if (CollectionUtils.isNotEmpty(stamps)) {
+                List<String> userIds = stamps.stream().map(PullStamp::getUserId).filter(Objects::nonNull).distinct().collect(Collectors.toList());
+                Map<String, Date> latest = new HashMap<>();
+                if (CollectionUtils.isNotEmpty(userIds)) {
+                    notificationRepository.findLatestCreateTime(NotificationCategory.ANNOUNCEMENT, userIds)
+                            .forEach(row -> latest.put((String) row[0], (Date) row[1]));
+                }
+
+                for (PullStamp stamp : stamps) {
+                    Date readTime = latest.getOrDefault(stamp.getUserId(), stamp.getLatestPullTime());
+                    if (ObjectUtils.isNotEmpty(readTime) && pullStampService.initializeAnnouncementReadTime(stamp.getStampId(), readTime)) {
+                        result++;
+                    }
+                }
+                last = stamps.get(stamps.size() - 1).getStampId();
+            }
+        } while (stamps.size() == batchSize);
+        return result;
+    }
 }
@@ -27,15 +27,21 @@ package cn.herodotus.engine.message.mailing.service;
 
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.data.core.service.BaseLayeredService;
+import cn.herodotus.engine.message.mailing.entity.Announcement;
 import cn.herodotus.engine.message.mailing.entity.PullStamp;
 import cn.herodotus.engine.message.mailing.repository.PullStampRepository;
 import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Date;
+import java.util.*;
 
 /**
  * <p>Description: MessagePullStampService </p>
+ * <p>
+ * 修改公告已读状态的方法在事务中先锁定用户的拉取标记再修改，同一用户并发设置已读时不会丢失更新。
+ * 用户第一次设置已读时还没有拉取标记，并发创建时由 user_id 的唯一约束保证只有一条成功，其余请求失败后重试即可。
  *
  * @author : gengwei.zheng
  * @date : 2022/12/7 22:10
@@ -43,10 +49,17 @@ import java.util.Date;
 @Service
 public class PullStampService extends BaseLayeredService<PullStamp, String> {
 
+    /**
+     * 单独已读的公告超过该数量时，合并到公告已读游标中
+     */
+    private static final int READ_ANNOUNCEMENTS_FOLD_THRESHOLD = 100;
+
     private final PullStampRepository pullStampRepository;
+    private final AnnouncementService announcementService;
 
-    public PullStampService(PullStampRepository pullStampRepository) {
+    public PullStampService(PullStampRepository pullStampRepository, AnnouncementService announcementService) {
         this.pullStampRepository = pullStampRepository;
+        this.announcementService = announcementService;
     }
 
     @Override
@@ -69,4 +82,101 @@ public class PullStampService extends BaseLayeredService<PullStamp, String> {
 
         return this.save(stamp);
     }
+
+    /**
+     * 将创建时间不晚于 readTime 的公告全部设置为已读，同时清空单独已读的公告
+     *
+     * @param userId   用户ID
+     * @param readTime 公告已读游标
+     */
+    @Transactional
+    public void markAnnouncementsRead(String userId, Date readTime) {
+        PullStamp stamp = findOrCreate(userId);
+        stamp.setAnnouncementReadTime(readTime);
+        stamp.getReadAnnouncementIds().clear();
+        this.save(stamp);
+    }
+
+    /**
+     * 将一条公告设置为已读。公告创建时间不晚于已读游标时，已经是已读状态，不需要记录
+     * <p>
+     * 单独已读的公告超过 {@link #READ_ANNOUNCEMENTS_FOLD_THRESHOLD} 时合并到游标，避免数据无限增长。
+     *
+     * @param userId         用户ID
+     * @param announcementId 公告ID
+     * @param createTime     公告创建时间
+     */
+    @Transactional
+    public void markAnnouncementRead(String userId, String announcementId, Date createTime) {
+        PullStamp stamp = findOrCreate(userId);
+        if (!stamp.isAnnouncementRead(announcementId, createTime)) {
+            stamp.getReadAnnouncementIds().add(announcementId);
+            if (stamp.getReadAnnouncementIds().size() > READ_ANNOUNCEMENTS_FOLD_THRESHOLD) {
+                fold(stamp);
+            }
+            this.save(stamp);
+        }
+    }
+
+    /**
+     * 查询并锁定用户的拉取标记，不存在时创建。必须在事务中调用
+     */
+    private PullStamp findOrCreate(String userId) {
+        PullStamp stamp = pullStampRepository.findByUserIdForUpdate(userId).orElse(null);
+        if (ObjectUtils.isEmpty(stamp)) {
+            stamp = new PullStamp();
+            stamp.setUserId(userId);
+        }
+        return stamp;
+    }
+
+    /**
+     * 将单独已读的公告合并到游标：按照创建时间顺序，游标前移到连续已读的最后一个创建时间，
+     * 同一创建时间的公告必须全部已读才会前移。之后只保留游标之后仍然存在的公告ID，已经删除的公告ID一并清理，不会改变任何公告的已读状态。
+     */
+    private void fold(PullStamp stamp) {
+        Date readTime = stamp.getAnnouncementReadTime();
+        Set<String> readIds = stamp.getReadAnnouncementIds();
+        List<Announcement> announcements = announcementService.pullAnnouncements(ObjectUtils.isNotEmpty(readTime) ? readTime : new Date(0L));
+
+        TreeMap<Date, List<String>> groups = new TreeMap<>();
+        announcements.forEach(announcement -> groups.computeIfAbsent(announcement.getCreateTime(), key -> new ArrayList<>()).add(announcement.getAnnouncementId()));
+
+        Date folded = readTime;
+        for (Map.Entry<Date, List<String>> entry : groups.entrySet()) {
+            if (!readIds.containsAll(entry.getValue())) {
+                break;
+            }
+            folded = entry.getKey();
+        }
+
+        Set<String> remaining = new HashSet<>();
+        Map<Date, List<String>> after = ObjectUtils.isNotEmpty(folded) ? groups.tailMap(folded, false) : groups;
+        after.values().forEach(ids -> ids.stream().filter(readIds::contains).forEach(remaining::add));
+
+        stamp.setAnnouncementReadTime(folded);
+        readIds.retainAll(remaining);
+    }
+
+    /**
+     * 按照ID顺序查询一批尚未设置公告已读游标的拉取标记，用于分批迁移
+     *
+     * @param stampId   上一批最后一条数据的ID，第一批传入空字符串
+     * @param batchSize 每批数量
+     * @return 按ID顺序排列的拉取标记
+     */
+    public List<PullStamp> findUninitialized(String stampId, int batchSize) {
+        return pullStampRepository.findUninitialized(stampId, PageRequest.of(0, batchSize));
+    }
+
+    /**
+     * 初始化尚未设置的公告已读游标，已经设置过的不做修改
+     *
+     * @param stampId  拉取标记ID
+     * @param readTime 公告已读游标
+     * @return 是否完成初始化
+     */
+    public boolean initializeAnnouncementReadTime(String stampId, Date readTime) {
+        return pullStampRepository.initializeAnnouncementReadTime(stampId, readTime) > 0;
+    }
 }
@@ -29,6 +29,7 @@ import cn.herodotus.engine.message.core.constants.MessageConstants;
 import cn.herodotus.engine.message.websocket.interceptor.WebSocketChannelInterceptor;
 import cn.herodotus.engine.message.websocket.interceptor.WebSocketPrincipalHandshakeHandler;
 import cn.herodotus.engine.message.websocket.interceptor.WebSocketSessionHandshakeInterceptor;
+import cn.herodotus.engine.message.websocket.processor.HerodotusSubProtocolWebSocketHandler;
 import cn.herodotus.engine.message.websocket.properties.WebSocketProperties;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -37,6 +38,7 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.StompBrokerRelayRegistration;
 import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.session.Session;
@@ -110,40 +112,11 @@ public class WebSocketMessageBrokerConfiguration extends AbstractSessionWebSocke
      */
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
-        /*
-         *  enableStompBrokerRelay 配置外部的STOMP服务，需要安装额外的支持 比如rabbitmq或activemq
-         * 1. 配置代理域，可以配置多个，此段代码配置代理目的地的前缀为 /topicTest 或者 /userTest
-         *    我们就可以在配置的域上向客户端推送消息
-         * 3. 可以通过 setRelayHost 配置代理监听的host,默认为localhost
-         * 4. 可以通过 setRelayPort 配置代理监听的端口，默认为61613
-         * 5. 可以通过 setClientLogin 和 setClientPasscode 配置账号和密码
-         * 6. setxxx这种设置方法是可选的，根据业务需要自行配置，也可以使用默认配置
-         */
-//        registry.enableStompBrokerRelay("/topicTest", "/userTest")
-//                .setRelayHost("rabbit.someotherserver")
-//                .setRelayPort(62623);
-//                .setClientLogin("userName")
-//                .setClientPasscode("password");
-
-        // 自定义调度器，用于控制心跳线程
-        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
-        // 线程池线程数，心跳连接开线程
-        taskScheduler.setPoolSize(1);
-        // 线程名前缀
-        taskScheduler.setThreadNamePrefix("herodotus-websocket-heartbeat-thread-");
-        // 初始化
-        taskScheduler.initialize();
-
-        /*
-         * spring 内置broker对象 广播式应配置一个/topic消息代理,点对点应配置一个/user消息代理，
-         * 1. 配置代理域，可以配置多个，此段代码配置代理目的地的前缀为 /topicTest 或者 /userTest 我们就可以在配置的域上向客户端推送消息
-         * 2. 进行心跳设置，第一值表示server最小能保证发的心跳间隔毫秒数, 第二个值代码server希望client发的心跳间隔毫秒数
-         * 3. 可以配置心跳线程调度器 setHeartbeatValue这个不能单独设置，不然不起作用，要配合setTaskScheduler才可以生效
-         *    调度器我们可以自己写一个，也可以自己使用默认的调度器 new DefaultManagedTaskScheduler()
-         */
-        registry.enableSimpleBroker(MessageConstants.WEBSOCKET_CHANNEL_PROXY_BROADCAST, MessageConstants.WEBSOCKET_CHANNEL_PROXY_PERSONAL)
-                .setHeartbeatValue(new long[]{10000, 10000})
-                .setTaskScheduler(taskScheduler);
+        if (webSocketProperties.getRelay().getEnabled()) {
+            configureBrokerRelay(registry);
+        } else {
+            configureSimpleBroker(registry);
+        }
 
         /*
          * 全局使用的消息前缀（客户端订阅路径上会体现出来）
@@ -176,6 +149,61 @@ public class WebSocketMessageBrokerConfiguration extends AbstractSessionWebSocke
         //registry.setPathMatcher(new AntPathMatcher("."));
     }
 
+    /**
+     * 使用外部 STOMP 消息代理，支持多节点部署
+     * <p>
+     * 1. 广播和点对点消息都交由外部消息代理投递，任意节点发出的消息都可以到达全部节点上的客户端。
+     * 2. 配置 userRegistryBroadcast 后，SimpUserRegistry 变为 MultiServerUserRegistry，包含全部节点的在线用户。
+     * 3. 配置 userDestinationBroadcast 后，本节点无法解析的点对点消息会广播给其它节点，由用户所在的节点投递。
+     *
+     * @param registry {@link MessageBrokerRegistry}
+     */
+    private void configureBrokerRelay(MessageBrokerRegistry registry) {
+        WebSocketProperties.Relay relay = webSocketProperties.getRelay();
+        StompBrokerRelayRegistration registration = registry.enableStompBrokerRelay(MessageConstants.WEBSOCKET_CHANNEL_PROXY_BROADCAST, MessageConstants.WEBSOCKET_CHANNEL_PROXY_PERSONAL)
+                .setRelayHost(relay.getHost())
+                .setRelayPort(relay.getPort())
+                .setClientLogin(relay.getClientLogin())
+                .setClientPasscode(relay.getClientPasscode())
+                .setSystemLogin(relay.getSystemLogin())
+                .setSystemPasscode(relay.getSystemPasscode())
+                .setUserDestinationBroadcast(relay.getUserDestinationBroadcast())
+                .setUserRegistryBroadcast(relay.getUserRegistryBroadcast());
+
+        if (StringUtils.isNotBlank(relay.getVirtualHost())) {
+            registration.setVirtualHost(relay.getVirtualHost());
+        }
+
+        log.debug("[Herodotus] |- WebSocket use STOMP broker relay [{}:{}].", relay.getHost(), relay.getPort());
+    }
+
+    /**
+     * 使用内置的 SimpleBroker，只支持单节点部署
+     *
+     * @param registry {@link MessageBrokerRegistry}
+     */
+    private void configureSimpleBroker(MessageBrokerRegistry registry) {
+        // 自定义调度器，用于控制心跳线程
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        // 线程池线程数，心跳连接开线程
+        taskScheduler.setPoolSize(1);
+        // 线程名前缀
+        taskScheduler.setThreadNamePrefix("herodotus-websocket-heartbeat-thread-");
+        // 初始化
+        taskScheduler.initialize();
+
+        /*
+         * spring 内置broker对象 广播式应配置一个/topic消息代理,点对点应配置一个/user消息代理，
+         * 1. 配置代理域，可以配置多个，此段代码配置代理目的地的前缀为 /topicTest 或者 /userTest 我们就可以在配置的域上向客户端推送消息
+         * 2. 进行心跳设置，第一值表示server最小能保证发的心跳间隔毫秒数, 第二个值代码server希望client发的心跳间隔毫秒数
+         * 3. 可以配置心跳线程调度器 setHeartbeatValue这个不能单独设置，不然不起作用，要配合setTaskScheduler才可以生效
+         *    调度器我们可以自己写一个，也可以自己使用默认的调度器 new DefaultManagedTaskScheduler()
+         */
+        registry.enableSimpleBroker(MessageConstants.WEBSOCKET_CHANNEL_PROXY_BROADCAST, MessageConstants.WEBSOCKET_CHANNEL_PROXY_PERSONAL)
+                .setHeartbeatValue(new long[]{10000, 10000})
+                .setTaskScheduler(taskScheduler);
+    }
+
     /**
      * 配置发送与接收的消息参数，可以指定消息字节大小，缓存大小，发送超时时间
      *
@@ -183,14 +211,16 @@ public class WebSocketMessageBrokerConfiguration extends AbstractSessionWebSocke
      */
     @Override
     public void configureWebSocketTransport(WebSocketTransportRegistration registration) {
+        WebSocketProperties.Transport transport = webSocketProperties.getTransport();
         /*
          * 1. setMessageSizeLimit 设置消息缓存的字节数大小 字节
          * 2. setSendBufferSizeLimit 设置websocket会话时，缓存的大小 字节
          * 3. setSendTimeLimit 设置消息发送会话超时时间，毫秒
+         * 缓冲区溢出后的处理策略，参见 {@link HerodotusSubProtocolWebSocketHandler}
          */
-        registration.setMessageSizeLimit(10240)
-                .setSendBufferSizeLimit(10240)
-                .setSendTimeLimit(10000);
+        registration.setMessageSizeLimit(transport.getMessageSizeLimit())
+                .setSendBufferSizeLimit(transport.getSendBufferSizeLimit())
+                .setSendTimeLimit((int) transport.getSendTimeLimit().toMillis());
         super.configureWebSocketTransport(registration);
     }
 
@@ -207,11 +237,9 @@ public class WebSocketMessageBrokerConfiguration extends AbstractSessionWebSocke
          * 1. corePoolSize 配置核心线程池，当线程数小于此配置时，不管线程中有无空闲的线程，都会产生新线程处理任务
          * 2. maxPoolSize 配置线程池最大数，当线程池数等于此配置时，不会产生新线程
          * 3. keepAliveSeconds 线程池维护线程所允许的空闲时间，单位秒
+         * 4. queueCapacity 等待队列容量，队列已满时才会创建超过核心线程数的线程
          */
-        registration.taskExecutor()
-                .corePoolSize(10)
-                .maxPoolSize(20)
-                .keepAliveSeconds(60);
+        configureTaskExecutor(registration, webSocketProperties.getInbound());
 
         /*
          * 添加stomp自定义拦截器，可以根据业务做一些处理
@@ -228,8 +256,14 @@ public class WebSocketMessageBrokerConfiguration extends AbstractSessionWebSocke
      */
     @Override
     public void configureClientOutboundChannel(ChannelRegistration registration) {
-        registration.taskExecutor().corePoolSize(10)
-                .maxPoolSize(20)
-                .keepAliveSeconds(60);
+        configureTaskExecutor(registration, webSocketProperties.getOutbound());
+    }
+
+    private void configureTaskExecutor(ChannelRegistration registration, WebSocketProperties.Channel channel) {
+        registration.taskExecutor()
+                .corePoolSize(channel.getCorePoolSize())
+                .maxPoolSize(channel.getMaxPoolSize())
+                .keepAliveSeconds(channel.getKeepAliveSeconds())
+                .queueCapacity(channel.getQueueCapacity());
     }
 }
@@ -29,15 +29,24 @@ import cn.herodotus.engine.assistant.core.definition.BearerTokenResolver;
 import cn.herodotus.engine.message.websocket.interceptor.WebSocketChannelInterceptor;
 import cn.herodotus.engine.message.websocket.interceptor.WebSocketSessionHandshakeInterceptor;
 import cn.herodotus.engine.message.websocket.processor.WebSocketBearerTokenResolver;
+import cn.herodotus.engine.message.websocket.processor.WebSocketHandlerPostProcessor;
 import cn.herodotus.engine.message.websocket.processor.WebSocketMessageSender;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceBroadcaster;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceRegistry;
+import cn.herodotus.engine.message.websocket.processor.WebSocketSessionMonitor;
+import cn.herodotus.engine.message.websocket.properties.WebSocketProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 import javax.annotation.PostConstruct;
 
@@ -84,8 +93,39 @@ public class WebSocketProcessorConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public WebSocketChannelInterceptor webSocketChannelInterceptor() {
-        WebSocketChannelInterceptor webSocketChannelInterceptor = new WebSocketChannelInterceptor();
+    public WebSocketPresenceRegistry webSocketPresenceRegistry(StringRedisTemplate stringRedisTemplate, WebSocketProperties webSocketProperties) {
+        WebSocketPresenceRegistry webSocketPresenceRegistry = new WebSocketPresenceRegistry(stringRedisTemplate, webSocketProperties);
+        log.trace("[Herodotus] |- Bean [Web Socket Presence Registry] Auto Configure.");
+        return webSocketPresenceRegistry;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public WebSocketPresenceBroadcaster webSocketPresenceBroadcaster(WebSocketMessageSender webSocketMessageSender, WebSocketProperties webSocketProperties, @Qualifier("clientOutboundChannelExecutor") ObjectProvider<ThreadPoolTaskExecutor> clientOutboundChannelExecutor) {
+        WebSocketPresenceBroadcaster webSocketPresenceBroadcaster = new WebSocketPresenceBroadcaster(webSocketMessageSender, webSocketProperties, clientOutboundChannelExecutor);
+        log.trace("[Herodotus] |- Bean [Web Socket Presence Broadcaster] Auto Configure.");
+        return webSocketPresenceBroadcaster;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public WebSocketSessionMonitor webSocketSessionMonitor(WebSocketProperties webSocketProperties) {
+        WebSocketSessionMonitor webSocketSessionMonitor = new WebSocketSessionMonitor(webSocketProperties);
+        log.trace("[Herodotus] |- Bean [Web Socket Session Monitor] Auto Configure.");
+        return webSocketSessionMonitor;
+    }
+
+    @Bean
+    public static WebSocketHandlerPostProcessor webSocketHandlerPostProcessor() {
+        WebSocketHandlerPostProcessor webSocketHandlerPostProcessor = new WebSocketHandlerPostProcessor();
+        log.trace("[Herodotus] |- Bean [Web Socket Handler Post Processor] Auto Configure.");
+        return webSocketHandlerPostProcessor;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public WebSocketChannelInterceptor webSocketChannelInterceptor(WebSocketProperties webSocketProperties) {
+        WebSocketChannelInterceptor webSocketChannelInterceptor = new WebSocketChannelInterceptor(webSocketProperties);
         log.trace("[Herodotus] |- Bean [Web Socket Channel Interceptor] Auto Configure.");
         return webSocketChannelInterceptor;
     }
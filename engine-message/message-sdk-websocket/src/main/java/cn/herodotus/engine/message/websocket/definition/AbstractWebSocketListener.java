@@ -25,10 +25,9 @@
 
 package cn.herodotus.engine.message.websocket.definition;
 
-import cn.herodotus.engine.cache.redis.utils.RedisBitMapUtils;
-import cn.herodotus.engine.message.core.constants.MessageConstants;
-import cn.herodotus.engine.message.websocket.processor.WebSocketMessageSender;
-import cn.herodotus.engine.message.websocket.utils.WebSocketUtils;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceBroadcaster;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceRegistry;
+import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationListener;
 
@@ -40,19 +39,26 @@ import org.springframework.context.ApplicationListener;
  */
 public abstract class AbstractWebSocketListener<E extends ApplicationEvent> implements ApplicationListener<E> {
 
-    private final WebSocketMessageSender webSocketMessageSender;
+    private final WebSocketPresenceBroadcaster webSocketPresenceBroadcaster;
+    private final WebSocketPresenceRegistry webSocketPresenceRegistry;
 
-    public AbstractWebSocketListener(WebSocketMessageSender webSocketMessageSender) {
-        this.webSocketMessageSender = webSocketMessageSender;
+    public AbstractWebSocketListener(WebSocketPresenceBroadcaster webSocketPresenceBroadcaster, WebSocketPresenceRegistry webSocketPresenceRegistry) {
+        this.webSocketPresenceBroadcaster = webSocketPresenceBroadcaster;
+        this.webSocketPresenceRegistry = webSocketPresenceRegistry;
     }
 
-    private int getOnlineCount() {
-        Long count = RedisBitMapUtils.bitCount(MessageConstants.REDIS_CURRENT_ONLINE_USER);
-        return count.intValue();
+    protected WebSocketPresenceRegistry getWebSocketPresenceRegistry() {
+        return webSocketPresenceRegistry;
     }
 
-    protected void syncUserCountToAll() {
-        int count = WebSocketUtils.getOnlineCount();
-        webSocketMessageSender.sendOnlineToAll(count);
+    /**
+     * 广播在线人数。广播会在合并窗口结束后统一发送
+     *
+     * @param count 在线人数，为空表示在线情况没有变化，不需要广播
+     */
+    protected void syncUserCountToAll(Integer count) {
+        if (ObjectUtils.isNotEmpty(count)) {
+            webSocketPresenceBroadcaster.submit(count);
+        }
     }
 }
@@ -27,6 +27,7 @@ package cn.herodotus.engine.message.websocket.interceptor;
 
 import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
 import cn.herodotus.engine.message.websocket.domain.WebSocketPrincipal;
+import cn.herodotus.engine.message.websocket.properties.WebSocketProperties;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -40,12 +41,15 @@ import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
 import org.springframework.messaging.support.ChannelInterceptor;
 import org.springframework.messaging.support.MessageHeaderAccessor;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * <p>Description: Websocket消息监听 </p>
  * <p>
- * 用于监听websocket用户连接情况
+ * 用于监听websocket用户连接情况。
+ * 使用外部消息代理时，userDestinationBroadcast 和 userRegistryBroadcast 是节点之间使用的目的地，
+ * 拒绝客户端对这些目的地（以及包含通配符的目的地）的 SUBSCRIBE 和 SEND，避免读取或者伪造其它用户的点对点消息和在线用户信息。
  *
  * @author : gengwei.zheng
  * @date : 2021/10/24 18:50
@@ -54,6 +58,23 @@ public class WebSocketChannelInterceptor implements ChannelInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketChannelInterceptor.class);
 
+    private final List<String> internalDestinations = new ArrayList<>();
+
+    public WebSocketChannelInterceptor() {
+    }
+
+    public WebSocketChannelInterceptor(WebSocketProperties webSocketProperties) {
+        WebSocketProperties.Relay relay = webSocketProperties.getRelay();
+        if (relay.getEnabled()) {
+            if (StringUtils.isNotBlank(relay.getUserDestinationBroadcast())) {
+                internalDestinations.add(relay.getUserDestinationBroadcast());
+            }
+            if (StringUtils.isNotBlank(relay.getUserRegistryBroadcast())) {
+                internalDestinations.add(relay.getUserRegistryBroadcast());
+            }
+        }
+    }
+
     /**
      * 在消息发送之前调用，方法中可以对消息进行修改，如果此方法返回值为空，则不会发生实际的消息发送调用
      *
@@ -102,6 +123,13 @@ public class WebSocketChannelInterceptor implements ChannelInterceptor {
 
                     log.debug("[Herodotus] |- Authentication user [{}] transmit token [{}] from frontend.", user.getName(), token);
                     break;
+                case SUBSCRIBE:
+                case SEND:
+                    if (isInternalDestination(accessor.getDestination())) {
+                        log.warn("[Herodotus] |- User [{}] {} to internal destination [{}] is rejected.", principal.getName(), command, accessor.getDestination());
+                        return null;
+                    }
+                    break;
                 case DISCONNECT :
                     break;
                 default :
@@ -112,6 +140,24 @@ public class WebSocketChannelInterceptor implements ChannelInterceptor {
         return message;
     }
 
+    /**
+     * 判断是否为节点之间使用的目的地。包含通配符的目的地可能覆盖这些目的地，同样视为内部目的地
+     *
+     * @param destination 目的地
+     * @return 是否为内部目的地
+     */
+    private boolean isInternalDestination(String destination) {
+        if (CollectionUtils.isEmpty(internalDestinations) || StringUtils.isBlank(destination)) {
+            return false;
+        }
+
+        if (StringUtils.containsAny(destination, '*', '#')) {
+            return true;
+        }
+
+        return internalDestinations.stream().anyMatch(internal -> StringUtils.equals(destination, internal) || StringUtils.startsWith(destination, internal + "/"));
+    }
+
     /**
      * 在消息发送后立刻调用
      *
@@ -25,14 +25,14 @@
 
 package cn.herodotus.engine.message.websocket.listener;
 
-import cn.herodotus.engine.cache.redis.utils.RedisBitMapUtils;
-import cn.herodotus.engine.message.core.constants.MessageConstants;
 import cn.herodotus.engine.message.websocket.definition.AbstractWebSocketListener;
 import cn.herodotus.engine.message.websocket.domain.WebSocketPrincipal;
-import cn.herodotus.engine.message.websocket.processor.WebSocketMessageSender;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceBroadcaster;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceRegistry;
 import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 
@@ -49,8 +49,8 @@ public class WebSocketConnectedListener extends AbstractWebSocketListener<Sessio
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketConnectedListener.class);
 
-    public WebSocketConnectedListener(WebSocketMessageSender webSocketMessageSender) {
-        super(webSocketMessageSender);
+    public WebSocketConnectedListener(WebSocketPresenceBroadcaster webSocketPresenceBroadcaster, WebSocketPresenceRegistry webSocketPresenceRegistry) {
+        super(webSocketPresenceBroadcaster, webSocketPresenceRegistry);
     }
 
     @Override
@@ -60,11 +60,12 @@ public class WebSocketConnectedListener extends AbstractWebSocketListener<Sessio
 
         if(ObjectUtils.isNotEmpty(principal)) {
 
-            RedisBitMapUtils.setBit(MessageConstants.REDIS_CURRENT_ONLINE_USER, principal.getName(), true);
+            String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+            Integer count = getWebSocketPresenceRegistry().connected(sessionId, principal.getName());
 
-            log.debug("[Herodotus] |- WebSocket user [{}] Offline.", principal);
+            log.debug("[Herodotus] |- WebSocket user [{}] Online.", principal);
 
-            this.syncUserCountToAll();
+            this.syncUserCountToAll(count);
         }
     }
 }
@@ -25,11 +25,10 @@
 
 package cn.herodotus.engine.message.websocket.listener;
 
-import cn.herodotus.engine.cache.redis.utils.RedisBitMapUtils;
-import cn.herodotus.engine.message.core.constants.MessageConstants;
 import cn.herodotus.engine.message.websocket.definition.AbstractWebSocketListener;
 import cn.herodotus.engine.message.websocket.domain.WebSocketPrincipal;
-import cn.herodotus.engine.message.websocket.processor.WebSocketMessageSender;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceBroadcaster;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceRegistry;
 import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,8 +48,8 @@ public class WebSocketDisconnectListener extends AbstractWebSocketListener<Sessi
 
     private static final Logger log = LoggerFactory.getLogger(WebSocketDisconnectListener.class);
 
-    public WebSocketDisconnectListener(WebSocketMessageSender webSocketMessageSender) {
-        super(webSocketMessageSender);
+    public WebSocketDisconnectListener(WebSocketPresenceBroadcaster webSocketPresenceBroadcaster, WebSocketPresenceRegistry webSocketPresenceRegistry) {
+        super(webSocketPresenceBroadcaster, webSocketPresenceRegistry);
     }
 
     @Override
@@ -59,11 +58,11 @@ public class WebSocketDisconnectListener extends AbstractWebSocketListener<Sessi
 
         if(ObjectUtils.isNotEmpty(principal)) {
 
-            RedisBitMapUtils.setBit(MessageConstants.REDIS_CURRENT_ONLINE_USER, principal.getName(), false);
+            Integer count = getWebSocketPresenceRegistry().disconnected(event.getSessionId());
 
             log.debug("[Herodotus] |- WebSocket user [{}] Offline.", principal);
 
-            this.syncUserCountToAll();
+            this.syncUserCountToAll(count);
         }
     }
 }
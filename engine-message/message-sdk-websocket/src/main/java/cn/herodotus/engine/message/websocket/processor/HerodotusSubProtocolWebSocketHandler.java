@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.message.websocket.processor;
+
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.SessionLimitExceededException;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.io.IOException;
+
+/**
+ * <p>Description: 支持慢消费者处理策略的 SubProtocolWebSocketHandler </p>
+ * <p>
+ * 默认的 {@link SubProtocolWebSocketHandler} 在会话发送缓冲区溢出时一律断开会话。这里可以指定溢出策略：
+ * 1. {@link ConcurrentWebSocketSessionDecorator.OverflowStrategy#TERMINATE}：断开会话，与默认行为一致。
+ * 2. {@link ConcurrentWebSocketSessionDecorator.OverflowStrategy#DROP}：保留会话，丢弃缓冲区中最早的消息。
+ * 单条消息发送时间超过 sendTimeLimit 时，两种策略都会断开会话。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/23 10:40
+ */
+public class HerodotusSubProtocolWebSocketHandler extends SubProtocolWebSocketHandler {
+
+    private final WebSocketSessionMonitor webSocketSessionMonitor;
+    private final ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy;
+
+    public HerodotusSubProtocolWebSocketHandler(MessageChannel clientInboundChannel, SubscribableChannel clientOutboundChannel, WebSocketSessionMonitor webSocketSessionMonitor, ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy) {
+        super(clientInboundChannel, clientOutboundChannel);
+        this.webSocketSessionMonitor = webSocketSessionMonitor;
+        this.overflowStrategy = overflowStrategy;
+    }
+
+    @Override
+    protected WebSocketSession decorateSession(WebSocketSession session) {
+        MonitoredWebSocketSessionDecorator decorator = new MonitoredWebSocketSessionDecorator(session, getSendTimeLimit(), getSendBufferSizeLimit(), overflowStrategy, webSocketSessionMonitor);
+        webSocketSessionMonitor.register(decorator);
+        return decorator;
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+        webSocketSessionMonitor.unregister(session.getId());
+        super.afterConnectionClosed(session, closeStatus);
+    }
+
+    private static class MonitoredWebSocketSessionDecorator extends ConcurrentWebSocketSessionDecorator {
+
+        private final WebSocketSessionMonitor webSocketSessionMonitor;
+
+        public MonitoredWebSocketSessionDecorator(WebSocketSession delegate, int sendTimeLimit, int bufferSizeLimit, OverflowStrategy overflowStrategy, WebSocketSessionMonitor webSocketSessionMonitor) {
+            super(delegate, sendTimeLimit, bufferSizeLimit, overflowStrategy);
+            this.webSocketSessionMonitor = webSocketSessionMonitor;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            if (getBufferSize() + message.getPayloadLength() > getBufferSizeLimit()) {
+                webSocketSessionMonitor.recordOverflow();
+            }
+
+            try {
+                super.sendMessage(message);
+            } catch (SessionLimitExceededException ex) {
+                webSocketSessionMonitor.recordTerminated();
+                throw ex;
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.message.websocket.processor;
+
+import cn.herodotus.engine.message.websocket.properties.WebSocketProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+/**
+ * <p>Description: 替换默认的 SubProtocolWebSocketHandler </p>
+ * <p>
+ * {@link SubProtocolWebSocketHandler} 由 @EnableWebSocketMessageBroker 直接创建，没有提供替换的扩展点。
+ * 这里在其初始化之前替换为 {@link HerodotusSubProtocolWebSocketHandler}，后续注册 Stomp Endpoint 时使用的都是替换后的实例。
+ * 依赖的 Bean 在替换时才从 BeanFactory 中获取，避免 BeanPostProcessor 过早初始化其它 Bean。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/23 11:05
+ */
+public class WebSocketHandlerPostProcessor implements BeanPostProcessor, BeanFactoryAware {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketHandlerPostProcessor.class);
+
+    private static final String SUB_PROTOCOL_WEB_SOCKET_HANDLER = "subProtocolWebSocketHandler";
+    private static final String CLIENT_INBOUND_CHANNEL = "clientInboundChannel";
+    private static final String CLIENT_OUTBOUND_CHANNEL = "clientOutboundChannel";
+
+    private BeanFactory beanFactory;
+
+    @Override
+    public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+        this.beanFactory = beanFactory;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
+        if (SUB_PROTOCOL_WEB_SOCKET_HANDLER.equals(beanName) && bean.getClass() == SubProtocolWebSocketHandler.class) {
+            WebSocketProperties webSocketProperties = beanFactory.getBean(WebSocketProperties.class);
+            WebSocketSessionMonitor webSocketSessionMonitor = beanFactory.getBean(WebSocketSessionMonitor.class);
+            MessageChannel clientInboundChannel = beanFactory.getBean(CLIENT_INBOUND_CHANNEL, MessageChannel.class);
+            SubscribableChannel clientOutboundChannel = beanFactory.getBean(CLIENT_OUTBOUND_CHANNEL, SubscribableChannel.class);
+
+            ConcurrentWebSocketSessionDecorator.OverflowStrategy overflowStrategy = toOverflowStrategy(webSocketProperties.getTransport().getSlowConsumerPolicy());
+            log.debug("[Herodotus] |- Replace SubProtocolWebSocketHandler, slow consumer overflow strategy is [{}].", overflowStrategy);
+            return new HerodotusSubProtocolWebSocketHandler(clientInboundChannel, clientOutboundChannel, webSocketSessionMonitor, overflowStrategy);
+        }
+        return bean;
+    }
+
+    private ConcurrentWebSocketSessionDecorator.OverflowStrategy toOverflowStrategy(WebSocketProperties.SlowConsumerPolicy policy) {
+        if (policy == WebSocketProperties.SlowConsumerPolicy.DROP) {
+            return ConcurrentWebSocketSessionDecorator.OverflowStrategy.DROP;
+        }
+        return ConcurrentWebSocketSessionDecorator.OverflowStrategy.TERMINATE;
+    }
+}
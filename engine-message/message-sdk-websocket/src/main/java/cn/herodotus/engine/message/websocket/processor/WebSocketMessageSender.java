@@ -59,6 +59,8 @@ public class WebSocketMessageSender {
 
     /**
      * 发送给指定用户信息。
+     * <p>
+     * 开启外部 STOMP 消息代理后，{@link SimpUserRegistry} 包含全部节点的在线用户，用户连接在其它节点上时也可以正常发送。
      *
      * @param webSocketMessage 发送内容参数实体 {@link WebSocketMessage}
      * @param <T>              指定 payload 类型
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.message.websocket.processor;
+
+import cn.herodotus.engine.message.websocket.properties.WebSocketProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.lang3.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Description: WebSocket 在线人数广播 </p>
+ * <p>
+ * 在线人数的每次变化都会广播给全部客户端，大量客户端同时重连时，广播消息数量与客户端数量的平方成正比。这里对广播进行合并：
+ * 1. 窗口期内的多次变化只记录最新值，窗口结束后只广播一次。
+ * 2. 与上一次广播的值相同时不再广播。
+ * 3. 发送通道积压的消息超过阈值时，推迟到下一个窗口再广播，避免在通道拥堵时继续放大消息量。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/22 16:20
+ */
+public class WebSocketPresenceBroadcaster implements InitializingBean, DisposableBean, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketPresenceBroadcaster.class);
+
+    private static final String METRIC_PREFIX = "herodotus.websocket.presence.broadcast";
+
+    private final WebSocketMessageSender webSocketMessageSender;
+    private final WebSocketProperties.Presence presence;
+    private final ObjectProvider<ThreadPoolTaskExecutor> outboundExecutor;
+
+    private final AtomicInteger latest = new AtomicInteger(-1);
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private volatile int lastSent = -1;
+
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong deferred = new AtomicLong();
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    /**
+     * @param webSocketMessageSender {@link WebSocketMessageSender}
+     * @param webSocketProperties    {@link WebSocketProperties}
+     * @param outboundExecutor       客户端发送通道的线程池，用于判断通道积压情况。在获取时才解析，避免与 WebSocket 配置产生循环依赖
+     */
+    public WebSocketPresenceBroadcaster(WebSocketMessageSender webSocketMessageSender, WebSocketProperties webSocketProperties, ObjectProvider<ThreadPoolTaskExecutor> outboundExecutor) {
+        this.webSocketMessageSender = webSocketMessageSender;
+        this.presence = webSocketProperties.getPresence();
+        this.outboundExecutor = outboundExecutor;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setPoolSize(1);
+        this.taskScheduler.setThreadNamePrefix("herodotus-websocket-presence-broadcast-");
+        this.taskScheduler.setDaemon(true);
+        this.taskScheduler.initialize();
+    }
+
+    @Override
+    public void destroy() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+    }
+
+    /**
+     * 提交最新的在线人数，在当前窗口结束后统一广播
+     *
+     * @param count 在线人数
+     */
+    public void submit(int count) {
+        submitted.incrementAndGet();
+        latest.set(count);
+        if (flushRequested.compareAndSet(false, true)) {
+            schedule();
+        }
+    }
+
+    private void schedule() {
+        taskScheduler.schedule(this::flush, Instant.now().plus(presence.getBroadcastWindow()));
+    }
+
+    private void flush() {
+        try {
+            if (isCongested()) {
+                deferred.incrementAndGet();
+                log.debug("[Herodotus] |- WebSocket outbound channel is congested, defer online count broadcast.");
+                schedule();
+                return;
+            }
+
+            // 先复位标记再读取最新值，之后提交的变化会开启新的窗口，不会丢失
+            flushRequested.set(false);
+            int count = latest.get();
+            if (count == lastSent) {
+                return;
+            }
+
+            int previous = lastSent;
+            lastSent = count;
+            webSocketMessageSender.sendOnlineToAll(createPayload(count, previous));
+            sent.incrementAndGet();
+        } catch (Exception e) {
+            flushRequested.set(false);
+            log.warn("[Herodotus] |- WebSocket online count broadcast failed, catch exception [{}].", e.getMessage());
+        }
+    }
+
+    private Object createPayload(int count, int previous) {
+        if (presence.getDelta()) {
+            Map<String, Integer> payload = new HashMap<>(2);
+            payload.put("count", count);
+            payload.put("delta", previous < 0 ? 0 : count - previous);
+            return payload;
+        }
+        return count;
+    }
+
+    private boolean isCongested() {
+        ThreadPoolTaskExecutor executor = outboundExecutor.getIfAvailable();
+        return ObjectUtils.isNotEmpty(executor) && executor.getThreadPoolExecutor().getQueue().size() > presence.getMaxOutboundBacklog();
+    }
+
+    /**
+     * 未被广播的在线人数变化数量，即提交次数与实际广播次数之差
+     *
+     * @return 被合并或者去重的变化数量
+     */
+    public long getCoalesced() {
+        return submitted.get() - sent.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".submitted", submitted, AtomicLong::get)
+                .description("Count of online count changes submitted for broadcast")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".sent", sent, AtomicLong::get)
+                .description("Count of online count broadcasts sent")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".suppressed", this, WebSocketPresenceBroadcaster::getCoalesced)
+                .description("Count of online count changes merged into a window or dropped as unchanged")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".deferred", deferred, AtomicLong::get)
+                .description("Count of online count broadcasts deferred by outbound channel backlog")
+                .register(registry);
+    }
+}
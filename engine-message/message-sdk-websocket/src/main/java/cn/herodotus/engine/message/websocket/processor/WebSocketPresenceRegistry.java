@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.message.websocket.processor;
+
+import cn.herodotus.engine.message.core.constants.MessageConstants;
+import cn.herodotus.engine.message.websocket.properties.WebSocketProperties;
+import cn.hutool.core.util.IdUtil;
+import org.apache.commons.lang3.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * <p>Description: WebSocket 在线用户注册表 </p>
+ * <p>
+ * 在线用户保存在 Redis Hash 中，Field 为用户标识，Value 为该用户在全部节点上的 WebSocket 连接数：
+ * 1. 用户标识直接作为 Field，不存在哈希冲突，占用空间与在线用户数成正比。
+ * 2. 连接数降为 0 时删除 Field，在线人数即 HLEN，时间复杂度为 O(1)，不需要 BITCOUNT 全量统计。
+ * 3. 同一用户打开多个页面时按连接计数，关闭其中一个不会被提前标记为离线。
+ * <p>
+ * 每个节点另外记录本节点上各用户的连接数，并定时在节点集合中登记心跳。节点宕机后，其它节点发现心跳超时，
+ * 会按照该节点记录的连接数扣减全局数据，避免宕机节点上的用户一直显示在线。
+ * <p>
+ * 全部 Key 使用相同的 Hash Tag（{@link MessageConstants#REDIS_ONLINE_HASH_TAG}），Lua 脚本在 Redis Cluster 中同样可以执行。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/22 14:30
+ */
+public class WebSocketPresenceRegistry implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(WebSocketPresenceRegistry.class);
+
+    /**
+     * 旧版本在线用户 BitMap 的保留时间，需要覆盖滚动升级的时长
+     */
+    private static final Duration LEGACY_ONLINE_USER_EXPIRE = Duration.ofDays(1);
+
+    /**
+     * KEYS: 全局连接数, 节点连接数；ARGV: 用户标识。返回在线人数
+     */
+    private static final RedisScript<Long> CONNECT_SCRIPT = new DefaultRedisScript<>(
+            "redis.call('HINCRBY', KEYS[2], ARGV[1], 1) " +
+                    "redis.call('HINCRBY', KEYS[1], ARGV[1], 1) " +
+                    "return redis.call('HLEN', KEYS[1])", Long.class);
+
+    /**
+     * KEYS: 全局连接数, 节点连接数；ARGV: 用户标识。返回在线人数
+     * <p>
+     * 节点数据已经被清理时（例如节点被误判为宕机），不再重复扣减全局数据
+     */
+    private static final RedisScript<Long> DISCONNECT_SCRIPT = new DefaultRedisScript<>(
+            "local n = redis.call('HINCRBY', KEYS[2], ARGV[1], -1) " +
+                    "if n <= 0 then redis.call('HDEL', KEYS[2], ARGV[1]) end " +
+                    "if n >= 0 then " +
+                    "local g = redis.call('HINCRBY', KEYS[1], ARGV[1], -1) " +
+                    "if g <= 0 then redis.call('HDEL', KEYS[1], ARGV[1]) end " +
+                    "end " +
+                    "return redis.call('HLEN', KEYS[1])", Long.class);
+
+    /**
+     * KEYS: 全局连接数, 节点连接数；ARGV: 用户标识1, 连接数1, 用户标识2, 连接数2 ...
+     * <p>
+     * 以本地连接数为准覆盖节点数据，并将差值同步到全局数据
+     */
+    private static final RedisScript<Long> RESTORE_SCRIPT = new DefaultRedisScript<>(
+            "for i = 1, #ARGV, 2 do " +
+                    "local old = tonumber(redis.call('HGET', KEYS[2], ARGV[i]) or '0') " +
+                    "local delta = tonumber(ARGV[i + 1]) - old " +
+                    "redis.call('HSET', KEYS[2], ARGV[i], ARGV[i + 1]) " +
+                    "if delta ~= 0 then redis.call('HINCRBY', KEYS[1], ARGV[i], delta) end " +
+                    "end " +
+                    "return redis.call('HLEN', KEYS[1])", Long.class);
+
+    /**
+     * KEYS: 全局连接数, 节点集合, 节点连接数；ARGV: 节点ID, 心跳截止时间(ms)
+     * <p>
+     * 执行前再次确认节点心跳已经超时，多个节点同时清理同一个节点时只有一个生效
+     */
+    private static final RedisScript<Long> SWEEP_SCRIPT = new DefaultRedisScript<>(
+            "local score = redis.call('ZSCORE', KEYS[2], ARGV[1]) " +
+                    "if score and tonumber(score) > tonumber(ARGV[2]) then return 0 end " +
+                    "local entries = redis.call('HGETALL', KEYS[3]) " +
+                    "for i = 1, #entries, 2 do " +
+                    "local g = redis.call('HINCRBY', KEYS[1], entries[i], -tonumber(entries[i + 1])) " +
+                    "if g <= 0 then redis.call('HDEL', KEYS[1], entries[i]) end " +
+                    "end " +
+                    "redis.call('DEL', KEYS[3]) " +
+                    "redis.call('ZREM', KEYS[2], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final WebSocketProperties.Presence presence;
+    private final String nodeId;
+    private final List<String> keys;
+
+    /**
+     * 本节点的 WebSocket Session 与用户标识的对应关系。SessionDisconnectEvent 可能对同一个 Session 发布多次，用于去重
+     */
+    private final ConcurrentMap<String, String> sessions = new ConcurrentHashMap<>();
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    public WebSocketPresenceRegistry(StringRedisTemplate stringRedisTemplate, WebSocketProperties webSocketProperties) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.presence = webSocketProperties.getPresence();
+        this.nodeId = IdUtil.fastSimpleUUID();
+        this.keys = Arrays.asList(MessageConstants.REDIS_ONLINE_USER_SESSIONS, MessageConstants.REDIS_ONLINE_NODE_PREFIX + nodeId);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        heartbeat();
+        // 旧版本按照哈希偏移量记录在线用户的 BitMap，滚动升级期间旧版本节点仍在使用，不能直接删除。只设置过期时间，由 Redis 自动清理
+        if (Objects.equals(stringRedisTemplate.getExpire(MessageConstants.REDIS_CURRENT_ONLINE_USER), -1L)) {
+            stringRedisTemplate.expire(MessageConstants.REDIS_CURRENT_ONLINE_USER, LEGACY_ONLINE_USER_EXPIRE);
+        }
+
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setPoolSize(1);
+        this.taskScheduler.setThreadNamePrefix("herodotus-websocket-presence-");
+        this.taskScheduler.setDaemon(true);
+        this.taskScheduler.initialize();
+        this.taskScheduler.scheduleWithFixedDelay(this::maintain, presence.getHeartbeatInterval());
+        log.debug("[Herodotus] |- WebSocket presence registry started on node [{}].", nodeId);
+    }
+
+    @Override
+    public void destroy() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+        // 正常停机时立即清理本节点数据，不需要等待其它节点发现心跳超时
+        sweep(nodeId, Long.MAX_VALUE);
+        sessions.clear();
+    }
+
+    /**
+     * 用户建立 WebSocket 连接
+     *
+     * @param sessionId WebSocket Session ID
+     * @param userId    用户标识
+     * @return 当前在线人数，如果该 Session 已经登记过则返回 null
+     */
+    public Integer connected(String sessionId, String userId) {
+        if (ObjectUtils.isNotEmpty(sessions.putIfAbsent(sessionId, userId))) {
+            return null;
+        }
+        return toCount(stringRedisTemplate.execute(CONNECT_SCRIPT, keys, userId));
+    }
+
+    /**
+     * 用户断开 WebSocket 连接
+     *
+     * @param sessionId WebSocket Session ID
+     * @return 当前在线人数，如果该 Session 没有登记过或者已经处理过则返回 null
+     */
+    public Integer disconnected(String sessionId) {
+        String userId = sessions.remove(sessionId);
+        if (ObjectUtils.isEmpty(userId)) {
+            return null;
+        }
+        return toCount(stringRedisTemplate.execute(DISCONNECT_SCRIPT, keys, userId));
+    }
+
+    /**
+     * 全部节点的在线人数
+     *
+     * @return 在线人数
+     */
+    public int getOnlineCount() {
+        return toCount(stringRedisTemplate.opsForHash().size(MessageConstants.REDIS_ONLINE_USER_SESSIONS));
+    }
+
+    /**
+     * 用户是否在线
+     *
+     * @param userId 用户标识
+     * @return true 在线，false 离线
+     */
+    public boolean isOnline(String userId) {
+        return stringRedisTemplate.opsForHash().hasKey(MessageConstants.REDIS_ONLINE_USER_SESSIONS, userId);
+    }
+
+    private void maintain() {
+        try {
+            heartbeat();
+            long deadline = System.currentTimeMillis() - presence.getNodeTimeout().toMillis();
+            Set<String> expired = stringRedisTemplate.opsForZSet().rangeByScore(MessageConstants.REDIS_ONLINE_NODES, 0, deadline);
+            if (ObjectUtils.isNotEmpty(expired)) {
+                expired.forEach(node -> sweep(node, deadline));
+            }
+        } catch (Exception e) {
+            log.warn("[Herodotus] |- WebSocket presence maintain failed, catch exception [{}].", e.getMessage());
+        }
+    }
+
+    private void heartbeat() {
+        Boolean added = stringRedisTemplate.opsForZSet().add(MessageConstants.REDIS_ONLINE_NODES, nodeId, System.currentTimeMillis());
+        // 重新加入节点集合，说明本节点曾被误判为宕机并清理，按照本地数据恢复
+        if (Boolean.TRUE.equals(added) && !sessions.isEmpty()) {
+            Map<String, Integer> counts = new HashMap<>();
+            sessions.values().forEach(userId -> counts.merge(userId, 1, Integer::sum));
+            List<String> args = new ArrayList<>(counts.size() * 2);
+            counts.forEach((userId, count) -> {
+                args.add(userId);
+                args.add(String.valueOf(count));
+            });
+            stringRedisTemplate.execute(RESTORE_SCRIPT, keys, args.toArray());
+            log.warn("[Herodotus] |- WebSocket presence of node [{}] restored with [{}] users.", nodeId, counts.size());
+        }
+    }
+
+    private void sweep(String node, long deadline) {
+        List<String> sweepKeys = Arrays.asList(MessageConstants.REDIS_ONLINE_USER_SESSIONS, MessageConstants.REDIS_ONLINE_NODES, MessageConstants.REDIS_ONLINE_NODE_PREFIX + node);
+        Long result = stringRedisTemplate.execute(SWEEP_SCRIPT, sweepKeys, node, String.valueOf(deadline));
+        if (ObjectUtils.isNotEmpty(result) && result == 1L) {
+            log.debug("[Herodotus] |- WebSocket presence of node [{}] cleaned.", node);
+        }
+    }
+
+    private int toCount(Long count) {
+        return ObjectUtils.isNotEmpty(count) ? count.intValue() : 0;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.message.websocket.processor;
+
+import cn.herodotus.engine.message.websocket.properties.WebSocketProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Description: WebSocket 会话发送缓冲区监控 </p>
+ * <p>
+ * 客户端接收速度跟不上时，待发送的消息在会话的发送缓冲区中排队。这里记录全部会话的缓冲区情况：
+ * 1. 缓冲区积压的总字节数和最大字节数。
+ * 2. 单条消息发送时间超过阈值的慢消费者会话数量。
+ * 3. 缓冲区溢出的次数，以及因超出限制被断开的会话数量。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/23 10:15
+ */
+public class WebSocketSessionMonitor implements MeterBinder {
+
+    private static final String METRIC_PREFIX = "herodotus.websocket.session";
+
+    private final WebSocketProperties.Transport transport;
+
+    private final Map<String, ConcurrentWebSocketSessionDecorator> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong overflowed = new AtomicLong();
+    private final AtomicLong terminated = new AtomicLong();
+
+    public WebSocketSessionMonitor(WebSocketProperties webSocketProperties) {
+        this.transport = webSocketProperties.getTransport();
+    }
+
+    public void register(ConcurrentWebSocketSessionDecorator session) {
+        sessions.put(session.getId(), session);
+    }
+
+    public void unregister(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * 记录一次发送缓冲区溢出
+     */
+    public void recordOverflow() {
+        overflowed.incrementAndGet();
+    }
+
+    /**
+     * 记录一次因超出发送限制而断开的会话
+     */
+    public void recordTerminated() {
+        terminated.incrementAndGet();
+    }
+
+    public int getSessionCount() {
+        return sessions.size();
+    }
+
+    public long getBufferedBytes() {
+        long total = 0;
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            total += session.getBufferSize();
+        }
+        return total;
+    }
+
+    public long getMaxBufferedBytes() {
+        long max = 0;
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            max = Math.max(max, session.getBufferSize());
+        }
+        return max;
+    }
+
+    public long getSlowSessionCount() {
+        long threshold = transport.getSlowConsumerThreshold().toMillis();
+        long count = 0;
+        for (ConcurrentWebSocketSessionDecorator session : sessions.values()) {
+            if (session.getTimeSinceSendStarted() > threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + ".active", this, WebSocketSessionMonitor::getSessionCount)
+                .description("Count of open WebSocket sessions on this node")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".buffer.total", this, WebSocketSessionMonitor::getBufferedBytes)
+                .description("Bytes waiting in the send buffers of all WebSocket sessions")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".buffer.max", this, WebSocketSessionMonitor::getMaxBufferedBytes)
+                .description("Largest send buffer of a single WebSocket session")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".slow", this, WebSocketSessionMonitor::getSlowSessionCount)
+                .description("Count of WebSocket sessions whose current send exceeds the slow consumer threshold")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".overflowed", overflowed, AtomicLong::get)
+                .description("Count of sends that exceeded the session send buffer limit")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".terminated", terminated, AtomicLong::get)
+                .description("Count of WebSocket sessions closed for exceeding send limits")
+                .register(registry);
+    }
+}
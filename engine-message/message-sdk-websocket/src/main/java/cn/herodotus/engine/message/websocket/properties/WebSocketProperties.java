@@ -32,6 +32,7 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -70,6 +71,31 @@ public class WebSocketProperties {
      */
     private String principalHeader = HttpHeaders.X_HERODOTUS_OPEN_ID;
 
+    /**
+     * 在线用户统计配置
+     */
+    private Presence presence = new Presence();
+
+    /**
+     * 外部 STOMP 消息代理配置
+     */
+    private Relay relay = new Relay();
+
+    /**
+     * 客户端输入消息通道线程池配置
+     */
+    private Channel inbound = new Channel();
+
+    /**
+     * 客户端输出消息通道线程池配置
+     */
+    private Channel outbound = new Channel();
+
+    /**
+     * WebSocket 传输配置
+     */
+    private Transport transport = new Transport();
+
     private String format(String endpoint) {
         if (StringUtils.isNotBlank(endpoint) && !StringUtils.startsWith(endpoint, SymbolConstants.FORWARD_SLASH)) {
             return SymbolConstants.FORWARD_SLASH + endpoint;
@@ -128,4 +154,390 @@ public class WebSocketProperties {
     public void setPrincipalHeader(String principalHeader) {
         this.principalHeader = principalHeader;
     }
+
+    public Presence getPresence() {
+        return presence;
+    }
+
+    public void setPresence(Presence presence) {
+        this.presence = presence;
+    }
+
+    public Relay getRelay() {
+        return relay;
+    }
+
+    public void setRelay(Relay relay) {
+        this.relay = relay;
+    }
+
+    public Channel getInbound() {
+        return inbound;
+    }
+
+    public void setInbound(Channel inbound) {
+        this.inbound = inbound;
+    }
+
+    public Channel getOutbound() {
+        return outbound;
+    }
+
+    public void setOutbound(Channel outbound) {
+        this.outbound = outbound;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public static class Presence {
+
+        /**
+         * 节点心跳间隔，同时也是检查失效节点的间隔
+         */
+        private Duration heartbeatInterval = Duration.ofSeconds(10);
+
+        /**
+         * 节点超过该时间没有心跳，即认为节点已经宕机，该节点上的在线用户会被清理。需要大于心跳间隔
+         */
+        private Duration nodeTimeout = Duration.ofSeconds(30);
+
+        /**
+         * 在线人数广播的合并窗口，窗口期内的多次变化只广播最新值
+         */
+        private Duration broadcastWindow = Duration.ofMillis(500);
+
+        /**
+         * 是否以增量形式广播。开启后广播内容为 {"count": 在线人数, "delta": 与上次广播的差值}，否则只广播在线人数
+         */
+        private Boolean delta = false;
+
+        /**
+         * 客户端发送通道积压消息数超过该值时，推迟在线人数广播
+         */
+        private Integer maxOutboundBacklog = 1000;
+
+        public Duration getHeartbeatInterval() {
+            return heartbeatInterval;
+        }
+
+        public void setHeartbeatInterval(Duration heartbeatInterval) {
+            this.heartbeatInterval = heartbeatInterval;
+        }
+
+        public Duration getNodeTimeout() {
+            return nodeTimeout;
+        }
+
+        public void setNodeTimeout(Duration nodeTimeout) {
+            this.nodeTimeout = nodeTimeout;
+        }
+
+        public Duration getBroadcastWindow() {
+            return broadcastWindow;
+        }
+
+        public void setBroadcastWindow(Duration broadcastWindow) {
+            this.broadcastWindow = broadcastWindow;
+        }
+
+        public Boolean getDelta() {
+            return delta;
+        }
+
+        public void setDelta(Boolean delta) {
+            this.delta = delta;
+        }
+
+        public Integer getMaxOutboundBacklog() {
+            return maxOutboundBacklog;
+        }
+
+        public void setMaxOutboundBacklog(Integer maxOutboundBacklog) {
+            this.maxOutboundBacklog = maxOutboundBacklog;
+        }
+    }
+
+    /**
+     * 外部 STOMP 消息代理配置。
+     * <p>
+     * 开启后使用 RabbitMQ、ActiveMQ 等外部 STOMP 消息代理代替内置的 SimpleBroker，广播和点对点消息可以在多个节点之间传递：
+     * 1. 各节点通过 userRegistryBroadcast 互相同步在线用户，{@link org.springframework.messaging.simp.user.SimpUserRegistry} 包含全部节点的用户。
+     * 2. 本节点无法解析的点对点消息，通过 userDestinationBroadcast 转发给其它节点，由用户所在的节点投递。
+     * <p>
+     * 消息目的地依然使用 "/broadcast" 和 "/personal" 前缀，需要确认所使用的消息代理支持这种格式的目的地。
+     */
+    public static class Relay {
+
+        /**
+         * 是否使用外部 STOMP 消息代理
+         */
+        private Boolean enabled = false;
+
+        /**
+         * 消息代理地址
+         */
+        private String host = "127.0.0.1";
+
+        /**
+         * 消息代理 STOMP 端口
+         */
+        private Integer port = 61613;
+
+        /**
+         * 代替客户端连接消息代理时使用的用户名
+         */
+        private String clientLogin = "guest";
+
+        /**
+         * 代替客户端连接消息代理时使用的密码
+         */
+        private String clientPasscode = "guest";
+
+        /**
+         * 服务端共享连接使用的用户名
+         */
+        private String systemLogin = "guest";
+
+        /**
+         * 服务端共享连接使用的密码
+         */
+        private String systemPasscode = "guest";
+
+        /**
+         * 消息代理的虚拟主机
+         */
+        private String virtualHost;
+
+        /**
+         * 在节点之间转发无法在本节点解析的点对点消息使用的目的地，需要以广播前缀开头。客户端对该目的地的 SUBSCRIBE 和 SEND 会被拒绝
+         */
+        private String userDestinationBroadcast = MessageConstants.WEBSOCKET_CHANNEL_PROXY_BROADCAST + "/unresolved-user";
+
+        /**
+         * 在节点之间同步在线用户使用的目的地，需要以广播前缀开头。客户端对该目的地的 SUBSCRIBE 和 SEND 会被拒绝
+         */
+        private String userRegistryBroadcast = MessageConstants.WEBSOCKET_CHANNEL_PROXY_BROADCAST + "/user-registry";
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getHost() {
+            return host;
+        }
+
+        public void setHost(String host) {
+            this.host = host;
+        }
+
+        public Integer getPort() {
+            return port;
+        }
+
+        public void setPort(Integer port) {
+            this.port = port;
+        }
+
+        public String getClientLogin() {
+            return clientLogin;
+        }
+
+        public void setClientLogin(String clientLogin) {
+            this.clientLogin = clientLogin;
+        }
+
+        public String getClientPasscode() {
+            return clientPasscode;
+        }
+
+        public void setClientPasscode(String clientPasscode) {
+            this.clientPasscode = clientPasscode;
+        }
+
+        public String getSystemLogin() {
+            return systemLogin;
+        }
+
+        public void setSystemLogin(String systemLogin) {
+            this.systemLogin = systemLogin;
+        }
+
+        public String getSystemPasscode() {
+            return systemPasscode;
+        }
+
+        public void setSystemPasscode(String systemPasscode) {
+            this.systemPasscode = systemPasscode;
+        }
+
+        public String getVirtualHost() {
+            return virtualHost;
+        }
+
+        public void setVirtualHost(String virtualHost) {
+            this.virtualHost = virtualHost;
+        }
+
+        public String getUserDestinationBroadcast() {
+            return userDestinationBroadcast;
+        }
+
+        public void setUserDestinationBroadcast(String userDestinationBroadcast) {
+            this.userDestinationBroadcast = userDestinationBroadcast;
+        }
+
+        public String getUserRegistryBroadcast() {
+            return userRegistryBroadcast;
+        }
+
+        public void setUserRegistryBroadcast(String userRegistryBroadcast) {
+            this.userRegistryBroadcast = userRegistryBroadcast;
+        }
+    }
+
+    public static class Channel {
+
+        /**
+         * 核心线程数，当线程数小于此配置时，不管线程中有无空闲的线程，都会产生新线程处理任务
+         */
+        private Integer corePoolSize = 10;
+
+        /**
+         * 最大线程数。只有等待队列已满时才会创建超过核心线程数的线程
+         */
+        private Integer maxPoolSize = 20;
+
+        /**
+         * 线程池维护线程所允许的空闲时间，单位秒
+         */
+        private Integer keepAliveSeconds = 60;
+
+        /**
+         * 等待队列容量，默认不限制
+         */
+        private Integer queueCapacity = Integer.MAX_VALUE;
+
+        public Integer getCorePoolSize() {
+            return corePoolSize;
+        }
+
+        public void setCorePoolSize(Integer corePoolSize) {
+            this.corePoolSize = corePoolSize;
+        }
+
+        public Integer getMaxPoolSize() {
+            return maxPoolSize;
+        }
+
+        public void setMaxPoolSize(Integer maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+        }
+
+        public Integer getKeepAliveSeconds() {
+            return keepAliveSeconds;
+        }
+
+        public void setKeepAliveSeconds(Integer keepAliveSeconds) {
+            this.keepAliveSeconds = keepAliveSeconds;
+        }
+
+        public Integer getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+    }
+
+    public static class Transport {
+
+        /**
+         * 接收消息的最大字节数
+         */
+        private Integer messageSizeLimit = 10240;
+
+        /**
+         * 每个会话发送缓冲区的最大字节数，客户端接收速度跟不上时，消息在缓冲区中排队
+         */
+        private Integer sendBufferSizeLimit = 10240;
+
+        /**
+         * 单条消息发送的最长时间，超过该时间的会话一律断开
+         */
+        private Duration sendTimeLimit = Duration.ofSeconds(10);
+
+        /**
+         * 发送缓冲区已满时的处理策略
+         */
+        private SlowConsumerPolicy slowConsumerPolicy = SlowConsumerPolicy.DISCONNECT;
+
+        /**
+         * 单条消息发送时间超过该值的会话被视为慢消费者，用于监控统计
+         */
+        private Duration slowConsumerThreshold = Duration.ofSeconds(1);
+
+        public Integer getMessageSizeLimit() {
+            return messageSizeLimit;
+        }
+
+        public void setMessageSizeLimit(Integer messageSizeLimit) {
+            this.messageSizeLimit = messageSizeLimit;
+        }
+
+        public Integer getSendBufferSizeLimit() {
+            return sendBufferSizeLimit;
+        }
+
+        public void setSendBufferSizeLimit(Integer sendBufferSizeLimit) {
+            this.sendBufferSizeLimit = sendBufferSizeLimit;
+        }
+
+        public Duration getSendTimeLimit() {
+            return sendTimeLimit;
+        }
+
+        public void setSendTimeLimit(Duration sendTimeLimit) {
+            this.sendTimeLimit = sendTimeLimit;
+        }
+
+        public SlowConsumerPolicy getSlowConsumerPolicy() {
+            return slowConsumerPolicy;
+        }
+
+        public void setSlowConsumerPolicy(SlowConsumerPolicy slowConsumerPolicy) {
+            this.slowConsumerPolicy = slowConsumerPolicy;
+        }
+
+        public Duration getSlowConsumerThreshold() {
+            return slowConsumerThreshold;
+        }
+
+        public void setSlowConsumerThreshold(Duration slowConsumerThreshold) {
+            this.slowConsumerThreshold = slowConsumerThreshold;
+        }
+    }
+
+    public enum SlowConsumerPolicy {
+
+        /**
+         * 断开会话，客户端需要重新连接
+         */
+        DISCONNECT,
+
+        /**
+         * 保留会话，丢弃发送缓冲区中最早的消息，保证客户端收到的是最新的消息
+         */
+        DROP
+    }
 }
@@ -25,7 +25,7 @@
 
 package cn.herodotus.engine.message.websocket.service;
 
-import cn.herodotus.engine.message.websocket.utils.WebSocketUtils;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceRegistry;
 import org.springframework.stereotype.Service;
 
 import java.util.HashMap;
@@ -40,9 +40,15 @@ import java.util.Map;
 @Service
 public class WebSocketDisplayService {
 
+    private final WebSocketPresenceRegistry webSocketPresenceRegistry;
+
+    public WebSocketDisplayService(WebSocketPresenceRegistry webSocketPresenceRegistry) {
+        this.webSocketPresenceRegistry = webSocketPresenceRegistry;
+    }
+
     public Map<String, Object> findAllStat() {
         Map<String, Object> data = new HashMap<>();
-        data.put("onlineCount", WebSocketUtils.getOnlineCount());
+        data.put("onlineCount", webSocketPresenceRegistry.getOnlineCount());
         return data;
     }
 }
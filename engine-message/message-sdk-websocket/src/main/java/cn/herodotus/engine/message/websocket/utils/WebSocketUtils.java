@@ -25,8 +25,8 @@
 
 package cn.herodotus.engine.message.websocket.utils;
 
-import cn.herodotus.engine.cache.redis.utils.RedisBitMapUtils;
-import cn.herodotus.engine.message.core.constants.MessageConstants;
+import cn.herodotus.engine.message.websocket.processor.WebSocketPresenceRegistry;
+import cn.hutool.extra.spring.SpringUtil;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
 import org.springframework.http.server.ServletServerHttpRequest;
@@ -61,8 +61,14 @@ public class WebSocketUtils {
         return null;
     }
 
+    /**
+     * 全部节点的在线人数
+     *
+     * @return 在线人数
+     * @deprecated 使用 {@link WebSocketPresenceRegistry#getOnlineCount()}
+     */
+    @Deprecated
     public static int getOnlineCount() {
-        Long count = RedisBitMapUtils.bitCount(MessageConstants.REDIS_CURRENT_ONLINE_USER);
-        return count.intValue();
+        return SpringUtil.getBean(WebSocketPresenceRegistry.class).getOnlineCount();
     }
 }
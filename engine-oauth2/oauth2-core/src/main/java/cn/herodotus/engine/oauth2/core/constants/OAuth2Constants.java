@@ -39,6 +39,9 @@ public interface OAuth2Constants extends BaseConstants {
     String PROPERTY_OAUTH2_UI = PROPERTY_PREFIX_OAUTH2 + ".ui";
     String PROPERTY_OAUTH2_COMPLIANCE = PROPERTY_PREFIX_OAUTH2 + ".compliance";
     String ITEM_COMPLIANCE_AUTO_UNLOCK = PROPERTY_OAUTH2_COMPLIANCE + ".auto-unlock";
+    String ITEM_AUTHORIZATION_REAPER_ENABLED = PROPERTY_PREFIX_OAUTH2 + ".authorization-reaper.enabled";
+    String ITEM_SECURITY_VALIDATE = PROPERTY_PREFIX_SECURITY + ".validate";
+    String ITEM_SECURITY_INTROSPECTION_CACHED = PROPERTY_PREFIX_SECURITY + ".introspection.cached";
 
     String REGION_OAUTH2_AUTHORIZATION = AREA_PREFIX + "oauth2:authorization";
     String REGION_OAUTH2_AUTHORIZATION_CONSENT = AREA_PREFIX + "oauth2:authorization:consent";
@@ -51,4 +54,8 @@ public interface OAuth2Constants extends BaseConstants {
 
     String CACHE_NAME_TOKEN_SIGN_IN_FAILURE_LIMITED = CACHE_TOKEN_BASE_PREFIX + "sign_in:failure_limited:";
     String CACHE_NAME_TOKEN_LOCKED_USER_DETAIL = CACHE_TOKEN_BASE_PREFIX + "locked:user_details:";
+    String CACHE_NAME_TOKEN_AUTHORIZATION = CACHE_TOKEN_BASE_PREFIX + "authorization:";
+    String CACHE_NAME_TOKEN_AUTHORIZATION_REAPER = CACHE_TOKEN_BASE_PREFIX + "authorization_reaper:";
+
+    String CACHE_NAME_CLIENT_AUTHORITY = CACHE_SIMPLE_BASE_PREFIX + "oauth2:client_authority:";
 }
@@ -91,6 +91,11 @@ public class OAuth2ComplianceProperties {
          */
         private Duration expire = Duration.ofHours(2);
 
+        /**
+         * 是否使用滑动窗口统计失败次数，默认使用固定窗口
+         */
+        private Boolean slidingWindow = false;
+
         public Boolean getEnabled() {
             return enabled;
         }
@@ -123,6 +128,14 @@ public class OAuth2ComplianceProperties {
             this.autoUnlock = autoUnlock;
         }
 
+        public Boolean getSlidingWindow() {
+            return slidingWindow;
+        }
+
+        public void setSlidingWindow(Boolean slidingWindow) {
+            this.slidingWindow = slidingWindow;
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
@@ -130,6 +143,7 @@ public class OAuth2ComplianceProperties {
                     .add("maxTimes", maxTimes)
                     .add("autoUnlock", autoUnlock)
                     .add("expire", expire)
+                    .add("slidingWindow", slidingWindow)
                     .toString();
         }
     }
@@ -30,6 +30,7 @@ import cn.herodotus.engine.oauth2.core.enums.Certificate;
 import com.google.common.base.MoreObjects;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -45,6 +46,10 @@ public class OAuth2Properties {
 
     private Jwk jwk = new Jwk();
 
+    private AuthorizationCache authorizationCache = new AuthorizationCache();
+
+    private AuthorizationReaper authorizationReaper = new AuthorizationReaper();
+
     public Jwk getJwk() {
         return jwk;
     }
@@ -53,6 +58,22 @@ public class OAuth2Properties {
         this.jwk = jwk;
     }
 
+    public AuthorizationCache getAuthorizationCache() {
+        return authorizationCache;
+    }
+
+    public void setAuthorizationCache(AuthorizationCache authorizationCache) {
+        this.authorizationCache = authorizationCache;
+    }
+
+    public AuthorizationReaper getAuthorizationReaper() {
+        return authorizationReaper;
+    }
+
+    public void setAuthorizationReaper(AuthorizationReaper authorizationReaper) {
+        this.authorizationReaper = authorizationReaper;
+    }
+
     public static class Jwk {
 
         private enum Strategy {
@@ -133,6 +154,171 @@ public class OAuth2Properties {
         }
     }
 
+    /**
+     * OAuth2Authorization 根据 Token 查询的缓存配置
+     */
+    public static class AuthorizationCache {
+
+        /**
+         * 是否开启 OAuth2Authorization 缓存，默认开启
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 是否同时使用远程缓存（Redis）作为二级缓存，默认开启。开启后本地缓存的删除会通过失效总线通知到其它节点。
+         * 关闭后只使用本地缓存，其它节点上已经撤销的 Token 在缓存过期前仍然有效，只适用于单节点部署
+         */
+        private Boolean remote = true;
+
+        /**
+         * 本地缓存最大条目数
+         */
+        private Integer localLimit = 10000;
+
+        /**
+         * 缓存最长有效时间。实际有效时间取该值与 Token 剩余有效期中较小的一个
+         */
+        private Duration maxExpire = Duration.ofMinutes(30);
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Boolean getRemote() {
+            return remote;
+        }
+
+        public void setRemote(Boolean remote) {
+            this.remote = remote;
+        }
+
+        public Integer getLocalLimit() {
+            return localLimit;
+        }
+
+        public void setLocalLimit(Integer localLimit) {
+            this.localLimit = localLimit;
+        }
+
+        public Duration getMaxExpire() {
+            return maxExpire;
+        }
+
+        public void setMaxExpire(Duration maxExpire) {
+            this.maxExpire = maxExpire;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("enabled", enabled)
+                    .add("remote", remote)
+                    .add("localLimit", localLimit)
+                    .add("maxExpire", maxExpire)
+                    .toString();
+        }
+    }
+
+    /**
+     * 过期 OAuth2Authorization 后台清理任务配置
+     */
+    public static class AuthorizationReaper {
+
+        /**
+         * 是否开启过期 Token 清理任务，默认开启
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 应用启动后首次执行的延迟时间
+         */
+        private Duration initialDelay = Duration.ofMinutes(1);
+
+        /**
+         * 两次清理之间的间隔时间
+         */
+        private Duration interval = Duration.ofMinutes(10);
+
+        /**
+         * 每一段删除的最大数量
+         */
+        private Integer chunkSize = 500;
+
+        /**
+         * 每次执行最多删除的段数，剩余数据留到下一次执行，避免长时间占用数据库
+         */
+        private Integer maxChunks = 100;
+
+        /**
+         * 多实例部署时，清理任务锁的最长持有时间
+         */
+        private Duration lockExpire = Duration.ofMinutes(5);
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Duration getInitialDelay() {
+            return initialDelay;
+        }
+
+        public void setInitialDelay(Duration initialDelay) {
+            this.initialDelay = initialDelay;
+        }
+
+        public Duration getInterval() {
+            return interval;
+        }
+
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+
+        public Integer getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(Integer chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public Integer getMaxChunks() {
+            return maxChunks;
+        }
+
+        public void setMaxChunks(Integer maxChunks) {
+            this.maxChunks = maxChunks;
+        }
+
+        public Duration getLockExpire() {
+            return lockExpire;
+        }
+
+        public void setLockExpire(Duration lockExpire) {
+            this.lockExpire = lockExpire;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("enabled", enabled)
+                    .add("initialDelay", initialDelay)
+                    .add("interval", interval)
+                    .add("chunkSize", chunkSize)
+                    .add("maxChunks", maxChunks)
+                    .add("lockExpire", lockExpire)
+                    .toString();
+        }
+    }
+
     /**
      * 用于手动的指定 Request Matcher 安全规则。
      * <p>
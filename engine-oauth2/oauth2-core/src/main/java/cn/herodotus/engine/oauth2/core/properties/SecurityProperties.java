@@ -30,6 +30,7 @@ import cn.herodotus.engine.oauth2.core.constants.OAuth2Constants;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.io.Serializable;
+import java.time.Duration;
 import java.util.List;
 
 /**
@@ -48,6 +49,7 @@ public class SecurityProperties implements Serializable {
      */
     private Target validate = Target.REMOTE;
     private Matcher matcher = new Matcher();
+    private Introspection introspection = new Introspection();
 
     public Target getValidate() {
         return validate;
@@ -65,6 +67,14 @@ public class SecurityProperties implements Serializable {
         this.matcher = matcher;
     }
 
+    public Introspection getIntrospection() {
+        return introspection;
+    }
+
+    public void setIntrospection(Introspection introspection) {
+        this.introspection = introspection;
+    }
+
     /**
      * 用于手动的指定 Request Matcher 安全规则。
      * <p>
@@ -108,4 +118,119 @@ public class SecurityProperties implements Serializable {
             this.hasAuthenticated = hasAuthenticated;
         }
     }
+
+    /**
+     * 远程校验 Token（Opaque Token Introspection）相关配置
+     */
+    public static class Introspection {
+        /**
+         * 是否在本地缓存校验结果，默认开启
+         */
+        private Boolean cached = true;
+        /**
+         * 有效 Token 校验结果的最长缓存时间。实际缓存时间不会超过 Token 的过期时间，默认 5 分钟。
+         * 也是 Token 注销后在资源服务器上生效的最长延迟
+         */
+        private Duration maxTtl = Duration.ofMinutes(5);
+        /**
+         * 无效 Token 校验结果的缓存时间，默认 10 秒
+         */
+        private Duration negativeTtl = Duration.ofSeconds(10);
+        /**
+         * 本地最多缓存的校验结果数量
+         */
+        private Long maximumSize = 10000L;
+        /**
+         * 连接池最大连接数
+         */
+        private Integer maxConnections = 200;
+        /**
+         * 连接池每个路由的最大连接数
+         */
+        private Integer maxConnectionsPerRoute = 50;
+        /**
+         * 建立连接超时时间
+         */
+        private Duration connectTimeout = Duration.ofSeconds(2);
+        /**
+         * 读取数据超时时间
+         */
+        private Duration readTimeout = Duration.ofSeconds(5);
+        /**
+         * 从连接池获取连接的超时时间
+         */
+        private Duration connectionRequestTimeout = Duration.ofSeconds(1);
+
+        public Boolean getCached() {
+            return cached;
+        }
+
+        public void setCached(Boolean cached) {
+            this.cached = cached;
+        }
+
+        public Duration getMaxTtl() {
+            return maxTtl;
+        }
+
+        public void setMaxTtl(Duration maxTtl) {
+            this.maxTtl = maxTtl;
+        }
+
+        public Duration getNegativeTtl() {
+            return negativeTtl;
+        }
+
+        public void setNegativeTtl(Duration negativeTtl) {
+            this.negativeTtl = negativeTtl;
+        }
+
+        public Long getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Long maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Integer getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Integer getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public Duration getConnectTimeout() {
+            return connectTimeout;
+        }
+
+        public void setConnectTimeout(Duration connectTimeout) {
+            this.connectTimeout = connectTimeout;
+        }
+
+        public Duration getReadTimeout() {
+            return readTimeout;
+        }
+
+        public void setReadTimeout(Duration readTimeout) {
+            this.readTimeout = readTimeout;
+        }
+
+        public Duration getConnectionRequestTimeout() {
+            return connectionRequestTimeout;
+        }
+
+        public void setConnectionRequestTimeout(Duration connectionRequestTimeout) {
+            this.connectionRequestTimeout = connectionRequestTimeout;
+        }
+    }
 }
@@ -25,14 +25,20 @@
 
 package cn.herodotus.engine.oauth2.authentication.server.configuration;
 
+import cn.herodotus.engine.cache.jetcache.enhance.CacheNamespaceManager;
+import cn.herodotus.engine.cache.jetcache.enhance.JetCacheCreateCacheFactory;
 import cn.herodotus.engine.oauth2.authentication.properties.OAuth2UiProperties;
+import cn.herodotus.engine.oauth2.authentication.server.repository.OAuth2ApplicationRepository;
+import cn.herodotus.engine.oauth2.authentication.server.storage.OAuth2ClientAuthorityCache;
 import cn.herodotus.engine.oauth2.core.properties.OAuth2ComplianceProperties;
 import cn.herodotus.engine.oauth2.core.properties.OAuth2Properties;
 import cn.herodotus.engine.oauth2.data.jpa.configuration.OAuth2DataJpaConfiguration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
@@ -69,4 +75,12 @@ public class OAuth2AuthenticationServerConfiguration {
     public void postConstruct() {
         log.debug("[Herodotus] |- SDK [OAuth2 Authorization Server] Auto Configure.");
     }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OAuth2ClientAuthorityCache oauth2ClientAuthorityCache(OAuth2ApplicationRepository applicationRepository, JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheNamespaceManager cacheNamespaceManager) {
+        OAuth2ClientAuthorityCache oauth2ClientAuthorityCache = new OAuth2ClientAuthorityCache(applicationRepository, jetCacheCreateCacheFactory, cacheNamespaceManager);
+        log.trace("[Herodotus] |- Bean [OAuth2 Client Authority Cache] Auto Configure.");
+        return oauth2ClientAuthorityCache;
+    }
 }
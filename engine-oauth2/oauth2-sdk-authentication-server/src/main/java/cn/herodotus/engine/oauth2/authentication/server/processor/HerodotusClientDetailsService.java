@@ -27,19 +27,14 @@ package cn.herodotus.engine.oauth2.authentication.server.processor;
 
 import cn.herodotus.engine.oauth2.core.definition.domain.HerodotusGrantedAuthority;
 import cn.herodotus.engine.oauth2.core.definition.service.EnhanceClientDetailsService;
-import cn.herodotus.engine.oauth2.authentication.server.entity.OAuth2Application;
-import cn.herodotus.engine.oauth2.authentication.server.entity.OAuth2Authority;
-import cn.herodotus.engine.oauth2.authentication.server.entity.OAuth2Scope;
 import cn.herodotus.engine.oauth2.authentication.server.service.OAuth2ApplicationService;
-import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.ObjectUtils;
 
-import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * <p>Description: 客户端交互处理器 </p>
+ * <p>
+ * 客户端权限由 {@link cn.herodotus.engine.oauth2.authentication.server.storage.OAuth2ClientAuthorityCache} 缓存，返回的集合不可修改。
  *
  * @author : gengwei.zheng
  * @date : 2022/4/1 15:21
@@ -54,23 +49,6 @@ public class HerodotusClientDetailsService implements EnhanceClientDetailsServic
 
     @Override
     public Set<HerodotusGrantedAuthority> findAuthoritiesById(String clientId) {
-
-        OAuth2Application application = applicationService.findByClientId(clientId);
-        if (ObjectUtils.isNotEmpty(application)) {
-            Set<OAuth2Scope> scopes = application.getScopes();
-            Set<HerodotusGrantedAuthority> result = new HashSet<>();
-            if (CollectionUtils.isNotEmpty(scopes)) {
-                for (OAuth2Scope scope : scopes) {
-                    Set<OAuth2Authority> authorities = scope.getAuthorities();
-                    if (CollectionUtils.isNotEmpty(authorities)) {
-                        Set<HerodotusGrantedAuthority> grantedAuthorities = authorities.stream().map(item -> new HerodotusGrantedAuthority(item.getAuthorityCode())).collect(Collectors.toSet());
-                        result.addAll(grantedAuthorities);
-                    }
-                }
-            }
-            return result;
-        }
-
-        return new HashSet<>();
+        return applicationService.findAuthoritiesByClientId(clientId);
     }
 }
@@ -27,6 +27,10 @@ package cn.herodotus.engine.oauth2.authentication.server.repository;
 
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.oauth2.authentication.server.entity.OAuth2Application;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 /**
  * <p>Description: OAuth2ApplicationRepository </p>
@@ -43,4 +47,23 @@ public interface OAuth2ApplicationRepository extends BaseRepository<OAuth2Applic
      * @return {@link OAuth2Application}
      */
     OAuth2Application findByClientId(String clientId);
+
+    /**
+     * 根据 Client ID 查询客户端通过 Scope 拥有的全部权限代码
+     * <p>
+     * 一次关联查询完成，不会逐个加载 Scope 和 Authority
+     *
+     * @param clientId OAuth2Application 中的 clientId
+     * @return 权限代码列表
+     */
+    @Query("select distinct a.authorityCode from OAuth2Application app join app.scopes s join s.authorities a where app.clientId = :clientId")
+    List<String> findAuthorityCodesByClientId(@Param("clientId") String clientId);
+
+    /**
+     * 查询全部客户端拥有的权限代码，用于启动时预热缓存
+     *
+     * @return 每一行为 [clientId, authorityCode]
+     */
+    @Query("select app.clientId, a.authorityCode from OAuth2Application app join app.scopes s join s.authorities a")
+    List<Object[]> findAllClientAuthorityCodes();
 }
@@ -30,6 +30,8 @@ import cn.herodotus.engine.assistant.core.exception.transaction.TransactionalRol
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.data.core.service.BaseLayeredService;
 import cn.herodotus.engine.oauth2.authentication.server.repository.OAuth2ApplicationRepository;
+import cn.herodotus.engine.oauth2.authentication.server.storage.OAuth2ClientAuthorityCache;
+import cn.herodotus.engine.oauth2.core.definition.domain.HerodotusGrantedAuthority;
 import cn.herodotus.engine.oauth2.core.properties.SecurityProperties;
 import cn.herodotus.engine.oauth2.data.jpa.repository.HerodotusRegisteredClientRepository;
 import cn.herodotus.engine.oauth2.data.jpa.utils.OAuth2AuthorizationUtils;
@@ -69,13 +71,15 @@ public class OAuth2ApplicationService extends BaseLayeredService<OAuth2Applicati
     private final HerodotusRegisteredClientRepository herodotusRegisteredClientRepository;
     private final OAuth2ApplicationRepository applicationRepository;
     private final SecurityProperties securityProperties;
+    private final OAuth2ClientAuthorityCache clientAuthorityCache;
 
     @Autowired
-    public OAuth2ApplicationService(RegisteredClientRepository registeredClientRepository, HerodotusRegisteredClientRepository herodotusRegisteredClientRepository, OAuth2ApplicationRepository applicationRepository, SecurityProperties securityProperties) {
+    public OAuth2ApplicationService(RegisteredClientRepository registeredClientRepository, HerodotusRegisteredClientRepository herodotusRegisteredClientRepository, OAuth2ApplicationRepository applicationRepository, SecurityProperties securityProperties, OAuth2ClientAuthorityCache clientAuthorityCache) {
         this.registeredClientRepository = registeredClientRepository;
         this.herodotusRegisteredClientRepository = herodotusRegisteredClientRepository;
         this.applicationRepository = applicationRepository;
         this.securityProperties = securityProperties;
+        this.clientAuthorityCache = clientAuthorityCache;
     }
 
     @Override
@@ -89,6 +93,7 @@ public class OAuth2ApplicationService extends BaseLayeredService<OAuth2Applicati
         OAuth2Application application = super.saveOrUpdate(entity);
         if (ObjectUtils.isNotEmpty(application)) {
             registeredClientRepository.save(toRegisteredClient(application));
+            clientAuthorityCache.invalidate();
             log.debug("[Herodotus] |- OAuth2ApplicationService saveOrUpdate.");
             return application;
         } else {
@@ -102,6 +107,7 @@ public class OAuth2ApplicationService extends BaseLayeredService<OAuth2Applicati
     public void deleteById(String id) {
         super.deleteById(id);
         herodotusRegisteredClientRepository.deleteById(id);
+        clientAuthorityCache.invalidate();
         log.debug("[Herodotus] |- OAuth2ApplicationService deleteById.");
     }
 
@@ -128,6 +134,16 @@ public class OAuth2ApplicationService extends BaseLayeredService<OAuth2Applicati
         return application;
     }
 
+    /**
+     * 查询客户端拥有的全部权限，优先从缓存中获取
+     *
+     * @param clientId 客户端 ID
+     * @return 不可变的权限集合
+     */
+    public Set<HerodotusGrantedAuthority> findAuthoritiesByClientId(String clientId) {
+        return clientAuthorityCache.get(clientId);
+    }
+
     private RegisteredClient toRegisteredClient(OAuth2Application application) {
 
         Set<String> clientAuthenticationMethods = StringUtils.commaDelimitedListToSet(application.getClientAuthenticationMethods());
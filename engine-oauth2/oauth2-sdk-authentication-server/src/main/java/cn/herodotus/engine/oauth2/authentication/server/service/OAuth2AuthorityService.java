@@ -28,6 +28,7 @@ package cn.herodotus.engine.oauth2.authentication.server.service;
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.data.core.service.BaseLayeredService;
 import cn.herodotus.engine.oauth2.authentication.server.repository.OAuth2AuthorityRepository;
+import cn.herodotus.engine.oauth2.authentication.server.storage.OAuth2ClientAuthorityCache;
 import cn.herodotus.engine.oauth2.authentication.server.entity.OAuth2Authority;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -42,14 +43,29 @@ import org.springframework.stereotype.Service;
 public class OAuth2AuthorityService extends BaseLayeredService<OAuth2Authority, String> {
 
     private final OAuth2AuthorityRepository authorityRepository;
+    private final OAuth2ClientAuthorityCache clientAuthorityCache;
 
     @Autowired
-    public OAuth2AuthorityService(OAuth2AuthorityRepository authorityRepository) {
+    public OAuth2AuthorityService(OAuth2AuthorityRepository authorityRepository, OAuth2ClientAuthorityCache clientAuthorityCache) {
         this.authorityRepository = authorityRepository;
+        this.clientAuthorityCache = clientAuthorityCache;
     }
 
     @Override
     public BaseRepository<OAuth2Authority, String> getRepository() {
         return authorityRepository;
     }
+
+    @Override
+    public OAuth2Authority saveOrUpdate(OAuth2Authority entity) {
+        OAuth2Authority authority = super.saveOrUpdate(entity);
+        clientAuthorityCache.invalidate();
+        return authority;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        super.deleteById(id);
+        clientAuthorityCache.invalidate();
+    }
 }
@@ -28,6 +28,7 @@ package cn.herodotus.engine.oauth2.authentication.server.service;
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.data.core.service.BaseLayeredService;
 import cn.herodotus.engine.oauth2.authentication.server.repository.OAuth2ScopeRepository;
+import cn.herodotus.engine.oauth2.authentication.server.storage.OAuth2ClientAuthorityCache;
 import cn.herodotus.engine.oauth2.authentication.server.entity.OAuth2Authority;
 import cn.herodotus.engine.oauth2.authentication.server.entity.OAuth2Scope;
 import org.slf4j.Logger;
@@ -49,10 +50,12 @@ public class OAuth2ScopeService extends BaseLayeredService<OAuth2Scope, String>
     private static final Logger log = LoggerFactory.getLogger(OAuth2ScopeService.class);
 
     private final OAuth2ScopeRepository oauthScopesRepository;
+    private final OAuth2ClientAuthorityCache clientAuthorityCache;
 
     @Autowired
-    public OAuth2ScopeService(OAuth2ScopeRepository oauthScopesRepository) {
+    public OAuth2ScopeService(OAuth2ScopeRepository oauthScopesRepository, OAuth2ClientAuthorityCache clientAuthorityCache) {
         this.oauthScopesRepository = oauthScopesRepository;
+        this.clientAuthorityCache = clientAuthorityCache;
     }
 
     @Override
@@ -60,6 +63,19 @@ public class OAuth2ScopeService extends BaseLayeredService<OAuth2Scope, String>
         return oauthScopesRepository;
     }
 
+    @Override
+    public OAuth2Scope saveOrUpdate(OAuth2Scope entity) {
+        OAuth2Scope scope = super.saveOrUpdate(entity);
+        clientAuthorityCache.invalidate();
+        return scope;
+    }
+
+    @Override
+    public void deleteById(String id) {
+        super.deleteById(id);
+        clientAuthorityCache.invalidate();
+    }
+
     public OAuth2Scope authorize(String scopeId, Set<OAuth2Authority> authorities) {
 
         OAuth2Scope oldScope = findById(scopeId);
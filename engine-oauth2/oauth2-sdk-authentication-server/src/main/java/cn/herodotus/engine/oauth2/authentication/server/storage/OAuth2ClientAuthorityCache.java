@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.oauth2.authentication.server.storage;
+
+import cn.herodotus.engine.cache.jetcache.enhance.CacheNamespace;
+import cn.herodotus.engine.cache.jetcache.enhance.CacheNamespaceManager;
+import cn.herodotus.engine.cache.jetcache.enhance.JetCacheCreateCacheFactory;
+import cn.herodotus.engine.cache.jetcache.enhance.NamespaceKey;
+import cn.herodotus.engine.oauth2.authentication.server.repository.OAuth2ApplicationRepository;
+import cn.herodotus.engine.oauth2.core.constants.OAuth2Constants;
+import cn.herodotus.engine.oauth2.core.definition.domain.HerodotusGrantedAuthority;
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.anno.CacheType;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Description: 客户端权限缓存 </p>
+ * <p>
+ * client_credentials 模式每次签发 Token 都需要查询客户端拥有的权限。这里将每个客户端的权限缓存为不可变集合：
+ * 1. 缓存未命中时通过一次关联查询获取权限代码，不再逐个加载 Scope 和 Authority。
+ * 2. 权限对象全局复用，相同权限代码只保留一个实例。
+ * 3. Application、Scope、Authority 发生变更时，在事务提交后推进缓存命名空间代数，全部客户端的权限缓存同时失效。
+ * 4. 应用启动完成后一次性加载全部客户端的权限。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/19 9:35
+ */
+public class OAuth2ClientAuthorityCache implements ApplicationListener<ApplicationReadyEvent>, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(OAuth2ClientAuthorityCache.class);
+
+    private static final String METRIC_PREFIX = "herodotus.oauth2.client.authority.cache";
+
+    private static final Interner<HerodotusGrantedAuthority> INTERNER = Interners.newWeakInterner();
+
+    private final OAuth2ApplicationRepository applicationRepository;
+    private final Cache<NamespaceKey, Set<HerodotusGrantedAuthority>> cache;
+    private final CacheNamespace cacheNamespace;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public OAuth2ClientAuthorityCache(OAuth2ApplicationRepository applicationRepository, JetCacheCreateCacheFactory jetCacheCreateCacheFactory, CacheNamespaceManager cacheNamespaceManager) {
+        this.applicationRepository = applicationRepository;
+        this.cache = jetCacheCreateCacheFactory.create(OAuth2Constants.CACHE_NAME_CLIENT_AUTHORITY, CacheType.BOTH, Duration.ofHours(2L), false);
+        this.cacheNamespace = cacheNamespaceManager.getNamespace(OAuth2Constants.CACHE_NAME_CLIENT_AUTHORITY);
+    }
+
+    /**
+     * 获取客户端拥有的全部权限
+     *
+     * @param clientId 客户端 ID
+     * @return 不可变的权限集合，客户端不存在或者没有权限时返回空集合
+     */
+    public Set<HerodotusGrantedAuthority> get(String clientId) {
+        // 加载之前确定 Key，加载期间发生的失效会推进代数，加载结果写入旧代数，不会覆盖新数据
+        NamespaceKey key = cacheNamespace.wrap(clientId);
+        Set<HerodotusGrantedAuthority> cached = cache.get(key);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        Set<HerodotusGrantedAuthority> authorities = toAuthorities(applicationRepository.findAuthorityCodesByClientId(clientId));
+        cache.put(key, authorities);
+        log.trace("[Herodotus] |- Load authorities of client [{}] into cache.", clientId);
+        return authorities;
+    }
+
+    /**
+     * 使全部客户端的权限缓存失效。存在事务时在事务结束后执行，避免其它线程在事务提交前重新加载到旧数据
+     */
+    public void invalidate() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cacheNamespace.clear();
+                }
+            });
+        } else {
+            cacheNamespace.clear();
+        }
+    }
+
+    /**
+     * 一次查询加载全部客户端的权限
+     */
+    public void warmUp() {
+        List<Object[]> rows = applicationRepository.findAllClientAuthorityCodes();
+        if (CollectionUtils.isEmpty(rows)) {
+            return;
+        }
+
+        Map<String, List<String>> grouped = new HashMap<>();
+        for (Object[] row : rows) {
+            grouped.computeIfAbsent(String.valueOf(row[0]), key -> new ArrayList<>()).add(String.valueOf(row[1]));
+        }
+
+        Map<NamespaceKey, Set<HerodotusGrantedAuthority>> values = new HashMap<>(grouped.size());
+        grouped.forEach((clientId, codes) -> values.put(cacheNamespace.wrap(clientId), toAuthorities(codes)));
+        cache.putAll(values);
+        log.debug("[Herodotus] |- Warm up authorities of [{}] clients.", values.size());
+    }
+
+    private Set<HerodotusGrantedAuthority> toAuthorities(List<String> codes) {
+        if (CollectionUtils.isEmpty(codes)) {
+            return Collections.emptySet();
+        }
+
+        Set<HerodotusGrantedAuthority> authorities = new LinkedHashSet<>(codes.size());
+        for (String code : codes) {
+            authorities.add(INTERNER.intern(new HerodotusGrantedAuthority(code)));
+        }
+        return Collections.unmodifiableSet(authorities);
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        try {
+            warmUp();
+        } catch (Exception e) {
+            log.warn("[Herodotus] |- Warm up client authorities failed, will load on demand.", e);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", hits, LongAdder::sum)
+                .description("Count of client authority lookups served from cache")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", misses, LongAdder::sum)
+                .description("Count of client authority lookups loaded from database")
+                .register(registry);
+    }
+}
@@ -26,10 +26,14 @@
 package cn.herodotus.engine.oauth2.authorization.configuration;
 
 import cn.herodotus.engine.assistant.core.definition.BearerTokenResolver;
+import cn.herodotus.engine.oauth2.authorization.condition.RemoteValidateCondition;
 import cn.herodotus.engine.oauth2.authorization.customizer.HerodotusTokenStrategyConfigurer;
+import cn.herodotus.engine.oauth2.authorization.introspector.CachingOpaqueTokenIntrospector;
+import cn.herodotus.engine.oauth2.authorization.introspector.HerodotusOpaqueTokenIntrospector;
 import cn.herodotus.engine.oauth2.authorization.listener.RemoteSecurityMetadataSyncListener;
 import cn.herodotus.engine.oauth2.authorization.processor.SecurityAuthorizationManager;
 import cn.herodotus.engine.oauth2.core.configurer.SecurityMatcherConfigurer;
+import cn.herodotus.engine.oauth2.core.constants.OAuth2Constants;
 import cn.herodotus.engine.oauth2.authorization.processor.SecurityMetadataSourceAnalyzer;
 import cn.herodotus.engine.oauth2.authorization.processor.SecurityMetadataSourceParser;
 import cn.herodotus.engine.oauth2.authorization.storage.SecurityMetadataSourceStorage;
@@ -37,13 +41,16 @@ import cn.herodotus.engine.oauth2.core.properties.SecurityProperties;
 import cn.herodotus.engine.web.core.properties.EndpointProperties;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.bus.ServiceMatcher;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.method.configuration.GlobalMethodSecurityConfiguration;
 import org.springframework.security.oauth2.jwt.JwtDecoder;
@@ -118,8 +125,19 @@ public class OAuth2AuthorizationConfiguration extends GlobalMethodSecurityConfig
 
     @Bean
     @ConditionalOnMissingBean
-    public HerodotusTokenStrategyConfigurer herodotusTokenStrategyConfigurer(JwtDecoder jwtDecoder, SecurityProperties securityProperties, EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties) {
-        HerodotusTokenStrategyConfigurer herodotusTokenStrategyConfigurer = new HerodotusTokenStrategyConfigurer(jwtDecoder, securityProperties, endpointProperties, resourceServerProperties);
+    @Conditional(RemoteValidateCondition.class)
+    @ConditionalOnProperty(name = OAuth2Constants.ITEM_SECURITY_INTROSPECTION_CACHED, havingValue = "true", matchIfMissing = true)
+    public CachingOpaqueTokenIntrospector cachingOpaqueTokenIntrospector(SecurityProperties securityProperties, EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties) {
+        HerodotusOpaqueTokenIntrospector delegate = new HerodotusOpaqueTokenIntrospector(endpointProperties, resourceServerProperties, securityProperties.getIntrospection());
+        CachingOpaqueTokenIntrospector cachingOpaqueTokenIntrospector = new CachingOpaqueTokenIntrospector(delegate, securityProperties.getIntrospection());
+        log.trace("[Herodotus] |- Bean [Caching Opaque Token Introspector] Auto Configure.");
+        return cachingOpaqueTokenIntrospector;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HerodotusTokenStrategyConfigurer herodotusTokenStrategyConfigurer(JwtDecoder jwtDecoder, SecurityProperties securityProperties, EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties, ObjectProvider<CachingOpaqueTokenIntrospector> cachingOpaqueTokenIntrospector) {
+        HerodotusTokenStrategyConfigurer herodotusTokenStrategyConfigurer = new HerodotusTokenStrategyConfigurer(jwtDecoder, securityProperties, endpointProperties, resourceServerProperties, cachingOpaqueTokenIntrospector.getIfAvailable());
         log.trace("[Herodotus] |- Bean [Token Strategy Configurer] Auto Configure.");
         return herodotusTokenStrategyConfigurer;
     }
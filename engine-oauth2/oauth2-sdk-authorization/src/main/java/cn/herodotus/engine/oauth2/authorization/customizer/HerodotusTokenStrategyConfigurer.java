@@ -33,6 +33,8 @@ import cn.herodotus.engine.oauth2.core.response.HerodotusAuthenticationEntryPoin
 import cn.herodotus.engine.oauth2.authorization.converter.HerodotusJwtAuthenticationConverter;
 import cn.herodotus.engine.oauth2.authorization.introspector.HerodotusOpaqueTokenIntrospector;
 import cn.herodotus.engine.web.core.properties.EndpointProperties;
+import org.apache.commons.lang3.ObjectUtils;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configurers.oauth2.server.resource.OAuth2ResourceServerConfigurer;
@@ -47,20 +49,43 @@ import org.springframework.util.Assert;
  * @author : gengwei.zheng
  * @date : 2022/10/14 17:29
  */
-public class HerodotusTokenStrategyConfigurer {
+public class HerodotusTokenStrategyConfigurer implements DisposableBean {
 
     private JwtDecoder jwtDecoder;
     private SecurityProperties securityProperties;
     private EndpointProperties endpointProperties;
     private OAuth2ResourceServerProperties resourceServerProperties;
     private OpaqueTokenIntrospector opaqueTokenIntrospector;
+    private boolean ownedOpaqueTokenIntrospector;
 
     public HerodotusTokenStrategyConfigurer(JwtDecoder jwtDecoder, SecurityProperties securityProperties, EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties) {
+        this(jwtDecoder, securityProperties, endpointProperties, resourceServerProperties, null);
+    }
+
+    /**
+     * @param opaqueTokenIntrospector 远程校验 Token 使用的 {@link OpaqueTokenIntrospector}，为空并且使用远程校验时创建不带缓存的 {@link HerodotusOpaqueTokenIntrospector}
+     */
+    public HerodotusTokenStrategyConfigurer(JwtDecoder jwtDecoder, SecurityProperties securityProperties, EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties, OpaqueTokenIntrospector opaqueTokenIntrospector) {
         this.jwtDecoder = jwtDecoder;
         this.securityProperties = securityProperties;
         this.endpointProperties = endpointProperties;
         this.resourceServerProperties = resourceServerProperties;
-        this.opaqueTokenIntrospector = new HerodotusOpaqueTokenIntrospector(this.endpointProperties, this.resourceServerProperties);
+        if (ObjectUtils.isNotEmpty(opaqueTokenIntrospector)) {
+            this.opaqueTokenIntrospector = opaqueTokenIntrospector;
+        } else if (isRemoteValidate()) {
+            this.opaqueTokenIntrospector = new HerodotusOpaqueTokenIntrospector(this.endpointProperties, this.resourceServerProperties, this.securityProperties.getIntrospection());
+            this.ownedOpaqueTokenIntrospector = true;
+        }
+    }
+
+    /**
+     * 关闭内部创建的 {@link HerodotusOpaqueTokenIntrospector}，外部传入的由其自身负责
+     */
+    @Override
+    public void destroy() throws Exception {
+        if (this.ownedOpaqueTokenIntrospector && this.opaqueTokenIntrospector instanceof DisposableBean) {
+            ((DisposableBean) this.opaqueTokenIntrospector).destroy();
+        }
     }
 
     private boolean isRemoteValidate() {
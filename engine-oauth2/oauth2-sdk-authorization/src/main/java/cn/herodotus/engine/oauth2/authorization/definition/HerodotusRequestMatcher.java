@@ -236,6 +236,14 @@ public final class HerodotusRequestMatcher implements RequestMatcher, Serializab
         return hasWildcard;
     }
 
+    public boolean isCaseSensitive() {
+        return caseSensitive;
+    }
+
+    boolean hasUrlPathHelper() {
+        return urlPathHelper != null;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.oauth2.authorization.definition;
+
+import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.access.ConfigAttribute;
+
+import javax.servlet.http.HttpServletRequest;
+import java.util.*;
+
+/**
+ * <p>Description: 基于路径分段的权限匹配索引 </p>
+ * <p>
+ * 将 compatible 中需要模式匹配的 {@link HerodotusRequestMatcher} 按照 HttpMethod 分组，并按照 "/" 拆分为分段前缀树。
+ * 每个节点包含四类边：字面量、"{var}"（以及其它单段通配，如 "user*"、"?"）、"*" 和 "**"。
+ * <p>
+ * 查询时沿请求路径逐段下行，代价与路径深度相关，与权限数量无关。前缀树只负责筛选候选规则，
+ * 候选规则按原有 LinkedHashMap 中的顺序，再用 {@link HerodotusRequestMatcher#matches(HttpServletRequest)} 进行最终确认，
+ * 因此匹配语义和"第一个匹配生效"的顺序与原有的线性遍历完全一致。
+ * <p>
+ * 该对象构建完成后不可变，由 Storage 整体替换。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/12 10:21
+ */
+public final class RequestMatcherTrie {
+
+    private static final String SEPARATOR = "/";
+    private static final String MULTIPLE_WILDCARD = "**";
+    private static final int[] EMPTY = new int[0];
+
+    private static final RequestMatcherTrie EMPTY_TRIE = new RequestMatcherTrie(new LinkedHashMap<>());
+
+    /**
+     * 按原有顺序保存的规则，数组下标即优先级
+     */
+    private final HerodotusRequestMatcher[] matchers;
+    private final Collection<ConfigAttribute>[] attributes;
+
+    /**
+     * 指定了 HttpMethod 的规则
+     */
+    private final Map<String, Node> methodRoots;
+    /**
+     * 未指定 HttpMethod 的规则，匹配任意 HttpMethod
+     */
+    private final Node anyMethodRoot;
+    /**
+     * 无法放入前缀树的规则（如自定义了 UrlPathHelper），每次查询都作为候选
+     */
+    private final int[] unindexed;
+    /**
+     * 是否存在大小写不敏感的规则。存在时字面量边统一以小写存储
+     */
+    private final boolean lowerCaseLiterals;
+
+    @SuppressWarnings("unchecked")
+    private RequestMatcherTrie(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible) {
+        int size = compatible.size();
+        this.matchers = new HerodotusRequestMatcher[size];
+        this.attributes = new Collection[size];
+
+        boolean hasCaseInsensitive = false;
+        int index = 0;
+        for (Map.Entry<HerodotusRequestMatcher, Collection<ConfigAttribute>> entry : compatible.entrySet()) {
+            this.matchers[index] = entry.getKey();
+            this.attributes[index] = entry.getValue();
+            if (!entry.getKey().isCaseSensitive()) {
+                hasCaseInsensitive = true;
+            }
+            index++;
+        }
+        this.lowerCaseLiterals = hasCaseInsensitive;
+
+        Map<String, Node> roots = new HashMap<>();
+        Node anyRoot = new Node();
+        List<Integer> others = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            HerodotusRequestMatcher matcher = this.matchers[i];
+            if (matcher.hasUrlPathHelper()) {
+                others.add(i);
+                continue;
+            }
+
+            Node root;
+            if (StringUtils.isBlank(matcher.getHttpMethod())) {
+                root = anyRoot;
+            } else {
+                root = roots.computeIfAbsent(matcher.getHttpMethod(), key -> new Node());
+            }
+            insert(root, matcher.getPattern(), i);
+        }
+
+        this.methodRoots = roots;
+        this.anyMethodRoot = anyRoot;
+        this.unindexed = others.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * 根据 compatible 数据构建索引
+     *
+     * @param compatible 需要模式匹配的权限数据，顺序即匹配优先级
+     * @return {@link RequestMatcherTrie}
+     */
+    public static RequestMatcherTrie build(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible) {
+        if (MapUtils.isEmpty(compatible)) {
+            return EMPTY_TRIE;
+        }
+        return new RequestMatcherTrie(compatible);
+    }
+
+    public static RequestMatcherTrie empty() {
+        return EMPTY_TRIE;
+    }
+
+    public int size() {
+        return this.matchers.length;
+    }
+
+    public boolean isEmpty() {
+        return this.matchers.length == 0;
+    }
+
+    private void insert(Node root, String pattern, int order) {
+        Node current = root;
+        for (String segment : tokenize(pattern)) {
+            if (MULTIPLE_WILDCARD.equals(segment)) {
+                current = current.multipleWildcard();
+            } else if (isWildcardSegment(segment)) {
+                current = current.singleWildcard();
+            } else {
+                current = current.literal(this.lowerCaseLiterals ? segment.toLowerCase() : segment);
+            }
+        }
+        current.addTerminal(order);
+    }
+
+    /**
+     * 查找与请求匹配的第一个规则所对应的权限
+     *
+     * @param request {@link HttpServletRequest}
+     * @return 匹配的 Entry，没有匹配返回 null
+     */
+    public Map.Entry<HerodotusRequestMatcher, Collection<ConfigAttribute>> match(HttpServletRequest request) {
+        if (isEmpty()) {
+            return null;
+        }
+
+        int[] candidates = findCandidates(getRequestPath(request), request.getMethod());
+        for (int candidate : candidates) {
+            HerodotusRequestMatcher matcher = this.matchers[candidate];
+            if (matcher.matches(request)) {
+                return new AbstractMap.SimpleImmutableEntry<>(matcher, this.attributes[candidate]);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 利用前缀树筛选候选规则。返回结果为候选规则的优先级，已经排序和去重。
+     * <p>
+     * 候选集合是真实匹配结果的超集，例如对结尾 "/" 的差异和大小写的差异均会放宽处理，最终结果以 {@link HerodotusRequestMatcher} 校验为准。
+     *
+     * @param path   请求路径
+     * @param method 请求 HttpMethod
+     * @return 候选规则的优先级
+     */
+    int[] findCandidates(String path, String method) {
+        String[] segments = tokenize(path);
+        if (this.lowerCaseLiterals) {
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = segments[i].toLowerCase();
+            }
+        }
+
+        BitSet collector = new BitSet(this.matchers.length);
+        for (int order : this.unindexed) {
+            collector.set(order);
+        }
+
+        collect(this.anyMethodRoot, segments, 0, collector);
+        if (StringUtils.isBlank(method)) {
+            // 与 HerodotusRequestMatcher 保持一致，请求中不包含 method 时，任意 method 的规则都有可能匹配
+            for (Node root : this.methodRoots.values()) {
+                collect(root, segments, 0, collector);
+            }
+        } else {
+            Node root = this.methodRoots.get(method.toUpperCase());
+            if (root != null) {
+                collect(root, segments, 0, collector);
+            }
+        }
+
+        if (collector.isEmpty()) {
+            return EMPTY;
+        }
+        return collector.stream().toArray();
+    }
+
+    private void collect(Node node, String[] segments, int position, BitSet collector) {
+        if (node.multipleWildcard != null) {
+            // "**" 可以匹配零个或者多个分段
+            for (int i = position; i <= segments.length; i++) {
+                collect(node.multipleWildcard, segments, i, collector);
+            }
+        }
+
+        if (position == segments.length) {
+            node.collectTerminals(collector);
+            // AntPathMatcher 中 "/a/*" 可以匹配 "/a/"，这里放宽处理，由最终校验确认
+            if (node.singleWildcard != null) {
+                node.singleWildcard.collectTerminals(collector);
+            }
+            return;
+        }
+
+        String segment = segments[position];
+        if (node.literals != null) {
+            Node child = node.literals.get(segment);
+            if (child != null) {
+                collect(child, segments, position + 1, collector);
+            }
+        }
+
+        if (node.singleWildcard != null) {
+            collect(node.singleWildcard, segments, position + 1, collector);
+        }
+    }
+
+    private static boolean isWildcardSegment(String segment) {
+        return StringUtils.containsAny(segment, '*', '?', '{');
+    }
+
+    private static String[] tokenize(String path) {
+        return org.springframework.util.StringUtils.tokenizeToStringArray(path, SEPARATOR, false, true);
+    }
+
+    /**
+     * 与 {@link HerodotusRequestMatcher} 未设置 UrlPathHelper 时的取值逻辑保持一致
+     *
+     * @param request {@link HttpServletRequest}
+     * @return 请求路径
+     */
+    private static String getRequestPath(HttpServletRequest request) {
+        String url = request.getServletPath();
+        String pathInfo = request.getPathInfo();
+        if (pathInfo != null) {
+            url = StringUtils.isNotBlank(url) ? url + pathInfo : pathInfo;
+        }
+        return url;
+    }
+
+    private static final class Node {
+
+        private Map<String, Node> literals;
+        private Node singleWildcard;
+        private Node multipleWildcard;
+        private int[] terminals = EMPTY;
+
+        private Node literal(String segment) {
+            if (this.literals == null) {
+                this.literals = new HashMap<>();
+            }
+            return this.literals.computeIfAbsent(segment, key -> new Node());
+        }
+
+        private Node singleWildcard() {
+            if (this.singleWildcard == null) {
+                this.singleWildcard = new Node();
+            }
+            return this.singleWildcard;
+        }
+
+        private Node multipleWildcard() {
+            if (this.multipleWildcard == null) {
+                this.multipleWildcard = new Node();
+            }
+            return this.multipleWildcard;
+        }
+
+        private void addTerminal(int order) {
+            int[] values = Arrays.copyOf(this.terminals, this.terminals.length + 1);
+            values[this.terminals.length] = order;
+            this.terminals = values;
+        }
+
+        private void collectTerminals(BitSet collector) {
+            for (int order : this.terminals) {
+                collector.set(order);
+            }
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.oauth2.authorization.introspector;
+
+import cn.herodotus.engine.oauth2.core.properties.SecurityProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
+import org.springframework.security.oauth2.core.OAuth2TokenIntrospectionClaimNames;
+import org.springframework.security.oauth2.server.resource.introspection.BadOpaqueTokenException;
+import org.springframework.security.oauth2.server.resource.introspection.OAuth2IntrospectionException;
+import org.springframework.security.oauth2.server.resource.introspection.OpaqueTokenIntrospector;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Description: 带本地缓存的 OpaqueTokenIntrospector </p>
+ * <p>
+ * 包装实际访问授权服务器的 {@link OpaqueTokenIntrospector}，减少远程校验的次数：
+ * 1. 有效 Token 的校验结果缓存至 Token 过期，但不超过配置的最长缓存时间。
+ * 2. 无效 Token 的校验结果只缓存很短的时间，避免同一个无效 Token 反复请求授权服务器。
+ * 3. 同一个 Token 同时发生的多个未命中请求，只有一个请求访问授权服务器，其它请求等待该结果。
+ * <p>
+ * 访问授权服务器失败（网络异常等）的结果不会缓存。
+ * <p>
+ * Token 在授权服务器上注销后，资源服务器不会收到通知，已经缓存的校验结果在过期之前依然有效，
+ * 即注销最多延迟 maxTtl 生效。需要注销立即生效时，调小 maxTtl 或者关闭校验结果缓存。
+ * <p>
+ * 被包装的 {@link OpaqueTokenIntrospector} 不是 Spring Bean，销毁时由本类负责销毁。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/19 15:12
+ */
+public class CachingOpaqueTokenIntrospector implements OpaqueTokenIntrospector, MeterBinder, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(CachingOpaqueTokenIntrospector.class);
+
+    private static final String METRIC_PREFIX = "herodotus.oauth2.introspection";
+
+    private final OpaqueTokenIntrospector delegate;
+    private final Duration maxTtl;
+    private final Duration negativeTtl;
+    private final Cache<String, IntrospectionResult> cache;
+    private final ConcurrentMap<String, CompletableFuture<IntrospectionResult>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder remoteCount = new LongAdder();
+    private final LongAdder remoteNanos = new LongAdder();
+
+    public CachingOpaqueTokenIntrospector(OpaqueTokenIntrospector delegate, SecurityProperties.Introspection introspection) {
+        Assert.notNull(delegate, "delegate cannot be null");
+        Assert.notNull(introspection, "introspection cannot be null");
+        this.delegate = delegate;
+        this.maxTtl = introspection.getMaxTtl();
+        this.negativeTtl = introspection.getNegativeTtl();
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(introspection.getMaximumSize())
+                .expireAfter(new ResultExpiry())
+                .build();
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        cache.invalidateAll();
+        if (delegate instanceof DisposableBean) {
+            ((DisposableBean) delegate).destroy();
+        }
+    }
+
+    @Override
+    public OAuth2AuthenticatedPrincipal introspect(String token) {
+        IntrospectionResult cached = cache.getIfPresent(token);
+        if (cached != null) {
+            hits.increment();
+            return cached.resolve();
+        }
+
+        misses.increment();
+        CompletableFuture<IntrospectionResult> future = new CompletableFuture<>();
+        CompletableFuture<IntrospectionResult> existing = inFlight.putIfAbsent(token, future);
+        if (existing != null) {
+            coalesced.increment();
+            return await(existing).resolve();
+        }
+
+        try {
+            IntrospectionResult result = load(token);
+            future.complete(result);
+            return result.resolve();
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(token, future);
+        }
+    }
+
+    private IntrospectionResult load(String token) {
+        long start = System.nanoTime();
+        try {
+            OAuth2AuthenticatedPrincipal principal = delegate.introspect(token);
+            IntrospectionResult result = IntrospectionResult.active(principal, computeTtl(principal));
+            if (result.getTtlNanos() > 0) {
+                cache.put(token, result);
+            }
+            return result;
+        } catch (BadOpaqueTokenException e) {
+            IntrospectionResult result = IntrospectionResult.inactive(e.getMessage(), negativeTtl.toNanos());
+            if (result.getTtlNanos() > 0) {
+                cache.put(token, result);
+            }
+            return result;
+        } catch (RuntimeException e) {
+            failures.increment();
+            log.debug("[Herodotus] |- Introspect token failed, result will not be cached.", e);
+            throw e;
+        } finally {
+            remoteCount.increment();
+            remoteNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private long computeTtl(OAuth2AuthenticatedPrincipal principal) {
+        long ttl = maxTtl.toNanos();
+        Object exp = principal.getAttribute(OAuth2TokenIntrospectionClaimNames.EXP);
+        if (exp instanceof Instant) {
+            long remaining = Duration.between(Instant.now(), (Instant) exp).toNanos();
+            ttl = Math.min(ttl, remaining);
+        }
+        return ttl;
+    }
+
+    private IntrospectionResult await(CompletableFuture<IntrospectionResult> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new OAuth2IntrospectionException(e.getMessage(), e);
+        }
+    }
+
+    private double hitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0D : (double) hit / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".cache.hits", hits, LongAdder::sum)
+                .description("Count of token introspections served from local cache")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".cache.misses", misses, LongAdder::sum)
+                .description("Count of token introspections missing local cache")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".coalesced", coalesced, LongAdder::sum)
+                .description("Count of token introspections waiting for an in-flight request of the same token")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".failures", failures, LongAdder::sum)
+                .description("Count of failed requests to the introspection endpoint")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".cache.hit.ratio", this, CachingOpaqueTokenIntrospector::hitRatio)
+                .description("Hit ratio of the local token introspection cache")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".cache.size", cache, Cache::estimatedSize)
+                .description("Count of token introspection results in local cache")
+                .register(registry);
+        FunctionTimer.builder(METRIC_PREFIX + ".remote", this, introspector -> introspector.remoteCount.sum(), introspector -> introspector.remoteNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Requests to the introspection endpoint")
+                .register(registry);
+    }
+
+    private static final class IntrospectionResult {
+
+        private final OAuth2AuthenticatedPrincipal principal;
+        private final String message;
+        private final long ttlNanos;
+
+        private IntrospectionResult(OAuth2AuthenticatedPrincipal principal, String message, long ttlNanos) {
+            this.principal = principal;
+            this.message = message;
+            this.ttlNanos = ttlNanos;
+        }
+
+        private static IntrospectionResult active(OAuth2AuthenticatedPrincipal principal, long ttlNanos) {
+            return new IntrospectionResult(principal, null, ttlNanos);
+        }
+
+        private static IntrospectionResult inactive(String message, long ttlNanos) {
+            return new IntrospectionResult(null, message, ttlNanos);
+        }
+
+        private long getTtlNanos() {
+            return ttlNanos;
+        }
+
+        private OAuth2AuthenticatedPrincipal resolve() {
+            if (principal == null) {
+                throw new BadOpaqueTokenException(message);
+            }
+            return principal;
+        }
+    }
+
+    private static final class ResultExpiry implements Expiry<String, IntrospectionResult> {
+
+        @Override
+        public long expireAfterCreate(String key, IntrospectionResult value, long currentTime) {
+            return value.getTtlNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, IntrospectionResult value, long currentTime, long currentDuration) {
+            return value.getTtlNanos();
+        }
+
+        @Override
+        public long expireAfterRead(String key, IntrospectionResult value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
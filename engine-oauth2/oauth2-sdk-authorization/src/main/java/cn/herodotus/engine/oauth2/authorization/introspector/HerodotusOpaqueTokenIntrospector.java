@@ -27,14 +27,21 @@ package cn.herodotus.engine.oauth2.authorization.introspector;
 
 import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
 import cn.herodotus.engine.oauth2.core.definition.domain.HerodotusGrantedAuthority;
+import cn.herodotus.engine.oauth2.core.properties.SecurityProperties;
 import cn.herodotus.engine.web.core.properties.EndpointProperties;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.boot.autoconfigure.security.oauth2.resource.OAuth2ResourceServerProperties;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.http.*;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.http.client.support.BasicAuthenticationInterceptor;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.oauth2.core.OAuth2AuthenticatedPrincipal;
@@ -49,19 +56,23 @@ import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestOperations;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 /**
  * <p>Description: 自定义 OpaqueTokenIntrospector </p>
  * <p>
  * 解决默认的 OpaqueTokenIntrospector 使用 Scope 作为权限的问题。
+ * <p>
+ * 默认使用带有连接池的 HttpClient 访问授权服务器，避免每次校验都重新建立连接。销毁时关闭 HttpClient 及其空闲连接清理线程。
  *
  * @author : gengwei.zheng
  * @date : 2022/10/10 14:34
  */
-public class HerodotusOpaqueTokenIntrospector implements OpaqueTokenIntrospector {
+public class HerodotusOpaqueTokenIntrospector implements OpaqueTokenIntrospector, DisposableBean {
 
     private static final ParameterizedTypeReference<Map<String, Object>> STRING_OBJECT_MAP = new ParameterizedTypeReference<Map<String, Object>>() {
     };
@@ -70,12 +81,22 @@ public class HerodotusOpaqueTokenIntrospector implements OpaqueTokenIntrospector
 
     private final RestOperations restOperations;
 
+    /**
+     * 内部创建的 HttpClient，使用外部提供的 {@link RestOperations} 时为空
+     */
+    private final CloseableHttpClient httpClient;
+
     private Converter<String, RequestEntity<?>> requestEntityConverter;
 
     public HerodotusOpaqueTokenIntrospector(EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties) {
+        this(endpointProperties, resourceServerProperties, new SecurityProperties.Introspection());
+    }
+
+    public HerodotusOpaqueTokenIntrospector(EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties, SecurityProperties.Introspection introspection) {
         this(getIntrospectionUri(endpointProperties, resourceServerProperties),
                 resourceServerProperties.getOpaquetoken().getClientId(),
-                resourceServerProperties.getOpaquetoken().getClientSecret());
+                resourceServerProperties.getOpaquetoken().getClientSecret(),
+                introspection);
     }
 
     /**
@@ -86,11 +107,25 @@ public class HerodotusOpaqueTokenIntrospector implements OpaqueTokenIntrospector
      * @param clientSecret     The client's secret
      */
     public HerodotusOpaqueTokenIntrospector(String introspectionUri, String clientId, String clientSecret) {
+        this(introspectionUri, clientId, clientSecret, new SecurityProperties.Introspection());
+    }
+
+    /**
+     * Creates a {@code OpaqueTokenAuthenticationProvider} with the provided parameters
+     *
+     * @param introspectionUri The introspection endpoint uri
+     * @param clientId         The client id authorized to introspect
+     * @param clientSecret     The client's secret
+     * @param introspection    The connection pool and timeout settings
+     */
+    public HerodotusOpaqueTokenIntrospector(String introspectionUri, String clientId, String clientSecret, SecurityProperties.Introspection introspection) {
         Assert.notNull(introspectionUri, "introspectionUri cannot be null");
         Assert.notNull(clientId, "clientId cannot be null");
         Assert.notNull(clientSecret, "clientSecret cannot be null");
+        Assert.notNull(introspection, "introspection cannot be null");
         this.requestEntityConverter = this.defaultRequestEntityConverter(URI.create(introspectionUri));
-        RestTemplate restTemplate = new RestTemplate();
+        this.httpClient = createHttpClient(introspection);
+        RestTemplate restTemplate = new RestTemplate(createRequestFactory(this.httpClient, introspection));
         restTemplate.getInterceptors().add(new BasicAuthenticationInterceptor(clientId, clientSecret));
         this.restOperations = restTemplate;
     }
@@ -109,6 +144,28 @@ public class HerodotusOpaqueTokenIntrospector implements OpaqueTokenIntrospector
         Assert.notNull(restOperations, "restOperations cannot be null");
         this.requestEntityConverter = this.defaultRequestEntityConverter(URI.create(introspectionUri));
         this.restOperations = restOperations;
+        this.httpClient = null;
+    }
+
+    private static CloseableHttpClient createHttpClient(SecurityProperties.Introspection introspection) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(introspection.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(introspection.getMaxConnectionsPerRoute());
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .evictExpiredConnections()
+                .evictIdleConnections(30, TimeUnit.SECONDS)
+                .disableCookieManagement()
+                .build();
+    }
+
+    private static ClientHttpRequestFactory createRequestFactory(CloseableHttpClient httpClient, SecurityProperties.Introspection introspection) {
+        HttpComponentsClientHttpRequestFactory requestFactory = new HttpComponentsClientHttpRequestFactory(httpClient);
+        requestFactory.setConnectTimeout((int) introspection.getConnectTimeout().toMillis());
+        requestFactory.setReadTimeout((int) introspection.getReadTimeout().toMillis());
+        requestFactory.setConnectionRequestTimeout((int) introspection.getConnectionRequestTimeout().toMillis());
+        return requestFactory;
     }
 
     private static String getIntrospectionUri(EndpointProperties endpointProperties, OAuth2ResourceServerProperties resourceServerProperties) {
@@ -140,6 +197,16 @@ public class HerodotusOpaqueTokenIntrospector implements OpaqueTokenIntrospector
         return body;
     }
 
+    /**
+     * 关闭 HttpClient，同时关闭连接池和空闲连接清理线程
+     */
+    @Override
+    public void destroy() throws IOException {
+        if (this.httpClient != null) {
+            this.httpClient.close();
+        }
+    }
+
     @Override
     public OAuth2AuthenticatedPrincipal introspect(String token) {
         RequestEntity<?> requestEntity = this.requestEntityConverter.convert(token);
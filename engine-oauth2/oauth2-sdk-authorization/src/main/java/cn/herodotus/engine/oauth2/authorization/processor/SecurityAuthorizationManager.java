@@ -12,12 +12,13 @@ package cn.herodotus.engine.oauth2.authorization.processor;
 
 import cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders;
 import cn.herodotus.engine.oauth2.authorization.definition.HerodotusRequestMatcher;
+import cn.herodotus.engine.oauth2.authorization.definition.RequestMatcherTrie;
 import cn.herodotus.engine.oauth2.authorization.storage.SecurityMetadataSourceStorage;
 import cn.herodotus.engine.oauth2.core.configurer.SecurityMatcherConfigurer;
 import cn.herodotus.engine.oauth2.core.enums.PermissionExpression;
 import cn.herodotus.engine.web.core.utils.WebUtils;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,7 +29,6 @@ import org.springframework.security.web.access.intercept.FilterInvocationSecurit
 
 import javax.servlet.http.HttpServletRequest;
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -129,15 +129,12 @@ public class SecurityAuthorizationManager implements FilterInvocationSecurityMet
             log.debug("[Herodotus] |- Get configAttributes from local storage for : [{}] - [{}]", url, method);
             return configAttributes;
         } else {
-            LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible = this.securityMetadataSourceStorage.getCompatible();
-            if (MapUtils.isNotEmpty(compatible)) {
-                // 支持含有**通配符的路径搜索
-                for (Map.Entry<HerodotusRequestMatcher, Collection<ConfigAttribute>> entry : compatible.entrySet()) {
-                    if (entry.getKey().matches(request)) {
-                        log.debug("[Herodotus] |- Request match the wildcard [{}] - [{}]", entry.getKey(), entry.getValue());
-                        return entry.getValue();
-                    }
-                }
+            // 支持含有**通配符的路径搜索，通过路径前缀树索引筛选候选规则，保持原有的先后匹配顺序
+            RequestMatcherTrie compatibleIndex = this.securityMetadataSourceStorage.getCompatibleIndex();
+            Map.Entry<HerodotusRequestMatcher, Collection<ConfigAttribute>> entry = compatibleIndex.match(request);
+            if (ObjectUtils.isNotEmpty(entry)) {
+                log.debug("[Herodotus] |- Request match the wildcard [{}] - [{}]", entry.getKey(), entry.getValue());
+                return entry.getValue();
             }
         }
 
@@ -77,10 +77,8 @@ public class SecurityMetadataSourceAnalyzer {
             Map<Category, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>>> grouping = groupSecurityRequestMap(requestMappings);
 
             LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> wildcards = grouping.get(Category.WILDCARD);
-            securityMetadataSourceStorage.addToStorage(wildcards, false);
-
             LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> fullPaths = grouping.get(Category.FULL_PATH);
-            securityMetadataSourceStorage.addToStorage(fullPaths, true);
+            securityMetadataSourceStorage.addToStorage(wildcards, fullPaths);
         }
     }
 
@@ -93,29 +91,19 @@ public class SecurityMetadataSourceAnalyzer {
      */
     public void processSecurityMetadata(List<SecurityAttribute> securityAttributes) {
 
-        // 从缓存中获取全部带有特殊字符的匹配规则
-        LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatibles = securityMetadataSourceStorage.getCompatible();
-        // 创建一个临时的 Matcher 容器
-        LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> matchers = new LinkedHashMap<>(compatibles);
-
         // 对分发的 SecurityAttributes 进行分组
         Map<Category, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>>> grouping = groupingSecurityAttributes(securityAttributes);
 
-        // 拿到带有通配符的分组数据
+        // 拿到带有通配符的分组数据，与本地存储中全部带有特殊字符的匹配规则一起，作为冲突检测的规则
         LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> wildcards = grouping.get(Category.WILDCARD);
-        if (MapUtils.isNotEmpty(wildcards)) {
-            matchers.putAll(wildcards);
-        }
-
-        // 拿到带有占位符的分组数据，并检测是否存在冲突的匹配规则，然后将结果存入本地存储
+        // 拿到带有占位符的分组数据
         LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> placeholders = grouping.get(Category.PLACEHOLDER);
-        log.debug("[Herodotus] |- Store placeholder type security attributes.");
-        securityMetadataSourceStorage.addToStorage(matchers, placeholders, false);
-
-        // 拿到全路径的分组数据，并检测是否存在冲突的匹配规则，然后将结果存入本地存储
+        // 拿到全路径的分组数据
         LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> fullPaths = grouping.get(Category.FULL_PATH);
-        log.debug("[Herodotus] |- Store full path type security attributes.");
-        securityMetadataSourceStorage.addToStorage(matchers, fullPaths, true);
+
+        // 检测是否存在冲突的匹配规则，然后将结果一次性存入本地存储
+        log.debug("[Herodotus] |- Store placeholder and full path type security attributes.");
+        securityMetadataSourceStorage.addToStorageWithConflictCheck(wildcards, placeholders, fullPaths);
 
         log.debug("[Herodotus] |- [8] Security attributes process has FINISHED!");
     }
@@ -130,7 +118,8 @@ public class SecurityMetadataSourceAnalyzer {
 
         Map<Category, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>>> group = new LinkedHashMap<>();
 
-        securityAttributes.parallelStream().forEach(securityAttribute -> {
+        // 顺序处理：分组结果的顺序即模式匹配的优先级，同时 group 也不是线程安全的容器
+        securityAttributes.forEach(securityAttribute -> {
             LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> resources = securityMetadataSourceParser.postProcess(securityAttribute);
             appendToGroup(group, Category.getCategory(securityAttribute.getUrl()), resources);
         });
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.oauth2.authorization.storage;
+
+import cn.herodotus.engine.oauth2.authorization.definition.HerodotusRequestMatcher;
+import cn.herodotus.engine.oauth2.authorization.definition.RequestMatcherTrie;
+import org.apache.commons.collections4.MapUtils;
+import org.springframework.security.access.ConfigAttribute;
+
+import java.util.*;
+
+/**
+ * <p>Description: SecurityMetadata 不可变快照 </p>
+ * <p>
+ * 快照一经创建不再修改。变更时基于当前快照复制出新的快照，只复制发生变化的部分，未变化的部分直接复用，
+ * 再由 {@link SecurityMetadataSourceStorage} 一次性替换引用。请求线程读取时无需加锁，也不会读到修改了一半的数据。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/13 16:08
+ */
+public final class SecurityMetadataSnapshot {
+
+    private static final SecurityMetadataSnapshot EMPTY = new SecurityMetadataSnapshot(0L,
+            Collections.emptyMap(),
+            new LinkedHashMap<>(),
+            RequestMatcherTrie.empty(),
+            Collections.emptySet(),
+            Collections.emptySet());
+
+    private final long version;
+
+    /**
+     * 直接索引权限，主要存储全路径权限
+     */
+    private final Map<HerodotusRequestMatcher, Collection<ConfigAttribute>> indexable;
+
+    /**
+     * 模式匹配权限。主要存储 包含 "*"、"?" 和 "{"、"}" 等特殊字符的路径权限，顺序即匹配的优先级
+     */
+    private final LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible;
+
+    /**
+     * 由 compatible 编译而成的路径前缀树索引
+     */
+    private final RequestMatcherTrie compatibleIndex;
+
+    /**
+     * 全部 ConfigAttributes
+     */
+    private final Collection<ConfigAttribute> allConfigAttributes;
+
+    /**
+     * attribute 索引，用于帮助 allConfigAttributes 去重
+     */
+    private final Set<String> indexes;
+
+    private SecurityMetadataSnapshot(long version, Map<HerodotusRequestMatcher, Collection<ConfigAttribute>> indexable, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible, RequestMatcherTrie compatibleIndex, Collection<ConfigAttribute> allConfigAttributes, Set<String> indexes) {
+        this.version = version;
+        this.indexable = indexable;
+        this.compatible = compatible;
+        this.compatibleIndex = compatibleIndex;
+        this.allConfigAttributes = allConfigAttributes;
+        this.indexes = indexes;
+    }
+
+    public static SecurityMetadataSnapshot empty() {
+        return EMPTY;
+    }
+
+    /**
+     * 在当前快照的基础上合并新的权限数据，生成新的快照。
+     * <p>
+     * 与原有逻辑保持一致，已经存在的 Key 直接覆盖。未发生变化的部分直接复用当前快照中的对象。
+     * <p>
+     * compatible 发生变化时重新构建整个前缀树，而不是在原有前缀树上增量修改：
+     * 1. 新增一条大小写不敏感的规则会改变全部字面量边的存储方式，只能重新构建。
+     * 2. 增量修改需要逐层复制被修改路径上的共享节点，才能保证旧快照不被修改，实现复杂度远高于收益。
+     * 3. 合并只发生在服务同步权限数据时（启动或者资源变更），不在请求路径上，构建代价与规则的分段总数成正比，
+     * 耗时可以通过 herodotus.security.metadata.rebuild 指标观察。indexable 的复制同样是全量的，代价处于同一量级。
+     *
+     * @param compatibles 需要模式匹配的权限数据，可以为空
+     * @param indexables  全路径权限数据，可以为空
+     * @return 新的快照。如果没有任何变更，返回当前快照
+     */
+    SecurityMetadataSnapshot merge(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatibles, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> indexables) {
+
+        boolean hasCompatible = MapUtils.isNotEmpty(compatibles);
+        boolean hasIndexable = MapUtils.isNotEmpty(indexables);
+
+        if (!hasCompatible && !hasIndexable) {
+            return this;
+        }
+
+        LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> newCompatible = this.compatible;
+        RequestMatcherTrie newCompatibleIndex = this.compatibleIndex;
+        if (hasCompatible) {
+            newCompatible = new LinkedHashMap<>(this.compatible);
+            newCompatible.putAll(compatibles);
+            newCompatibleIndex = RequestMatcherTrie.build(newCompatible);
+        }
+
+        Map<HerodotusRequestMatcher, Collection<ConfigAttribute>> newIndexable = this.indexable;
+        if (hasIndexable) {
+            Map<HerodotusRequestMatcher, Collection<ConfigAttribute>> values = new HashMap<>(this.indexable);
+            values.putAll(indexables);
+            newIndexable = Collections.unmodifiableMap(values);
+        }
+
+        Set<String> newIndexes = new LinkedHashSet<>(this.indexes);
+        Collection<ConfigAttribute> newAllConfigAttributes = new LinkedHashSet<>(this.allConfigAttributes);
+        if (hasCompatible) {
+            appendToAttributes(compatibles, newIndexes, newAllConfigAttributes);
+        }
+        if (hasIndexable) {
+            appendToAttributes(indexables, newIndexes, newAllConfigAttributes);
+        }
+
+        return new SecurityMetadataSnapshot(this.version + 1,
+                newIndexable,
+                newCompatible,
+                newCompatibleIndex,
+                Collections.unmodifiableCollection(newAllConfigAttributes),
+                Collections.unmodifiableSet(newIndexes));
+    }
+
+    private void appendToAttributes(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata, Set<String> indexes, Collection<ConfigAttribute> allConfigAttributes) {
+        securityMetadata.forEach((key, value) -> value.forEach(attribute -> {
+            if (indexes.add(attribute.getAttribute())) {
+                allConfigAttributes.add(attribute);
+            }
+        }));
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public Collection<ConfigAttribute> getIndexable(HerodotusRequestMatcher herodotusRequestMatcher) {
+        return indexable.get(herodotusRequestMatcher);
+    }
+
+    public int getIndexableSize() {
+        return indexable.size();
+    }
+
+    /**
+     * 获取模式匹配权限数据的只读视图
+     *
+     * @return 只读的模式匹配权限数据
+     */
+    public Map<HerodotusRequestMatcher, Collection<ConfigAttribute>> getCompatible() {
+        return Collections.unmodifiableMap(compatible);
+    }
+
+    public RequestMatcherTrie getCompatibleIndex() {
+        return compatibleIndex;
+    }
+
+    public Collection<ConfigAttribute> getAllConfigAttributes() {
+        return allConfigAttributes;
+    }
+}
@@ -25,11 +25,12 @@
 
 package cn.herodotus.engine.oauth2.authorization.storage;
 
-import cn.herodotus.engine.cache.jetcache.utils.JetCacheUtils;
-import cn.herodotus.engine.oauth2.authorization.constants.SecurityMetadataConstants;
 import cn.herodotus.engine.oauth2.authorization.definition.HerodotusRequestMatcher;
-import com.alicp.jetcache.Cache;
-import com.alicp.jetcache.anno.CacheType;
+import cn.herodotus.engine.oauth2.authorization.definition.RequestMatcherTrie;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.apache.commons.collections4.CollectionUtils;
 import org.apache.commons.collections4.MapUtils;
 import org.slf4j.Logger;
@@ -42,151 +43,63 @@ import org.springframework.stereotype.Component;
 import java.util.Collection;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * <p>Description: SecurityMetadata 本地存储 </p>
+ * <p>
+ * 全部权限数据保存在一个不可变的 {@link SecurityMetadataSnapshot} 中，通过 volatile 引用对外提供。
+ * 1. 读取：请求线程只读取一次 volatile 引用，无锁，并且不会读到修改了一半的数据。
+ * 2. 写入：多个服务同步事件的写入串行执行，每次基于最新的快照复制出新快照后一次性替换，避免"读取-修改-写回"导致的更新丢失。
  *
  * @author : gengwei.zheng
  * @date : 2021/7/30 15:05
  */
 @Component
-public class SecurityMetadataSourceStorage {
+public class SecurityMetadataSourceStorage implements MeterBinder {
 
     private static final Logger log = LoggerFactory.getLogger(SecurityMetadataSourceStorage.class);
 
-    /**
-     * 全部 ConfigAttributes 缓存。独立一个缓存，方便获取，减少重复读取。
-     * 主要由 {@link FilterInvocationSecurityMetadataSource#getAllConfigAttributes()} 使用
-     */
-    private final Cache<String, Collection<ConfigAttribute>> allConfigAttributes;
-
-    /**
-     * attribute 索引辅助缓存，用于帮助 allConfigAttributes去重
-     */
-    private final Cache<String, Set<String>> indexes;
-
-    /**
-     * 模式匹配权限缓存。主要存储 包含 "*"、"?" 和 "{"、"}" 等特殊字符的路径权限。
-     * 该种权限，需要通过遍历，利用 AntPathRequestMatcher 机制进行匹配
-     */
-    private final Cache<String, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>>> compatible;
-
-    /**
-     * 直接索引权限缓存，主要存储全路径权限
-     * 该种权限，直接通过 Map Key 进行获取
-     */
-    private final Cache<HerodotusRequestMatcher, Collection<ConfigAttribute>> indexable;
-
-    public SecurityMetadataSourceStorage() {
-        this.allConfigAttributes = JetCacheUtils.create(SecurityMetadataConstants.CACHE_NAME_SECURITY_METADATA_ATTRIBUTES, CacheType.LOCAL);
-        this.indexes = JetCacheUtils.create(SecurityMetadataConstants.CACHE_NAME_SECURITY_METADATA_INDEXES, CacheType.LOCAL);
-        this.compatible = JetCacheUtils.create(SecurityMetadataConstants.CACHE_NAME_SECURITY_METADATA_COMPATIBLE, CacheType.LOCAL);
-        this.indexable = JetCacheUtils.create(SecurityMetadataConstants.CACHE_NAME_SECURITY_METADATA_INDEXABLE, CacheType.LOCAL);
-    }
-
-    private static final String KEY_ALL_CONFIG_ATTRIBUTES = "ALL_CONFIG_ATTRIBUTES";
-    private static final String KEY_COMPATIBLE = "COMPATIBLE";
-    private static final String KEY_INDEXES = "indexes";
-
-    /**
-     * 从 allConfigAttributes 缓存中读取数据
-     *
-     * @return @return 返回全部的权限
-     */
-    private Collection<ConfigAttribute> readFromAllConfigAttributes() {
-        Collection<ConfigAttribute> configAttributes = this.allConfigAttributes.get(KEY_ALL_CONFIG_ATTRIBUTES);
-        if (CollectionUtils.isNotEmpty(configAttributes)) {
-            return configAttributes;
-        }
-        return new LinkedHashSet<>();
-    }
-
-    /**
-     * 写入 allConfigAttributes 缓存
-     *
-     * @param configAttributes 权限配置属性对象集合
-     */
-    private void writeToAllConfigAttributes(Collection<ConfigAttribute> configAttributes) {
-        this.allConfigAttributes.put(KEY_ALL_CONFIG_ATTRIBUTES, configAttributes);
-    }
-
-    /**
-     * 从 indexes 缓存中读取数据
-     *
-     * @return @return 返回全部的权限
-     */
-    private Set<String> readFromIndexes() {
-        Set<String> indexes = this.indexes.get(KEY_INDEXES);
-        if (CollectionUtils.isNotEmpty(indexes)) {
-            return indexes;
-        }
-        return new LinkedHashSet<>();
-    }
+    private static final String METRIC_PREFIX = "herodotus.security.metadata";
 
-    /**
-     * 写入 indexes 缓存
-     *
-     * @param indexes 权限配置属性对象集合
-     */
-    private void writeToIndexes(Set<String> indexes) {
-        this.indexes.put(KEY_INDEXES, indexes);
-    }
+    private volatile SecurityMetadataSnapshot snapshot = SecurityMetadataSnapshot.empty();
 
     /**
-     * 从 compatible 缓存中读取数据。
-     *
-     * @return 需要进行模式匹配的权限数据
+     * 写入锁，只用于串行化写入操作，读取不需要加锁
      */
-    private LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> readFromCompatible() {
-        LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible = this.compatible.get(KEY_COMPATIBLE);
-        if (MapUtils.isNotEmpty(compatible)) {
-            return compatible;
-        }
-        return new LinkedHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
 
-    }
+    private final AtomicLong rebuildCount = new AtomicLong();
+    private final AtomicLong rebuildNanos = new AtomicLong();
+    private volatile long lastRebuildNanos;
 
     /**
-     * 写入 compatible 缓存
+     * 获取当前的权限数据快照
      *
-     * @param compatible 请求路径和权限配置属性映射Map
+     * @return {@link SecurityMetadataSnapshot}
      */
-    private void writeToCompatible(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible) {
-        this.compatible.put(KEY_COMPATIBLE, compatible);
+    public SecurityMetadataSnapshot getSnapshot() {
+        return this.snapshot;
     }
 
     /**
-     * 从 indexable 缓存中读取数据
+     * 当前权限数据的版本号，每次变更后递增
      *
-     * @param herodotusRequestMatcher 自定义扩展的 AntPathRequestMatchers {@link HerodotusRequestMatcher}
-     * @return 权限配置属性对象集合
+     * @return 版本号
      */
-    private Collection<ConfigAttribute> readFromIndexable(HerodotusRequestMatcher herodotusRequestMatcher) {
-        Collection<ConfigAttribute> indexable = this.indexable.get(herodotusRequestMatcher);
-        if (CollectionUtils.isNotEmpty(indexable)) {
-            return indexable;
-        }
-        return new LinkedHashSet<>();
+    public long getVersion() {
+        return this.snapshot.getVersion();
     }
 
     /**
-     * 写入 indexable 缓存
-     *
-     * @param herodotusRequestMatcher 自定义扩展的 AntPathRequestMatchers {@link HerodotusRequestMatcher}
-     * @param configAttributes        权限配置属性对象集合
-     */
-    private void writeToIndexable(HerodotusRequestMatcher herodotusRequestMatcher, Collection<ConfigAttribute> configAttributes) {
-        this.indexable.put(herodotusRequestMatcher, configAttributes);
-    }
-
-    /**
-     * 从 allConfigAttributes 缓存中获取全部{@link ConfigAttribute}
+     * 获取全部{@link ConfigAttribute}
      *
      * @return 缓存数据 {@link FilterInvocationSecurityMetadataSource#getAllConfigAttributes()}
      */
     public Collection<ConfigAttribute> getAllConfigAttributes() {
-        return readFromAllConfigAttributes();
+        return this.snapshot.getAllConfigAttributes();
     }
 
     /**
@@ -198,132 +111,113 @@ public class SecurityMetadataSourceStorage {
      */
     public Collection<ConfigAttribute> getConfigAttribute(String url, String method) {
         HerodotusRequestMatcher herodotusRequestMatcher = new HerodotusRequestMatcher(url, method);
-        return readFromIndexable(herodotusRequestMatcher);
-    }
-
-    /**
-     * 将权限保存至 allConfigAttributes 缓存中
-     *
-     * @param securityMetadata {@link ConfigAttribute}
-     */
-    private void appendToAttributes(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata) {
-        Collection<ConfigAttribute> allConfigAttributes = readFromAllConfigAttributes();
-        Set<String> indexes = readFromIndexes();
-
-        securityMetadata.forEach((key, value) -> value.forEach(attribute -> {
-            String index = attribute.getAttribute();
-            if (!indexes.contains(index)) {
-                indexes.add(index);
-                allConfigAttributes.add(attribute);
-            }
-        }));
-
-        writeToIndexes(indexes);
-        writeToAllConfigAttributes(allConfigAttributes);
+        Collection<ConfigAttribute> configAttributes = this.snapshot.getIndexable(herodotusRequestMatcher);
+        if (CollectionUtils.isNotEmpty(configAttributes)) {
+            return configAttributes;
+        }
+        return new LinkedHashSet<>();
     }
 
     /**
-     * 从 compatible 缓存中获取全部不需要路径匹配的（包含*号的url）请求权限映射Map
+     * 获取全部需要路径匹配的（包含*号的url）请求权限映射Map
+     * <p>
+     * 返回的是当前快照数据的副本，修改返回结果不会影响存储中的数据。
      *
-     * @return 如果缓存中存在，则返回请求权限映射Map集合，如果不存在则返回一个空的{@link LinkedHashMap}
+     * @return 请求权限映射Map集合，如果不存在则返回一个空的{@link LinkedHashMap}
      */
     public LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> getCompatible() {
-        return readFromCompatible();
+        return new LinkedHashMap<>(this.snapshot.getCompatible());
     }
 
     /**
-     * 向 compatible 缓存中添加需要路径匹配的（包含*号的url）请求权限映射Map。
-     * <p>
-     * 如果缓存中不存在以{@link RequestMatcher}为Key的数据，那么添加数据
-     * 如果缓存中存在以{@link RequestMatcher}为Key的数据，那么合并数据
+     * 获取 compatible 数据的路径前缀树索引
      *
-     * @param herodotusRequestMatcher 请求匹配对象 {@link HerodotusRequestMatcher}
-     * @param configAttributes        权限配置 {@link ConfigAttribute}
+     * @return {@link RequestMatcherTrie}
      */
-    private void appendToCompatible(HerodotusRequestMatcher herodotusRequestMatcher, Collection<ConfigAttribute> configAttributes) {
-        LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatible = this.getCompatible();
-//        compatible.merge(requestMatcher, configAttributes, (oldConfigAttributes, newConfigAttributes) -> {
-//            newConfigAttributes.addAll(oldConfigAttributes);
-//            return newConfigAttributes;
-//        });
-
-        // 使用merge会让整个功能的设计更加复杂，暂时改为直接覆盖已有数据，后续视情况再做变更。
-        compatible.put(herodotusRequestMatcher, configAttributes);
-        log.trace("[Herodotus] |- Append [{}] to Compatible cache, current size is [{}]", herodotusRequestMatcher, compatible.size());
-        writeToCompatible(compatible);
+    public RequestMatcherTrie getCompatibleIndex() {
+        return this.snapshot.getCompatibleIndex();
     }
 
     /**
-     * 向 compatible 缓存中添加需要路径匹配的（包含*号的url）请求权限映射Map。
-     * <p>
-     * 如果缓存中不存在以{@link RequestMatcher}为Key的数据，那么添加数据
-     * 如果缓存中存在以{@link RequestMatcher}为Key的数据，那么合并数据
+     * 将权限数据添加至本地存储
      *
-     * @param securityMetadata 请求权限映射Map
+     * @param securityMetadata 权限数据
+     * @param isIndexable      true 存入 indexable；false 存入 compatible
      */
-    private void appendToCompatible(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata) {
-        securityMetadata.forEach(this::appendToCompatible);
+    public void addToStorage(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata, boolean isIndexable) {
+        if (isIndexable) {
+            addToStorage(null, securityMetadata);
+        } else {
+            addToStorage(securityMetadata, null);
+        }
     }
 
     /**
-     * 向 indexable 缓存中添加需要路径匹配的（包含*号的url）请求权限映射Map。
-     * <p>
-     * 如果缓存中不存在以{@link HerodotusRequestMatcher}为Key的数据，那么添加数据
-     * 如果缓存中存在以{@link HerodotusRequestMatcher}为Key的数据，那么合并数据
+     * 将权限数据添加至本地存储，存储之前进行规则冲突校验
      *
-     * @param herodotusRequestMatcher 请求匹配对象 {@link HerodotusRequestMatcher}
-     * @param configAttributes        权限配置 {@link ConfigAttribute}
+     * @param matchers         校验资源
+     * @param securityMetadata 权限数据
+     * @param isIndexable      true 存入 indexable；false 存入 compatible
      */
-    private void appendToIndexable(HerodotusRequestMatcher herodotusRequestMatcher, Collection<ConfigAttribute> configAttributes) {
-        log.debug("[Herodotus] |- Append [{}] to Indexable cache, current size is [{}]", herodotusRequestMatcher, configAttributes.size());
-        writeToIndexable(herodotusRequestMatcher, configAttributes);
+    public void addToStorage(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> matchers, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata, boolean isIndexable) {
+        addToStorage(checkConflict(matchers, securityMetadata), isIndexable);
     }
 
     /**
-     * 向 indexable 缓存中添加需要路径匹配的（不包含*号的url）请求权限映射Map。
+     * 将一批权限数据添加至本地存储。
      * <p>
-     * 如果缓存中不存在以{@link RequestMatcher}为Key的数据，那么添加数据
-     * 如果缓存中存在以{@link RequestMatcher}为Key的数据，那么合并数据
+     * 向 compatible 和 indexable 中添加数据，如果已经存在以{@link RequestMatcher}为Key的数据，那么直接覆盖。
+     * 两部分数据合并到同一个新快照中，只替换一次，因此同一个服务同步的数据对请求线程是同时可见的。
      *
-     * @param securityMetadata 请求权限映射Map
+     * @param compatibles 需要路径匹配的（包含*号的url）请求权限映射Map
+     * @param indexables  不需要路径匹配的（不包含*号的url）请求权限映射Map
      */
-    private void appendToIndexable(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata) {
-        securityMetadata.forEach(this::appendToIndexable);
-    }
+    public void addToStorage(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatibles, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> indexables) {
+        if (MapUtils.isEmpty(compatibles) && MapUtils.isEmpty(indexables)) {
+            return;
+        }
 
-    /**
-     * 将权限数据添加至本地存储
-     *
-     * @param securityMetadata 权限数据
-     * @param isIndexable      true 存入 indexable cache；false 存入 compatible cache
-     */
-    public void addToStorage(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata, boolean isIndexable) {
-        if (MapUtils.isNotEmpty(securityMetadata)) {
-            if (isIndexable) {
-                appendToIndexable(securityMetadata);
-                appendToAttributes(securityMetadata);
-            } else {
-                appendToCompatible(securityMetadata);
-                appendToAttributes(securityMetadata);
-            }
+        writeLock.lock();
+        try {
+            long start = System.nanoTime();
+            SecurityMetadataSnapshot current = this.snapshot;
+            SecurityMetadataSnapshot next = current.merge(compatibles, indexables);
+            this.snapshot = next;
+            recordRebuild(System.nanoTime() - start);
+            log.debug("[Herodotus] |- Security metadata snapshot changed from version [{}] to [{}], compatible size is [{}], indexable size is [{}]",
+                    current.getVersion(), next.getVersion(), next.getCompatibleIndex().size(), next.getIndexableSize());
+        } finally {
+            writeLock.unlock();
         }
     }
 
-
     /**
-     * 将权限数据添加至本地存储，存储之前进行规则冲突校验
+     * 在写入锁内基于最新的快照进行规则冲突校验并存储
+     * <p>
+     * 校验资源由当前快照中的 compatible 数据和 extraMatchers 共同组成，避免校验时使用的数据已经被其它写入操作更新。
      *
-     * @param matchers         校验资源
-     * @param securityMetadata 权限数据
-     * @param isIndexable      true 存入 indexable cache；false 存入 compatible cache
+     * @param extraMatchers 除当前 compatible 数据以外，额外的校验资源
+     * @param compatibles   需要路径匹配的（包含*号的url）请求权限映射Map
+     * @param indexables    不需要路径匹配的（不包含*号的url）请求权限映射Map
      */
-    public void addToStorage(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> matchers, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata, boolean isIndexable) {
-        LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> result = new LinkedHashMap<>();
-        if (MapUtils.isNotEmpty(matchers) && MapUtils.isNotEmpty(securityMetadata)) {
-            result = checkConflict(matchers, securityMetadata);
+    public void addToStorageWithConflictCheck(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> extraMatchers, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> compatibles, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> indexables) {
+        writeLock.lock();
+        try {
+            LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> matchers = getCompatible();
+            if (MapUtils.isNotEmpty(extraMatchers)) {
+                matchers.putAll(extraMatchers);
+            }
+            // ReentrantLock 可重入，这里直接复用 addToStorage 的写入逻辑
+            addToStorage(checkConflict(matchers, compatibles), checkConflict(matchers, indexables));
+        } finally {
+            writeLock.unlock();
         }
+    }
 
-        addToStorage(result, isIndexable);
+    private void recordRebuild(long nanos) {
+        this.rebuildCount.incrementAndGet();
+        this.rebuildNanos.addAndGet(nanos);
+        this.lastRebuildNanos = nanos;
     }
 
     /**
@@ -337,6 +231,10 @@ public class SecurityMetadataSourceStorage {
      */
     private LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> checkConflict(LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> matchers, LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> securityMetadata) {
 
+        if (MapUtils.isEmpty(matchers) || MapUtils.isEmpty(securityMetadata)) {
+            return new LinkedHashMap<>();
+        }
+
         LinkedHashMap<HerodotusRequestMatcher, Collection<ConfigAttribute>> result = new LinkedHashMap<>(securityMetadata);
 
         for (HerodotusRequestMatcher matcher : matchers.keySet()) {
@@ -350,4 +248,24 @@ public class SecurityMetadataSourceStorage {
 
         return result;
     }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + ".version", this, SecurityMetadataSourceStorage::getVersion)
+                .description("Version of the current security metadata snapshot")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".compatible.size", this, storage -> storage.getCompatibleIndex().size())
+                .description("Count of wildcard security metadata")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".indexable.size", this, storage -> storage.getSnapshot().getIndexableSize())
+                .description("Count of full path security metadata")
+                .register(registry);
+        FunctionTimer.builder(METRIC_PREFIX + ".rebuild", this, storage -> storage.rebuildCount.get(), storage -> storage.rebuildNanos.get(), TimeUnit.NANOSECONDS)
+                .description("Time spent building security metadata snapshots")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".rebuild.last", this, storage -> storage.lastRebuildNanos / 1_000_000D)
+                .description("Duration of the last security metadata snapshot rebuild in milliseconds")
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
 }
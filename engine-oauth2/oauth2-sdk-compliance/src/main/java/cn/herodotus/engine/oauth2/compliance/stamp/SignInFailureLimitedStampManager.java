@@ -26,10 +26,12 @@
 package cn.herodotus.engine.oauth2.compliance.stamp;
 
 import cn.herodotus.engine.cache.jetcache.stamp.AbstractCountStampManager;
+import cn.herodotus.engine.cache.jetcache.stamp.CountingWindow;
 import cn.herodotus.engine.oauth2.compliance.dto.SignInErrorStatus;
 import cn.herodotus.engine.oauth2.core.constants.OAuth2Constants;
 import cn.herodotus.engine.oauth2.core.properties.OAuth2ComplianceProperties;
 import cn.hutool.crypto.SecureUtil;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -59,6 +61,9 @@ public class SignInFailureLimitedStampManager extends AbstractCountStampManager
     @Override
     public void afterPropertiesSet() throws Exception {
         super.setExpire(complianceProperties.getSignInFailureLimited().getExpire());
+        if (BooleanUtils.isTrue(complianceProperties.getSignInFailureLimited().getSlidingWindow())) {
+            super.setCountingWindow(CountingWindow.SLIDING);
+        }
     }
 
     public OAuth2ComplianceProperties getComplianceProperties() {
@@ -76,11 +81,11 @@ public class SignInFailureLimitedStampManager extends AbstractCountStampManager
 
         int remainTimes = maxTimes;
         if (errorTimes != 0) {
-            remainTimes =  maxTimes - errorTimes;
+            remainTimes = Math.max(maxTimes - errorTimes, 0);
         }
 
         boolean isLocked = false;
-        if (errorTimes == maxTimes) {
+        if (errorTimes >= maxTimes) {
             isLocked = true;
         }
 
@@ -25,15 +25,22 @@
 
 package cn.herodotus.engine.oauth2.data.jpa.configuration;
 
+import cn.herodotus.engine.cache.jetcache.enhance.JetCacheCreateCacheFactory;
+import cn.herodotus.engine.oauth2.core.constants.OAuth2Constants;
+import cn.herodotus.engine.oauth2.core.properties.OAuth2Properties;
 import cn.herodotus.engine.oauth2.data.jpa.service.HerodotusAuthorizationConsentService;
 import cn.herodotus.engine.oauth2.data.jpa.service.HerodotusAuthorizationService;
 import cn.herodotus.engine.oauth2.data.jpa.service.HerodotusRegisteredClientService;
 import cn.herodotus.engine.oauth2.data.jpa.storage.JpaOAuth2AuthorizationConsentService;
 import cn.herodotus.engine.oauth2.data.jpa.storage.JpaOAuth2AuthorizationService;
 import cn.herodotus.engine.oauth2.data.jpa.storage.JpaRegisteredClientRepository;
+import cn.herodotus.engine.oauth2.data.jpa.storage.OAuth2AuthorizationCache;
+import cn.herodotus.engine.oauth2.data.jpa.storage.OAuth2AuthorizationReaper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
@@ -81,12 +88,29 @@ public class OAuth2DataJpaConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public OAuth2AuthorizationService authorizationService(HerodotusAuthorizationService herodotusAuthorizationService, RegisteredClientRepository registeredClientRepository) {
-        JpaOAuth2AuthorizationService jpaOAuth2AuthorizationService = new JpaOAuth2AuthorizationService(herodotusAuthorizationService, registeredClientRepository);
+    public OAuth2AuthorizationCache oauth2AuthorizationCache(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, OAuth2Properties oauth2Properties) {
+        OAuth2AuthorizationCache oauth2AuthorizationCache = new OAuth2AuthorizationCache(jetCacheCreateCacheFactory, oauth2Properties.getAuthorizationCache());
+        log.trace("[Herodotus] |- Bean [OAuth2 Authorization Cache] Auto Configure.");
+        return oauth2AuthorizationCache;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public OAuth2AuthorizationService authorizationService(HerodotusAuthorizationService herodotusAuthorizationService, RegisteredClientRepository registeredClientRepository, ObjectProvider<OAuth2AuthorizationCache> oauth2AuthorizationCache) {
+        JpaOAuth2AuthorizationService jpaOAuth2AuthorizationService = new JpaOAuth2AuthorizationService(herodotusAuthorizationService, registeredClientRepository, oauth2AuthorizationCache.getIfAvailable());
         log.debug("[Herodotus] |- Bean [Jpa OAuth2 Authorization Service] Auto Configure.");
         return jpaOAuth2AuthorizationService;
     }
 
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = OAuth2Constants.ITEM_AUTHORIZATION_REAPER_ENABLED, havingValue = "true", matchIfMissing = true)
+    public OAuth2AuthorizationReaper oauth2AuthorizationReaper(HerodotusAuthorizationService herodotusAuthorizationService, JetCacheCreateCacheFactory jetCacheCreateCacheFactory, OAuth2Properties oauth2Properties) {
+        OAuth2AuthorizationReaper oauth2AuthorizationReaper = new OAuth2AuthorizationReaper(herodotusAuthorizationService, jetCacheCreateCacheFactory, oauth2Properties.getAuthorizationReaper());
+        log.trace("[Herodotus] |- Bean [OAuth2 Authorization Reaper] Auto Configure.");
+        return oauth2AuthorizationReaper;
+    }
+
     @Bean
     @ConditionalOnMissingBean
     public OAuth2AuthorizationConsentService authorizationConsentService(HerodotusAuthorizationConsentService herodotusAuthorizationConsentService, RegisteredClientRepository registeredClientRepository) {
@@ -27,12 +27,16 @@ package cn.herodotus.engine.oauth2.data.jpa.repository;
 
 import cn.herodotus.engine.data.core.repository.BaseRepository;
 import cn.herodotus.engine.oauth2.data.jpa.entity.HerodotusAuthorization;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -104,4 +108,30 @@ public interface HerodotusAuthorizationRepository extends BaseRepository<Herodot
     @Modifying
     @Transactional
     void deleteByRefreshTokenExpiresAtBefore(LocalDateTime localDateTime);
+
+    /**
+     * 按照 ID 顺序分段查询 RefreshToken 已经过期的认证信息 ID
+     * <p>
+     * 只查询 ID，不加载实体。使用上一段最后一个 ID 作为起点（Keyset 分页），避免 offset 分页越往后越慢。
+     *
+     * @param localDateTime 时间
+     * @param lastId        上一段最后一个 ID，第一段传入空字符串
+     * @param pageable      分段大小
+     * @return 认证信息 ID 列表
+     */
+    @Query("select a.id from HerodotusAuthorization a where a.refreshTokenExpiresAt < :expiresAt and a.id > :lastId order by a.id")
+    List<String> findIdsByRefreshTokenExpiresAtBefore(@Param("expiresAt") LocalDateTime localDateTime, @Param("lastId") String lastId, Pageable pageable);
+
+    /**
+     * 根据 ID 批量删除认证信息
+     * <p>
+     * 直接执行一条 delete 语句，不会先加载实体再逐条删除。
+     *
+     * @param ids 认证信息 ID
+     * @return 删除的数量
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from HerodotusAuthorization a where a.id in :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<String> ids);
 }
@@ -33,12 +33,14 @@ import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import javax.persistence.criteria.Predicate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -115,6 +117,18 @@ public class HerodotusAuthorizationService extends BaseLayeredService<HerodotusA
         log.debug("[Herodotus] |- HerodotusAuthorization Service clearExpireAccessToken.");
     }
 
+    public List<String> findExpiredIds(LocalDateTime localDateTime, String lastId, int size) {
+        List<String> ids = this.herodotusAuthorizationRepository.findIdsByRefreshTokenExpiresAtBefore(localDateTime, lastId, PageRequest.of(0, size));
+        log.debug("[Herodotus] |- HerodotusAuthorization Service findExpiredIds.");
+        return ids;
+    }
+
+    public int deleteByIds(Collection<String> ids) {
+        int count = this.herodotusAuthorizationRepository.deleteAllByIdIn(ids);
+        log.debug("[Herodotus] |- HerodotusAuthorization Service deleteByIds, count is [{}].", count);
+        return count;
+    }
+
     public List<HerodotusAuthorization> findAvailableAuthorizations(String registeredClientId, String principalName) {
         List<HerodotusAuthorization> authorizations = this.herodotusAuthorizationRepository.findAllByRegisteredClientIdAndPrincipalNameAndAccessTokenExpiresAtAfter(registeredClientId, principalName, LocalDateTime.now());
         log.debug("[Herodotus] |- HerodotusAuthorization Service findAvailableAuthorizations.");
@@ -77,11 +77,17 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
 
     private final HerodotusAuthorizationService herodotusAuthorizationService;
     private final RegisteredClientRepository registeredClientRepository;
+    private final OAuth2AuthorizationCache authorizationCache;
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public JpaOAuth2AuthorizationService(HerodotusAuthorizationService herodotusAuthorizationService, RegisteredClientRepository registeredClientRepository) {
+        this(herodotusAuthorizationService, registeredClientRepository, null);
+    }
+
+    public JpaOAuth2AuthorizationService(HerodotusAuthorizationService herodotusAuthorizationService, RegisteredClientRepository registeredClientRepository, OAuth2AuthorizationCache authorizationCache) {
         this.herodotusAuthorizationService = herodotusAuthorizationService;
         this.registeredClientRepository = registeredClientRepository;
+        this.authorizationCache = authorizationCache;
 
         ClassLoader classLoader = JpaOAuth2AuthorizationService.class.getClassLoader();
         List<Module> securityModules = SecurityJackson2Modules.getModules(classLoader);
@@ -94,6 +100,7 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
     @Override
     public void save(OAuth2Authorization authorization) {
         this.herodotusAuthorizationService.saveOrUpdate(toEntity(authorization));
+        evictCache(authorization);
         log.debug("[Herodotus] |- Jpa OAuth2 Authorization Service save entity.");
     }
 
@@ -102,10 +109,8 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
     public void remove(OAuth2Authorization authorization) {
         Assert.notNull(authorization, "authorization cannot be null");
         this.herodotusAuthorizationService.deleteById(authorization.getId());
+        evictCache(authorization);
         log.debug("[Herodotus] |- Jpa OAuth2 Authorization Service remove entity.");
-        // TODO： 后期还是考虑改为异步任务的形式，先临时放在这里。
-        this.herodotusAuthorizationService.clearHistoryToken();
-        log.debug("[Herodotus] |- Jpa OAuth2 Authorization Service clear history token.");
     }
 
     @Override
@@ -138,6 +143,13 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
     public OAuth2Authorization findByToken(String token, OAuth2TokenType tokenType) {
         Assert.hasText(token, "token cannot be empty");
 
+        if (isCacheEnabled()) {
+            return this.authorizationCache.get(token, tokenType, () -> loadByToken(token, tokenType));
+        }
+        return loadByToken(token, tokenType);
+    }
+
+    private OAuth2Authorization loadByToken(String token, OAuth2TokenType tokenType) {
         Optional<HerodotusAuthorization> result;
         if (tokenType == null) {
             result = this.herodotusAuthorizationService.findByStateOrAuthorizationCodeValueOrAccessTokenValueOrRefreshTokenValue(token);
@@ -157,6 +169,16 @@ public class JpaOAuth2AuthorizationService implements OAuth2AuthorizationService
         return result.map(this::toObject).orElse(null);
     }
 
+    private boolean isCacheEnabled() {
+        return ObjectUtils.isNotEmpty(this.authorizationCache) && this.authorizationCache.isEnabled();
+    }
+
+    private void evictCache(OAuth2Authorization authorization) {
+        if (isCacheEnabled()) {
+            this.authorizationCache.evict(authorization);
+        }
+    }
+
     private OAuth2Authorization toObject(HerodotusAuthorization entity) {
         RegisteredClient registeredClient = this.registeredClientRepository.findById(entity.getRegisteredClientId());
         if (registeredClient == null) {
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.oauth2.data.jpa.storage;
+
+import cn.herodotus.engine.cache.jetcache.enhance.JetCacheCreateCacheFactory;
+import cn.herodotus.engine.oauth2.core.constants.OAuth2Constants;
+import cn.herodotus.engine.oauth2.core.properties.OAuth2Properties;
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.anno.CacheType;
+import com.google.common.hash.Hashing;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2RefreshToken;
+import org.springframework.security.oauth2.core.OAuth2Token;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+import org.springframework.security.oauth2.server.authorization.OAuth2Authorization;
+import org.springframework.security.oauth2.server.authorization.OAuth2AuthorizationCode;
+import org.springframework.security.oauth2.server.authorization.OAuth2TokenType;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * <p>Description: OAuth2Authorization 根据 Token 查询的缓存 </p>
+ * <p>
+ * 缓存已经组装完成的 {@link OAuth2Authorization}，避免每次 Token 校验都执行数据库查询、查询 RegisteredClient 以及反序列化 Metadata。
+ * 1. 缓存分为两类条目：Token 条目的 Key 为 Token 值的 SHA-256 摘要，值为 OAuth2Authorization 的 ID；
+ * ID 条目的 Key 为 OAuth2Authorization 的 ID，值为 OAuth2Authorization。不在缓存中保存 Token 明文。
+ * 2. 默认使用 JetCache 的本地 + 远程两级缓存，并开启 syncLocal，本地缓存的删除通过失效总线通知到其它节点。
+ * 关闭 remote 后只使用本地缓存（Caffeine），只适用于单节点部署。
+ * 3. 缓存有效期取配置的最长有效期与 Token 剩余有效期中较小的一个，Token 过期后缓存也随之失效。
+ * 4. 保存和删除 OAuth2Authorization 时，只需要清除 ID 条目。旧 Token 条目指向的 OAuth2Authorization 重新加载后不再包含旧 Token，
+ * 不会被命中。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/14 10:35
+ */
+public class OAuth2AuthorizationCache implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(OAuth2AuthorizationCache.class);
+
+    private static final String METRIC_PREFIX = "herodotus.oauth2.authorization.cache";
+    private static final String TOKEN_KEY_PREFIX = "token:";
+    private static final String ID_KEY_PREFIX = "id:";
+
+    private final boolean enabled;
+    private final Duration maxExpire;
+    private final Cache<String, Object> cache;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+
+    /**
+     * 失效计数。加载期间如果发生过失效操作，加载结果不再写入缓存，避免并发保存时把旧数据写回缓存
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public OAuth2AuthorizationCache(JetCacheCreateCacheFactory jetCacheCreateCacheFactory, OAuth2Properties.AuthorizationCache authorizationCache) {
+        this.enabled = BooleanUtils.isTrue(authorizationCache.getEnabled());
+        this.maxExpire = authorizationCache.getMaxExpire();
+        if (this.enabled) {
+            CacheType cacheType = BooleanUtils.isTrue(authorizationCache.getRemote()) ? CacheType.BOTH : CacheType.LOCAL;
+            if (cacheType == CacheType.LOCAL) {
+                log.warn("[Herodotus] |- OAuth2 authorization cache is local only, revoked tokens stay valid in other nodes until cache expired.");
+            }
+            this.cache = jetCacheCreateCacheFactory.create(null, OAuth2Constants.CACHE_NAME_TOKEN_AUTHORIZATION, cacheType, this.maxExpire, false, true, null, authorizationCache.getLocalLimit());
+        } else {
+            this.cache = null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 根据 Token 获取 OAuth2Authorization，缓存中不存在时使用 loader 加载并写入缓存
+     *
+     * @param token     Token 值
+     * @param tokenType Token 类型，为空时匹配任意类型
+     * @param loader    数据加载方法
+     * @return {@link OAuth2Authorization}，不存在时返回 null
+     */
+    public OAuth2Authorization get(String token, OAuth2TokenType tokenType, Supplier<OAuth2Authorization> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+
+        String tokenKey = toTokenKey(token);
+        Object id = cache.get(tokenKey);
+        if (id instanceof String) {
+            Object cached = cache.get(toIdKey((String) id));
+            if (cached instanceof OAuth2Authorization && hasToken((OAuth2Authorization) cached, token, tokenType)) {
+                hits.increment();
+                log.trace("[Herodotus] |- OAuth2 authorization cache hit.");
+                return (OAuth2Authorization) cached;
+            }
+        }
+
+        misses.increment();
+        long invalidation = invalidations.get();
+        long start = System.nanoTime();
+        OAuth2Authorization authorization = loader.get();
+        loadNanos.add(System.nanoTime() - start);
+        loadCount.increment();
+
+        if (ObjectUtils.isNotEmpty(authorization) && invalidation == invalidations.get()) {
+            long ttl = getTimeToLive(authorization, token);
+            if (ttl > 0) {
+                cache.put(toIdKey(authorization.getId()), authorization, ttl, TimeUnit.MILLISECONDS);
+                cache.put(tokenKey, authorization.getId(), ttl, TimeUnit.MILLISECONDS);
+            }
+        }
+        return authorization;
+    }
+
+    /**
+     * 清除 OAuth2Authorization 对应的缓存。新旧 Token 条目都指向同一个 ID，清除 ID 条目即可
+     *
+     * @param authorization {@link OAuth2Authorization}
+     */
+    public void evict(OAuth2Authorization authorization) {
+        if (!enabled || ObjectUtils.isEmpty(authorization)) {
+            return;
+        }
+
+        invalidations.incrementAndGet();
+        cache.remove(toIdKey(authorization.getId()));
+    }
+
+    private String toIdKey(String id) {
+        return ID_KEY_PREFIX + id;
+    }
+
+    private String toTokenKey(String token) {
+        return TOKEN_KEY_PREFIX + Hashing.sha256().hashString(token, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * 计算缓存有效期，单位毫秒。取配置的最长有效期与命中 Token 剩余有效期中较小的一个
+     *
+     * @param authorization {@link OAuth2Authorization}
+     * @param token         Token 值
+     * @return 缓存有效期
+     */
+    private long getTimeToLive(OAuth2Authorization authorization, String token) {
+        long ttl = maxExpire.toMillis();
+        Instant expiresAt = getExpiresAt(authorization, token);
+        if (ObjectUtils.isNotEmpty(expiresAt)) {
+            ttl = Math.min(ttl, expiresAt.toEpochMilli() - System.currentTimeMillis());
+        }
+        return ttl;
+    }
+
+    private Instant getExpiresAt(OAuth2Authorization authorization, String token) {
+        OAuth2Authorization.Token<? extends OAuth2Token> matched = findToken(authorization, token);
+        if (ObjectUtils.isNotEmpty(matched)) {
+            return matched.getToken().getExpiresAt();
+        }
+        return null;
+    }
+
+    private OAuth2Authorization.Token<? extends OAuth2Token> findToken(OAuth2Authorization authorization, String token) {
+        OAuth2Authorization.Token<OAuth2AuthorizationCode> authorizationCode = authorization.getToken(OAuth2AuthorizationCode.class);
+        if (isSameToken(authorizationCode, token)) {
+            return authorizationCode;
+        }
+        OAuth2Authorization.Token<OAuth2AccessToken> accessToken = authorization.getToken(OAuth2AccessToken.class);
+        if (isSameToken(accessToken, token)) {
+            return accessToken;
+        }
+        OAuth2Authorization.Token<OAuth2RefreshToken> refreshToken = authorization.getToken(OAuth2RefreshToken.class);
+        if (isSameToken(refreshToken, token)) {
+            return refreshToken;
+        }
+        return null;
+    }
+
+    private boolean isSameToken(OAuth2Authorization.Token<? extends OAuth2Token> authorizationToken, String token) {
+        return ObjectUtils.isNotEmpty(authorizationToken) && StringUtils.equals(authorizationToken.getToken().getTokenValue(), token);
+    }
+
+    /**
+     * 确认缓存中的 OAuth2Authorization 确实包含指定类型的 Token，与数据库查询的语义保持一致
+     *
+     * @param authorization {@link OAuth2Authorization}
+     * @param token         Token 值
+     * @param tokenType     Token 类型
+     * @return 是否包含
+     */
+    private boolean hasToken(OAuth2Authorization authorization, String token, OAuth2TokenType tokenType) {
+        if (tokenType == null) {
+            return StringUtils.equals(token, authorization.getAttribute(OAuth2ParameterNames.STATE))
+                    || ObjectUtils.isNotEmpty(findToken(authorization, token));
+        } else if (OAuth2ParameterNames.STATE.equals(tokenType.getValue())) {
+            return StringUtils.equals(token, authorization.getAttribute(OAuth2ParameterNames.STATE));
+        } else if (OAuth2ParameterNames.CODE.equals(tokenType.getValue())) {
+            return isSameToken(authorization.getToken(OAuth2AuthorizationCode.class), token);
+        } else if (OAuth2TokenType.ACCESS_TOKEN.equals(tokenType)) {
+            return isSameToken(authorization.getToken(OAuth2AccessToken.class), token);
+        } else if (OAuth2TokenType.REFRESH_TOKEN.equals(tokenType)) {
+            return isSameToken(authorization.getToken(OAuth2RefreshToken.class), token);
+        }
+        return false;
+    }
+
+    private double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0D : (double) hit / total;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", this, value -> value.hits.sum())
+                .description("Count of OAuth2 authorization cache hits")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", this, value -> value.misses.sum())
+                .description("Count of OAuth2 authorization cache misses")
+                .register(registry);
+        Gauge.builder(METRIC_PREFIX + ".hit.ratio", this, OAuth2AuthorizationCache::getHitRatio)
+                .description("Hit ratio of OAuth2 authorization cache")
+                .register(registry);
+        FunctionTimer.builder(METRIC_PREFIX + ".load", this, value -> value.loadCount.sum(), value -> value.loadNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent loading OAuth2 authorization from database")
+                .register(registry);
+    }
+}
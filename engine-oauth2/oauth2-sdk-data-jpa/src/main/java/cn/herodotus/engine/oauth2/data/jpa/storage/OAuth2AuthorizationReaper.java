@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.oauth2.data.jpa.storage;
+
+import cn.herodotus.engine.cache.jetcache.enhance.JetCacheCreateCacheFactory;
+import cn.herodotus.engine.oauth2.core.constants.OAuth2Constants;
+import cn.herodotus.engine.oauth2.core.properties.OAuth2Properties;
+import cn.herodotus.engine.oauth2.data.jpa.service.HerodotusAuthorizationService;
+import com.alicp.jetcache.Cache;
+import com.alicp.jetcache.anno.CacheType;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.apache.commons.collections4.CollectionUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>Description: 过期 OAuth2Authorization 后台清理任务 </p>
+ * <p>
+ * 替代原来在 {@link JpaOAuth2AuthorizationService#remove} 中同步执行的历史 Token 清理：
+ * 1. 在独立的调度线程中按固定间隔执行，不再占用用户注销、撤销 Token 的请求时间。
+ * 2. 按照 ID 顺序分段查询过期数据的 ID，每段直接执行一条 delete 语句，不加载实体。单次执行的段数有上限，剩余数据留到下一次。
+ * 3. 多实例部署时通过缓存锁保证同一时间只有一个实例执行清理。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/14 15:20
+ */
+public class OAuth2AuthorizationReaper implements InitializingBean, DisposableBean, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(OAuth2AuthorizationReaper.class);
+
+    private static final String METRIC_PREFIX = "herodotus.oauth2.authorization.reaper";
+    private static final String LOCK_KEY = "lock";
+
+    private final HerodotusAuthorizationService herodotusAuthorizationService;
+    private final OAuth2Properties.AuthorizationReaper authorizationReaper;
+    private final Cache<String, String> lockCache;
+
+    private final LongAdder purged = new LongAdder();
+    private final LongAdder runCount = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    public OAuth2AuthorizationReaper(HerodotusAuthorizationService herodotusAuthorizationService, JetCacheCreateCacheFactory jetCacheCreateCacheFactory, OAuth2Properties.AuthorizationReaper authorizationReaper) {
+        this.herodotusAuthorizationService = herodotusAuthorizationService;
+        this.authorizationReaper = authorizationReaper;
+        // 多级缓存使用最后一级（远程缓存）做 tryLock 操作，因此多实例之间互斥
+        this.lockCache = jetCacheCreateCacheFactory.create(OAuth2Constants.CACHE_NAME_TOKEN_AUTHORIZATION_REAPER, CacheType.BOTH, authorizationReaper.getLockExpire(), false);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setPoolSize(1);
+        this.taskScheduler.setThreadNamePrefix("herodotus-authorization-reaper-");
+        this.taskScheduler.setDaemon(true);
+        this.taskScheduler.initialize();
+
+        Instant startTime = Instant.now().plus(authorizationReaper.getInitialDelay());
+        this.taskScheduler.scheduleWithFixedDelay(this::execute, startTime, authorizationReaper.getInterval());
+        log.debug("[Herodotus] |- OAuth2 authorization reaper scheduled, interval is [{}].", authorizationReaper.getInterval());
+    }
+
+    @Override
+    public void destroy() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+    }
+
+    /**
+     * 执行一次清理。获取不到锁说明其它实例正在执行，直接跳过
+     */
+    public void execute() {
+        try {
+            boolean executed = lockCache.tryLockAndRun(LOCK_KEY, authorizationReaper.getLockExpire().toMillis(), TimeUnit.MILLISECONDS, this::purge);
+            if (!executed) {
+                log.trace("[Herodotus] |- OAuth2 authorization reaper is running on other instance, skip.");
+            }
+        } catch (Exception e) {
+            // 异常不能抛出，否则调度器会取消后续的执行
+            log.error("[Herodotus] |- OAuth2 authorization reaper execute failed.", e);
+        }
+    }
+
+    private void purge() {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        int chunkSize = authorizationReaper.getChunkSize();
+        int maxChunks = authorizationReaper.getMaxChunks();
+
+        long total = 0;
+        String lastId = "";
+        try {
+            for (int chunk = 0; chunk < maxChunks; chunk++) {
+                List<String> ids = herodotusAuthorizationService.findExpiredIds(now, lastId, chunkSize);
+                if (CollectionUtils.isEmpty(ids)) {
+                    break;
+                }
+
+                int count = herodotusAuthorizationService.deleteByIds(ids);
+                purged.add(count);
+                total += count;
+                lastId = ids.get(ids.size() - 1);
+
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+            }
+        } finally {
+            long nanos = System.nanoTime() - start;
+            runNanos.add(nanos);
+            runCount.increment();
+            log.debug("[Herodotus] |- OAuth2 authorization reaper purged [{}] expired authorizations in [{}] ms.", total, Duration.ofNanos(nanos).toMillis());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder(METRIC_PREFIX + ".purged", this, value -> value.purged.sum())
+                .description("Count of expired OAuth2 authorizations purged")
+                .register(registry);
+        FunctionTimer.builder(METRIC_PREFIX + ".run", this, value -> value.runCount.sum(), value -> value.runNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Time spent purging expired OAuth2 authorizations")
+                .register(registry);
+    }
+}
@@ -25,6 +25,8 @@
 
 package cn.herodotus.engine.rest.core.annotation;
 
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
+
 import java.lang.annotation.*;
 import java.time.Duration;
 
@@ -55,4 +57,13 @@ public @interface AccessLimited {
      * 如果设置了该值，就以该值进行设置。
      */
     String duration() default "";
+
+    /**
+     * 限流算法。
+     * <p>
+     * 默认为空，即不设置该属性，那么就使用 SecureProperties 中的配置。如果设置了多个值，只使用第一个。
+     *
+     * @return {@link RateLimitAlgorithm}
+     */
+    RateLimitAlgorithm[] algorithm() default {};
 }
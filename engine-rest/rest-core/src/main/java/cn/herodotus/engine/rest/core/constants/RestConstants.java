@@ -40,6 +40,7 @@ public interface RestConstants extends BaseConstants {
     String PROPERTY_PROTECT_CRYPTO = PROPERTY_PREFIX_HERODOTUS + ".crypto";
 
     String ITEM_PROTECT_CRYPTO_STRATEGY = PROPERTY_PROTECT_CRYPTO + ".crypto-strategy";
+    String ITEM_PROTECT_CRYPTO_KEY_PAIR_POOL_ENABLED = PROPERTY_PROTECT_CRYPTO + ".key-pair-pool.enabled";
 
     String CACHE_NAME_TOKEN_IDEMPOTENT = CACHE_TOKEN_BASE_PREFIX + "idempotent:";
     String CACHE_NAME_TOKEN_ACCESS_LIMITED = CACHE_TOKEN_BASE_PREFIX + "access_limited:";
@@ -60,4 +60,12 @@ public interface AsymmetricCryptoProcessor {
      * @return 加密后的数据
      */
     String encrypt(String content, String publicKey);
+
+    /**
+     * 秘钥失效时，清理与该 KeyPair 相关的缓存
+     *
+     * @param secretKey 非对称算法 KeyPair
+     */
+    default void evict(SecretKey secretKey) {
+    }
 }
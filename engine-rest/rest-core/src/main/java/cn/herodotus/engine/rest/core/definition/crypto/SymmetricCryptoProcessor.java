@@ -57,4 +57,12 @@ public interface SymmetricCryptoProcessor {
      * @return 加密后的数据
      */
     String encrypt(String data, String key);
+
+    /**
+     * 秘钥失效时，清理与该秘钥相关的缓存
+     *
+     * @param key 对称算法 秘钥
+     */
+    default void evict(String key) {
+    }
 }
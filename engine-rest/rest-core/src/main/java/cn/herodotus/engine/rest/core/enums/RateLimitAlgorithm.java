@@ -0,0 +1,56 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.core.enums;
+
+/**
+ * <p>Description: 接口限流算法 </p>
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 10:15
+ */
+public enum RateLimitAlgorithm {
+
+    /**
+     * 固定窗口计数。以第一次访问的时间为起点，窗口内最多访问指定次数
+     */
+    FIXED_WINDOW,
+    /**
+     * 令牌桶。令牌按照"次数/时间"的速率补充，桶容量即允许的突发访问次数
+     */
+    TOKEN_BUCKET,
+    /**
+     * 通用信元速率算法（Generic Cell Rate Algorithm）。效果与令牌桶一致，只需要保存一个时间戳
+     */
+    GCRA,
+    /**
+     * 滑动窗口日志。记录窗口内每次访问的时间，计数准确，占用空间与访问次数相关
+     */
+    SLIDING_WINDOW_LOG,
+    /**
+     * 滑动窗口计数。根据上一个窗口和当前窗口的计数加权估算，占用空间固定
+     */
+    SLIDING_WINDOW_COUNTER;
+}
@@ -44,6 +44,21 @@ public class CryptoProperties {
      */
     private CryptoStrategy cryptoStrategy = CryptoStrategy.SM;
 
+    /**
+     * 是否使用流式方式解密 JSON 请求体中的字段，不再将整个请求体读取为字符串和 JsonNode。默认开启
+     */
+    private Boolean streaming = true;
+
+    /**
+     * 需要解密的请求体最大字节数，超出时拒绝请求。默认 10MB
+     */
+    private Integer maxBodySize = 10 * 1024 * 1024;
+
+    /**
+     * 非对称算法 KeyPair 预生成池配置
+     */
+    private KeyPairPool keyPairPool = new KeyPairPool();
+
     public CryptoStrategy getCryptoStrategy() {
         return cryptoStrategy;
     }
@@ -52,10 +67,88 @@ public class CryptoProperties {
         this.cryptoStrategy = cryptoStrategy;
     }
 
+    public Boolean getStreaming() {
+        return streaming;
+    }
+
+    public void setStreaming(Boolean streaming) {
+        this.streaming = streaming;
+    }
+
+    public Integer getMaxBodySize() {
+        return maxBodySize;
+    }
+
+    public void setMaxBodySize(Integer maxBodySize) {
+        this.maxBodySize = maxBodySize;
+    }
+
+    public KeyPairPool getKeyPairPool() {
+        return keyPairPool;
+    }
+
+    public void setKeyPairPool(KeyPairPool keyPairPool) {
+        this.keyPairPool = keyPairPool;
+    }
+
     @Override
     public String toString() {
         return MoreObjects.toStringHelper(this)
                 .add("strategy", cryptoStrategy)
+                .add("streaming", streaming)
+                .add("maxBodySize", maxBodySize)
+                .add("keyPairPool", keyPairPool)
                 .toString();
     }
+
+    public static class KeyPairPool {
+
+        /**
+         * 是否开启 KeyPair 预生成池，默认开启
+         */
+        private Boolean enabled = true;
+
+        /**
+         * 低水位，池中数量低于该值时开始补充
+         */
+        private Integer lowWatermark = 8;
+
+        /**
+         * 高水位，补充到该数量为止，也是池的容量上限
+         */
+        private Integer highWatermark = 32;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getLowWatermark() {
+            return lowWatermark;
+        }
+
+        public void setLowWatermark(Integer lowWatermark) {
+            this.lowWatermark = lowWatermark;
+        }
+
+        public Integer getHighWatermark() {
+            return highWatermark;
+        }
+
+        public void setHighWatermark(Integer highWatermark) {
+            this.highWatermark = highWatermark;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("enabled", enabled)
+                    .add("lowWatermark", lowWatermark)
+                    .add("highWatermark", highWatermark)
+                    .toString();
+        }
+    }
 }
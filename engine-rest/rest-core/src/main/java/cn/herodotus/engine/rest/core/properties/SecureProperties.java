@@ -25,12 +25,17 @@
 
 package cn.herodotus.engine.rest.core.properties;
 
+import cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders;
 import cn.herodotus.engine.rest.core.constants.RestConstants;
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
 import com.google.common.base.MoreObjects;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
 import java.io.Serializable;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * <p>Description: 跟踪标记配置属性 </p>
@@ -43,6 +48,7 @@ public class SecureProperties {
 
     private Idempotent idempotent = new Idempotent();
     private AccessLimited accessLimited = new AccessLimited();
+    private Xss xss = new Xss();
 
     public Idempotent getIdempotent() {
         return idempotent;
@@ -60,6 +66,14 @@ public class SecureProperties {
         this.accessLimited = accessLimited;
     }
 
+    public Xss getXss() {
+        return xss;
+    }
+
+    public void setXss(Xss xss) {
+        this.xss = xss;
+    }
+
     public static class Idempotent implements Serializable {
 
         /**
@@ -67,6 +81,21 @@ public class SecureProperties {
          */
         private Duration expire = Duration.ofSeconds(5);
 
+        /**
+         * 是否保存第一次请求的响应，重复请求直接返回该响应，而不是抛出重复提交异常。默认开启
+         */
+        private Boolean replay = true;
+
+        /**
+         * 客户端指定幂等 Key 使用的请求头，仅在能够识别调用方时生效
+         */
+        private String keyHeader = HttpHeaders.IDEMPOTENCY_KEY;
+
+        /**
+         * 可保存的响应体和可计算摘要的请求体的最大字节数，超出时不保存响应，也不使用请求体生成幂等 Key。默认 64KB
+         */
+        private Integer maxBodySize = 64 * 1024;
+
         public Duration getExpire() {
             return expire;
         }
@@ -75,10 +104,37 @@ public class SecureProperties {
             this.expire = expire;
         }
 
+        public Boolean getReplay() {
+            return replay;
+        }
+
+        public void setReplay(Boolean replay) {
+            this.replay = replay;
+        }
+
+        public String getKeyHeader() {
+            return keyHeader;
+        }
+
+        public void setKeyHeader(String keyHeader) {
+            this.keyHeader = keyHeader;
+        }
+
+        public Integer getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(Integer maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
                     .add("expire", expire)
+                    .add("replay", replay)
+                    .add("keyHeader", keyHeader)
+                    .add("maxBodySize", maxBodySize)
                     .toString();
         }
     }
@@ -95,6 +151,16 @@ public class SecureProperties {
          */
         private Duration expire = Duration.ofSeconds(30);
 
+        /**
+         * 默认的限流算法，默认为固定窗口
+         */
+        private RateLimitAlgorithm algorithm = RateLimitAlgorithm.FIXED_WINDOW;
+
+        /**
+         * 使用 Redis 限流时，是否先在本地进行预检。本地已经超出限制的请求直接拒绝，不再访问 Redis。默认开启
+         */
+        private Boolean localPreCheck = true;
+
         public int getMaxTimes() {
             return maxTimes;
         }
@@ -111,11 +177,67 @@ public class SecureProperties {
             this.expire = expire;
         }
 
+        public RateLimitAlgorithm getAlgorithm() {
+            return algorithm;
+        }
+
+        public void setAlgorithm(RateLimitAlgorithm algorithm) {
+            this.algorithm = algorithm;
+        }
+
+        public Boolean getLocalPreCheck() {
+            return localPreCheck;
+        }
+
+        public void setLocalPreCheck(Boolean localPreCheck) {
+            this.localPreCheck = localPreCheck;
+        }
+
         @Override
         public String toString() {
             return MoreObjects.toStringHelper(this)
                     .add("maxTimes", maxTimes)
                     .add("expire", expire)
+                    .add("algorithm", algorithm)
+                    .add("localPreCheck", localPreCheck)
+                    .toString();
+        }
+    }
+
+    public static class Xss implements Serializable {
+
+        /**
+         * 不进行 Xss 清洗的请求路径，支持 Ant 风格，与应用内的请求路径匹配。默认为静态资源目录。
+         * 不要配置按扩展名匹配的模式，接口路径同样可以以这些扩展名结尾
+         */
+        private List<String> skipPaths = new ArrayList<>(Arrays.asList("/static/**", "/webjars/**"));
+
+        /**
+         * 不进行 Xss 清洗的请求头，不区分大小写。默认不清洗 Authorization，避免每次请求都扫描 Token
+         */
+        private List<String> skipHeaders = new ArrayList<>(Arrays.asList("Authorization"));
+
+        public List<String> getSkipPaths() {
+            return skipPaths;
+        }
+
+        public void setSkipPaths(List<String> skipPaths) {
+            this.skipPaths = skipPaths;
+        }
+
+        public List<String> getSkipHeaders() {
+            return skipHeaders;
+        }
+
+        public void setSkipHeaders(List<String> skipHeaders) {
+            this.skipHeaders = skipHeaders;
+        }
+
+        @Override
+        public String toString() {
+            return MoreObjects.toStringHelper(this)
+                    .add("skipPaths", skipPaths)
+                    .add("skipHeaders", skipHeaders)
                     .toString();
         }
     }
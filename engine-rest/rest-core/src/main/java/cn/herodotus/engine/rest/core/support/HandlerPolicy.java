@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.core.support;
+
+import cn.herodotus.engine.rest.core.annotation.AccessLimited;
+import cn.herodotus.engine.rest.core.annotation.Crypto;
+import cn.herodotus.engine.rest.core.annotation.Idempotent;
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
+import com.google.common.base.MoreObjects;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+
+/**
+ * <p>Description: 接口方法防护策略 </p>
+ * <p>
+ * 将接口方法上 {@link Crypto}、{@link Idempotent} 和 {@link AccessLimited} 注解的配置一次性解析完成，对象创建后不可变。
+ * {@link Crypto} 与原有 {@code MethodParameter#getMethodAnnotation} 一致，支持接口方法、父类方法以及组合注解。
+ * 注解中的 Duration 格式错误时直接抛出异常，不再在每次请求时记录日志。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/22 10:15
+ */
+public final class HandlerPolicy {
+
+    private static final HandlerPolicy NONE = new HandlerPolicy(false, false, false, Duration.ZERO, false, 0, Duration.ZERO, null);
+
+    private final boolean requestDecrypt;
+    private final boolean responseEncrypt;
+    private final boolean idempotent;
+    private final Duration idempotentExpire;
+    private final boolean accessLimited;
+    private final int accessLimitedMaxTimes;
+    private final Duration accessLimitedDuration;
+    private final RateLimitAlgorithm accessLimitedAlgorithm;
+
+    private HandlerPolicy(boolean requestDecrypt, boolean responseEncrypt, boolean idempotent, Duration idempotentExpire, boolean accessLimited, int accessLimitedMaxTimes, Duration accessLimitedDuration, RateLimitAlgorithm accessLimitedAlgorithm) {
+        this.requestDecrypt = requestDecrypt;
+        this.responseEncrypt = responseEncrypt;
+        this.idempotent = idempotent;
+        this.idempotentExpire = idempotentExpire;
+        this.accessLimited = accessLimited;
+        this.accessLimitedMaxTimes = accessLimitedMaxTimes;
+        this.accessLimitedDuration = accessLimitedDuration;
+        this.accessLimitedAlgorithm = accessLimitedAlgorithm;
+    }
+
+    /**
+     * 解析接口方法上的注解
+     *
+     * @param method 接口方法
+     * @return {@link HandlerPolicy}
+     * @throws IllegalArgumentException 注解中的 Duration 格式错误
+     */
+    public static HandlerPolicy resolve(Method method) {
+        Crypto crypto = AnnotatedElementUtils.findMergedAnnotation(method, Crypto.class);
+        Idempotent idempotent = method.getAnnotation(Idempotent.class);
+        AccessLimited accessLimited = method.getAnnotation(AccessLimited.class);
+
+        if (crypto == null && idempotent == null && accessLimited == null) {
+            return NONE;
+        }
+
+        return new HandlerPolicy(
+                crypto != null && crypto.requestDecrypt(),
+                crypto != null && crypto.responseEncrypt(),
+                idempotent != null,
+                idempotent != null ? parseDuration(idempotent.expire(), "Idempotent", method) : Duration.ZERO,
+                accessLimited != null,
+                accessLimited != null ? accessLimited.maxTimes() : 0,
+                accessLimited != null ? parseDuration(accessLimited.duration(), "AccessLimited", method) : Duration.ZERO,
+                accessLimited != null && ArrayUtils.isNotEmpty(accessLimited.algorithm()) ? accessLimited.algorithm()[0] : null);
+    }
+
+    private static Duration parseDuration(String value, String annotation, Method method) {
+        if (StringUtils.isBlank(value)) {
+            return Duration.ZERO;
+        }
+
+        try {
+            return Duration.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("@" + annotation + " duration value [" + value + "] is incorrect, on method [" + method.toGenericString() + "].", e);
+        }
+    }
+
+    public boolean isRequestDecrypt() {
+        return requestDecrypt;
+    }
+
+    public boolean isResponseEncrypt() {
+        return responseEncrypt;
+    }
+
+    public boolean isIdempotent() {
+        return idempotent;
+    }
+
+    /**
+     * 注解中配置的幂等有效时间
+     *
+     * @return 未配置时返回 {@link Duration#ZERO}
+     */
+    public Duration getIdempotentExpire() {
+        return idempotentExpire;
+    }
+
+    public boolean isAccessLimited() {
+        return accessLimited;
+    }
+
+    /**
+     * 注解中配置的访问次数
+     *
+     * @return 未配置时返回 0
+     */
+    public int getAccessLimitedMaxTimes() {
+        return accessLimitedMaxTimes;
+    }
+
+    /**
+     * 注解中配置的限流时间窗口
+     *
+     * @return 未配置时返回 {@link Duration#ZERO}
+     */
+    public Duration getAccessLimitedDuration() {
+        return accessLimitedDuration;
+    }
+
+    /**
+     * 注解中配置的限流算法
+     *
+     * @return 未配置时返回 null
+     */
+    public RateLimitAlgorithm getAccessLimitedAlgorithm() {
+        return accessLimitedAlgorithm;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("requestDecrypt", requestDecrypt)
+                .add("responseEncrypt", responseEncrypt)
+                .add("idempotent", idempotent)
+                .add("idempotentExpire", idempotentExpire)
+                .add("accessLimited", accessLimited)
+                .add("accessLimitedMaxTimes", accessLimitedMaxTimes)
+                .add("accessLimitedDuration", accessLimitedDuration)
+                .add("accessLimitedAlgorithm", accessLimitedAlgorithm)
+                .toString();
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.core.support;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.context.ApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>Description: 接口方法防护策略注册表 </p>
+ * <p>
+ * 在所有单例 Bean 初始化完成后，遍历 {@link RequestMappingHandlerMapping} 中注册的全部接口方法，预先解析 {@link HandlerPolicy}。
+ * 注册表以 {@link Method} 对象为 Key 构建为不可变的 {@link IdentityHashMap}，拦截器和 Advice 每次请求只需要一次按引用的查找。
+ * 注解配置错误会导致应用启动失败。
+ * <p>
+ * 未在启动时注册的方法（如动态注册的接口）在第一次访问时解析，并单独缓存。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/22 10:40
+ */
+public class HandlerPolicyRegistry implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(HandlerPolicyRegistry.class);
+
+    private final ApplicationContext applicationContext;
+
+    private volatile Map<Method, HandlerPolicy> policies = Collections.emptyMap();
+    private final Map<Method, HandlerPolicy> latePolicies = new ConcurrentHashMap<>();
+
+    public HandlerPolicyRegistry(ApplicationContext applicationContext) {
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        Map<Method, HandlerPolicy> values = new IdentityHashMap<>();
+        applicationContext.getBeansOfType(RequestMappingHandlerMapping.class).values()
+                .forEach(mapping -> mapping.getHandlerMethods().values()
+                        .forEach(handlerMethod -> values.computeIfAbsent(handlerMethod.getMethod(), HandlerPolicy::resolve)));
+        this.policies = Collections.unmodifiableMap(values);
+        log.debug("[Herodotus] |- Handler policy registry initialized with [{}] methods.", values.size());
+    }
+
+    public HandlerPolicy get(HandlerMethod handlerMethod) {
+        return get(handlerMethod.getMethod());
+    }
+
+    public HandlerPolicy get(Method method) {
+        HandlerPolicy policy = policies.get(method);
+        if (policy != null) {
+            return policy;
+        }
+        return latePolicies.computeIfAbsent(method, HandlerPolicy::resolve);
+    }
+
+    /**
+     * 没有注册表时的兜底方法，直接解析注解
+     *
+     * @param registry 注册表，可以为空
+     * @param method   接口方法
+     * @return {@link HandlerPolicy}
+     */
+    public static HandlerPolicy resolve(HandlerPolicyRegistry registry, Method method) {
+        return registry != null ? registry.get(method) : HandlerPolicy.resolve(method);
+    }
+}
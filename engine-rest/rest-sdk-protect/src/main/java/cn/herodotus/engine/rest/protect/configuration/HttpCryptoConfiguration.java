@@ -25,18 +25,23 @@
 
 package cn.herodotus.engine.rest.protect.configuration;
 
+import cn.herodotus.engine.rest.core.constants.RestConstants;
 import cn.herodotus.engine.rest.core.definition.crypto.AsymmetricCryptoProcessor;
 import cn.herodotus.engine.rest.core.definition.crypto.SymmetricCryptoProcessor;
 import cn.herodotus.engine.rest.core.properties.CryptoProperties;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
 import cn.herodotus.engine.rest.protect.crypto.enhance.DecryptRequestBodyAdvice;
 import cn.herodotus.engine.rest.protect.crypto.enhance.DecryptRequestParamMapResolver;
 import cn.herodotus.engine.rest.protect.crypto.enhance.DecryptRequestParamResolver;
 import cn.herodotus.engine.rest.protect.crypto.enhance.EncryptResponseBodyAdvice;
 import cn.herodotus.engine.rest.protect.crypto.processor.HttpCryptoProcessor;
+import cn.herodotus.engine.rest.protect.crypto.processor.SecretKeyPool;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -66,8 +71,17 @@ public class HttpCryptoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public HttpCryptoProcessor interfaceCryptoProcessor(AsymmetricCryptoProcessor asymmetricCryptoProcessor, SymmetricCryptoProcessor symmetricCryptoProcessor) {
-        HttpCryptoProcessor httpCryptoProcessor = new HttpCryptoProcessor(asymmetricCryptoProcessor, symmetricCryptoProcessor);
+    @ConditionalOnProperty(name = RestConstants.ITEM_PROTECT_CRYPTO_KEY_PAIR_POOL_ENABLED, havingValue = "true", matchIfMissing = true)
+    public SecretKeyPool secretKeyPool(AsymmetricCryptoProcessor asymmetricCryptoProcessor, CryptoProperties cryptoProperties) {
+        SecretKeyPool secretKeyPool = new SecretKeyPool(asymmetricCryptoProcessor, cryptoProperties.getKeyPairPool());
+        log.trace("[Herodotus] |- Bean [Secret Key Pool] Auto Configure.");
+        return secretKeyPool;
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HttpCryptoProcessor interfaceCryptoProcessor(AsymmetricCryptoProcessor asymmetricCryptoProcessor, SymmetricCryptoProcessor symmetricCryptoProcessor, ObjectProvider<SecretKeyPool> secretKeyPool) {
+        HttpCryptoProcessor httpCryptoProcessor = new HttpCryptoProcessor(asymmetricCryptoProcessor, symmetricCryptoProcessor, secretKeyPool.getIfAvailable());
         log.trace("[Herodotus] |- Bean [Interface Crypto Processor] Auto Configure.");
         return httpCryptoProcessor;
     }
@@ -75,9 +89,11 @@ public class HttpCryptoConfiguration {
     @Bean
     @ConditionalOnClass(HttpCryptoProcessor.class)
     @ConditionalOnMissingBean
-    public DecryptRequestBodyAdvice decryptRequestBodyAdvice(HttpCryptoProcessor httpCryptoProcessor) {
+    public DecryptRequestBodyAdvice decryptRequestBodyAdvice(HttpCryptoProcessor httpCryptoProcessor, CryptoProperties cryptoProperties, ObjectProvider<HandlerPolicyRegistry> handlerPolicyRegistry) {
         DecryptRequestBodyAdvice decryptRequestBodyAdvice = new DecryptRequestBodyAdvice();
         decryptRequestBodyAdvice.setInterfaceCryptoProcessor(httpCryptoProcessor);
+        decryptRequestBodyAdvice.setHandlerPolicyRegistry(handlerPolicyRegistry.getIfAvailable());
+        decryptRequestBodyAdvice.setCryptoProperties(cryptoProperties);
         log.trace("[Herodotus] |- Bean [Decrypt Request Body Advice] Auto Configure.");
         return decryptRequestBodyAdvice;
     }
@@ -85,9 +101,10 @@ public class HttpCryptoConfiguration {
     @Bean
     @ConditionalOnClass(HttpCryptoProcessor.class)
     @ConditionalOnMissingBean
-    public EncryptResponseBodyAdvice encryptResponseBodyAdvice(HttpCryptoProcessor httpCryptoProcessor) {
+    public EncryptResponseBodyAdvice encryptResponseBodyAdvice(HttpCryptoProcessor httpCryptoProcessor, ObjectProvider<HandlerPolicyRegistry> handlerPolicyRegistry) {
         EncryptResponseBodyAdvice encryptResponseBodyAdvice = new EncryptResponseBodyAdvice();
         encryptResponseBodyAdvice.setInterfaceCryptoProcessor(httpCryptoProcessor);
+        encryptResponseBodyAdvice.setHandlerPolicyRegistry(handlerPolicyRegistry.getIfAvailable());
         log.trace("[Herodotus] |- Bean [Encrypt Response Body Advice] Auto Configure.");
         return encryptResponseBodyAdvice;
     }
@@ -95,9 +112,10 @@ public class HttpCryptoConfiguration {
     @Bean
     @ConditionalOnClass(HttpCryptoProcessor.class)
     @ConditionalOnMissingBean
-    public DecryptRequestParamMapResolver decryptRequestParamStringResolver(HttpCryptoProcessor httpCryptoProcessor) {
+    public DecryptRequestParamMapResolver decryptRequestParamStringResolver(HttpCryptoProcessor httpCryptoProcessor, ObjectProvider<HandlerPolicyRegistry> handlerPolicyRegistry) {
         DecryptRequestParamMapResolver decryptRequestParamMapResolver = new DecryptRequestParamMapResolver();
         decryptRequestParamMapResolver.setInterfaceCryptoProcessor(httpCryptoProcessor);
+        decryptRequestParamMapResolver.setHandlerPolicyRegistry(handlerPolicyRegistry.getIfAvailable());
         log.trace("[Herodotus] |- Bean [Decrypt Request Param Map Resolver] Auto Configure.");
         return decryptRequestParamMapResolver;
     }
@@ -105,9 +123,10 @@ public class HttpCryptoConfiguration {
     @Bean
     @ConditionalOnClass(HttpCryptoProcessor.class)
     @ConditionalOnMissingBean
-    public DecryptRequestParamResolver decryptRequestParamResolver(HttpCryptoProcessor httpCryptoProcessor) {
+    public DecryptRequestParamResolver decryptRequestParamResolver(HttpCryptoProcessor httpCryptoProcessor, ObjectProvider<HandlerPolicyRegistry> handlerPolicyRegistry) {
         DecryptRequestParamResolver decryptRequestParamResolver = new DecryptRequestParamResolver();
         decryptRequestParamResolver.setInterfaceCryptoProcessor(httpCryptoProcessor);
+        decryptRequestParamResolver.setHandlerPolicyRegistry(handlerPolicyRegistry.getIfAvailable());
         log.trace("[Herodotus] |- Bean [Decrypt Request Param Resolver] Auto Configure.");
         return decryptRequestParamResolver;
     }
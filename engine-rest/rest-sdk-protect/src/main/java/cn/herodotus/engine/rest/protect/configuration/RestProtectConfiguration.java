@@ -25,8 +25,12 @@
 
 package cn.herodotus.engine.rest.protect.configuration;
 
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Import;
 
@@ -52,4 +56,12 @@ public class RestProtectConfiguration {
     public void postConstruct() {
         log.debug("[Herodotus] |- SDK [Rest Protect] Auto Configure.");
     }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public HandlerPolicyRegistry handlerPolicyRegistry(ApplicationContext applicationContext) {
+        HandlerPolicyRegistry handlerPolicyRegistry = new HandlerPolicyRegistry(applicationContext);
+        log.trace("[Herodotus] |- Bean [Handler Policy Registry] Auto Configure.");
+        return handlerPolicyRegistry;
+    }
 }
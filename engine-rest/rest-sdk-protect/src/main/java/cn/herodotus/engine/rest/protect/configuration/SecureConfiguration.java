@@ -26,18 +26,32 @@
 package cn.herodotus.engine.rest.protect.configuration;
 
 import cn.herodotus.engine.rest.core.properties.SecureProperties;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
+import cn.herodotus.engine.rest.protect.secure.idempotent.IdempotentStore;
+import cn.herodotus.engine.rest.protect.secure.idempotent.LocalIdempotentStore;
+import cn.herodotus.engine.rest.protect.secure.idempotent.RedisIdempotentStore;
 import cn.herodotus.engine.rest.protect.secure.interceptor.AccessLimitedInterceptor;
+import cn.herodotus.engine.rest.protect.secure.interceptor.IdempotentHttpServletFilter;
 import cn.herodotus.engine.rest.protect.secure.interceptor.IdempotentInterceptor;
 import cn.herodotus.engine.rest.protect.secure.interceptor.XssHttpServletFilter;
+import cn.herodotus.engine.rest.protect.secure.limiter.LocalRateLimiter;
+import cn.herodotus.engine.rest.protect.secure.limiter.RateLimiter;
+import cn.herodotus.engine.rest.protect.secure.limiter.RedisRateLimiter;
+import cn.herodotus.engine.rest.protect.secure.limiter.TieredRateLimiter;
 import cn.herodotus.engine.rest.protect.secure.stamp.AccessLimitedStampManager;
 import cn.herodotus.engine.rest.protect.secure.stamp.IdempotentStampManager;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.StringRedisTemplate;
 
 import javax.annotation.PostConstruct;
 
@@ -74,12 +88,51 @@ public class SecureConfiguration {
         return accessLimitedStampManager;
     }
 
+    /**
+     * 存在 Redis 时使用 Redis 限流，并根据配置决定是否先进行本地预检；否则使用本地限流
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public RateLimiter rateLimiter(SecureProperties secureProperties, ObjectProvider<StringRedisTemplate> stringRedisTemplate) {
+        RateLimiter rateLimiter;
+        StringRedisTemplate template = stringRedisTemplate.getIfAvailable();
+        if (ObjectUtils.isEmpty(template)) {
+            rateLimiter = new LocalRateLimiter();
+        } else if (BooleanUtils.isTrue(secureProperties.getAccessLimited().getLocalPreCheck())) {
+            rateLimiter = new TieredRateLimiter(new LocalRateLimiter(), new RedisRateLimiter(template));
+        } else {
+            rateLimiter = new RedisRateLimiter(template);
+        }
+        log.trace("[Herodotus] |- Bean [Rate Limiter] Auto Configure.");
+        return rateLimiter;
+    }
+
+    /**
+     * 存在 Redis 时使用 Redis 保存幂等记录，否则使用本地存储
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public IdempotentStore idempotentStore(ObjectProvider<StringRedisTemplate> stringRedisTemplate) {
+        IdempotentStore idempotentStore;
+        StringRedisTemplate template = stringRedisTemplate.getIfAvailable();
+        if (ObjectUtils.isEmpty(template)) {
+            idempotentStore = new LocalIdempotentStore();
+        } else {
+            idempotentStore = new RedisIdempotentStore(template);
+        }
+        log.trace("[Herodotus] |- Bean [Idempotent Store] Auto Configure.");
+        return idempotentStore;
+    }
+
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnBean(IdempotentStampManager.class)
-    public IdempotentInterceptor idempotentInterceptor(IdempotentStampManager idempotentStampManager) {
+    public IdempotentInterceptor idempotentInterceptor(IdempotentStampManager idempotentStampManager, ObjectProvider<IdempotentStore> idempotentStore, SecureProperties secureProperties, ObjectProvider<HandlerPolicyRegistry> handlerPolicyRegistry) {
         IdempotentInterceptor idempotentInterceptor = new IdempotentInterceptor();
         idempotentInterceptor.setIdempotentStampManager(idempotentStampManager);
+        idempotentInterceptor.setIdempotentStore(idempotentStore.getIfAvailable());
+        idempotentInterceptor.setIdempotent(secureProperties.getIdempotent());
+        idempotentInterceptor.setHandlerPolicyRegistry(handlerPolicyRegistry.getIfAvailable());
         log.trace("[Herodotus] |- Bean [Idempotent Interceptor] Auto Configure.");
         return idempotentInterceptor;
     }
@@ -87,18 +140,29 @@ public class SecureConfiguration {
     @Bean
     @ConditionalOnMissingBean
     @ConditionalOnBean(AccessLimitedStampManager.class)
-    public AccessLimitedInterceptor accessLimitedInterceptor(AccessLimitedStampManager accessLimitedStampManager) {
+    public AccessLimitedInterceptor accessLimitedInterceptor(AccessLimitedStampManager accessLimitedStampManager, RateLimiter rateLimiter, ObjectProvider<MeterRegistry> meterRegistry, ObjectProvider<HandlerPolicyRegistry> handlerPolicyRegistry) {
         AccessLimitedInterceptor accessLimitedInterceptor = new AccessLimitedInterceptor();
         accessLimitedInterceptor.setAccessLimitedStampManager(accessLimitedStampManager);
+        accessLimitedInterceptor.setRateLimiter(rateLimiter);
+        accessLimitedInterceptor.setMeterRegistry(meterRegistry.getIfAvailable());
+        accessLimitedInterceptor.setHandlerPolicyRegistry(handlerPolicyRegistry.getIfAvailable());
         log.trace("[Herodotus] |- Bean [Access Limited Interceptor] Auto Configure.");
         return accessLimitedInterceptor;
     }
 
     @Bean
     @ConditionalOnMissingBean
-    public XssHttpServletFilter xssHttpServletFilter() {
-        XssHttpServletFilter xssHttpServletFilter = new XssHttpServletFilter();
+    public XssHttpServletFilter xssHttpServletFilter(SecureProperties secureProperties) {
+        XssHttpServletFilter xssHttpServletFilter = new XssHttpServletFilter(secureProperties.getXss());
         log.trace("[Herodotus] |- Bean [Xss Http Servlet Filter] Auto Configure.");
         return xssHttpServletFilter;
     }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public IdempotentHttpServletFilter idempotentHttpServletFilter() {
+        IdempotentHttpServletFilter idempotentHttpServletFilter = new IdempotentHttpServletFilter();
+        log.trace("[Herodotus] |- Bean [Idempotent Http Servlet Filter] Auto Configure.");
+        return idempotentHttpServletFilter;
+    }
 }
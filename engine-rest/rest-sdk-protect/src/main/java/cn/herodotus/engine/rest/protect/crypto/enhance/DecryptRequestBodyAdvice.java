@@ -26,13 +26,19 @@
 package cn.herodotus.engine.rest.protect.crypto.enhance;
 
 import cn.herodotus.engine.assistant.core.json.jackson2.utils.JacksonUtils;
-import cn.herodotus.engine.rest.core.annotation.Crypto;
 import cn.herodotus.engine.rest.core.exception.SessionInvalidException;
+import cn.herodotus.engine.rest.core.properties.CryptoProperties;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
 import cn.herodotus.engine.rest.protect.crypto.processor.HttpCryptoProcessor;
 import cn.hutool.core.io.IoUtil;
 import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.commons.lang3.BooleanUtils;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -44,15 +50,18 @@ import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdvice;
 
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
 import java.util.Iterator;
 import java.util.Map;
 
 /**
  * <p>Description: RequestBody 解密 Advice</p>
+ * <p>
+ * 请求体有两种形式：整体加密的字符串，或者字段值分别加密的 JSON。
+ * 开启流式解密时，根据第一个非空白字符判断请求体形式。JSON 请求体由 {@link JsonParser} 逐个读取 Token，
+ * 字段值解密后直接写入 {@link JsonGenerator}，内存中只保留解密后的结果，不再生成整个请求体的字符串和 JsonNode。
  *
  * @author : gengwei.zheng
  * @date : 2021/10/4 12:15
@@ -63,18 +72,26 @@ public class DecryptRequestBodyAdvice implements RequestBodyAdvice {
     private static final Logger log = LoggerFactory.getLogger(DecryptRequestBodyAdvice.class);
 
     private HttpCryptoProcessor httpCryptoProcessor;
+    private HandlerPolicyRegistry handlerPolicyRegistry;
+    private CryptoProperties cryptoProperties = new CryptoProperties();
 
     public void setInterfaceCryptoProcessor(HttpCryptoProcessor httpCryptoProcessor) {
         this.httpCryptoProcessor = httpCryptoProcessor;
     }
 
+    public void setHandlerPolicyRegistry(HandlerPolicyRegistry handlerPolicyRegistry) {
+        this.handlerPolicyRegistry = handlerPolicyRegistry;
+    }
+
+    public void setCryptoProperties(CryptoProperties cryptoProperties) {
+        this.cryptoProperties = cryptoProperties;
+    }
+
     @Override
     public boolean supports(MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) {
 
         String methodName = methodParameter.getMethod().getName();
-        Crypto crypto = methodParameter.getMethodAnnotation(Crypto.class);
-
-        boolean isSupports = ObjectUtils.isNotEmpty(crypto) && crypto.requestDecrypt();
+        boolean isSupports = HandlerPolicyRegistry.resolve(handlerPolicyRegistry, methodParameter.getMethod()).isRequestDecrypt();
 
         log.trace("[Herodotus] |- Is DecryptRequestBodyAdvice supports method [{}] ? Status is [{}].", methodName, isSupports);
         return isSupports;
@@ -83,7 +100,7 @@ public class DecryptRequestBodyAdvice implements RequestBodyAdvice {
     @Override
     public HttpInputMessage beforeBodyRead(HttpInputMessage httpInputMessage, MethodParameter methodParameter, Type targetType, Class<? extends HttpMessageConverter<?>> converterType) throws IOException {
 
-        String sessionKey = httpInputMessage.getHeaders().get(cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders.X_HERODOTUS_SESSION).get(0);
+        String sessionKey = httpInputMessage.getHeaders().getFirst(cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders.X_HERODOTUS_SESSION);
 
         if (StringUtils.isBlank(sessionKey)) {
             log.warn("[Herodotus] |- Cannot find Herodotus Cloud custom session header. Use interface crypto founction need add X_HERODOTUS_SESSION to request header.");
@@ -95,6 +112,12 @@ public class DecryptRequestBodyAdvice implements RequestBodyAdvice {
         String methodName = methodParameter.getMethod().getName();
         String className = methodParameter.getDeclaringClass().getName();
 
+        if (BooleanUtils.isTrue(cryptoProperties.getStreaming())) {
+            byte[] data = streamingDecrypt(sessionKey, httpInputMessage.getBody());
+            log.debug("[Herodotus] |- Streaming decrypt request body for rest method [{}] in [{}] finished.", methodName, className);
+            return new DecryptHttpInputMessage(httpInputMessage, data);
+        }
+
         String content = IoUtil.read(httpInputMessage.getBody()).toString();
 
         if (StringUtils.isNotBlank(content)) {
@@ -109,6 +132,42 @@ public class DecryptRequestBodyAdvice implements RequestBodyAdvice {
         }
     }
 
+    private byte[] streamingDecrypt(String sessionKey, InputStream body) throws IOException {
+        PushbackInputStream input = new PushbackInputStream(new LimitedInputStream(body, cryptoProperties.getMaxBodySize()), 1);
+
+        int first;
+        do {
+            first = input.read();
+        } while (first != -1 && Character.isWhitespace(first));
+
+        if (first == -1) {
+            return new byte[0];
+        }
+        input.unread(first);
+
+        if (first != '{' && first != '[') {
+            // 整体加密的请求体
+            String content = IoUtil.read(input, StandardCharsets.UTF_8);
+            return StrUtil.utf8Bytes(httpCryptoProcessor.decrypt(sessionKey, content));
+        }
+
+        JsonFactory factory = JacksonUtils.getObjectMapper().getFactory();
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonParser parser = factory.createParser(input);
+             JsonGenerator generator = factory.createGenerator(output)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                // 与原有逻辑保持一致，只解密对象中的字符串字段值，不处理数组中的字符串元素
+                if (token == JsonToken.VALUE_STRING && parser.getParsingContext().inObject()) {
+                    generator.writeString(httpCryptoProcessor.decrypt(sessionKey, parser.getText()));
+                } else {
+                    generator.copyCurrentEvent(parser);
+                }
+            }
+        }
+        return output.toByteArray();
+    }
+
     private String decrypt(String sessionKey, String content) throws SessionInvalidException {
         JsonNode jsonNode = JacksonUtils.toNode(content);
         if (ObjectUtils.isNotEmpty(jsonNode)) {
@@ -150,6 +209,55 @@ public class DecryptRequestBodyAdvice implements RequestBodyAdvice {
         return body;
     }
 
+    /**
+     * 限制读取字节数的输入流，超出限制时抛出 {@link IOException}，由 Spring 转换为请求体不可读异常
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        private LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        private void count(long length) throws IOException {
+            if (length > 0) {
+                count += length;
+                if (count > limit) {
+                    throw new IOException("Request body exceeds the maximum size [" + limit + "] allowed for decryption.");
+                }
+            }
+        }
+
+        @Override
+        public int read() throws IOException {
+            int result = super.read();
+            count(result == -1 ? 0 : 1);
+            return result;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int result = super.read(b, off, len);
+            count(result);
+            return result;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long result = super.skip(n);
+            count(result);
+            return result;
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
+        }
+    }
+
     public static class DecryptHttpInputMessage implements HttpInputMessage {
 
         private final HttpInputMessage httpInputMessage;
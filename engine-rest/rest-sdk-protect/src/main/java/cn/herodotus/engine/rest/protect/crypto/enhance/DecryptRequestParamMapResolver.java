@@ -27,9 +27,8 @@ package cn.herodotus.engine.rest.protect.crypto.enhance;
 
 import cn.herodotus.engine.assistant.core.definition.constants.BaseConstants;
 import cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders;
-import cn.herodotus.engine.rest.core.annotation.Crypto;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
 import cn.herodotus.engine.rest.protect.crypto.processor.HttpCryptoProcessor;
-import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -65,12 +64,17 @@ public class DecryptRequestParamMapResolver implements HandlerMethodArgumentReso
     private static final Logger log = LoggerFactory.getLogger(DecryptRequestParamMapResolver.class);
 
     private HttpCryptoProcessor httpCryptoProcessor;
+    private HandlerPolicyRegistry handlerPolicyRegistry;
     private RequestParamMapMethodArgumentResolver requestParamMapMethodArgumentResolver;
 
     public void setInterfaceCryptoProcessor(HttpCryptoProcessor httpCryptoProcessor) {
         this.httpCryptoProcessor = httpCryptoProcessor;
     }
 
+    public void setHandlerPolicyRegistry(HandlerPolicyRegistry handlerPolicyRegistry) {
+        this.handlerPolicyRegistry = handlerPolicyRegistry;
+    }
+
     public void setRequestParamMapMethodArgumentResolver(RequestParamMapMethodArgumentResolver requestParamMapMethodArgumentResolver) {
         this.requestParamMapMethodArgumentResolver = requestParamMapMethodArgumentResolver;
     }
@@ -92,8 +96,7 @@ public class DecryptRequestParamMapResolver implements HandlerMethodArgumentReso
      * @return 是否开启了自定义@Crypto
      */
     private boolean isConfigCrypto(MethodParameter methodParameter) {
-        Crypto crypto = methodParameter.getMethodAnnotation(Crypto.class);
-        return ObjectUtils.isNotEmpty(crypto) && crypto.requestDecrypt();
+        return methodParameter.getMethod() != null && HandlerPolicyRegistry.resolve(handlerPolicyRegistry, methodParameter.getMethod()).isRequestDecrypt();
     }
 
     /**
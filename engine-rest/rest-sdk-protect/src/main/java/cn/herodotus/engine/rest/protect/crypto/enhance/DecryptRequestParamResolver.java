@@ -26,8 +26,8 @@
 package cn.herodotus.engine.rest.protect.crypto.enhance;
 
 import cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders;
-import cn.herodotus.engine.rest.core.annotation.Crypto;
 import cn.herodotus.engine.rest.core.exception.SessionInvalidException;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
 import cn.herodotus.engine.rest.protect.crypto.processor.HttpCryptoProcessor;
 import org.apache.commons.lang3.ArrayUtils;
 import org.apache.commons.lang3.ObjectUtils;
@@ -58,6 +58,7 @@ public class DecryptRequestParamResolver implements HandlerMethodArgumentResolve
     private static final Logger log = LoggerFactory.getLogger(DecryptRequestParamResolver.class);
 
     private HttpCryptoProcessor httpCryptoProcessor;
+    private HandlerPolicyRegistry handlerPolicyRegistry;
     private RequestParamMethodArgumentResolver requestParamMethodArgumentResolver;
 
     public void setRequestParamMethodArgumentResolver(RequestParamMethodArgumentResolver requestParamMethodArgumentResolver) {
@@ -68,6 +69,10 @@ public class DecryptRequestParamResolver implements HandlerMethodArgumentResolve
         this.httpCryptoProcessor = httpCryptoProcessor;
     }
 
+    public void setHandlerPolicyRegistry(HandlerPolicyRegistry handlerPolicyRegistry) {
+        this.handlerPolicyRegistry = handlerPolicyRegistry;
+    }
+
     @Override
     public boolean supportsParameter(MethodParameter methodParameter) {
         String methodName = methodParameter.getMethod().getName();
@@ -84,8 +89,7 @@ public class DecryptRequestParamResolver implements HandlerMethodArgumentResolve
      * @return 是否开启了自定义@Crypto
      */
     private boolean isConfigCrypto(MethodParameter methodParameter) {
-        Crypto crypto = methodParameter.getMethodAnnotation(Crypto.class);
-        return ObjectUtils.isNotEmpty(crypto) && crypto.requestDecrypt();
+        return methodParameter.getMethod() != null && HandlerPolicyRegistry.resolve(handlerPolicyRegistry, methodParameter.getMethod()).isRequestDecrypt();
     }
 
     /**
@@ -27,11 +27,10 @@ package cn.herodotus.engine.rest.protect.crypto.enhance;
 
 import cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders;
 import cn.herodotus.engine.assistant.core.json.jackson2.utils.JacksonUtils;
-import cn.herodotus.engine.rest.core.annotation.Crypto;
 import cn.herodotus.engine.rest.core.exception.SessionInvalidException;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
 import cn.herodotus.engine.rest.protect.crypto.processor.HttpCryptoProcessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,18 +54,21 @@ public class EncryptResponseBodyAdvice implements ResponseBodyAdvice<Object> {
     private static final Logger log = LoggerFactory.getLogger(EncryptResponseBodyAdvice.class);
 
     private HttpCryptoProcessor httpCryptoProcessor;
+    private HandlerPolicyRegistry handlerPolicyRegistry;
 
     public void setInterfaceCryptoProcessor(HttpCryptoProcessor httpCryptoProcessor) {
         this.httpCryptoProcessor = httpCryptoProcessor;
     }
 
+    public void setHandlerPolicyRegistry(HandlerPolicyRegistry handlerPolicyRegistry) {
+        this.handlerPolicyRegistry = handlerPolicyRegistry;
+    }
+
     @Override
     public boolean supports(MethodParameter methodParameter, Class<? extends HttpMessageConverter<?>> converterType) {
 
         String methodName = methodParameter.getMethod().getName();
-        Crypto crypto = methodParameter.getMethodAnnotation(Crypto.class);
-
-        boolean isSupports = ObjectUtils.isNotEmpty(crypto) && crypto.responseEncrypt();
+        boolean isSupports = HandlerPolicyRegistry.resolve(handlerPolicyRegistry, methodParameter.getMethod()).isResponseEncrypt();
 
         log.trace("[Herodotus] |- Is EncryptResponseBodyAdvice supports method [{}] ? Status is [{}].", methodName, isSupports);
         return isSupports;
@@ -75,7 +77,7 @@ public class EncryptResponseBodyAdvice implements ResponseBodyAdvice<Object> {
     @Override
     public Object beforeBodyWrite(Object body, MethodParameter methodParameter, MediaType selectedContentType, Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request, ServerHttpResponse response) {
 
-        String sessionKey = request.getHeaders().get(HttpHeaders.X_HERODOTUS_SESSION).get(0);
+        String sessionKey = request.getHeaders().getFirst(HttpHeaders.X_HERODOTUS_SESSION);
 
         if (StringUtils.isBlank(sessionKey)) {
             log.warn("[Herodotus] |- Cannot find Herodotus Cloud custom session header. Use interface crypto founction need add X_HERODOTUS_SESSION to request header.");
@@ -88,7 +90,8 @@ public class EncryptResponseBodyAdvice implements ResponseBodyAdvice<Object> {
         String className = methodParameter.getDeclaringClass().getName();
 
         try {
-            String bodyString = JacksonUtils.getObjectMapper().writerWithDefaultPrettyPrinter().writeValueAsString(body);
+            // 加密需要完整的明文，这里直接序列化为紧凑格式，不再使用 PrettyPrinter 生成多余的缩进和换行
+            String bodyString = JacksonUtils.getObjectMapper().writeValueAsString(body);
             String result = httpCryptoProcessor.encrypt(sessionKey, bodyString);
             if (StringUtils.isNotBlank(result)) {
                 log.debug("[Herodotus] |- Encrypt response body for rest method [{}] in [{}] finished.", methodName, className);
@@ -44,6 +44,12 @@ public class AESCryptoProcessor implements SymmetricCryptoProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(AESCryptoProcessor.class);
 
+    private final CipherCache<AES> ciphers = new CipherCache<>();
+
+    private AES getCipher(String key) {
+        return ciphers.get(key, value -> SecureUtil.aes(StrUtil.utf8Bytes(value)));
+    }
+
     @Override
     public String createKey() {
         return RandomUtil.randomStringUpper(16);
@@ -51,7 +57,7 @@ public class AESCryptoProcessor implements SymmetricCryptoProcessor {
 
     @Override
     public String decrypt(String data, String key) {
-        AES aes = SecureUtil.aes(StrUtil.utf8Bytes(key));
+        AES aes = getCipher(key);
         byte[] result = aes.decrypt(Base64.decode(StrUtil.utf8Bytes(data)));
         log.trace("[Herodotus] |- AES crypto decrypt data, value is : [{}]", result);
         return StrUtil.utf8Str(result);
@@ -59,9 +65,14 @@ public class AESCryptoProcessor implements SymmetricCryptoProcessor {
 
     @Override
     public String encrypt(String data, String key) {
-        AES aes = SecureUtil.aes(StrUtil.utf8Bytes(key));
+        AES aes = getCipher(key);
         byte[] result = aes.encrypt(StrUtil.utf8Bytes(data));
         log.trace("[Herodotus] |- AES crypto encrypt data, value is : [{}]", result);
         return StrUtil.utf8Str(result);
     }
+
+    @Override
+    public void evict(String key) {
+        ciphers.evict(key);
+    }
 }
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.crypto.processor;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * <p>Description: 加解密算法对象缓存 </p>
+ * <p>
+ * 以秘钥字符串为 Key，缓存已经解析好秘钥的 Hutool 算法对象，避免每次加解密都重新解码秘钥、查找 Provider。
+ * Hutool 的对称和非对称算法对象内部使用锁保证线程安全，可以在多个线程之间共享。
+ * <p>
+ * 缓存的清理由 {@link HttpCryptoProcessor} 在 SecretKey 失效或者变更时主动触发，同时设置了闲置过期和最大数量作为兜底。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/21 10:12
+ */
+final class CipherCache<T> {
+
+    private static final long MAXIMUM_SIZE = 10000L;
+    private static final Duration EXPIRE_AFTER_ACCESS = Duration.ofHours(2L);
+
+    private final Cache<String, T> ciphers;
+
+    CipherCache() {
+        this.ciphers = Caffeine.newBuilder()
+                .maximumSize(MAXIMUM_SIZE)
+                .expireAfterAccess(EXPIRE_AFTER_ACCESS)
+                .build();
+    }
+
+    T get(String key, Function<String, T> creator) {
+        return ciphers.get(key, creator);
+    }
+
+    void evict(String key) {
+        if (StringUtils.isNotBlank(key)) {
+            ciphers.invalidate(key);
+        }
+    }
+}
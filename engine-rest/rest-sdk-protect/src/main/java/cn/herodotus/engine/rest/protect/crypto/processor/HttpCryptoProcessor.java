@@ -33,15 +33,22 @@ import cn.herodotus.engine.rest.core.definition.crypto.AsymmetricCryptoProcessor
 import cn.herodotus.engine.rest.core.definition.crypto.SymmetricCryptoProcessor;
 import cn.herodotus.engine.rest.core.exception.SessionInvalidException;
 import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.Objects;
 
 /**
  * <p>Description: 接口加密解密处理器 </p>
+ * <p>
+ * 各加密算法处理器会缓存已经解析好秘钥的算法对象。这里按照 identity 记录最近使用的 {@link SecretKey}，
+ * 当 SecretKey 过期或者被重新生成时，同时清理算法处理器中对应的缓存，使缓存与 SecretKey 的生命周期保持一致。
  *
  * @author : gengwei.zheng
  * @date : 2021/10/4 14:29
@@ -54,10 +61,34 @@ public class HttpCryptoProcessor extends AbstractStampManager<String, SecretKey>
 
     private final SymmetricCryptoProcessor symmetricCryptoProcessor;
 
+    /**
+     * identity 与最近使用的 SecretKey 的对应关系，只用于清理算法对象缓存
+     */
+    private final Cache<String, SecretKey> activeKeys;
+
+    /**
+     * 非对称算法 KeyPair 预生成池，为空时在当前线程生成
+     */
+    private final SecretKeyPool secretKeyPool;
+
     public HttpCryptoProcessor(AsymmetricCryptoProcessor asymmetricCryptoProcessor, SymmetricCryptoProcessor symmetricCryptoProcessor) {
+        this(asymmetricCryptoProcessor, symmetricCryptoProcessor, null);
+    }
+
+    public HttpCryptoProcessor(AsymmetricCryptoProcessor asymmetricCryptoProcessor, SymmetricCryptoProcessor symmetricCryptoProcessor, SecretKeyPool secretKeyPool) {
         super(RestConstants.CACHE_NAME_TOKEN_SECURE_KEY);
         this.asymmetricCryptoProcessor = asymmetricCryptoProcessor;
         this.symmetricCryptoProcessor = symmetricCryptoProcessor;
+        this.secretKeyPool = secretKeyPool;
+        this.activeKeys = Caffeine.newBuilder()
+                .maximumSize(10000L)
+                .expireAfterAccess(Duration.ofHours(2L))
+                .removalListener((String identity, SecretKey secretKey, RemovalCause cause) -> {
+                    if (ObjectUtils.isNotEmpty(secretKey)) {
+                        evict(secretKey);
+                    }
+                })
+                .build();
     }
 
     public String encrypt(String identity, String content) throws SessionInvalidException {
@@ -111,7 +142,7 @@ public class HttpCryptoProcessor extends AbstractStampManager<String, SecretKey>
 
     @Override
     public SecretKey nextStamp(String key) {
-        SecretKey secretKey = asymmetricCryptoProcessor.createSecretKey();
+        SecretKey secretKey = ObjectUtils.isNotEmpty(secretKeyPool) ? secretKeyPool.take() : asymmetricCryptoProcessor.createSecretKey();
         String symmetricKey = symmetricCryptoProcessor.createKey();
         secretKey.setSymmetricKey(symmetricKey);
         secretKey.setIdentity(key);
@@ -121,22 +152,42 @@ public class HttpCryptoProcessor extends AbstractStampManager<String, SecretKey>
         return secretKey;
     }
 
-    private boolean isSessionValid(String identity) {
-        return this.containKey(identity);
-    }
-
     private SecretKey getSecretKey(String identity) throws StampHasExpiredException {
-        if (isSessionValid(identity)) {
-            SecretKey secretKey = this.get(identity);
-            if (ObjectUtils.isNotEmpty(secretKey)) {
-                log.trace("[Herodotus] |- Decrypt Or Encrypt content use param identity [{}], cached identity is [{}].", identity, secretKey.getIdentity());
-                return secretKey;
-            }
+        // 直接读取，不再先调用 containKey 判断，减少一次缓存访问
+        SecretKey secretKey = StringUtils.isNotBlank(identity) ? this.get(identity) : null;
+        if (ObjectUtils.isNotEmpty(secretKey)) {
+            log.trace("[Herodotus] |- Decrypt Or Encrypt content use param identity [{}], cached identity is [{}].", identity, secretKey.getIdentity());
+            track(identity, secretKey);
+            return secretKey;
         }
 
+        if (StringUtils.isNotBlank(identity)) {
+            activeKeys.invalidate(identity);
+        }
         throw new StampHasExpiredException("SecretKey key is expired!");
     }
 
+    /**
+     * 记录 identity 当前使用的 SecretKey。SecretKey 被重新生成时，替换会触发旧 SecretKey 的缓存清理
+     */
+    private void track(String identity, SecretKey secretKey) {
+        SecretKey previous = activeKeys.getIfPresent(identity);
+        if (ObjectUtils.isEmpty(previous) || !isSameKey(previous, secretKey)) {
+            activeKeys.put(identity, secretKey);
+        }
+    }
+
+    private boolean isSameKey(SecretKey previous, SecretKey current) {
+        return Objects.equals(previous.getSymmetricKey(), current.getSymmetricKey())
+                && Objects.equals(previous.getPrivateKey(), current.getPrivateKey());
+    }
+
+    private void evict(SecretKey secretKey) {
+        symmetricCryptoProcessor.evict(secretKey.getSymmetricKey());
+        asymmetricCryptoProcessor.evict(secretKey);
+        log.trace("[Herodotus] |- Evict cached cipher of identity [{}].", secretKey.getIdentity());
+    }
+
     private Duration getExpire(Duration accessTokenValiditySeconds) {
         if (ObjectUtils.isEmpty(accessTokenValiditySeconds) || accessTokenValiditySeconds.isZero()) {
             return Duration.ofHours(2L);
@@ -51,6 +51,11 @@ public class RSACryptoProcessor implements AsymmetricCryptoProcessor {
     private static final String PKCS8_PUBLIC_KEY_BEGIN = "-----BEGIN PUBLIC KEY-----";
     private static final String PKCS8_PUBLIC_KEY_END = "-----END PUBLIC KEY-----";
 
+    /**
+     * 只缓存后端私钥。加密使用的是前端公钥，每个会话只在交换秘钥时使用一次，不需要缓存
+     */
+    private final CipherCache<RSA> privateCiphers = new CipherCache<>();
+
     @Override
     public SecretKey createSecretKey() {
         RSA rsa = SecureUtil.rsa();
@@ -88,7 +93,7 @@ public class RSACryptoProcessor implements AsymmetricCryptoProcessor {
     @Override
     public String decrypt(String content, String privateKey) {
         byte[] base64Data = Base64.decode(content);
-        RSA rsa = SecureUtil.rsa(privateKey, null);
+        RSA rsa = privateCiphers.get(privateKey, value -> SecureUtil.rsa(value, null));
         String result = StrUtil.utf8Str(rsa.decrypt(base64Data, KeyType.PrivateKey));
         log.trace("[Herodotus] |- RSA crypto decrypt data, value is : [{}]", result);
         return result;
@@ -104,4 +109,9 @@ public class RSACryptoProcessor implements AsymmetricCryptoProcessor {
         log.trace("[Herodotus] |- RSA crypto decrypt data, value is : [{}]", result);
         return result;
     }
+
+    @Override
+    public void evict(SecretKey secretKey) {
+        privateCiphers.evict(secretKey.getPrivateKey());
+    }
 }
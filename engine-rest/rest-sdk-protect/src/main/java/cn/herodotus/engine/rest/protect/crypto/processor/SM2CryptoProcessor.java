@@ -52,6 +52,11 @@ public class SM2CryptoProcessor implements AsymmetricCryptoProcessor {
 
     private static final String FLAG = "04";
 
+    /**
+     * 只缓存后端私钥。加密使用的是前端公钥，每个会话只在交换秘钥时使用一次，不需要缓存
+     */
+    private final CipherCache<SM2> privateCiphers = new CipherCache<>();
+
     @Override
     public SecretKey createSecretKey() {
         // 随机生成秘钥
@@ -72,8 +77,7 @@ public class SM2CryptoProcessor implements AsymmetricCryptoProcessor {
     @Override
     public String decrypt(String content, String privateKey) {
         // 可用的 Hutool SM2 解密
-        SM2 sm2 = SmUtil.sm2(privateKey, null);
-        sm2.setMode(SM2Engine.Mode.C1C3C2);
+        SM2 sm2 = privateCiphers.get(privateKey, value -> SmUtil.sm2(value, null).setMode(SM2Engine.Mode.C1C3C2));
 
         String result = StrUtil.utf8Str(sm2.decryptFromBcd(content, KeyType.PrivateKey));
         log.trace("[Herodotus] |- SM2 crypto decrypt data, value is : [{}]", result);
@@ -90,4 +94,8 @@ public class SM2CryptoProcessor implements AsymmetricCryptoProcessor {
         return result;
     }
 
+    @Override
+    public void evict(SecretKey secretKey) {
+        privateCiphers.evict(secretKey.getPrivateKey());
+    }
 }
@@ -44,6 +44,12 @@ public class SM4CryptoProcessor implements SymmetricCryptoProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(SM4CryptoProcessor.class);
 
+    private final CipherCache<SM4> ciphers = new CipherCache<>();
+
+    private SM4 getCipher(String key) {
+        return ciphers.get(key, value -> SmUtil.sm4(HexUtil.decodeHex(value)));
+    }
+
     @Override
     public String createKey() {
         SM4 sm4 = SmUtil.sm4();
@@ -57,7 +63,7 @@ public class SM4CryptoProcessor implements SymmetricCryptoProcessor {
     @Override
     public String decrypt(String data, String key) {
         // TODO: 2022-05-08 这里主要有一个诡异问题：大多数情况都没有问题，但是相关代码已放到 DecryptRequestBodyAdvice 里面就无法解密
-        SM4 sm4 = SmUtil.sm4(HexUtil.decodeHex(key));
+        SM4 sm4 = getCipher(key);
         log.trace("[Herodotus] |- SM4 crypto decrypt data [{}] with key : [{}]", data, key);
         String result = sm4.decryptStr(data);
         log.trace("[Herodotus] |- SM4 crypto decrypt result is : [{}]", result);
@@ -66,10 +72,15 @@ public class SM4CryptoProcessor implements SymmetricCryptoProcessor {
 
     @Override
     public String encrypt(String data, String key) {
-        SM4 sm4 = SmUtil.sm4(HexUtil.decodeHex(key));
+        SM4 sm4 = getCipher(key);
         log.trace("[Herodotus] |- SM4 crypto encrypt data [{}] with key : [{}]", data, key);
         String result = sm4.encryptHex(data);
         log.trace("[Herodotus] |- SM4 crypto encrypt result is : [{}]", result);
         return result;
     }
+
+    @Override
+    public void evict(String key) {
+        ciphers.evict(key);
+    }
 }
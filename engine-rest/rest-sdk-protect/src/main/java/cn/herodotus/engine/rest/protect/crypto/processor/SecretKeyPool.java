@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.crypto.processor;
+
+import cn.herodotus.engine.assistant.core.domain.SecretKey;
+import cn.herodotus.engine.rest.core.definition.crypto.AsymmetricCryptoProcessor;
+import cn.herodotus.engine.rest.core.properties.CryptoProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.sql.Timestamp;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Description: 非对称算法 KeyPair 预生成池 </p>
+ * <p>
+ * RSA 等算法生成 KeyPair 耗时较长，集中登录时会在创建会话的请求线程上造成明显的延迟。
+ * 这里由一个低优先级的后台线程预先生成 KeyPair 放入无锁队列：
+ * 1. 池中数量低于低水位时触发补充，补充到高水位为止。
+ * 2. 池为空时在当前线程同步生成，不会阻塞请求。
+ * 3. 每个 KeyPair 只会被取出一次。
+ * 4. 取出时重置创建时间戳，会话有效期从取出时开始计算，而不是从后台生成时开始计算。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/21 15:20
+ */
+public class SecretKeyPool implements InitializingBean, DisposableBean, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(SecretKeyPool.class);
+
+    private static final String METRIC_PREFIX = "herodotus.rest.crypto.key-pair-pool";
+
+    private final AsymmetricCryptoProcessor asymmetricCryptoProcessor;
+    private final CryptoProperties.KeyPairPool keyPairPool;
+
+    private final Queue<SecretKey> secretKeys = new ConcurrentLinkedQueue<>();
+    /**
+     * ConcurrentLinkedQueue 的 size() 需要遍历，单独记录数量
+     */
+    private final AtomicInteger depth = new AtomicInteger();
+    private final AtomicBoolean refilling = new AtomicBoolean();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong generated = new AtomicLong();
+
+    private ThreadPoolTaskScheduler taskScheduler;
+
+    public SecretKeyPool(AsymmetricCryptoProcessor asymmetricCryptoProcessor, CryptoProperties.KeyPairPool keyPairPool) {
+        this.asymmetricCryptoProcessor = asymmetricCryptoProcessor;
+        this.keyPairPool = keyPairPool;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        this.taskScheduler = new ThreadPoolTaskScheduler();
+        this.taskScheduler.setPoolSize(1);
+        this.taskScheduler.setThreadNamePrefix("herodotus-key-pair-pool-");
+        this.taskScheduler.setThreadPriority(Thread.MIN_PRIORITY);
+        this.taskScheduler.setDaemon(true);
+        this.taskScheduler.initialize();
+        triggerRefill();
+        log.debug("[Herodotus] |- Secret key pool started, watermark is [{}] - [{}].", keyPairPool.getLowWatermark(), keyPairPool.getHighWatermark());
+    }
+
+    @Override
+    public void destroy() {
+        if (this.taskScheduler != null) {
+            this.taskScheduler.shutdown();
+        }
+        secretKeys.clear();
+        depth.set(0);
+    }
+
+    /**
+     * 从池中取出一个 KeyPair，池为空时同步生成
+     *
+     * @return {@link SecretKey}
+     */
+    public SecretKey take() {
+        SecretKey secretKey = secretKeys.poll();
+        if (secretKey != null) {
+            hits.incrementAndGet();
+            if (depth.decrementAndGet() < keyPairPool.getLowWatermark()) {
+                triggerRefill();
+            }
+            secretKey.setTimestamp(new Timestamp(System.currentTimeMillis()));
+            return secretKey;
+        }
+
+        misses.incrementAndGet();
+        triggerRefill();
+        log.debug("[Herodotus] |- Secret key pool is empty, generate key pair synchronously.");
+        return asymmetricCryptoProcessor.createSecretKey();
+    }
+
+    public int getDepth() {
+        return depth.get();
+    }
+
+    private void triggerRefill() {
+        if (taskScheduler != null && refilling.compareAndSet(false, true)) {
+            try {
+                taskScheduler.execute(this::refill);
+            } catch (RuntimeException e) {
+                refilling.set(false);
+                log.warn("[Herodotus] |- Secret key pool can not schedule refill task.", e);
+            }
+        }
+    }
+
+    private void refill() {
+        try {
+            while (depth.get() < keyPairPool.getHighWatermark() && !Thread.currentThread().isInterrupted()) {
+                secretKeys.offer(asymmetricCryptoProcessor.createSecretKey());
+                depth.incrementAndGet();
+                generated.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            log.warn("[Herodotus] |- Secret key pool refill failed.", e);
+        } finally {
+            refilling.set(false);
+        }
+
+        // 补充期间有请求取出导致再次低于低水位，但触发时 refilling 仍为 true 而被忽略
+        if (depth.get() < keyPairPool.getLowWatermark()) {
+            triggerRefill();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(METRIC_PREFIX + ".depth", this, SecretKeyPool::getDepth)
+                .description("Count of pre-generated key pairs in the pool")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".hits", hits, AtomicLong::doubleValue)
+                .description("Count of key pairs taken from the pool")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".misses", misses, AtomicLong::doubleValue)
+                .description("Count of key pairs generated synchronously because the pool was empty")
+                .register(registry);
+        FunctionCounter.builder(METRIC_PREFIX + ".generated", generated, AtomicLong::doubleValue)
+                .description("Count of key pairs generated in background")
+                .register(registry);
+    }
+}
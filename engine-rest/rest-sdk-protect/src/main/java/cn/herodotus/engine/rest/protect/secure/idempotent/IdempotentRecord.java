@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.idempotent;
+
+import com.google.common.base.MoreObjects;
+import org.apache.commons.lang3.ArrayUtils;
+
+import java.io.Serializable;
+
+/**
+ * <p>Description: 幂等请求记录 </p>
+ * <p>
+ * 处理完成的记录中可以保存第一次请求的响应状态码、Content-Type 和原始响应体，用于重复请求时原样返回。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 15:06
+ */
+public class IdempotentRecord implements Serializable {
+
+    private IdempotentStatus status;
+    private int statusCode;
+    private String contentType;
+    private byte[] body;
+
+    public IdempotentRecord() {
+    }
+
+    public IdempotentRecord(IdempotentStatus status, int statusCode, String contentType, byte[] body) {
+        this.status = status;
+        this.statusCode = statusCode;
+        this.contentType = contentType;
+        this.body = body;
+    }
+
+    public static IdempotentRecord processing() {
+        return new IdempotentRecord(IdempotentStatus.PROCESSING, 0, null, null);
+    }
+
+    public static IdempotentRecord completed(int statusCode, String contentType, byte[] body) {
+        return new IdempotentRecord(IdempotentStatus.COMPLETED, statusCode, contentType, body);
+    }
+
+    /**
+     * 是否可以将保存的响应返回给重复请求
+     *
+     * @return true 已经处理完成并且保存了响应
+     */
+    public boolean isReplayable() {
+        return status == IdempotentStatus.COMPLETED && body != null;
+    }
+
+    public IdempotentStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(IdempotentStatus status) {
+        this.status = status;
+    }
+
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    public void setStatusCode(int statusCode) {
+        this.statusCode = statusCode;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public void setBody(byte[] body) {
+        this.body = body;
+    }
+
+    @Override
+    public String toString() {
+        return MoreObjects.toStringHelper(this)
+                .add("status", status)
+                .add("statusCode", statusCode)
+                .add("contentType", contentType)
+                .add("bodyLength", ArrayUtils.getLength(body))
+                .toString();
+    }
+}
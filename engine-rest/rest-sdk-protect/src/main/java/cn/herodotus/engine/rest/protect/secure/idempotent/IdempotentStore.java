@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.idempotent;
+
+import java.time.Duration;
+
+/**
+ * <p>Description: 幂等记录存储 </p>
+ * <p>
+ * 幂等校验的核心是 {@link #claim(String, Duration)}：判断和占用在一次原子操作中完成，同时到达的重复请求只有一个能够占用成功。
+ * 占用成功时返回占用标识，保存结果和删除记录时需要校验该标识，记录过期后被其它请求重新占用时，不会覆盖或者删除其它请求的记录。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 15:12
+ */
+public interface IdempotentStore {
+
+    /**
+     * Key 不存在时，写入 {@link IdempotentStatus#PROCESSING} 状态的记录
+     *
+     * @param key    幂等 Key
+     * @param expire 过期时间
+     * @return 占用标识，当前请求是第一次请求；已经存在记录时返回 null
+     */
+    String claim(String key, Duration expire);
+
+    /**
+     * 获取幂等记录
+     *
+     * @param key 幂等 Key
+     * @return {@link IdempotentRecord}，不存在时返回 null
+     */
+    IdempotentRecord get(String key);
+
+    /**
+     * 第一次请求处理完成，保存处理结果。记录已经不属于当前请求时不做处理
+     *
+     * @param key    幂等 Key
+     * @param owner  占用标识
+     * @param record 处理结果
+     * @param expire 过期时间
+     */
+    void complete(String key, String owner, IdempotentRecord record, Duration expire);
+
+    /**
+     * 第一次请求处理失败，删除记录，允许重试。记录已经不属于当前请求时不做处理
+     *
+     * @param key   幂等 Key
+     * @param owner 占用标识
+     */
+    void release(String key, String owner);
+}
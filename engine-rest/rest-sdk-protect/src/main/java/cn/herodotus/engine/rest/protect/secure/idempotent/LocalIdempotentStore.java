@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.idempotent;
+
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.apache.commons.lang3.StringUtils;
+
+import java.time.Duration;
+
+/**
+ * <p>Description: 本地幂等记录存储 </p>
+ * <p>
+ * 通过 {@link java.util.concurrent.ConcurrentMap#putIfAbsent(Object, Object)} 完成原子占用，只在当前 JVM 内有效。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 15:20
+ */
+public class LocalIdempotentStore implements IdempotentStore {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 100000L;
+
+    private final Cache<String, Entry> records;
+
+    public LocalIdempotentStore() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public LocalIdempotentStore(long maximumSize) {
+        this.records = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry())
+                .build();
+    }
+
+    @Override
+    public String claim(String key, Duration expire) {
+        String owner = IdUtil.fastSimpleUUID();
+        return records.asMap().putIfAbsent(key, new Entry(IdempotentRecord.processing(), owner, expire.toNanos())) == null ? owner : null;
+    }
+
+    @Override
+    public IdempotentRecord get(String key) {
+        Entry entry = records.getIfPresent(key);
+        return entry == null ? null : entry.record;
+    }
+
+    @Override
+    public void complete(String key, String owner, IdempotentRecord record, Duration expire) {
+        records.asMap().computeIfPresent(key, (k, entry) -> StringUtils.equals(owner, entry.owner) ? new Entry(record, owner, expire.toNanos()) : entry);
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        records.asMap().computeIfPresent(key, (k, entry) -> StringUtils.equals(owner, entry.owner) ? null : entry);
+    }
+
+    private static final class Entry {
+
+        private final IdempotentRecord record;
+        private final String owner;
+        private final long expireNanos;
+
+        private Entry(IdempotentRecord record, String owner, long expireNanos) {
+            this.record = record;
+            this.owner = owner;
+            this.expireNanos = expireNanos;
+        }
+    }
+
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry value, long currentTime) {
+            return value.expireNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+            return value.expireNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
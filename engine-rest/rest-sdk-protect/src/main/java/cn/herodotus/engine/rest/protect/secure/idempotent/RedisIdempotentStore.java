@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.idempotent;
+
+import cn.herodotus.engine.rest.core.constants.RestConstants;
+import cn.hutool.core.util.IdUtil;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.collections4.MapUtils;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * <p>Description: 基于 Redis 的幂等记录存储 </p>
+ * <p>
+ * 记录保存为 Hash，占用、保存结果和删除均通过 Lua 脚本完成，写入数据与设置过期时间是原子的。
+ * 保存结果和删除时先比较占用标识，记录过期后已经被其它请求重新占用时不做处理。响应体使用 Base64 保存，返回时与原始响应逐字节一致。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 15:31
+ */
+public class RedisIdempotentStore implements IdempotentStore {
+
+    private static final String KEY_PREFIX = RestConstants.CACHE_NAME_TOKEN_IDEMPOTENT + "record:";
+
+    private static final String FIELD_STATUS = "status";
+    private static final String FIELD_CODE = "code";
+    private static final String FIELD_TYPE = "type";
+    private static final String FIELD_BODY = "body";
+
+    /**
+     * ARGV: 过期时间(ms), 状态, 占用标识
+     */
+    private static final RedisScript<Long> CLAIM_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('EXISTS', KEYS[1]) == 1 then return 0 end " +
+                    "redis.call('HSET', KEYS[1], 'status', ARGV[2], 'owner', ARGV[3]) " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    /**
+     * ARGV: 过期时间(ms), 状态, 状态码, Content-Type, 响应体, 占用标识
+     */
+    private static final RedisScript<Long> COMPLETE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[6] then return 0 end " +
+                    "redis.call('DEL', KEYS[1]) " +
+                    "redis.call('HMSET', KEYS[1], 'status', ARGV[2], 'code', ARGV[3], 'type', ARGV[4], 'body', ARGV[5], 'owner', ARGV[6]) " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+                    "return 1", Long.class);
+
+    /**
+     * ARGV: 占用标识
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('HGET', KEYS[1], 'owner') ~= ARGV[1] then return 0 end " +
+                    "return redis.call('DEL', KEYS[1])", Long.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisIdempotentStore(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    private String toRedisKey(String key) {
+        return KEY_PREFIX + key;
+    }
+
+    private String toMillis(Duration expire) {
+        return String.valueOf(Math.max(1L, expire.toMillis()));
+    }
+
+    @Override
+    public String claim(String key, Duration expire) {
+        String owner = IdUtil.fastSimpleUUID();
+        Long result = stringRedisTemplate.execute(CLAIM_SCRIPT, Collections.singletonList(toRedisKey(key)), toMillis(expire), IdempotentStatus.PROCESSING.name(), owner);
+        return result != null && result == 1L ? owner : null;
+    }
+
+    @Override
+    public IdempotentRecord get(String key) {
+        HashOperations<String, String, String> operations = stringRedisTemplate.opsForHash();
+        Map<String, String> values = operations.entries(toRedisKey(key));
+        if (MapUtils.isEmpty(values)) {
+            return null;
+        }
+
+        IdempotentRecord record = new IdempotentRecord();
+        record.setStatus(IdempotentStatus.valueOf(values.get(FIELD_STATUS)));
+        String code = values.get(FIELD_CODE);
+        if (StringUtils.isNotBlank(code)) {
+            record.setStatusCode(Integer.parseInt(code));
+        }
+        record.setContentType(StringUtils.defaultIfEmpty(values.get(FIELD_TYPE), null));
+        // 空字符串表示没有保存响应体，与长度为 0 的响应体区分开
+        String body = values.get(FIELD_BODY);
+        if (body != null && body.startsWith("=")) {
+            record.setBody(Base64.getDecoder().decode(body.substring(1)));
+        }
+        return record;
+    }
+
+    @Override
+    public void complete(String key, String owner, IdempotentRecord record, Duration expire) {
+        String body = record.getBody() == null ? "" : "=" + Base64.getEncoder().encodeToString(record.getBody());
+        stringRedisTemplate.execute(COMPLETE_SCRIPT, Collections.singletonList(toRedisKey(key)),
+                toMillis(expire),
+                record.getStatus().name(),
+                String.valueOf(record.getStatusCode()),
+                StringUtils.defaultString(record.getContentType()),
+                body,
+                owner);
+    }
+
+    @Override
+    public void release(String key, String owner) {
+        stringRedisTemplate.execute(RELEASE_SCRIPT, Collections.singletonList(toRedisKey(key)), owner);
+    }
+}
@@ -25,12 +25,17 @@
 
 package cn.herodotus.engine.rest.protect.secure.interceptor;
 
-import cn.herodotus.engine.rest.core.annotation.AccessLimited;
 import cn.herodotus.engine.rest.core.definition.AbstractBaseHandlerInterceptor;
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
 import cn.herodotus.engine.rest.core.exception.FrequentRequestsException;
+import cn.herodotus.engine.rest.core.properties.SecureProperties;
+import cn.herodotus.engine.rest.core.support.HandlerPolicy;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
+import cn.herodotus.engine.rest.protect.secure.limiter.RateLimiter;
 import cn.herodotus.engine.rest.protect.secure.stamp.AccessLimitedStampManager;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.web.method.HandlerMethod;
@@ -39,10 +44,14 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.lang.reflect.Method;
 import java.time.Duration;
-import java.time.format.DateTimeParseException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * <p>Description: 访问防刷拦截器 </p>
+ * <p>
+ * 使用 {@link RateLimiter}，按照 {@link cn.herodotus.engine.rest.core.annotation.AccessLimited#algorithm()} 或者配置中指定的算法进行限流。
+ * 设置了 {@link MeterRegistry} 时，按照接口记录允许和拒绝的访问次数。
  *
  * @author : gengwei.zheng
  * @date : 2021/8/25 22:09
@@ -51,12 +60,30 @@ public class AccessLimitedInterceptor extends AbstractBaseHandlerInterceptor {
 
     private static final Logger log = LoggerFactory.getLogger(AccessLimitedInterceptor.class);
 
+    private static final String METRIC_NAME = "herodotus.rest.access.limited";
+
     private AccessLimitedStampManager accessLimitedStampManager;
+    private RateLimiter rateLimiter;
+    private MeterRegistry meterRegistry;
+    private HandlerPolicyRegistry handlerPolicyRegistry;
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
 
     public void setAccessLimitedStampManager(AccessLimitedStampManager accessLimitedStampManager) {
         this.accessLimitedStampManager = accessLimitedStampManager;
     }
 
+    public void setRateLimiter(RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    public void setMeterRegistry(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void setHandlerPolicyRegistry(HandlerPolicyRegistry handlerPolicyRegistry) {
+        this.handlerPolicyRegistry = handlerPolicyRegistry;
+    }
+
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
 
@@ -69,84 +96,54 @@ public class AccessLimitedInterceptor extends AbstractBaseHandlerInterceptor {
         HandlerMethod handlerMethod = (HandlerMethod) handler;
         Method method = handlerMethod.getMethod();
 
-        AccessLimited accessLimited = method.getAnnotation(AccessLimited.class);
-        if (ObjectUtils.isNotEmpty(accessLimited)) {
+        HandlerPolicy policy = HandlerPolicyRegistry.resolve(handlerPolicyRegistry, method);
+        if (policy.isAccessLimited()) {
 
             int maxTimes = accessLimitedStampManager.getSecureProperties().getAccessLimited().getMaxTimes();
-            Duration expireDuration = Duration.ZERO;
+            Duration expireDuration = policy.getAccessLimitedDuration();
 
-            int annotationMaxTimes = accessLimited.maxTimes();
+            int annotationMaxTimes = policy.getAccessLimitedMaxTimes();
             if (annotationMaxTimes != 0) {
                 maxTimes = annotationMaxTimes;
             }
 
-            String annotationDuration = accessLimited.duration();
-            if (StringUtils.isNotBlank(annotationDuration)) {
-                try {
-                    expireDuration = Duration.parse(annotationDuration);
-                } catch (DateTimeParseException e) {
-                    log.warn("[Herodotus] |- AccessLimited duration value is incorrect, on api [{}].", request.getRequestURI());
-                }
-            }
-
             String key = generateRequestKey(request);
-            String expireKey = key + "_expire";
-            Long times = accessLimitedStampManager.get(key);
-
-            if (ObjectUtils.isEmpty(times) || times == 0L) {
-                if (!expireDuration.isZero()) {
-                    // 如果注解上配置了Duration且没有配置错可以正常解析，那么使用注解上的配置值
-                    accessLimitedStampManager.create(key, expireDuration);
-                    accessLimitedStampManager.put(expireKey, System.currentTimeMillis(), expireDuration);
-                } else {
-                    // 如果注解上没有配置Duration或者配置错无法正常解析，那么使用StampProperties的配置值
-                    accessLimitedStampManager.create(key);
-                    accessLimitedStampManager.put(expireKey, System.currentTimeMillis());
-                }
-                return true;
-            } else {
-                log.debug("[Herodotus] |- AccessLimitedInterceptor request [{}] times.", times);
-
-                if (times <= maxTimes) {
-                    Duration newDuration = calculateRemainingTime(expireDuration, expireKey);
-                    // 不管是注解上配置Duration值还是StampProperties中配置的Duration值，是不会变的
-                    // 所以第一次存入expireKey对应的System.currentTimeMillis()时间后，这个值也不应该变化。
-                    // 因此，这里只更新访问次数的标记值
-                    accessLimitedStampManager.put(key, times + 1L, newDuration);
-                    return true;
-                } else {
-                    throw new FrequentRequestsException("Requests are too frequent. Please try again later!");
-                }
+            String endpoint = handlerMethod.getBeanType().getSimpleName() + "#" + method.getName();
+
+            SecureProperties.AccessLimited properties = accessLimitedStampManager.getSecureProperties().getAccessLimited();
+            RateLimitAlgorithm algorithm = resolveAlgorithm(policy, properties);
+            Duration period = expireDuration.isZero() ? properties.getExpire() : expireDuration;
+            boolean allowed = rateLimiter.tryAcquire(algorithm, key, maxTimes, period);
+            record(endpoint, allowed);
+            if (!allowed) {
+                log.debug("[Herodotus] |- AccessLimitedInterceptor reject request for [{}] with [{}].", endpoint, algorithm);
+                throw new FrequentRequestsException("Requests are too frequent. Please try again later!");
             }
         }
 
         return true;
     }
 
-    /**
-     * 计算剩余过期时间
-     * <p>
-     * 每次create或者put，缓存的过期时间都会被覆盖。（注意：Jetcache put 方法的参数名：expireAfterWrite）。
-     * 因为Jetcache没有Redis的incr之类的方法，那么每次放入Times值，都会更新过期时间，实际操作下来是变相的延长了过期时间。
-     *
-     * @param configuredDuration 注解上配置的、且可以正常解析的Duration值
-     * @param expireKey          时间标记存储Key值。
-     * @return 还剩余的过期时间 {@link Duration}
-     */
-    private Duration calculateRemainingTime(Duration configuredDuration, String expireKey) {
-        Long begin = accessLimitedStampManager.get(expireKey);
-        Long current = System.currentTimeMillis();
-        long interval = current - begin;
-
-        log.debug("[Herodotus] |- AccessLimitedInterceptor operation interval [{}] millis.", interval);
-
-        Duration duration;
-        if (!configuredDuration.isZero()) {
-            duration = configuredDuration.minusMillis(interval);
-        } else {
-            duration = accessLimitedStampManager.getExpire().minusMillis(interval);
+    private RateLimitAlgorithm resolveAlgorithm(HandlerPolicy policy, SecureProperties.AccessLimited properties) {
+        if (ObjectUtils.isNotEmpty(policy.getAccessLimitedAlgorithm())) {
+            return policy.getAccessLimitedAlgorithm();
+        }
+
+        RateLimitAlgorithm algorithm = properties.getAlgorithm();
+        return ObjectUtils.isNotEmpty(algorithm) ? algorithm : RateLimitAlgorithm.FIXED_WINDOW;
+    }
+
+    private void record(String endpoint, boolean allowed) {
+        if (ObjectUtils.isEmpty(meterRegistry)) {
+            return;
         }
 
-        return duration;
+        String result = allowed ? "allowed" : "rejected";
+        counters.computeIfAbsent(endpoint + ":" + result, key -> Counter.builder(METRIC_NAME)
+                        .description("Count of requests checked by AccessLimited")
+                        .tag("endpoint", endpoint)
+                        .tag("result", result)
+                        .register(meterRegistry))
+                .increment();
     }
 }
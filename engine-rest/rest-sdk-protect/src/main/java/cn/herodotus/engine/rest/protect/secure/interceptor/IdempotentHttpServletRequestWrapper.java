@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.interceptor;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * <p>Description: 幂等请求包装 </p>
+ * <p>
+ * 只有在 {@link IdempotentInterceptor} 需要根据请求体生成幂等 Key 时，才调用 {@link #cacheBody(int)} 读取并缓存请求体，
+ * 之后 {@link #getInputStream()} 从缓存中读取，Controller 仍然可以正常读取请求体。未调用时不产生任何额外开销。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 16:10
+ */
+public class IdempotentHttpServletRequestWrapper extends HttpServletRequestWrapper {
+
+    private byte[] body;
+
+    public IdempotentHttpServletRequestWrapper(HttpServletRequest request) {
+        super(request);
+    }
+
+    /**
+     * 读取并缓存请求体。请求体长度未知或者超过上限时不进行读取，避免占用过多内存
+     *
+     * @param maxBodySize 请求体最大字节数
+     * @return 请求体，无法缓存时返回 null
+     * @throws IOException 读取请求体出错
+     */
+    public byte[] cacheBody(int maxBodySize) throws IOException {
+        if (body != null) {
+            return body;
+        }
+
+        long contentLength = getContentLengthLong();
+        if (contentLength < 0 || contentLength > maxBodySize) {
+            return null;
+        }
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream((int) contentLength);
+        InputStream input = super.getInputStream();
+        byte[] buffer = new byte[4096];
+        int length;
+        while ((length = input.read(buffer)) != -1) {
+            output.write(buffer, 0, length);
+        }
+        this.body = output.toByteArray();
+        return body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (body == null) {
+            return super.getInputStream();
+        }
+        return new CachedBodyInputStream(body);
+    }
+
+    private static final class CachedBodyInputStream extends ServletInputStream {
+
+        private final ByteArrayInputStream delegate;
+
+        private CachedBodyInputStream(byte[] body) {
+            this.delegate = new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public boolean isFinished() {
+            return delegate.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        /**
+         * 请求体已经全部缓存在内存中，直接通知数据可读，读取完成后通知读取结束
+         *
+         * @param readListener {@link ReadListener}
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+            try {
+                if (!isFinished()) {
+                    readListener.onDataAvailable();
+                }
+                if (isFinished()) {
+                    readListener.onAllDataRead();
+                }
+            } catch (IOException e) {
+                readListener.onError(e);
+            }
+        }
+
+        @Override
+        public int read() {
+            return delegate.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            return delegate.read(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.interceptor;
+
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+
+/**
+ * <p>Description: 幂等响应包装 </p>
+ * <p>
+ * 与 {@link org.springframework.web.util.ContentCachingResponseWrapper} 不同，响应内容直接写出，不延迟到请求结束。
+ * 只有在 {@link #startCapture(int)} 之后，才同时复制一份到内存中，用于重复请求时原样返回。超过上限的部分不再复制，并标记为不可保存。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 16:25
+ */
+public class IdempotentHttpServletResponseWrapper extends HttpServletResponseWrapper {
+
+    private ByteArrayOutputStream captured;
+    private int maxBodySize;
+    private boolean overflow;
+
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    public IdempotentHttpServletResponseWrapper(HttpServletResponse response) {
+        super(response);
+    }
+
+    /**
+     * 开始复制响应内容
+     *
+     * @param maxBodySize 最大复制的字节数
+     */
+    public void startCapture(int maxBodySize) {
+        this.maxBodySize = maxBodySize;
+        this.captured = new ByteArrayOutputStream();
+        this.overflow = false;
+    }
+
+    /**
+     * 获取复制的响应内容
+     *
+     * @return 响应内容，未开始复制或者超过上限时返回 null
+     */
+    public byte[] getCapturedBody() {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (captured == null || overflow) {
+            return null;
+        }
+        return captured.toByteArray();
+    }
+
+    private void capture(byte[] b, int off, int len) {
+        if (captured == null || overflow) {
+            return;
+        }
+        if (captured.size() + len > maxBodySize) {
+            overflow = true;
+            captured = null;
+            return;
+        }
+        captured.write(b, off, len);
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() throws IOException {
+        if (outputStream == null) {
+            outputStream = new CapturingOutputStream(super.getOutputStream());
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), getCharacterEncoding()));
+        }
+        return writer;
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        super.flushBuffer();
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        resetCaptured();
+    }
+
+    @Override
+    public void resetBuffer() {
+        super.resetBuffer();
+        resetCaptured();
+    }
+
+    private void resetCaptured() {
+        if (captured != null) {
+            captured.reset();
+        }
+    }
+
+    private final class CapturingOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+
+        private CapturingOutputStream(ServletOutputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            delegate.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            delegate.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
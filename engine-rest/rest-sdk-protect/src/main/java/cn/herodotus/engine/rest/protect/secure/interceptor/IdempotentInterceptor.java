@@ -25,25 +25,40 @@
 
 package cn.herodotus.engine.rest.protect.secure.interceptor;
 
+import cn.herodotus.engine.assistant.core.definition.constants.HttpHeaders;
 import cn.herodotus.engine.assistant.core.definition.constants.SymbolConstants;
-import cn.herodotus.engine.rest.core.annotation.Idempotent;
 import cn.herodotus.engine.rest.core.definition.AbstractBaseHandlerInterceptor;
 import cn.herodotus.engine.rest.core.exception.RepeatSubmissionException;
+import cn.herodotus.engine.rest.core.properties.SecureProperties;
+import cn.herodotus.engine.rest.core.support.HandlerPolicy;
+import cn.herodotus.engine.rest.core.support.HandlerPolicyRegistry;
+import cn.herodotus.engine.rest.protect.secure.idempotent.IdempotentRecord;
+import cn.herodotus.engine.rest.protect.secure.idempotent.IdempotentStore;
 import cn.herodotus.engine.rest.protect.secure.stamp.IdempotentStampManager;
 import cn.hutool.crypto.SecureUtil;
+import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.MediaType;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.util.WebUtils;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.lang.reflect.Method;
+import javax.servlet.http.HttpSession;
 import java.time.Duration;
-import java.time.format.DateTimeParseException;
 
 /**
  * <p>Description: 幂等拦截器 </p>
+ * <p>
+ * 设置了 {@link IdempotentStore} 时，使用"占用-完成"方式进行幂等校验：
+ * 1. 请求到达时原子性地占用幂等 Key，只有占用成功的请求会被执行，同时到达的重复请求不会同时通过校验。
+ * 2. 请求处理完成后保存处理结果，处理失败（出现异常或者 5xx）时释放占用，允许客户端重试。
+ * 3. 重复请求到达时，如果第一次请求已经完成并且保存了响应，则直接原样返回该响应；否则抛出重复提交异常。
+ * <p>
+ * 幂等 Key 优先使用客户端指定的请求头，其次使用请求体摘要，最后使用会话、URL 和 Method 生成。
  *
  * @author : gengwei.zheng
  * @date : 2021/8/22 15:31
@@ -53,23 +68,28 @@ public class IdempotentInterceptor extends AbstractBaseHandlerInterceptor {
     private static final Logger log = LoggerFactory.getLogger(IdempotentInterceptor.class);
 
     private static final String IDEMPOTENT_ATTRIBUTE = "Idempotent";
+    private static final String IDEMPOTENT_EXPIRE_ATTRIBUTE = "IdempotentExpire";
+    private static final String IDEMPOTENT_OWNER_ATTRIBUTE = "IdempotentOwner";
 
     private IdempotentStampManager idempotentStampManager;
+    private IdempotentStore idempotentStore;
+    private SecureProperties.Idempotent idempotent = new SecureProperties.Idempotent();
+    private HandlerPolicyRegistry handlerPolicyRegistry;
 
     public void setIdempotentStampManager(IdempotentStampManager idempotentStampManager) {
         this.idempotentStampManager = idempotentStampManager;
     }
 
-    private String generateKey(String sessionId, String url, String method) {
+    public void setIdempotentStore(IdempotentStore idempotentStore) {
+        this.idempotentStore = idempotentStore;
+    }
 
-        if (StringUtils.isNotBlank(sessionId)) {
-            String key = SecureUtil.md5(sessionId + SymbolConstants.COLON + url + SymbolConstants.COLON + method);
-            log.debug("[Herodotus] |- IdempotentInterceptor key is [{}].", key);
-            return key;
-        } else {
-            log.warn("[Herodotus] |- IdempotentInterceptor cannot create key, because sessionId is null.");
-            return null;
-        }
+    public void setIdempotent(SecureProperties.Idempotent idempotent) {
+        this.idempotent = idempotent;
+    }
+
+    public void setHandlerPolicyRegistry(HandlerPolicyRegistry handlerPolicyRegistry) {
+        this.handlerPolicyRegistry = handlerPolicyRegistry;
     }
 
     @Override
@@ -81,11 +101,20 @@ public class IdempotentInterceptor extends AbstractBaseHandlerInterceptor {
             return true;
         }
 
+        // 异步请求再次分发时，第一次分发已经完成校验
+        if (ObjectUtils.isNotEmpty(request.getAttribute(IDEMPOTENT_ATTRIBUTE))) {
+            return true;
+        }
+
         HandlerMethod handlerMethod = (HandlerMethod) handler;
-        Method method = handlerMethod.getMethod();
+        HandlerPolicy policy = HandlerPolicyRegistry.resolve(handlerPolicyRegistry, handlerMethod.getMethod());
+
+        if (policy.isIdempotent()) {
+            Duration configuredDuration = policy.getIdempotentExpire();
+            if (ObjectUtils.isNotEmpty(idempotentStore)) {
+                return claim(request, response, configuredDuration);
+            }
 
-        Idempotent idempotent = method.getAnnotation(Idempotent.class);
-        if (idempotent != null) {
             // 幂等性校验, 根据缓存中是否存在Token进行校验。
             // 如果缓存中没有Token，通过放行, 同时在缓存中存入Token。
             // 如果缓存中有Token，意味着同一个操作反复操作，认为失败则抛出异常, 并通过统一异常处理返回友好提示
@@ -94,16 +123,6 @@ public class IdempotentInterceptor extends AbstractBaseHandlerInterceptor {
             if (StringUtils.isNotBlank(key)) {
                 String token = idempotentStampManager.get(key);
                 if (StringUtils.isBlank(token)) {
-                    Duration configuredDuration = Duration.ZERO;
-                    String annotationExpire = idempotent.expire();
-                    if (StringUtils.isNotBlank(annotationExpire)) {
-                        try {
-                            configuredDuration = Duration.parse(annotationExpire);
-                        } catch (DateTimeParseException e) {
-                            log.warn("[Herodotus] |- Idempotent duration value is incorrect, on api [{}].", request.getRequestURI());
-                        }
-                    }
-
                     if (!configuredDuration.isZero()) {
                         idempotentStampManager.create(key, configuredDuration);
                     } else {
@@ -121,4 +140,135 @@ public class IdempotentInterceptor extends AbstractBaseHandlerInterceptor {
 
         return true;
     }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) throws Exception {
+        if (ObjectUtils.isEmpty(idempotentStore)) {
+            return;
+        }
+
+        Object attribute = request.getAttribute(IDEMPOTENT_ATTRIBUTE);
+        if (!(attribute instanceof String)) {
+            return;
+        }
+
+        String key = (String) attribute;
+        String owner = (String) request.getAttribute(IDEMPOTENT_OWNER_ATTRIBUTE);
+        if (ObjectUtils.isNotEmpty(ex) || response.getStatus() >= 500) {
+            idempotentStore.release(key, owner);
+            log.debug("[Herodotus] |- Idempotent request [{}] failed, release key [{}].", request.getRequestURI(), key);
+            return;
+        }
+
+        byte[] body = null;
+        IdempotentHttpServletResponseWrapper wrapper = WebUtils.getNativeResponse(response, IdempotentHttpServletResponseWrapper.class);
+        if (ObjectUtils.isNotEmpty(wrapper)) {
+            body = wrapper.getCapturedBody();
+        }
+
+        Duration expire = (Duration) request.getAttribute(IDEMPOTENT_EXPIRE_ATTRIBUTE);
+        idempotentStore.complete(key, owner, IdempotentRecord.completed(response.getStatus(), response.getContentType(), body), expire);
+    }
+
+    private boolean claim(HttpServletRequest request, HttpServletResponse response, Duration configuredDuration) throws Exception {
+        String key = resolveKey(request);
+        if (StringUtils.isBlank(key)) {
+            return true;
+        }
+
+        Duration expire = configuredDuration.isZero() ? idempotent.getExpire() : configuredDuration;
+        String owner = idempotentStore.claim(key, expire);
+        if (StringUtils.isNotBlank(owner)) {
+            request.setAttribute(IDEMPOTENT_ATTRIBUTE, key);
+            request.setAttribute(IDEMPOTENT_OWNER_ATTRIBUTE, owner);
+            request.setAttribute(IDEMPOTENT_EXPIRE_ATTRIBUTE, expire);
+            if (isReplay()) {
+                IdempotentHttpServletResponseWrapper wrapper = WebUtils.getNativeResponse(response, IdempotentHttpServletResponseWrapper.class);
+                if (ObjectUtils.isNotEmpty(wrapper)) {
+                    wrapper.startCapture(idempotent.getMaxBodySize());
+                }
+            }
+            return true;
+        }
+
+        IdempotentRecord record = idempotentStore.get(key);
+        if (isReplay() && ObjectUtils.isNotEmpty(record) && record.isReplayable()) {
+            log.debug("[Herodotus] |- Replay idempotent response for [{}] with key [{}].", request.getRequestURI(), key);
+            response.setStatus(record.getStatusCode());
+            if (StringUtils.isNotBlank(record.getContentType())) {
+                response.setContentType(record.getContentType());
+            }
+            response.setHeader(HttpHeaders.X_HERODOTUS_IDEMPOTENT_REPLAYED, Boolean.TRUE.toString());
+            response.setContentLength(record.getBody().length);
+            response.getOutputStream().write(record.getBody());
+            return false;
+        }
+
+        throw new RepeatSubmissionException("Don't Repeat Submission");
+    }
+
+    private boolean isReplay() {
+        return BooleanUtils.isTrue(idempotent.getReplay());
+    }
+
+    /**
+     * 生成幂等 Key
+     * <p>
+     * 1. 能够识别调用方并且客户端指定了幂等 Key 请求头，使用调用方和该值生成。无法识别调用方时忽略该请求头，避免不同的匿名客户端使用相同的值时互相重放响应。
+     * 2. 能够识别调用方并且请求体可以缓存，使用请求体摘要生成，内容不同的请求不会互相影响。
+     * 3. 否则与原有逻辑保持一致，使用会话、URL 和 Method 生成。
+     *
+     * @param request {@link HttpServletRequest}
+     * @return 幂等 Key
+     * @throws Exception 读取请求体出错
+     */
+    private String resolveKey(HttpServletRequest request) throws Exception {
+        String url = request.getRequestURI();
+        String method = request.getMethod();
+        String caller = resolveCaller(request);
+
+        if (StringUtils.isNotBlank(caller)) {
+            String idempotencyKey = request.getHeader(idempotent.getKeyHeader());
+            if (StringUtils.isNotBlank(idempotencyKey)) {
+                return SecureUtil.md5(caller + SymbolConstants.COLON + idempotencyKey + SymbolConstants.COLON + url + SymbolConstants.COLON + method);
+            }
+
+            IdempotentHttpServletRequestWrapper wrapper = WebUtils.getNativeRequest(request, IdempotentHttpServletRequestWrapper.class);
+            if (ObjectUtils.isNotEmpty(wrapper) && !isFormRequest(request)) {
+                byte[] body = wrapper.cacheBody(idempotent.getMaxBodySize());
+                if (ObjectUtils.isNotEmpty(body)) {
+                    return SecureUtil.md5(caller + SymbolConstants.COLON + url + SymbolConstants.COLON + method + SymbolConstants.COLON + SecureUtil.md5().digestHex(body));
+                }
+            }
+        }
+
+        return generateRequestKey(request);
+    }
+
+    private String resolveCaller(HttpServletRequest request) {
+        String authorization = request.getHeader(org.springframework.http.HttpHeaders.AUTHORIZATION);
+        if (StringUtils.isNotBlank(authorization)) {
+            return SecureUtil.md5(authorization);
+        }
+
+        String sessionId = request.getHeader(HttpHeaders.X_HERODOTUS_SESSION);
+        if (StringUtils.isNotBlank(sessionId)) {
+            return sessionId;
+        }
+
+        HttpSession session = request.getSession(false);
+        if (ObjectUtils.isNotEmpty(session)) {
+            return session.getId();
+        }
+        return null;
+    }
+
+    /**
+     * 表单和文件上传请求的参数由容器解析，读取请求体会导致参数丢失，不使用请求体生成幂等 Key
+     */
+    private boolean isFormRequest(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return StringUtils.startsWithIgnoreCase(contentType, MediaType.APPLICATION_FORM_URLENCODED_VALUE)
+                || StringUtils.startsWithIgnoreCase(contentType, "multipart/");
+    }
 }
@@ -25,16 +25,26 @@
 
 package cn.herodotus.engine.rest.protect.secure.interceptor;
 
+import cn.herodotus.engine.rest.core.properties.SecureProperties;
+import cn.herodotus.engine.web.core.utils.WebUtils;
+import org.apache.commons.collections4.CollectionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.util.UrlPathHelper;
 
 import javax.servlet.*;
 import javax.servlet.http.HttpServletRequest;
 import java.io.IOException;
+import java.util.Set;
+import java.util.TreeSet;
 
 /**
  * <p>Description: Xss 过滤器 </p>
+ * <p>
+ * 与 {@link SecureProperties.Xss#getSkipPaths()} 匹配的请求（默认为静态资源）不进行包装，
+ * {@link SecureProperties.Xss#getSkipHeaders()} 中的请求头不进行清洗。
+ * 匹配使用应用内的请求路径（已解码，并且去除了 ";" 之后的路径参数），避免通过路径参数或者编码绕过清洗。
  *
  * @author : gengwei.zheng
  * @date : 2021/8/30 23:34
@@ -44,11 +54,33 @@ public class XssHttpServletFilter implements Filter {
 
     private static final Logger log = LoggerFactory.getLogger(XssHttpServletFilter.class);
 
+    private final SecureProperties.Xss xss;
+    private final Set<String> skipHeaders;
+    private final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
+    public XssHttpServletFilter() {
+        this(new SecureProperties.Xss());
+    }
+
+    public XssHttpServletFilter(SecureProperties.Xss xss) {
+        this.xss = xss;
+        this.skipHeaders = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+        if (CollectionUtils.isNotEmpty(xss.getSkipHeaders())) {
+            this.skipHeaders.addAll(xss.getSkipHeaders());
+        }
+    }
+
     @Override
     public void doFilter(ServletRequest servletRequest, ServletResponse servletResponse, FilterChain filterChain) throws IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) servletRequest;
 
-        XssHttpServletRequestWrapper xssRequest = new XssHttpServletRequestWrapper(request);
+        if (CollectionUtils.isNotEmpty(xss.getSkipPaths()) && WebUtils.isPathMatch(xss.getSkipPaths(), urlPathHelper.getPathWithinApplication(request))) {
+            log.trace("[Herodotus] |- XssHttpServletFilter skip request for [{}].", request.getRequestURI());
+            filterChain.doFilter(request, servletResponse);
+            return;
+        }
+
+        XssHttpServletRequestWrapper xssRequest = new XssHttpServletRequestWrapper(request, skipHeaders);
         log.trace("[Herodotus] |- XssHttpServletFilter wrapper request for [{}].", request.getRequestURI());
         filterChain.doFilter(xssRequest, servletResponse);
     }
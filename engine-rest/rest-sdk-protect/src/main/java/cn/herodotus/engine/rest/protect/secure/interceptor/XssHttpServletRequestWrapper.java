@@ -27,16 +27,14 @@ package cn.herodotus.engine.rest.protect.secure.interceptor;
 
 import cn.herodotus.engine.assistant.core.utils.XssUtils;
 import org.apache.commons.lang3.ArrayUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletRequestWrapper;
-import java.util.Arrays;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
 
 /**
  * <p>Description: Xss 请求参数包装器  </p>
@@ -47,6 +45,8 @@ import java.util.stream.Collectors;
  * application/json	json格式文本	HttpServletRequest IO流获取
  * <p>
  * 本过滤器主要针对表单提交的参数过滤
+ * <p>
+ * 包装器与请求的生命周期一致，同一个值只清洗一次，清洗结果在请求内复用。
  *
  * @author : gengwei.zheng
  * @date : 2021/8/29 21:30
@@ -55,8 +55,21 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
 
     private static final Logger log = LoggerFactory.getLogger(XssHttpServletRequestWrapper.class);
 
+    private final Set<String> skipHeaders;
+    private final Map<String, String> cleaned = new HashMap<>();
+    private Map<String, String[]> parameterMap;
+
     public XssHttpServletRequestWrapper(HttpServletRequest request) {
+        this(request, Collections.emptySet());
+    }
+
+    /**
+     * @param request     原始请求
+     * @param skipHeaders 不需要清洗的请求头，调用方需保证大小写匹配规则
+     */
+    public XssHttpServletRequestWrapper(HttpServletRequest request, Set<String> skipHeaders) {
         super(request);
+        this.skipHeaders = skipHeaders;
     }
 
     /**
@@ -66,13 +79,19 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
      * @return 清洗后的数据
      */
     private String cleaning(String value) {
-        return XssUtils.cleaning(value);
+        if (XssUtils.isPlainText(value)) {
+            return value;
+        }
+        return cleaned.computeIfAbsent(value, XssUtils::cleaning);
     }
 
     private String[] cleaning(String[] parameters) {
-        List<String> cleanParameters = Arrays.stream(parameters).map(XssUtils::cleaning).collect(Collectors.toList());
-        String[] results = new String[cleanParameters.size()];
-        return cleanParameters.toArray(results);
+        String[] results = new String[parameters.length];
+        for (int i = 0; i < parameters.length; i++) {
+            String parameter = parameters[i];
+            results[i] = ObjectUtils.isEmpty(parameter) ? parameter : cleaning(parameter);
+        }
+        return results;
     }
 
     /**
@@ -84,8 +103,8 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
     @Override
     public String getHeader(String name) {
         String header = super.getHeader(name);
-        // 如果Header为空，则直接返回，否则进行清洗
-        return StringUtils.isBlank(header) ? header : cleaning(header);
+        // 如果Header为空或者不需要清洗，则直接返回，否则进行清洗
+        return StringUtils.isBlank(header) || skipHeaders.contains(name) ? header : cleaning(header);
     }
 
     @Override
@@ -106,7 +125,12 @@ public class XssHttpServletRequestWrapper extends HttpServletRequestWrapper {
 
     @Override
     public Map<String, String[]> getParameterMap() {
-        Map<String, String[]> parameterMap = super.getParameterMap();
-        return parameterMap.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> cleaning(entry.getValue())));
+        if (parameterMap == null) {
+            Map<String, String[]> values = super.getParameterMap();
+            Map<String, String[]> result = new LinkedHashMap<>(values.size());
+            values.forEach((key, value) -> result.put(key, ArrayUtils.isNotEmpty(value) ? cleaning(value) : value));
+            parameterMap = Collections.unmodifiableMap(result);
+        }
+        return parameterMap;
     }
 }
@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.limiter;
+
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * <p>Description: 本地限流器 </p>
+ * <p>
+ * 每种算法的状态都通过 CAS 更新，不使用锁：
+ * 1. 固定窗口、令牌桶、滑动窗口计数：状态为不可变对象，通过 {@link AtomicReference} 整体替换。
+ * 2. GCRA：状态只有一个理论到达时间（TAT），使用 {@link AtomicLong}。
+ * 3. 滑动窗口日志：使用长度为访问次数的环形数组记录最近的访问时间，最早的一次访问仍在窗口内时拒绝。
+ * <p>
+ * 状态在空闲两个周期后自动清除，此时任何算法的状态都等同于初始状态。只在当前 JVM 内有效。
+ * <p>
+ * {@link #isPermitted(RateLimitAlgorithm, String, int, Duration)} 只判断不计数，用于 {@link TieredRateLimiter} 的本地预检。
+ * 滑动窗口计数按照墙上时间划分窗口，与 {@link RedisRateLimiter} 的窗口边界一致；固定窗口通过 {@link #alignFixedWindow(String, Duration, long, Duration)} 与 Redis 的窗口对齐。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 10:48
+ */
+public class LocalRateLimiter implements RateLimiter {
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 100000L;
+
+    private final Map<RateLimitAlgorithm, Cache<String, State>> states = new EnumMap<>(RateLimitAlgorithm.class);
+
+    public LocalRateLimiter() {
+        this(DEFAULT_MAXIMUM_SIZE);
+    }
+
+    public LocalRateLimiter(long maximumSize) {
+        for (RateLimitAlgorithm algorithm : RateLimitAlgorithm.values()) {
+            states.put(algorithm, Caffeine.newBuilder()
+                    .maximumSize(maximumSize)
+                    .expireAfter(new StateExpiry())
+                    .build());
+        }
+    }
+
+    @Override
+    public boolean tryAcquire(RateLimitAlgorithm algorithm, String key, int permits, Duration period) {
+        long periodNanos = period.toNanos();
+        State state = states.get(algorithm).get(key, k -> createState(algorithm, permits, periodNanos));
+        return state.tryAcquire(System.nanoTime(), permits, periodNanos);
+    }
+
+    /**
+     * 判断当前是否允许访问，不占用访问许可
+     *
+     * @param algorithm 限流算法
+     * @param key       限流 Key
+     * @param permits   一个周期内允许的访问次数
+     * @param period    周期
+     * @return true 允许访问；false 超出限制
+     */
+    public boolean isPermitted(RateLimitAlgorithm algorithm, String key, int permits, Duration period) {
+        State state = states.get(algorithm).getIfPresent(key);
+        return state == null || state.isPermitted(System.nanoTime(), permits, period.toNanos());
+    }
+
+    /**
+     * 使用 Redis 返回的固定窗口状态覆盖本地状态，本地窗口与 Redis 中的窗口同时结束
+     *
+     * @param key       限流 Key
+     * @param period    周期
+     * @param count     窗口内的全局计数
+     * @param remaining 窗口剩余时间
+     */
+    public void alignFixedWindow(String key, Duration period, long count, Duration remaining) {
+        long periodNanos = period.toNanos();
+        State state = states.get(RateLimitAlgorithm.FIXED_WINDOW).get(key, k -> new FixedWindowState(periodNanos));
+        ((FixedWindowState) state).align(System.nanoTime() + remaining.toNanos() - periodNanos, count);
+    }
+
+    private State createState(RateLimitAlgorithm algorithm, int permits, long periodNanos) {
+        switch (algorithm) {
+            case TOKEN_BUCKET:
+                return new TokenBucketState(periodNanos, permits);
+            case GCRA:
+                return new GcraState(periodNanos);
+            case SLIDING_WINDOW_LOG:
+                return new SlidingWindowLogState(periodNanos, permits);
+            case SLIDING_WINDOW_COUNTER:
+                return new SlidingWindowCounterState(periodNanos);
+            default:
+                return new FixedWindowState(periodNanos);
+        }
+    }
+
+    private abstract static class State {
+
+        private final long idleNanos;
+
+        private State(long periodNanos) {
+            this.idleNanos = periodNanos > Long.MAX_VALUE / 2 ? Long.MAX_VALUE : periodNanos * 2;
+        }
+
+        abstract boolean tryAcquire(long now, int permits, long periodNanos);
+
+        abstract boolean isPermitted(long now, int permits, long periodNanos);
+    }
+
+    private static final class FixedWindowState extends State {
+
+        private final AtomicReference<long[]> window = new AtomicReference<>();
+
+        private FixedWindowState(long periodNanos) {
+            super(periodNanos);
+        }
+
+        @Override
+        boolean tryAcquire(long now, int permits, long periodNanos) {
+            while (true) {
+                // [0] 窗口开始时间，[1] 窗口内计数
+                long[] current = window.get();
+                long[] next;
+                if (current == null || now - current[0] >= periodNanos) {
+                    next = new long[]{now, 1};
+                } else if (current[1] >= permits) {
+                    return false;
+                } else {
+                    next = new long[]{current[0], current[1] + 1};
+                }
+                if (window.compareAndSet(current, next)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        boolean isPermitted(long now, int permits, long periodNanos) {
+            long[] current = window.get();
+            return current == null || now - current[0] >= periodNanos || current[1] < permits;
+        }
+
+        void align(long start, long count) {
+            window.set(new long[]{start, count});
+        }
+    }
+
+    private static final class TokenBucketState extends State {
+
+        private final AtomicReference<double[]> bucket;
+
+        private TokenBucketState(long periodNanos, int permits) {
+            super(periodNanos);
+            // [0] 剩余令牌数，[1] 上一次补充令牌的时间
+            this.bucket = new AtomicReference<>(new double[]{permits, System.nanoTime()});
+        }
+
+        @Override
+        boolean tryAcquire(long now, int permits, long periodNanos) {
+            while (true) {
+                double[] current = bucket.get();
+                double elapsed = Math.max(0D, now - current[1]);
+                double tokens = Math.min(permits, current[0] + elapsed * permits / periodNanos);
+                if (tokens < 1D) {
+                    return false;
+                }
+                if (bucket.compareAndSet(current, new double[]{tokens - 1D, Math.max(now, current[1])})) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        boolean isPermitted(long now, int permits, long periodNanos) {
+            double[] current = bucket.get();
+            double elapsed = Math.max(0D, now - current[1]);
+            return Math.min(permits, current[0] + elapsed * permits / periodNanos) >= 1D;
+        }
+    }
+
+    private static final class GcraState extends State {
+
+        private final AtomicLong theoreticalArrivalTime;
+
+        private GcraState(long periodNanos) {
+            super(periodNanos);
+            this.theoreticalArrivalTime = new AtomicLong(System.nanoTime());
+        }
+
+        @Override
+        boolean tryAcquire(long now, int permits, long periodNanos) {
+            long interval = Math.max(1L, periodNanos / permits);
+            while (true) {
+                long tat = theoreticalArrivalTime.get();
+                long start = now - tat > 0 ? now : tat;
+                long next = start + interval;
+                if (next - now > periodNanos) {
+                    return false;
+                }
+                if (theoreticalArrivalTime.compareAndSet(tat, next)) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        boolean isPermitted(long now, int permits, long periodNanos) {
+            long interval = Math.max(1L, periodNanos / permits);
+            long tat = theoreticalArrivalTime.get();
+            long start = now - tat > 0 ? now : tat;
+            return start + interval - now <= periodNanos;
+        }
+    }
+
+    private static final class SlidingWindowLogState extends State {
+
+        private final AtomicLongArray timestamps;
+        private final AtomicLong cursor = new AtomicLong();
+
+        private SlidingWindowLogState(long periodNanos, int permits) {
+            super(periodNanos);
+            this.timestamps = new AtomicLongArray(Math.max(1, permits));
+        }
+
+        @Override
+        boolean tryAcquire(long now, int permits, long periodNanos) {
+            int length = timestamps.length();
+            while (true) {
+                long position = cursor.get();
+                int slot = (int) (position % length);
+                // 环形数组已满时，当前槽位保存的是最早的一次访问
+                if (position >= length && now - timestamps.get(slot) < periodNanos) {
+                    return false;
+                }
+                if (cursor.compareAndSet(position, position + 1)) {
+                    timestamps.set(slot, now);
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        boolean isPermitted(long now, int permits, long periodNanos) {
+            int length = timestamps.length();
+            long position = cursor.get();
+            return position < length || now - timestamps.get((int) (position % length)) >= periodNanos;
+        }
+    }
+
+    private static final class SlidingWindowCounterState extends State {
+
+        private final AtomicReference<long[]> counter = new AtomicReference<>(new long[]{Long.MIN_VALUE, 0, 0});
+
+        private SlidingWindowCounterState(long periodNanos) {
+            super(periodNanos);
+        }
+
+        @Override
+        boolean tryAcquire(long now, int permits, long periodNanos) {
+            long time = currentTimeNanos();
+            long index = Math.floorDiv(time, periodNanos);
+            double weight = 1D - (double) Math.floorMod(time, periodNanos) / periodNanos;
+            while (true) {
+                // [0] 当前窗口序号，[1] 当前窗口计数，[2] 上一个窗口计数
+                long[] current = counter.get();
+                long count;
+                long previous;
+                if (current[0] == index) {
+                    count = current[1];
+                    previous = current[2];
+                } else if (current[0] == index - 1) {
+                    count = 0;
+                    previous = current[1];
+                } else {
+                    count = 0;
+                    previous = 0;
+                }
+                if (previous * weight + count >= permits) {
+                    return false;
+                }
+                if (counter.compareAndSet(current, new long[]{index, count + 1, previous})) {
+                    return true;
+                }
+            }
+        }
+
+        @Override
+        boolean isPermitted(long now, int permits, long periodNanos) {
+            long time = currentTimeNanos();
+            long index = Math.floorDiv(time, periodNanos);
+            double weight = 1D - (double) Math.floorMod(time, periodNanos) / periodNanos;
+            long[] current = counter.get();
+            if (current[0] == index) {
+                return current[2] * weight + current[1] < permits;
+            } else if (current[0] == index - 1) {
+                return current[1] * weight < permits;
+            }
+            return true;
+        }
+    }
+
+    /**
+     * 墙上时间（ns）。{@link System#nanoTime()} 的起点是任意的，无法用来划分与其它实例一致的窗口
+     */
+    private static long currentTimeNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+    }
+
+    private static final class StateExpiry implements Expiry<String, State> {
+
+        @Override
+        public long expireAfterCreate(String key, State value, long currentTime) {
+            return value.idleNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, State value, long currentTime, long currentDuration) {
+            return value.idleNanos;
+        }
+
+        @Override
+        public long expireAfterRead(String key, State value, long currentTime, long currentDuration) {
+            return value.idleNanos;
+        }
+    }
+}
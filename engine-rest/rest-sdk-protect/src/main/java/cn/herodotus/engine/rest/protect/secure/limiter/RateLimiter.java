@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.limiter;
+
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
+
+import java.time.Duration;
+
+/**
+ * <p>Description: 限流器 </p>
+ * <p>
+ * {@link cn.herodotus.engine.rest.core.annotation.AccessLimited} 通过该接口完成限流判断。判断和计数在一次原子操作中完成，
+ * 不存在"读取-判断-写回"之间的并发窗口。可以通过注册该类型的 Bean 替换默认实现。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 10:32
+ */
+public interface RateLimiter {
+
+    /**
+     * 尝试获取一次访问许可
+     *
+     * @param algorithm 限流算法
+     * @param key       限流 Key
+     * @param permits   一个周期内允许的访问次数
+     * @param period    周期
+     * @return true 允许访问；false 超出限制
+     */
+    boolean tryAcquire(RateLimitAlgorithm algorithm, String key, int permits, Duration period);
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.limiter;
+
+import cn.herodotus.engine.rest.core.constants.RestConstants;
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
+import cn.hutool.core.util.IdUtil;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * <p>Description: 基于 Redis 的限流器 </p>
+ * <p>
+ * 每种算法对应一个 Lua 脚本，判断和计数在 Redis 中原子完成，每次判断只需要一次网络往返，多实例之间限流准确。
+ * 时间以调用方的当前时间为准，各实例之间需要保持时钟同步。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 11:20
+ */
+public class RedisRateLimiter implements RateLimiter {
+
+    private static final String KEY_PREFIX = RestConstants.CACHE_NAME_TOKEN_ACCESS_LIMITED + "limiter:";
+
+    /**
+     * ARGV: 周期(ms)。返回 {窗口内计数, 窗口剩余时间(ms)}
+     */
+    @SuppressWarnings("rawtypes")
+    private static final RedisScript<List> FIXED_WINDOW_SCRIPT = new DefaultRedisScript<>(
+            "local count = redis.call('INCR', KEYS[1]) " +
+                    "local ttl = redis.call('PTTL', KEYS[1]) " +
+                    "if count == 1 or ttl < 0 then " +
+                    "redis.call('PEXPIRE', KEYS[1], ARGV[1]) " +
+                    "ttl = tonumber(ARGV[1]) " +
+                    "end " +
+                    "return {count, ttl}", List.class);
+
+    /**
+     * ARGV: 次数, 周期(ms), 当前时间(ms)
+     */
+    private static final RedisScript<Long> TOKEN_BUCKET_SCRIPT = new DefaultRedisScript<>(
+            "local permits = tonumber(ARGV[1]) " +
+                    "local period = tonumber(ARGV[2]) " +
+                    "local now = tonumber(ARGV[3]) " +
+                    "local state = redis.call('HMGET', KEYS[1], 'tokens', 'timestamp') " +
+                    "local tokens = tonumber(state[1]) " +
+                    "local timestamp = tonumber(state[2]) " +
+                    "if tokens == nil or timestamp == nil then tokens = permits timestamp = now end " +
+                    "tokens = math.min(permits, tokens + math.max(0, now - timestamp) * permits / period) " +
+                    "if tokens < 1 then return 0 end " +
+                    "redis.call('HMSET', KEYS[1], 'tokens', tostring(tokens - 1), 'timestamp', tostring(math.max(now, timestamp))) " +
+                    "redis.call('PEXPIRE', KEYS[1], period) " +
+                    "return 1", Long.class);
+
+    /**
+     * ARGV: 次数, 周期(ms), 当前时间(ms)
+     */
+    private static final RedisScript<Long> GCRA_SCRIPT = new DefaultRedisScript<>(
+            "local period = tonumber(ARGV[2]) " +
+                    "local now = tonumber(ARGV[3]) " +
+                    "local interval = period / tonumber(ARGV[1]) " +
+                    "local tat = tonumber(redis.call('GET', KEYS[1])) " +
+                    "if tat == nil or tat < now then tat = now end " +
+                    "local next = tat + interval " +
+                    "if next - now > period then return 0 end " +
+                    "redis.call('SET', KEYS[1], tostring(next), 'PX', math.max(1, math.ceil(next - now))) " +
+                    "return 1", Long.class);
+
+    /**
+     * ARGV: 次数, 周期(ms), 当前时间(ms), 本次访问的唯一标识
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW_LOG_SCRIPT = new DefaultRedisScript<>(
+            "local period = tonumber(ARGV[2]) " +
+                    "local now = tonumber(ARGV[3]) " +
+                    "redis.call('ZREMRANGEBYSCORE', KEYS[1], '-inf', now - period) " +
+                    "if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[1]) then return 0 end " +
+                    "redis.call('ZADD', KEYS[1], now, ARGV[4]) " +
+                    "redis.call('PEXPIRE', KEYS[1], period) " +
+                    "return 1", Long.class);
+
+    /**
+     * ARGV: 次数, 周期(ms), 当前时间(ms)
+     */
+    private static final RedisScript<Long> SLIDING_WINDOW_COUNTER_SCRIPT = new DefaultRedisScript<>(
+            "local period = tonumber(ARGV[2]) " +
+                    "local now = tonumber(ARGV[3]) " +
+                    "local index = math.floor(now / period) " +
+                    "local current = tonumber(redis.call('HGET', KEYS[1], string.format('%d', index))) or 0 " +
+                    "local previous = tonumber(redis.call('HGET', KEYS[1], string.format('%d', index - 1))) or 0 " +
+                    "local weight = 1 - (now - index * period) / period " +
+                    "if previous * weight + current >= tonumber(ARGV[1]) then return 0 end " +
+                    "redis.call('HINCRBY', KEYS[1], string.format('%d', index), 1) " +
+                    "redis.call('HDEL', KEYS[1], string.format('%d', index - 2)) " +
+                    "redis.call('PEXPIRE', KEYS[1], period * 2) " +
+                    "return 1", Long.class);
+
+    private static final Map<RateLimitAlgorithm, RedisScript<Long>> SCRIPTS = new EnumMap<>(RateLimitAlgorithm.class);
+
+    static {
+        SCRIPTS.put(RateLimitAlgorithm.TOKEN_BUCKET, TOKEN_BUCKET_SCRIPT);
+        SCRIPTS.put(RateLimitAlgorithm.GCRA, GCRA_SCRIPT);
+        SCRIPTS.put(RateLimitAlgorithm.SLIDING_WINDOW_LOG, SLIDING_WINDOW_LOG_SCRIPT);
+        SCRIPTS.put(RateLimitAlgorithm.SLIDING_WINDOW_COUNTER, SLIDING_WINDOW_COUNTER_SCRIPT);
+    }
+
+    private final StringRedisTemplate stringRedisTemplate;
+
+    public RedisRateLimiter(StringRedisTemplate stringRedisTemplate) {
+        this.stringRedisTemplate = stringRedisTemplate;
+    }
+
+    @Override
+    public boolean tryAcquire(RateLimitAlgorithm algorithm, String key, int permits, Duration period) {
+        if (algorithm == RateLimitAlgorithm.FIXED_WINDOW) {
+            return acquireFixedWindow(key, period).isAllowed(permits);
+        }
+
+        String redisKey = toRedisKey(algorithm, key);
+        String periodMillis = toPeriodMillis(period);
+        String now = String.valueOf(System.currentTimeMillis());
+
+        Long result;
+        if (algorithm == RateLimitAlgorithm.SLIDING_WINDOW_LOG) {
+            result = stringRedisTemplate.execute(SCRIPTS.get(algorithm), Collections.singletonList(redisKey), String.valueOf(permits), periodMillis, now, IdUtil.fastSimpleUUID());
+        } else {
+            result = stringRedisTemplate.execute(SCRIPTS.get(algorithm), Collections.singletonList(redisKey), String.valueOf(permits), periodMillis, now);
+        }
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 固定窗口计数。除计数外同时返回 Redis 中窗口的剩余时间，便于本地状态与 Redis 的窗口对齐。
+     *
+     * @param key    限流 Key
+     * @param period 周期
+     * @return {@link FixedWindow}
+     */
+    @SuppressWarnings("unchecked")
+    public FixedWindow acquireFixedWindow(String key, Duration period) {
+        List<Long> result = stringRedisTemplate.execute(FIXED_WINDOW_SCRIPT, Collections.singletonList(toRedisKey(RateLimitAlgorithm.FIXED_WINDOW, key)), toPeriodMillis(period));
+        if (result == null || result.size() < 2) {
+            return new FixedWindow(Long.MAX_VALUE, Duration.ZERO);
+        }
+        return new FixedWindow(result.get(0), Duration.ofMillis(Math.max(0L, result.get(1))));
+    }
+
+    private String toRedisKey(RateLimitAlgorithm algorithm, String key) {
+        return KEY_PREFIX + algorithm.name().toLowerCase() + ":" + key;
+    }
+
+    private String toPeriodMillis(Duration period) {
+        return String.valueOf(Math.max(1L, period.toMillis()));
+    }
+
+    /**
+     * 固定窗口在 Redis 中的状态
+     */
+    public static final class FixedWindow {
+
+        /**
+         * 窗口内的全局计数，包含本次访问
+         */
+        private final long count;
+
+        /**
+         * 窗口剩余时间
+         */
+        private final Duration remaining;
+
+        private FixedWindow(long count, Duration remaining) {
+            this.count = count;
+            this.remaining = remaining;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public Duration getRemaining() {
+            return remaining;
+        }
+
+        public boolean isAllowed(int permits) {
+            return count <= permits;
+        }
+    }
+}
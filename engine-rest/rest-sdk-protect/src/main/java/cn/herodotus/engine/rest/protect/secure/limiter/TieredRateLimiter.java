@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2020-2030 ZHENGGENGWEI(码匠君)<herodotus@aliyun.com>
+ *
+ * Dante Engine licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * Dante Engine 采用APACHE LICENSE 2.0开源协议，您在使用过程中，需要注意以下几点：
+ *
+ * 1.请不要删除和修改根目录下的LICENSE文件。
+ * 2.请不要删除和修改 Dante Cloud 源码头部的版权声明。
+ * 3.请保留源码和相关描述文件的项目出处，作者声明等。
+ * 4.分发源码时候，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 5.在修改包名，模块名称，项目代码等时，请注明软件出处 https://gitee.com/herodotus/dante-engine
+ * 6.若您的项目无法满足以上几点，可申请商业授权
+ */
+
+package cn.herodotus.engine.rest.protect.secure.limiter;
+
+import cn.herodotus.engine.rest.core.enums.RateLimitAlgorithm;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+
+/**
+ * <p>Description: 带本地预检的限流器 </p>
+ * <p>
+ * 先使用本地限流器预检（只判断不计数），本地拒绝的请求直接返回，不再访问 Redis，突发流量不会全部打到 Redis 上。
+ * 只有本地超出限制时全局也一定超出限制，预检才不会误拒绝，因此本地状态不能比 Redis 中的状态更严格：
+ * 1. 令牌桶、GCRA、滑动窗口日志：本地只记录 Redis 允许的访问，是全局访问的子集，本地状态不会比全局更严格。
+ * 2. 滑动窗口计数：本地与 Redis 都按照墙上时间划分窗口，窗口边界一致，本地计数是全局计数的子集。
+ * 3. 固定窗口：Redis 中的窗口从全局第一次访问开始，与本地第一次访问无关。每次访问 Redis 后，使用 Redis 返回的全局计数和窗口剩余时间覆盖本地状态，
+ * 本地窗口与 Redis 窗口同时结束。
+ * <p>
+ * Redis 不可用时，以本地限流器的结果为准。各实例之间需要保持时钟同步。
+ *
+ * @author : gengwei.zheng
+ * @date : 2023/4/20 11:52
+ */
+public class TieredRateLimiter implements RateLimiter {
+
+    private static final Logger log = LoggerFactory.getLogger(TieredRateLimiter.class);
+
+    private final LocalRateLimiter local;
+    private final RedisRateLimiter remote;
+
+    public TieredRateLimiter(LocalRateLimiter local, RedisRateLimiter remote) {
+        this.local = local;
+        this.remote = remote;
+    }
+
+    @Override
+    public boolean tryAcquire(RateLimitAlgorithm algorithm, String key, int permits, Duration period) {
+        if (!local.isPermitted(algorithm, key, permits, period)) {
+            log.trace("[Herodotus] |- Rate limit key [{}] rejected by local pre-check.", key);
+            return false;
+        }
+
+        try {
+            if (algorithm == RateLimitAlgorithm.FIXED_WINDOW) {
+                RedisRateLimiter.FixedWindow window = remote.acquireFixedWindow(key, period);
+                local.alignFixedWindow(key, period, window.getCount(), window.getRemaining());
+                return window.isAllowed(permits);
+            }
+
+            boolean allowed = remote.tryAcquire(algorithm, key, permits, period);
+            if (allowed) {
+                // 本地计数只用于预检，并发时本地可能已经用完许可，以远程的结果为准
+                local.tryAcquire(algorithm, key, permits, period);
+            }
+            return allowed;
+        } catch (RuntimeException e) {
+            log.warn("[Herodotus] |- Remote rate limiter is unavailable, fall back to local result. {}", e.getMessage());
+            return local.tryAcquire(algorithm, key, permits, period);
+        }
+    }
+}
@@ -25,7 +25,7 @@
 
 package cn.herodotus.engine.rest.protect.secure.stamp;
 
-import cn.herodotus.engine.cache.jetcache.stamp.AbstractStampManager;
+import cn.herodotus.engine.cache.jetcache.stamp.AbstractCountStampManager;
 import cn.herodotus.engine.rest.core.constants.RestConstants;
 import cn.herodotus.engine.rest.core.properties.SecureProperties;
 
@@ -37,7 +37,7 @@ import cn.herodotus.engine.rest.core.properties.SecureProperties;
  * @author : gengwei.zheng
  * @date : 2021/8/25 21:43
  */
-public class AccessLimitedStampManager extends AbstractStampManager<String, Long> {
+public class AccessLimitedStampManager extends AbstractCountStampManager {
 
     private final SecureProperties secureProperties;
 